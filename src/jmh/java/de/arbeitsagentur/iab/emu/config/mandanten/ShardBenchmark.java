@@ -0,0 +1,123 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.Main;
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durchsatz beim Anlegen von KundInnen mit vielen Tenant-IDs und parallelen Threads, verteilt auf eine
+ * unterschiedliche Anzahl von Shards. Jeder Shard ist eine eigene H2-Datei unter target/, sodass die Schreibzugriffe
+ * verschiedener Shards nicht um dieselbe Datenbank konkurrieren.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardBenchmark {
+
+    private static final Path VERZEICHNIS = Path.of("target", "benchmark-shards");
+
+    @Param({"1", "2", "4"})
+    int anzahlShards;
+
+    @Param({"200"})
+    int anzahlTenants;
+
+    private ConfigurableApplicationContext context;
+
+    private TenantResolver tenantResolver;
+
+    private KundInService kundInService;
+
+    private String[] tenants;
+
+    private final AtomicInteger nummer = new AtomicInteger();
+
+    private static String url(int shard) {
+        return "jdbc:h2:" + VERZEICHNIS.resolve("shard" + shard).toAbsolutePath();
+    }
+
+    @Setup(Level.Trial)
+    public void starten() throws Exception {
+        FileSystemUtils.deleteRecursively(VERZEICHNIS);
+        final List<String> weitere = new ArrayList<>();
+        for (int shard = 1; shard < anzahlShards; shard++) {
+            weitere.add(url(shard));
+        }
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url(0),
+                        "--emu.mandanten.trennung=shards",
+                        "--emu.mandanten.shards=" + String.join(",", weitere),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        tenantResolver = context.getBean(TenantResolver.class);
+        kundInService = context.getBean(KundInService.class);
+        final ProjektService projektService = context.getBean(ProjektService.class);
+        final Mandantenbereitstellung bereitstellung = context.getBean(Mandantenbereitstellung.class);
+
+        tenants = new String[anzahlTenants];
+        for (int i = 0; i < anzahlTenants; i++) {
+            tenants[i] = "shard-" + i;
+            bereitstellung.bereitstellen(tenants[i]);
+            tenantResolver.setCurrentTenant(tenants[i]);
+            projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void beenden() {
+        context.close();
+    }
+
+    @Benchmark
+    public KundIn anlegen() throws Exception {
+        tenantResolver.setCurrentTenant(tenants[ThreadLocalRandom.current().nextInt(tenants.length)]);
+        final KundInnendaten kundInnendaten = new KundInnendaten();
+        kundInnendaten.setGeburtsdatum(LocalDate.now());
+        kundInnendaten.setKundInnenennummer(String.format("123a%06d", nummer.incrementAndGet() % 1000000));
+        kundInnendaten.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kundInnendaten.setNachname("Nachname");
+        return kundInService.create(kundInnendaten);
+    }
+}
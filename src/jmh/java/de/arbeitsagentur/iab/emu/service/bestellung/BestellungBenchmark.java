@@ -0,0 +1,130 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.bestellung;
+
+import de.arbeitsagentur.iab.emu.Main;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.userin.UserIn;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eine Bestellung mit vielen Gruppen und UserInnen. Misst vor allem, ob die Inserts für Gruppen und UserInnen
+ * per JDBC-Batch ausgeführt werden. Gemessen wird ohne HTTP gegen eine H2-In-Memory-Datenbank, die entweder im
+ * selben Prozess ("mem") oder über einen lokalen TCP-Server ("tcp") angesprochen wird. Nur bei "tcp" kostet jede
+ * Anweisung einen Roundtrip wie bei einer echten Datenbank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BestellungBenchmark {
+
+    @Param({"50"})
+    int anzahlGruppen;
+
+    @Param({"500"})
+    int anzahlUserInnen;
+
+    @Param({"mem", "tcp"})
+    String verbindung;
+
+    private Server server;
+
+    private ConfigurableApplicationContext context;
+
+    private BestellungService bestellungService;
+
+    private Bestellung bestellung;
+
+    @Setup(Level.Trial)
+    public void starten() throws SQLException {
+        String url = "jdbc:h2:mem:benchmark";
+        if ("tcp".equals(verbindung)) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:benchmark";
+        }
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        bestellungService = context.getBean(BestellungService.class);
+    }
+
+    /**
+     * Jeder Durchlauf erfolgt mit einer neuen Tenant-ID und neuen Objekten, weil pro Tenant-ID nur ein Projekt
+     * angelegt werden kann und die gespeicherten Objekte ihre ID behalten.
+     */
+    @Setup(Level.Invocation)
+    public void neueBestellung() {
+        context.getBean(TenantResolver.class).setCurrentTenant(UUID.randomUUID().toString());
+
+        final Projekt projekt = ProjektFactory.gueltigesProjektErzeugen();
+        final List<Gruppe> gruppen = new ArrayList<>(anzahlGruppen);
+        for (int i = 0; i < anzahlGruppen; i++) {
+            Gruppe gruppe = new Gruppe();
+            gruppe.setUntergrenze(i * 10 + 1);
+            gruppe.setObergrenze(i * 10 + 10);
+            gruppe.setBezeichnung("Gruppe " + i);
+            gruppen.add(gruppe);
+        }
+        projekt.setGruppen(gruppen);
+
+        final List<UserIn> userInnen = new ArrayList<>(anzahlUserInnen);
+        for (int i = 0; i < anzahlUserInnen; i++) {
+            UserIn userIn = new UserIn();
+            userIn.setLogin("login" + i);
+            userIn.setRolle("rolle");
+            userInnen.add(userIn);
+        }
+
+        bestellung = new Bestellung();
+        bestellung.setProjekt(projekt);
+        bestellung.setUserInnen(userInnen);
+    }
+
+    @TearDown(Level.Trial)
+    public void beenden() {
+        context.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public Bestellung bestellen() throws Exception {
+        bestellungService.bestellen(bestellung);
+        return bestellung;
+    }
+}
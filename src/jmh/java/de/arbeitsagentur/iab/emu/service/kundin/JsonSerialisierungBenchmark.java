@@ -0,0 +1,86 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson-Serialisierung der Objekte, die am häufigsten an den Client geschickt werden.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonSerialisierungBenchmark {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+
+    private KundIn kundIn;
+
+    private Projekt projekt;
+
+    @Setup
+    public void setup() {
+        projekt = ProjektFactory.gueltigesProjektErzeugen();
+        projekt.setId(1);
+
+        KundInnendaten kundInnendaten = new KundInnendaten();
+        kundInnendaten.setVorname("Vorname");
+        kundInnendaten.setNachname("Nachname");
+        kundInnendaten.setGeburtsdatum(LocalDate.of(1980, 1, 1));
+        kundInnendaten.setKundInnenennummer("123a567890");
+        kundInnendaten.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        List<Zusatzinformation> zusatzinformationen = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Zusatzinformation zusatzinformation = new Zusatzinformation();
+            zusatzinformation.setName("Feld" + i);
+            zusatzinformation.setTyp("String");
+            zusatzinformation.setWert("Wert " + i);
+            zusatzinformationen.add(zusatzinformation);
+        }
+        kundInnendaten.setZusatzinformationen(zusatzinformationen);
+
+        kundIn = new KundIn();
+        kundIn.setId(42);
+        kundIn.setKundInnendaten(kundInnendaten);
+        kundIn.setGruppe(projekt.getGruppen().get(0));
+    }
+
+    @Benchmark
+    public byte[] kundIn() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(kundIn);
+    }
+
+    @Benchmark
+    public byte[] projekt() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(projekt);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.Main;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eine Seite der Suche inklusive JSON-Serialisierung: vollständige KundInnen als Entities im Vergleich zur
+ * Projektion {@link KundInSuchergebnis}. Die Allokationen pro Aufruf stehen in gc.alloc.rate.norm.
+ * Gemessen wird ohne HTTP gegen eine H2-In-Memory-Datenbank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KundInSucheBenchmark {
+
+    @Param({"2000"})
+    int anzahlKundInnen;
+
+    /**
+     * "mu" wird von der Datenbank beantwortet, "muster" vom Suchindex.
+     */
+    @Param({"mu", "muster"})
+    String suchbegriff;
+
+    private ConfigurableApplicationContext context;
+
+    private KundInService kundInService;
+
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void starten() {
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        kundInService = context.getBean(KundInService.class);
+        mapper = context.getBean(ObjectMapper.class);
+
+        context.getBean(TenantResolver.class).setCurrentTenant(UUID.randomUUID().toString());
+        try {
+            context.getBean(ProjektService.class).create(ProjektFactory.gueltigesProjektErzeugen());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        List<KundInnendaten> kundInnendatenListe = new ArrayList<>(anzahlKundInnen);
+        for (int i = 0; i < anzahlKundInnen; i++) {
+            KundInnendaten kundInnendaten = new KundInnendaten();
+            kundInnendaten.setVorname("Vorname");
+            kundInnendaten.setNachname(i % 2 == 0 ? "Mustermann" : "Schmidt");
+            kundInnendaten.setKundInnenennummer(String.format("123a%06d", i));
+            kundInnendaten.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+            List<Zusatzinformation> zusatzinformationen = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                Zusatzinformation zusatzinformation = new Zusatzinformation();
+                zusatzinformation.setName("Feld" + j);
+                zusatzinformation.setTyp("String");
+                zusatzinformation.setWert("Wert " + j);
+                zusatzinformationen.add(zusatzinformation);
+            }
+            kundInnendaten.setZusatzinformationen(zusatzinformationen);
+            kundInnendatenListe.add(kundInnendaten);
+        }
+        try {
+            kundInService.importieren(kundInnendatenListe);
+        } catch (GruppeNichtGefundenException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void beenden() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entities() throws Exception {
+        return mapper.writeValueAsBytes(kundInService.getBySuchbegriff(suchbegriff, null, KundInService.MAX_SUCHERGEBNISSE).kundInnen());
+    }
+
+    @Benchmark
+    public byte[] projektion() throws Exception {
+        return mapper.writeValueAsBytes(kundInService.getSuchergebnisse(suchbegriff, null, KundInService.MAX_SUCHERGEBNISSE).kundInnen());
+    }
+}
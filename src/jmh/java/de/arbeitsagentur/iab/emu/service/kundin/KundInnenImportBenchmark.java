@@ -0,0 +1,107 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.Main;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anlegen vieler KundInnen: einzeln (ein Aufruf von {@link KundInService#create(KundInnendaten)} pro Person,
+ * wie bei einem POST pro Person) im Vergleich zum Import. Gemessen wird ohne HTTP gegen eine H2-In-Memory-Datenbank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KundInnenImportBenchmark {
+
+    @Param({"1000"})
+    int anzahl;
+
+    private ConfigurableApplicationContext context;
+
+    private KundInService kundInService;
+
+    private List<KundInnendaten> kundInnendatenListe;
+
+    @Setup(Level.Trial)
+    public void starten() {
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        kundInService = context.getBean(KundInService.class);
+
+        kundInnendatenListe = new ArrayList<>(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            KundInnendaten kundInnendaten = new KundInnendaten();
+            kundInnendaten.setNachname("Nachname");
+            kundInnendaten.setKundInnenennummer(String.format("123a%06d", i));
+            kundInnendaten.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+            Zusatzinformation zusatzinformation = new Zusatzinformation();
+            zusatzinformation.setName("Feld");
+            zusatzinformation.setWert("Wert");
+            kundInnendaten.setZusatzinformationen(List.of(zusatzinformation));
+            kundInnendatenListe.add(kundInnendaten);
+        }
+    }
+
+    /**
+     * Jeder Durchlauf erfolgt mit einer neuen Tenant-ID, damit die KundInnennummern wieder frei sind.
+     */
+    @Setup(Level.Invocation)
+    public void neuerTenant() throws Exception {
+        context.getBean(TenantResolver.class).setCurrentTenant(UUID.randomUUID().toString());
+        context.getBean(ProjektService.class).create(ProjektFactory.gueltigesProjektErzeugen());
+    }
+
+    @TearDown(Level.Trial)
+    public void beenden() {
+        context.close();
+    }
+
+    @Benchmark
+    public int einzeln() throws Exception {
+        int angelegt = 0;
+        for (KundInnendaten kundInnendaten : kundInnendatenListe) {
+            kundInService.create(kundInnendaten);
+            angelegt++;
+        }
+        return angelegt;
+    }
+
+    @Benchmark
+    public List<KundInnenImportErgebnis> importieren() throws Exception {
+        return kundInService.importieren(kundInnendatenListe);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KundInnennummerValidatorBenchmark {
+
+    @Param({"123a567890", "123A567890", "123a5!7890"})
+    String kundInnennummer;
+
+    @Benchmark
+    public boolean isValid() {
+        return KundInnennummerValidator.isValid(kundInnennummer);
+    }
+
+    @Benchmark
+    public String normalisiere() {
+        return KundInnennummerValidator.normalisiere(kundInnennummer);
+    }
+
+    /**
+     * Referenz: bisherige Prüfung mit regulärem Ausdruck, der bei jedem Aufruf kompiliert wurde.
+     */
+    @Benchmark
+    public boolean isValidRegex() {
+        return Pattern.compile("\\d{3}[a-z]\\d{6}", Pattern.CASE_INSENSITIVE).matcher(kundInnennummer).find();
+    }
+
+    /**
+     * Referenz: bisherige Normalisierung, die bei jedem Aufruf eine Kopie in Kleinbuchstaben erzeugt hat.
+     */
+    @Benchmark
+    public String normalisiereToLowerCase() {
+        return kundInnennummer.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teilstring-Suche über {@link Trigrammindex} im Vergleich zum Durchsuchen aller Suchtexte, wie es die Datenbank bei
+ * "like '%x%'" tun muss (ohne I/O, also eine Untergrenze für den Tabellenscan). Beide liefern höchstens 101 Treffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TrigrammindexBenchmark {
+
+    private static final String[] SILBEN = {"mül", "ler", "schm", "idt", "wag", "ner", "bau", "er", "hof", "mann",
+            "kla", "us", "ber", "ger", "sch", "ulz", "kel", "lin", "stei", "fer", "wei", "ß", "kö", "nig", "zie", "gel"};
+
+    @Param({"100000", "1000000"})
+    int anzahl;
+
+    /**
+     * "ger" kommt in vielen Nachnamen vor, "kelstei" in wenigen, "456a123456" ist eine KundInnennummer.
+     */
+    @Param({"ger", "kelstei", "456a123456"})
+    String suchbegriff;
+
+    private Trigrammindex index;
+
+    private String[] suchtexte;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        index = new Trigrammindex();
+        suchtexte = new String[anzahl];
+        for (int id = 0; id < anzahl; id++) {
+            final StringBuilder nachname = new StringBuilder();
+            for (int i = 0, silben = 2 + random.nextInt(3); i < silben; i++) {
+                nachname.append(SILBEN[random.nextInt(SILBEN.length)]);
+            }
+            final String kundInnennummer = String.format("%03da%06d", random.nextInt(1000), id);
+            index.setzen(id, nachname.toString(), kundInnennummer);
+            suchtexte[id] = Trigrammindex.suchtext(nachname.toString(), kundInnennummer);
+        }
+    }
+
+    @Benchmark
+    public int[] trigrammindex() {
+        return index.suchen(suchbegriff, KundInService.MAX_SUCHERGEBNISSE);
+    }
+
+    @Benchmark
+    public int scan() {
+        final String begriff = suchbegriff.toLowerCase(Locale.ROOT);
+        int treffer = 0;
+        for (int i = 0; i < suchtexte.length && treffer < KundInService.MAX_SUCHERGEBNISSE; i++) {
+            if (suchtexte[i].contains(begriff)) {
+                treffer++;
+            }
+        }
+        return treffer;
+    }
+}
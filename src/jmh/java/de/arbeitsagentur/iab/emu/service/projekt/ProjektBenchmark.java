@@ -0,0 +1,59 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.projekt;
+
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProjektBenchmark {
+
+    @Param({"2", "10", "100"})
+    int anzahlGruppen;
+
+    private Projekt projekt;
+
+    @Setup
+    public void setup() {
+        List<Gruppe> gruppen = new ArrayList<>();
+        for (int i = 0; i < anzahlGruppen; i++) {
+            Gruppe gruppe = new Gruppe();
+            gruppe.setBezeichnung("Gruppe " + i);
+            gruppe.setUntergrenze(i * 100 + 1);
+            gruppe.setObergrenze(i * 100 + 100);
+            gruppen.add(gruppe);
+        }
+        projekt = ProjektFactory.gueltigesProjektErzeugen();
+        projekt.setGruppen(gruppen);
+    }
+
+    @Benchmark
+    public String validiereGruppen() {
+        return projekt.validiereGruppen();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.Main;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durchsatz der Zuordnung zu einer Gruppe mit vielen Tenant-IDs und parallelen Threads, je Verfahren. Jeder Aufruf
+ * erfolgt wie beim Anlegen einer Kundin / eines Kunden in einer eigenen Transaktion, aber ohne Insert.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RandomisierungBenchmark {
+
+    @Param({"Intervall", "Block", "Zuteilungsliste"})
+    Randomisierungsverfahren verfahren;
+
+    @Param({"1000"})
+    int anzahlTenants;
+
+    private ConfigurableApplicationContext context;
+
+    private TenantResolver tenantResolver;
+
+    private Randomisierung randomisierung;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String[] tenants;
+
+    @Setup(Level.Trial)
+    public void starten() throws Exception {
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        tenantResolver = context.getBean(TenantResolver.class);
+        randomisierung = context.getBean(Randomisierung.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        final ProjektService projektService = context.getBean(ProjektService.class);
+
+        tenants = new String[anzahlTenants];
+        for (int i = 0; i < anzahlTenants; i++) {
+            tenants[i] = verfahren + "-" + i;
+            tenantResolver.setCurrentTenant(tenants[i]);
+            final Projekt projekt = ProjektFactory.gueltigesProjektErzeugen();
+            projekt.setRandomisierungsverfahren(verfahren);
+            randomisierung.projektAngelegt(projektService.create(projekt));
+        }
+        // Projekt, Gruppenintervalle und Zustand der Verfahren in die Caches laden.
+        for (int i = 0; i < anzahlTenants; i++) {
+            tenantResolver.setCurrentTenant(tenants[i]);
+            zuteilenInTransaktion();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void beenden() {
+        context.close();
+    }
+
+    @Benchmark
+    public Zuteilung zuteilen() {
+        tenantResolver.setCurrentTenant(tenants[ThreadLocalRandom.current().nextInt(tenants.length)]);
+        return zuteilenInTransaktion();
+    }
+
+    private Zuteilung zuteilenInTransaktion() {
+        return transactionTemplate.execute(status -> {
+            try {
+                return randomisierung.zuteilen(new KundIn());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
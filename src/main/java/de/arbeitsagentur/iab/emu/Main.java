@@ -20,8 +20,10 @@ package de.arbeitsagentur.iab.emu;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication()
+@EnableScheduling
 public class Main {
 
 		public static void main(String[] args)   
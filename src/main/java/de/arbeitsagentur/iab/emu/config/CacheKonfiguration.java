@@ -0,0 +1,75 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches für selten geänderte Stammdaten (Projekt mit Gruppen und Felddefinitionen, UserInnen).
+ * <p>
+ * Die Einträge werden nach Größe und Alter verdrängt und bei Änderungen explizit invalidiert.
+ * Das Invalidieren erfolgt erst nach dem Commit der laufenden Transaktion, damit ein paralleler
+ * Request nicht den alten Stand erneut in den Cache lädt. Die Trefferquoten werden über
+ * Actuator als Metrik {@code cache.gets} veröffentlicht.
+ */
+@Configuration
+@EnableCaching
+public class CacheKonfiguration implements CachingConfigurer {
+
+    public static final String PROJEKT = "projekt";
+
+    public static final String USERINNEN = "userinnen";
+
+    /**
+     * SpEL-Ausdruck für den Schlüssel des Eintrags der aktuellen MandantIn.
+     * Siehe {@link MandantenSchluessel#nurMandant()}.
+     */
+    public static final String MANDANT = "@" + MandantenSchluessel.NAME + ".nurMandant()";
+
+    private final MandantenSchluessel mandantenSchluessel;
+
+    private final String spezifikation;
+
+    public CacheKonfiguration(MandantenSchluessel mandantenSchluessel,
+                              @Value("${emu.cache.spezifikation:maximumSize=10000,expireAfterWrite=10m}") String spezifikation) {
+        this.mandantenSchluessel = mandantenSchluessel;
+        this.spezifikation = spezifikation;
+    }
+
+    @Bean
+    @Override
+    public CacheManager cacheManager() {
+        final CaffeineCacheManager cacheManager = new CaffeineCacheManager(PROJEKT, USERINNEN);
+        cacheManager.setCaffeine(Caffeine.from(spezifikation).recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Override
+    public KeyGenerator keyGenerator() {
+        return mandantenSchluessel;
+    }
+}
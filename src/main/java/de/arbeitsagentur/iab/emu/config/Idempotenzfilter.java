@@ -0,0 +1,253 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Wiederholte Anfragen mit demselben Header {@value #HEADER} erhalten die Antwort der ersten Anfrage, ohne dass diese
+ * erneut ausgeführt wird. Gilt für das Anlegen einer Kundin / eines Kunden und für das Abschicken einer Bestellung,
+ * damit Clients nach einem Netzwerkfehler gefahrlos wiederholen können und kein zweiter Münzwurf erfolgt.
+ * <p>
+ * Der Schlüssel gilt pro Tenant-ID und Pfad und ist an einen Hash über Methode, Pfad und Body der ersten Anfrage
+ * gebunden. Eine Anfrage mit demselben Schlüssel, aber anderem Inhalt wird mit 422 abgelehnt. Gespeichert werden
+ * Status, Header und Body aller Antworten außer Serverfehlern (5xx), die Anfrage darf nach einem Serverfehler also
+ * erneut ausgeführt werden. Kommt eine Wiederholung, während die erste Anfrage noch läuft, wird sie mit 409
+ * abgelehnt. Die Antworten werden nur in dieser Instanz gehalten.
+ */
+@Component
+public class Idempotenzfilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	/**
+	 * Response-Header, der eine wiederholte Antwort kennzeichnet.
+	 */
+	public static final String HEADER_WIEDERHOLT = "Idempotent-Replayed";
+
+	static final int MAX_LAENGE = 255;
+
+	/**
+	 * Header, die nicht gespeichert werden. Content-Type wird gesondert gespeichert, die übrigen gehören nur zur
+	 * jeweiligen Übertragung.
+	 */
+	private static final Set<String> NICHT_WIEDERHOLEN = Set.of(
+			"content-type", "content-length", "transfer-encoding", "connection", "keep-alive", "date",
+			HEADER_WIEDERHOLT.toLowerCase(Locale.ROOT));
+
+	private static final List<PathPattern> PFADE = List.of(
+			PathPatternParser.defaultInstance.parse("/api/v1/{tenantId}/kundinnen"),
+			PathPatternParser.defaultInstance.parse("/api/v1/{tenantId}/bestellung/"));
+
+	private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+	private final Idempotenzspeicher speicher;
+
+	public Idempotenzfilter(@Value("${emu.idempotenz.dauer:PT24H}") Duration dauer,
+							@Value("${emu.idempotenz.max-bytes:67108864}") long maxBytes) {
+		speicher = new Idempotenzspeicher(dauer, maxBytes);
+	}
+
+	Idempotenzspeicher getSpeicher() {
+		return speicher;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		final String pfad = urlPathHelper.getPathWithinApplication(request);
+		final PathPattern.PathMatchInfo treffer = PFADE.stream()
+				.map(pattern -> pattern.matchAndExtract(PathContainer.parsePath(pfad)))
+				.filter(Objects::nonNull)
+				.findFirst()
+				.orElse(null);
+		if (treffer == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		final String schluessel = request.getHeader(HEADER);
+		if (schluessel.isEmpty() || schluessel.length() > MAX_LAENGE) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " muss 1 bis " + MAX_LAENGE + " Zeichen lang sein.");
+			return;
+		}
+		final String tenant = treffer.getUriVariables().get("tenantId");
+		final GelesenerRequest gelesen = new GelesenerRequest(request);
+		final byte[] fingerabdruck = fingerabdruck(request, gelesen.inhalt);
+
+		final Idempotenzspeicher.Antwort gespeichert = speicher.reservieren(tenant, pfad, schluessel, fingerabdruck);
+		if (gespeichert != null && !gespeichert.passt(fingerabdruck)) {
+			response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+					HEADER + " wurde bereits für eine andere Anfrage verwendet.");
+			return;
+		}
+		if (gespeichert != null && gespeichert.isInArbeit()) {
+			response.sendError(HttpStatus.CONFLICT.value(), "Eine Anfrage mit diesem " + HEADER + " wird noch verarbeitet.");
+			return;
+		}
+		if (gespeichert != null) {
+			wiederholen(gespeichert, response);
+			return;
+		}
+
+		final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		boolean abgeschlossen = false;
+		try {
+			filterChain.doFilter(gelesen, wrapper);
+			if (wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+				speicher.speichern(tenant, pfad, schluessel, new Idempotenzspeicher.Antwort(wrapper.getStatus(),
+						wrapper.getContentType(), header(wrapper), wrapper.getContentAsByteArray(), fingerabdruck));
+				abgeschlossen = true;
+			}
+		} finally {
+			if (!abgeschlossen) {
+				speicher.freigeben(tenant, pfad, schluessel);
+			}
+			wrapper.copyBodyToResponse();
+		}
+	}
+
+	/**
+	 * @return SHA-256 über Methode, Pfad samt Query und Body der Anfrage.
+	 */
+	private static byte[] fingerabdruck(HttpServletRequest request, byte[] inhalt) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+		digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+		if (request.getQueryString() != null) {
+			digest.update((byte) '?');
+			digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update((byte) '\n');
+		return digest.digest(inhalt);
+	}
+
+	private static Map<String, List<String>> header(HttpServletResponse response) {
+		final Map<String, List<String>> header = new LinkedHashMap<>();
+		for (String name : response.getHeaderNames()) {
+			if (!NICHT_WIEDERHOLEN.contains(name.toLowerCase(Locale.ROOT))) {
+				header.putIfAbsent(name, List.copyOf(response.getHeaders(name)));
+			}
+		}
+		return header;
+	}
+
+	private static void wiederholen(Idempotenzspeicher.Antwort antwort, HttpServletResponse response) throws IOException {
+		response.setStatus(antwort.status());
+		if (antwort.contentType() != null) {
+			response.setContentType(antwort.contentType());
+		}
+		antwort.header().forEach((name, werte) -> werte.forEach(wert -> response.addHeader(name, wert)));
+		response.setHeader(HEADER_WIEDERHOLT, "true");
+		response.setContentLength(antwort.inhalt().length);
+		response.getOutputStream().write(antwort.inhalt());
+	}
+
+	/**
+	 * Liest den Body vorab, damit er in den Fingerabdruck eingeht und trotzdem vom Controller gelesen werden kann.
+	 */
+	private static final class GelesenerRequest extends HttpServletRequestWrapper {
+
+		private final byte[] inhalt;
+
+		GelesenerRequest(HttpServletRequest request) throws IOException {
+			super(request);
+			this.inhalt = request.getInputStream().readAllBytes();
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			final ByteArrayInputStream eingabe = new ByteArrayInputStream(inhalt);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return eingabe.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return eingabe.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return eingabe.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			final String encoding = getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(getInputStream(),
+					encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Speichert die erste Antwort pro Tenant-ID und Idempotency-Key für eine begrenzte Dauer, siehe
+ * {@link Idempotenzfilter}. Die Einträge werden nach Ablauf der Dauer und bei Überschreiten der Gesamtgröße
+ * verdrängt. Caffeine erledigt beides nebenbei beim Lesen und Schreiben, es gibt also keinen eigenen Thread und
+ * keine globale Sperre.
+ */
+final class Idempotenzspeicher {
+
+	/**
+	 * Geschätzter Platzbedarf eines Eintrags ohne Schlüssel, Header und Inhalt in Bytes.
+	 */
+	private static final int GRUNDGROESSE = 96;
+
+	/**
+	 * Die gespeicherte Antwort.
+	 * @param status HTTP-Status, 0 für eine Anfrage, die gerade verarbeitet wird (siehe {@link #inArbeit(byte[])}).
+	 * @param contentType Content-Type oder null.
+	 * @param header Die übrigen Header der Antwort, z. B. Location.
+	 * @param inhalt Body.
+	 * @param fingerabdruck Hash über Methode, Pfad und Body der Anfrage, siehe {@link Idempotenzfilter}.
+	 */
+	record Antwort(int status, String contentType, Map<String, List<String>> header, byte[] inhalt, byte[] fingerabdruck) {
+
+		/**
+		 * @return Platzhalter für eine Anfrage, die gerade verarbeitet wird.
+		 */
+		static Antwort inArbeit(byte[] fingerabdruck) {
+			return new Antwort(0, null, Map.of(), new byte[0], fingerabdruck);
+		}
+
+		boolean isInArbeit() {
+			return status == 0;
+		}
+
+		/**
+		 * @return True, falls die Antwort zu einer Anfrage mit diesem Fingerabdruck gehört.
+		 */
+		boolean passt(byte[] fingerabdruck) {
+			return Arrays.equals(this.fingerabdruck, fingerabdruck);
+		}
+
+		private int groesse() {
+			int groesse = inhalt.length + fingerabdruck.length;
+			for (Map.Entry<String, List<String>> eintrag : header.entrySet()) {
+				groesse += eintrag.getKey().length() * 2;
+				for (String wert : eintrag.getValue()) {
+					groesse += wert.length() * 2;
+				}
+			}
+			return groesse;
+		}
+	}
+
+	private final Cache<String, Antwort> antworten;
+
+	/**
+	 * Platzhalter laufender Anfragen wiegen nichts und werden deshalb nicht wegen der Gesamtgröße verdrängt. Sonst
+	 * könnte eine Wiederholung während der ersten Anfrage ein zweites Mal ausgeführt werden.
+	 * @param dauer So lange wird eine Antwort gespeichert.
+	 * @param maxBytes Ungefähre Gesamtgröße aller gespeicherten Antworten.
+	 */
+	Idempotenzspeicher(Duration dauer, long maxBytes) {
+		antworten = Caffeine.newBuilder()
+				.expireAfterWrite(dauer)
+				.maximumWeight(maxBytes)
+				.weigher((String schluessel, Antwort antwort) -> antwort.isInArbeit()
+						? 0 : GRUNDGROESSE + schluessel.length() * 2 + antwort.groesse())
+				.build();
+	}
+
+	private static String schluessel(String tenant, String pfad, String idempotencyKey) {
+		return tenant + '\n' + pfad + '\n' + idempotencyKey;
+	}
+
+	/**
+	 * Reserviert den Schlüssel für eine neue Anfrage.
+	 * @param fingerabdruck Fingerabdruck der Anfrage.
+	 * @return Null, falls die Anfrage ausgeführt werden soll. Sonst die gespeicherte Antwort oder den Platzhalter der
+	 * ersten Anfrage, falls diese noch läuft ({@link Antwort#isInArbeit()}).
+	 */
+	Antwort reservieren(String tenant, String pfad, String idempotencyKey, byte[] fingerabdruck) {
+		return antworten.asMap().putIfAbsent(schluessel(tenant, pfad, idempotencyKey), Antwort.inArbeit(fingerabdruck));
+	}
+
+	void speichern(String tenant, String pfad, String idempotencyKey, Antwort antwort) {
+		antworten.put(schluessel(tenant, pfad, idempotencyKey), antwort);
+	}
+
+	/**
+	 * Gibt den Schlüssel wieder frei, z. B. wenn die Anfrage mit einem Serverfehler abgebrochen ist und wiederholt
+	 * werden darf.
+	 */
+	void freigeben(String tenant, String pfad, String idempotencyKey) {
+		antworten.invalidate(schluessel(tenant, pfad, idempotencyKey));
+	}
+
+	/**
+	 * Führt anstehende Verdrängungen sofort aus.
+	 */
+	void bereinigen() {
+		antworten.cleanUp();
+	}
+
+	/**
+	 * @return Anzahl der gespeicherten Einträge, ggf. inkl. bereits abgelaufener.
+	 */
+	long getAnzahl() {
+		return antworten.estimatedSize();
+	}
+}
@@ -18,6 +18,7 @@
 
 package de.arbeitsagentur.iab.emu.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -27,13 +28,22 @@ public class InterceptorKonfiguration implements WebMvcConfigurer {
 	private final
 	TenantIdInterceptor tenantIdInterceptor;
 
-	public InterceptorKonfiguration(TenantIdInterceptor tenantIdInterceptor) {
+	private final Mandantenmetriken mandantenmetriken;
+
+	private final ObjectProvider<Schreibzeitpunkte> schreibzeitpunkte;
+
+	public InterceptorKonfiguration(TenantIdInterceptor tenantIdInterceptor, Mandantenmetriken mandantenmetriken,
+									ObjectProvider<Schreibzeitpunkte> schreibzeitpunkte) {
 		this.tenantIdInterceptor = tenantIdInterceptor;
+		this.mandantenmetriken = mandantenmetriken;
+		this.schreibzeitpunkte = schreibzeitpunkte;
 	}
 
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
 		registry.addInterceptor(tenantIdInterceptor);
+		registry.addInterceptor(mandantenmetriken);
+		schreibzeitpunkte.ifAvailable(registry::addInterceptor);
 	}
 
 }
@@ -0,0 +1,97 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Leitet lesende Transaktionen ({@code @Transactional(readOnly = true)}) auf ein Replikat der Datenbank um
+ * ({@code emu.replika.url}). Die DataSource aus {@code spring.datasource} wird dazu in einen
+ * {@link LazyConnectionDataSourceProxy} gehüllt, der die Verbindung erst beim ersten Statement holt. Bis dahin hat
+ * Spring die Verbindung bereits als read-only markiert, sodass sie vom Replikat kommt.
+ * <p>
+ * Hat der Client kürzlich geschrieben ({@link Schreibzeitpunkte}), wird auch lesend die primäre Datenbank
+ * verwendet, weil das Replikat die Änderungen noch nicht enthalten muss. Dasselbe gilt für Daten, die in der Instanz
+ * gehalten werden, siehe {@link Primaerdatenbank}.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.replika.url")
+public class Lesereplikat implements BeanPostProcessor, DisposableBean {
+
+	private final HikariDataSource replikat;
+
+	private final ObjectProvider<Schreibzeitpunkte> schreibzeitpunkte;
+
+	private final ObjectProvider<Primaerdatenbank> primaerdatenbank;
+
+	public Lesereplikat(@Value("${emu.replika.url}") String url,
+						@Value("${emu.replika.username:${spring.datasource.username:}}") String username,
+						@Value("${emu.replika.password:${spring.datasource.password:}}") String password,
+						@Value("${emu.replika.verbindungen:10}") int verbindungen,
+						ObjectProvider<Schreibzeitpunkte> schreibzeitpunkte,
+						ObjectProvider<Primaerdatenbank> primaerdatenbank) {
+		this.schreibzeitpunkte = schreibzeitpunkte;
+		this.primaerdatenbank = primaerdatenbank;
+		replikat = new HikariDataSource();
+		replikat.setJdbcUrl(url);
+		replikat.setUsername(username);
+		replikat.setPassword(password);
+		replikat.setMaximumPoolSize(verbindungen);
+		replikat.setReadOnly(true);
+		replikat.setPoolName("emu-replikat");
+	}
+
+	HikariDataSource getReplikat() {
+		return replikat;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if ("dataSource".equals(beanName) && bean instanceof DataSource primaer) {
+			final LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaer);
+			proxy.setReadOnlyDataSource(new DelegatingDataSource(replikat) {
+				@Override
+				public Connection getConnection() throws SQLException {
+					if (primaerdatenbank.getObject().isErzwungen() || schreibzeitpunkte.getObject().kuerzlichGeschrieben()) {
+						return primaer.getConnection();
+					}
+					return super.getConnection();
+				}
+			});
+			return proxy;
+		}
+		return bean;
+	}
+
+	@Override
+	public void destroy() {
+		replikat.close();
+	}
+}
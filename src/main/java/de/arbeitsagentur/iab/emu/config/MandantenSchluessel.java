@@ -0,0 +1,60 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Erzeugt die Schlüssel für die Caches der Anwendung. Jeder Schlüssel beginnt mit der
+ * Tenant-ID des aktuellen Threads, damit Einträge verschiedener MandantInnen nie
+ * miteinander vermischt werden.
+ */
+@Component(MandantenSchluessel.NAME)
+public class MandantenSchluessel implements KeyGenerator {
+
+    static final String NAME = "mandantenSchluessel";
+
+    private final TenantResolver tenantResolver;
+
+    public MandantenSchluessel(TenantResolver tenantResolver) {
+        this.tenantResolver = tenantResolver;
+    }
+
+    @Override
+    @NonNull
+    public Object generate(@NonNull Object target, @NonNull Method method, @NonNull Object... params) {
+        final Object[] elemente = new Object[params.length + 1];
+        elemente[0] = tenantResolver.resolveCurrentTenantIdentifier();
+        System.arraycopy(params, 0, elemente, 1, params.length);
+        return new SimpleKey(elemente);
+    }
+
+    /**
+     * Liefert den Schlüssel, den {@link #generate} für eine Methode ohne Parameter erzeugt.
+     * Wird beim Invalidieren aus Methoden mit Parametern heraus verwendet.
+     * @return Schlüssel, der nur aus der Tenant-ID besteht.
+     */
+    public Object nurMandant() {
+        return new SimpleKey(tenantResolver.resolveCurrentTenantIdentifier());
+    }
+}
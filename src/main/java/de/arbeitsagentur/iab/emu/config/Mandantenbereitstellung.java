@@ -0,0 +1,45 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Stellt die Datenhaltung einer neuen MandantIn bereit, z. B. ein eigenes Schema. Nur bereitgestellte MandantInnen
+ * erhalten eigene Strukturen, alle anderen Tenant-IDs verwenden die gemeinsamen Tabellen. Ohne Trennung der
+ * MandantInnen ({@code emu.mandanten.trennung}) gibt es keine Implementierung.
+ * <p>
+ * Muss vor der ersten Transaktion der MandantIn aufgerufen werden, weil Hibernate die Verbindung beim Beginn der
+ * Transaktion abholt.
+ */
+public interface Mandantenbereitstellung {
+
+	/**
+	 * Legt die Datenhaltung an, falls noch nicht geschehen. MandantInnen mit Daten in den gemeinsamen Tabellen bleiben
+	 * dort.
+	 * @param tenant Die Tenant-ID.
+	 */
+	void bereitstellen(String tenant) throws SQLException;
+
+	/**
+	 * @return Alle bereitgestellten Tenant-IDs. Ihre Daten sind nur über Hibernate erreichbar, nicht über die
+	 * gemeinsamen Tabellen.
+	 */
+	List<String> bereitgestellte() throws SQLException;
+}
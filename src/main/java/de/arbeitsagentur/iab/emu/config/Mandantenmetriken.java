@@ -0,0 +1,108 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Liefert die Tenant-ID als Tag für Metriken und zählt die Requests pro MandantIn ({@code emu.anfragen}).
+ * <p>
+ * Damit die Anzahl der Zeitreihen begrenzt bleibt, erhalten nur die ersten {@code emu.metriken.max-mandantinnen}
+ * MandantInnen seit dem Start ein eigenes Tag, alle weiteren werden unter {@link #ANDERE} zusammengefasst. Einen
+ * Platz erhalten nur MandantInnen mit einem Projekt, beliebige Tenant-IDs in Anfragen belegen also keine Tags.
+ * Wird nach {@link TenantIdInterceptor} registriert, damit die Tenant-ID bereits gesetzt ist.
+ */
+@Component
+public class Mandantenmetriken implements AsyncHandlerInterceptor {
+
+	public static final String TAG = "tenant";
+
+	static final String ANDERE = "andere";
+
+	private final TenantResolver tenantResolver;
+
+	private final MeterRegistry meterRegistry;
+
+	private final ObjectProvider<ProjektService> projektService;
+
+	private final int maxMandantinnen;
+
+	private final Set<String> erfasst = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, Counter> anfragen = new ConcurrentHashMap<>();
+
+	public Mandantenmetriken(TenantResolver tenantResolver, MeterRegistry meterRegistry,
+							 ObjectProvider<ProjektService> projektService,
+							 @Value("${emu.metriken.max-mandantinnen:100}") int maxMandantinnen) {
+		this.tenantResolver = tenantResolver;
+		this.meterRegistry = meterRegistry;
+		this.projektService = projektService;
+		this.maxMandantinnen = maxMandantinnen;
+	}
+
+	/**
+	 * @return Das Tag für die MandantIn des aktuellen Threads.
+	 */
+	public String tag() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		if (erfasst.contains(tenant)) {
+			return tenant;
+		}
+		// Bei gleichzeitigen Aufrufen kann die Grenze geringfügig überschritten werden.
+		if (erfasst.size() < maxMandantinnen && projektVorhanden()) {
+			erfasst.add(tenant);
+			return tenant;
+		}
+		return ANDERE;
+	}
+
+	/**
+	 * Der Projektstand kommt im Normalfall aus dem Cache, nur für MandantInnen ohne Projekt wird die Datenbank
+	 * gefragt. Ein Fehler dabei darf die Anfrage nicht scheitern lassen.
+	 */
+	private boolean projektVorhanden() {
+		try {
+			projektService.getObject().getProjektstand();
+			return true;
+		} catch (ProjektNichtGefundenException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		anfragen.computeIfAbsent(tag(), t -> Counter.builder("emu.anfragen")
+				.description("Requests pro MandantIn")
+				.tag(TAG, t)
+				.register(meterRegistry)).increment();
+		return true;
+	}
+}
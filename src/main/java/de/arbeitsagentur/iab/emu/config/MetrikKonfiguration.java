@@ -0,0 +1,55 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * Metriken für die Services. Methoden mit {@link io.micrometer.core.annotation.Timed} werden gemessen, jede
+ * Messung erhält das Tag der MandantIn (siehe {@link Mandantenmetriken}). Die Metriken stehen über Actuator unter
+ * /actuator/prometheus bereit, zusammen mit den Statistiken von Hibernate und dem Verbindungspool.
+ */
+@Configuration
+public class MetrikKonfiguration {
+
+	/**
+	 * Obergrenze für die Gruppenbezeichnungen beim Ergebnis des Münzwurfs. Die Bezeichnungen werden von den
+	 * MandantInnen vergeben, darüber hinaus werden keine weiteren Zeitreihen angelegt.
+	 */
+	static final int MAX_GRUPPEN_TAGS = 1000;
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry, Mandantenmetriken mandantenmetriken) {
+		final Function<ProceedingJoinPoint, Iterable<Tag>> tags = joinPoint -> Tags.of(Mandantenmetriken.TAG, mandantenmetriken.tag());
+		return new TimedAspect(meterRegistry, tags);
+	}
+
+	@Bean
+	public MeterFilter gruppenTagsBegrenzen() {
+		return MeterFilter.maximumAllowableTags("emu.muenzwurf.gruppen", "gruppe", MAX_GRUPPEN_TAGS, MeterFilter.deny());
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Liest an der {@link Lesereplikat Umleitung auf das Replikat} vorbei von der primären Datenbank. Für Daten, die
+ * nach dem Lesen in dieser Instanz gehalten werden (Caches, Indizes, Filter): Ein Stand vom Replikat könnte
+ * gerade committete Änderungen noch nicht enthalten und bliebe dann bis zum nächsten Aufbau falsch.
+ * <p>
+ * Ohne Replikat oder innerhalb einer schreibenden Transaktion wird direkt in der laufenden Transaktion gelesen.
+ * Sonst läuft das Lesen in einer eigenen read-only-Transaktion, deren Verbindung von der primären Datenbank kommt.
+ */
+@Component
+public class Primaerdatenbank {
+
+	private final ObjectProvider<Lesereplikat> lesereplikat;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ThreadLocal<Boolean> erzwungen = new ThreadLocal<>();
+
+	public Primaerdatenbank(ObjectProvider<Lesereplikat> lesereplikat, PlatformTransactionManager transactionManager) {
+		this.lesereplikat = lesereplikat;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * @param lesen Liest aus der Datenbank. Ergebnisse, die außerhalb der Transaktion verwendet werden, dürfen
+	 * keine verzögert geladenen Daten enthalten.
+	 * @return Das Ergebnis von lesen.
+	 */
+	public <T> T lesen(Supplier<T> lesen) {
+		if (lesereplikat.getIfAvailable() == null || Boolean.TRUE.equals(erzwungen.get())
+				|| (TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+			return lesen.get();
+		}
+		erzwungen.set(Boolean.TRUE);
+		try {
+			return transactionTemplate.execute(status -> lesen.get());
+		} finally {
+			erzwungen.remove();
+		}
+	}
+
+	/**
+	 * @return True, falls der aktuelle Thread gerade in {@link #lesen(Supplier)} von der primären Datenbank liest.
+	 */
+	boolean isErzwungen() {
+		return Boolean.TRUE.equals(erzwungen.get());
+	}
+}
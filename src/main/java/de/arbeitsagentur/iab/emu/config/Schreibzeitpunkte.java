@@ -0,0 +1,144 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Sorgt dafür, dass ein Client nach einem Schreibzugriff seine eigenen Änderungen sieht, obwohl lesende
+ * Transaktionen vom {@link Lesereplikat} bedient werden.
+ * <p>
+ * Nach dem Commit einer schreibenden Transaktion erhält die Antwort den Header und das Cookie {@value #NAME} mit dem
+ * Zeitpunkt des Commits in Millisekunden seit 1970. Schickt der Client den Wert bei den folgenden Requests als
+ * Header oder Cookie mit, lesen diese bis {@code emu.replika.max-verzoegerung} nach dem Commit von der primären
+ * Datenbank. Weil der Zeitpunkt beim Client liegt, gilt das auch, wenn die Requests bei verschiedenen Instanzen
+ * ankommen. Die Uhren der Instanzen müssen dafür synchron laufen. Im selben Request liest nach einem Commit alles
+ * Weitere von der primären Datenbank.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.replika.url")
+public class Schreibzeitpunkte implements TransactionExecutionListener, AsyncHandlerInterceptor {
+
+	public static final String NAME = "Emu-Schreibzeitpunkt";
+
+	private final long maxVerzoegerung;
+
+	/**
+	 * Zeitpunkt des letzten Commits, den der aktuelle Request gemeldet oder selbst ausgeführt hat.
+	 */
+	private final ThreadLocal<Long> zeitpunkt = new ThreadLocal<>();
+
+	private final ThreadLocal<HttpServletResponse> antwort = new ThreadLocal<>();
+
+	public Schreibzeitpunkte(@Value("${emu.replika.max-verzoegerung:PT5S}") Duration maxVerzoegerung) {
+		this.maxVerzoegerung = maxVerzoegerung.toMillis();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		zeitpunkt.remove();
+		antwort.set(response);
+		String wert = request.getHeader(NAME);
+		if (wert == null && request.getCookies() != null) {
+			for (Cookie cookie : request.getCookies()) {
+				if (NAME.equals(cookie.getName())) {
+					wert = cookie.getValue();
+				}
+			}
+		}
+		if (wert != null) {
+			try {
+				zeitpunkt.set(Long.parseLong(wert.trim()));
+			} catch (NumberFormatException e) {
+				// Ein ungültiger Wert wird ignoriert, gelesen wird dann ggf. vom Replikat.
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		zeitpunkt.remove();
+		antwort.remove();
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		zeitpunkt.remove();
+		antwort.remove();
+	}
+
+	/**
+	 * Die Verzögerung des Replikats beginnt erst mit dem Commit, deshalb wird der Zeitpunkt erst hier vermerkt.
+	 */
+	@Override
+	public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+		if (!transaction.isReadOnly() && commitFailure == null) {
+			vermerken();
+		}
+	}
+
+	private void vermerken() {
+		final long jetzt = System.currentTimeMillis();
+		zeitpunkt.set(jetzt);
+		final HttpServletResponse response = antwort.get();
+		if (response != null && !response.isCommitted()) {
+			final String wert = Long.toString(jetzt);
+			response.setHeader(NAME, wert);
+			// Bei mehreren Commits im selben Request gilt nur der letzte Zeitpunkt.
+			final List<String> andereCookies = response.getHeaders(HttpHeaders.SET_COOKIE).stream()
+					.filter(cookie -> !cookie.startsWith(NAME + "="))
+					.toList();
+			response.setHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(NAME, wert)
+					.path("/")
+					.httpOnly(true)
+					.maxAge(Duration.ofMillis(maxVerzoegerung))
+					.build().toString());
+			andereCookies.forEach(cookie -> response.addHeader(HttpHeaders.SET_COOKIE, cookie));
+		}
+	}
+
+	/**
+	 * @return True, falls der aktuelle Request bzw. Thread einen Commit innerhalb der maximalen Verzögerung des
+	 * Replikats gemeldet oder selbst ausgeführt hat.
+	 */
+	public boolean kuerzlichGeschrieben() {
+		final Long commit = zeitpunkt.get();
+		return commit != null && System.currentTimeMillis() - commit < maxVerzoegerung;
+	}
+
+	/**
+	 * Vergisst den Schreibzugriff des aktuellen Threads, als wäre die maximale Verzögerung abgelaufen.
+	 */
+	void vergessen() {
+		zeitpunkt.remove();
+	}
+}
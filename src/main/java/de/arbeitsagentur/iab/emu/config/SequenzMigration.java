@@ -0,0 +1,121 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.config.mandanten.Shardverbindungen;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Blockzustand;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Zuteilungsliste;
+import de.arbeitsagentur.iab.emu.service.userin.UserIn;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Stellt beim Start sicher, dass die ID-Sequenzen oberhalb der bereits vergebenen IDs liegen.
+ * <p>
+ * Die IDs werden aus Sequenzen vergeben, damit Hibernate Inserts per JDBC-Batch ausführen und z. B. ein Projekt
+ * zusammen mit seinen Gruppen schreiben kann. Bestehende Datenbanken wurden mit IDENTITY-Spalten angelegt. Die
+ * Sequenzen, die Hibernate beim Umstieg neu anlegt, beginnen bei 1 und würden ohne Anpassung bereits vergebene IDs
+ * liefern. Die Abhängigkeit zur {@link EntityManagerFactory} sorgt dafür, dass das Schema zu diesem Zeitpunkt bereits
+ * aktualisiert ist.
+ */
+@Component
+public class SequenzMigration {
+
+	private final Logger logger = LoggerFactory.getLogger(SequenzMigration.class);
+
+	record IdSequenz(String tabelle, String sequenz, int blockgroesse) {}
+
+	static final List<IdSequenz> SEQUENZEN = List.of(
+			new IdSequenz("kundin", "kundin_seq", KundIn.ID_BLOCKGROESSE),
+			new IdSequenz("gruppe", "gruppe_seq", Gruppe.ID_BLOCKGROESSE),
+			new IdSequenz("userin", "userin_seq", UserIn.ID_BLOCKGROESSE),
+			new IdSequenz("projekt", "projekt_seq", Projekt.ID_BLOCKGROESSE),
+			new IdSequenz("zuteilungsliste", "zuteilungsliste_seq", Zuteilungsliste.ID_BLOCKGROESSE),
+			new IdSequenz("blockzustand", "blockzustand_seq", Blockzustand.ID_BLOCKGROESSE));
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectProvider<Shardverbindungen> shardverbindungen;
+
+	public SequenzMigration(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+							ObjectProvider<Shardverbindungen> shardverbindungen) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.shardverbindungen = shardverbindungen;
+	}
+
+	@PostConstruct
+	void migrieren() {
+		if (shardverbindungen.getIfAvailable() != null) {
+			migrieren(jdbcTemplate, 0, Shardverbindungen.ID_BEREICH);
+		} else {
+			migrieren(jdbcTemplate);
+		}
+	}
+
+	/**
+	 * Passt alle ID-Sequenzen im aktuellen Schema der übergebenen Verbindung an, z. B. nachdem die Daten
+	 * einer MandantIn in ein eigenes Schema verschoben wurden.
+	 * @param jdbcTemplate Verbindung zur Datenbank bzw. zum Schema.
+	 */
+	public void migrieren(JdbcTemplate jdbcTemplate) {
+		migrieren(jdbcTemplate, 0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Wie {@link #migrieren(JdbcTemplate)}, berücksichtigt aber nur IDs im Bereich {@code untergrenze} bis
+	 * ausschließlich {@code obergrenze}. Die Sequenzen liegen danach mindestens bei der Untergrenze und enden vor der
+	 * Obergrenze, ein erschöpfter Bereich führt also zu einem Fehler statt zu IDs aus dem nächsten Bereich. So
+	 * vergeben mehrere Datenbanken IDs aus getrennten Bereichen, siehe {@link Shardverbindungen}.
+	 */
+	public void migrieren(JdbcTemplate jdbcTemplate, long untergrenze, long obergrenze) {
+		SEQUENZEN.forEach(idSequenz -> migrieren(jdbcTemplate, idSequenz, untergrenze, obergrenze));
+	}
+
+	/**
+	 * Hibernate reserviert mit dem Wert w aus der Sequenz die IDs w - blockgroesse + 1 bis w. Die Sequenz
+	 * wird deshalb nur dann neu gesetzt, wenn dieser Bereich mit vorhandenen IDs überlappen kann.
+	 */
+	private void migrieren(JdbcTemplate jdbcTemplate, IdSequenz idSequenz, long untergrenze, long obergrenze) {
+		final long maxId = jdbcTemplate.queryForObject(
+				"SELECT COALESCE(MAX(id), ?) FROM " + idSequenz.tabelle() + " WHERE id >= ? AND id < ?",
+				Long.class, untergrenze, untergrenze, obergrenze);
+		final Long naechsterWert = jdbcTemplate.queryForObject(
+				"SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ? AND SEQUENCE_SCHEMA = CURRENT_SCHEMA",
+				Long.class, idSequenz.sequenz());
+		final long mindestwert = maxId + idSequenz.blockgroesse();
+		if (obergrenze < Long.MAX_VALUE) {
+			// Vor dem Neustart, eine kopierte Sequenz kann noch die Obergrenze eines anderen Bereichs haben.
+			jdbcTemplate.execute("ALTER SEQUENCE " + idSequenz.sequenz() + " MAXVALUE " + (obergrenze - 1));
+		}
+		if (naechsterWert != null && naechsterWert < mindestwert) {
+			logger.info("Sequenz {} wird auf {} gesetzt (höchste ID in {}: {}).",
+					idSequenz.sequenz(), mindestwert, idSequenz.tabelle(), maxId);
+			jdbcTemplate.execute("ALTER SEQUENCE " + idSequenz.sequenz() + " RESTART WITH " + mindestwert);
+		}
+	}
+}
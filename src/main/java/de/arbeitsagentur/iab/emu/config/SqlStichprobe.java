@@ -0,0 +1,70 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Protokolliert eine zufällige Stichprobe der SQL-Statements, ohne Parameterwerte. Im Gegensatz zu
+ * {@code spring.jpa.show-sql} wird nicht jedes Statement formatiert und geschrieben. Der Anteil wird über
+ * {@code emu.sql.stichprobe} (0 bis 1) eingestellt, bei 0 ist die Stichprobe deaktiviert. Die Protokollierung
+ * erfolgt auf INFO mit dem Logger {@code de.arbeitsagentur.iab.emu.sql.Stichprobe}.
+ */
+@Component
+public class SqlStichprobe implements StatementInspector, HibernatePropertiesCustomizer {
+
+	private final Logger logger = LoggerFactory.getLogger("de.arbeitsagentur.iab.emu.sql.Stichprobe");
+
+	private final double anteil;
+
+	public SqlStichprobe(@Value("${emu.sql.stichprobe:0}") double anteil) {
+		if (anteil < 0 || anteil > 1) {
+			throw new IllegalArgumentException("emu.sql.stichprobe muss zwischen 0 und 1 liegen: " + anteil);
+		}
+		this.anteil = anteil;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		if (gezogen() && logger.isInfoEnabled()) {
+			logger.info(sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * @return true, falls das aktuelle Statement in die Stichprobe fällt.
+	 */
+	boolean gezogen() {
+		return anteil > 0 && (anteil >= 1 || ThreadLocalRandom.current().nextDouble() < anteil);
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+	}
+}
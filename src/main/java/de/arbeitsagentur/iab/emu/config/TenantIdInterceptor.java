@@ -23,13 +23,13 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
 
 import java.util.Map;
 
 @Component
-public class TenantIdInterceptor implements HandlerInterceptor  {
+public class TenantIdInterceptor implements AsyncHandlerInterceptor  {
 	
     private final Logger logger = LoggerFactory.getLogger(TenantIdInterceptor.class);
 	
@@ -42,6 +42,8 @@ public class TenantIdInterceptor implements HandlerInterceptor  {
 
 	@Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    	// Falls am Thread noch eine Tenant-ID hängt, darf diese nicht weiterverwendet werden.
+    	tenantResolver.clearCurrentTenant();
     	@SuppressWarnings("rawtypes")
 		final Map pathVariables = (Map) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
     	if (pathVariables != null) {
@@ -56,5 +58,14 @@ public class TenantIdInterceptor implements HandlerInterceptor  {
         return true;
     }
 
-   
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		tenantResolver.clearCurrentTenant();
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// Der Request-Thread wird freigegeben, die asynchrone Verarbeitung läuft in einem anderen Thread weiter.
+		tenantResolver.clearCurrentTenant();
+	}
 }
\ No newline at end of file
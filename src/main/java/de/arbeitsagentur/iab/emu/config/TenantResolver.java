@@ -27,21 +27,61 @@ import org.springframework.stereotype.Component;
 
 import java.util.Map;
 
+/**
+ * Liefert Hibernate die Tenant-ID des aktuellen Requests. Die Tenant-ID wird pro Thread gehalten
+ * (siehe {@link TenantIdInterceptor}), damit parallele Requests verschiedener MandantInnen sich
+ * nicht gegenseitig beeinflussen.
+ */
 @Component
 public class TenantResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
 
+	public static final String UNBEKANNT = "unbekannt";
+
 	Logger logger = LoggerFactory.getLogger(TenantResolver.class);
 	
-	private String currentTenant = "unbekannt";
+	private final ThreadLocal<String> currentTenant = new ThreadLocal<>();
 
 	public void setCurrentTenant(String tenant) {
-		currentTenant = tenant;
+		currentTenant.set(tenant);
+	}
+
+	/**
+	 * Entfernt die Tenant-ID vom aktuellen Thread. Muss am Ende jedes Requests aufgerufen werden,
+	 * weil die Threads des Servlet-Containers wiederverwendet werden.
+	 */
+	public void clearCurrentTenant() {
+		currentTenant.remove();
+	}
+
+	/**
+	 * Bindet die Tenant-ID des aufrufenden Threads an die übergebene Aufgabe, damit diese auch
+	 * in einem anderen Thread (z. B. bei asynchroner Verarbeitung) mit der richtigen Tenant-ID läuft.
+	 * Nach der Ausführung wird der vorherige Zustand des ausführenden Threads wiederhergestellt.
+	 * @param aufgabe Diese Aufgabe wird gebunden.
+	 * @return Die gebundene Aufgabe.
+	 */
+	public Runnable mitCurrentTenant(Runnable aufgabe) {
+		final String tenant = currentTenant.get();
+		return () -> {
+			final String vorher = currentTenant.get();
+			currentTenant.set(tenant);
+			try {
+				aufgabe.run();
+			} finally {
+				if (vorher == null) {
+					currentTenant.remove();
+				} else {
+					currentTenant.set(vorher);
+				}
+			}
+		};
 	}
 
 	@Override
 	public String resolveCurrentTenantIdentifier() {
-		logger.debug("currentTenant: {}", currentTenant);
-		return currentTenant;
+		final String tenant = currentTenant.get();
+		logger.debug("currentTenant: {}", tenant);
+		return tenant != null ? tenant : UNBEKANNT;
 	}
 
 	@Override
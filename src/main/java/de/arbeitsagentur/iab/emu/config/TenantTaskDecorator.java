@@ -0,0 +1,44 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Überträgt die Tenant-ID des aufrufenden Threads auf Aufgaben, die im Task-Executor der Anwendung
+ * laufen (z. B. asynchrone Requests). Spring Boot verwendet den Decorator sowohl für Plattform-Threads als
+ * auch für virtuelle Threads (spring.threads.virtual.enabled=true).
+ */
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+
+	private final TenantResolver tenantResolver;
+
+	public TenantTaskDecorator(TenantResolver tenantResolver) {
+		this.tenantResolver = tenantResolver;
+	}
+
+	@Override
+	@NonNull
+	public Runnable decorate(@NonNull Runnable runnable) {
+		return tenantResolver.mitCurrentTenant(runnable);
+	}
+}
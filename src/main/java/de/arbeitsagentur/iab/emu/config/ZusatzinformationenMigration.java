@@ -0,0 +1,192 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.service.kundin.Zusatzinformation;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Übernimmt beim Start die Zusatzinformationen aus der früheren Tabelle kundin_zusatzinformationen (eine Zeile
+ * pro Zusatzinformation) in die JSON-Spalte der Tabelle kundin und benennt die alte Tabelle danach in
+ * kundin_zusatzinformationen_migriert um. Läuft nur bei der Speicherung als Dokument, siehe
+ * {@link ZusatzinformationenSpeicherung}.
+ * <p>
+ * Es werden nur KundInnen geändert, deren JSON-Spalte noch leer ist. Bricht die Migration ab, kann sie beim
+ * nächsten Start einfach erneut laufen. Die Abhängigkeit zur {@link EntityManagerFactory} sorgt dafür, dass die
+ * JSON-Spalte zu diesem Zeitpunkt bereits angelegt ist.
+ * <p>
+ * Die umbenannte Tabelle wird erst gelöscht, wenn {@code emu.zusatzinformationen.alte-tabelle-loeschen} gesetzt
+ * ist und jede noch vorhandene Kundin / jeder noch vorhandene Kunde aus der Tabelle ein Dokument hat.
+ */
+@Component
+@ConditionalOnProperty(name = ZusatzinformationenSpeicherung.EIGENSCHAFT, havingValue = ZusatzinformationenSpeicherung.DOKUMENT, matchIfMissing = true)
+public class ZusatzinformationenMigration {
+
+	private final Logger logger = LoggerFactory.getLogger(ZusatzinformationenMigration.class);
+
+	static final String ALTE_TABELLE = "kundin_zusatzinformationen";
+
+	static final String MIGRIERTE_TABELLE = "kundin_zusatzinformationen_migriert";
+
+	/**
+	 * Anzahl der KundInnen, deren JSON-Spalte mit einem JDBC-Batch geschrieben wird.
+	 */
+	static final int BATCHGROESSE = 500;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper mapper;
+
+	private final boolean alteTabelleLoeschen;
+
+	public ZusatzinformationenMigration(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate, ObjectMapper mapper,
+										@Value("${emu.zusatzinformationen.alte-tabelle-loeschen:false}") boolean alteTabelleLoeschen) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.mapper = mapper;
+		this.alteTabelleLoeschen = alteTabelleLoeschen;
+	}
+
+	@PostConstruct
+	void starten() {
+		migrieren();
+		if (alteTabelleLoeschen) {
+			alteTabelleLoeschen();
+		}
+	}
+
+	void migrieren() {
+		if (!tabelleVorhanden(ALTE_TABELLE)) {
+			return;
+		}
+		if (tabelleVorhanden(MIGRIERTE_TABELLE)) {
+			throw new IllegalStateException("Die Tabellen " + ALTE_TABELLE + " und " + MIGRIERTE_TABELLE +
+					" sind beide vorhanden, eine davon muss von Hand entfernt werden.");
+		}
+		final String update = "UPDATE kundin SET zusatzinformationen = " + jsonAusdruck() + " WHERE id = ? AND zusatzinformationen IS NULL";
+
+		final List<Object[]> batch = new ArrayList<>(BATCHGROESSE);
+		final int[] anzahl = {0};
+		final Integer[] aktuelleId = {null};
+		final List<Zusatzinformation> aktuelleDokument = new ArrayList<>();
+		jdbcTemplate.query("SELECT kundin_id, name, typ, wert FROM " + ALTE_TABELLE + " ORDER BY kundin_id, zusatzinformationen_order",
+				rs -> {
+					final int id = rs.getInt("kundin_id");
+					if (aktuelleId[0] != null && aktuelleId[0] != id) {
+						vormerken(update, aktuelleId[0], aktuelleDokument, batch);
+						anzahl[0]++;
+					}
+					aktuelleId[0] = id;
+					final Zusatzinformation zusatzinformation = new Zusatzinformation();
+					zusatzinformation.setName(rs.getString("name"));
+					zusatzinformation.setTyp(rs.getString("typ"));
+					zusatzinformation.setWert(rs.getString("wert"));
+					aktuelleDokument.add(zusatzinformation);
+				});
+		if (aktuelleId[0] != null) {
+			vormerken(update, aktuelleId[0], aktuelleDokument, batch);
+			anzahl[0]++;
+		}
+		schreiben(update, batch);
+
+		jdbcTemplate.execute("ALTER TABLE " + ALTE_TABELLE + " RENAME TO " + MIGRIERTE_TABELLE);
+		logger.info("Zusatzinformationen von {} KundInnen aus {} übernommen, die alte Tabelle heißt jetzt {}.",
+				anzahl[0], ALTE_TABELLE, MIGRIERTE_TABELLE);
+	}
+
+	/**
+	 * Löscht die umbenannte Tabelle, wenn keine noch vorhandene Kundin / kein noch vorhandener Kunde aus ihr ohne
+	 * Dokument ist. Sonst bleibt sie erhalten und es wird gewarnt.
+	 */
+	void alteTabelleLoeschen() {
+		if (!tabelleVorhanden(MIGRIERTE_TABELLE)) {
+			return;
+		}
+		final Integer ohneDokument = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT k.id) FROM kundin k JOIN " + MIGRIERTE_TABELLE +
+				" m ON m.kundin_id = k.id WHERE k.zusatzinformationen IS NULL", Integer.class);
+		if (ohneDokument != null && ohneDokument > 0) {
+			logger.warn("{} KundInnen aus {} haben keine Zusatzinformationen, die Tabelle wird nicht gelöscht.",
+					ohneDokument, MIGRIERTE_TABELLE);
+			return;
+		}
+		jdbcTemplate.execute("DROP TABLE " + MIGRIERTE_TABELLE);
+		logger.info("Tabelle {} gelöscht.", MIGRIERTE_TABELLE);
+	}
+
+	private boolean tabelleVorhanden(String name) {
+		final Boolean vorhanden = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			try (ResultSet tabellen = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(), null,
+					new String[]{"TABLE"})) {
+				while (tabellen.next()) {
+					if (name.equalsIgnoreCase(tabellen.getString("TABLE_NAME"))) {
+						return true;
+					}
+				}
+				return false;
+			}
+		});
+		return Boolean.TRUE.equals(vorhanden);
+	}
+
+	/**
+	 * Ausdruck, mit dem ein JSON-Text in die JSON-Spalte geschrieben wird. Das hängt von der Datenbank ab.
+	 */
+	private String jsonAusdruck() {
+		final String produkt = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+				connection.getMetaData().getDatabaseProductName());
+		if ("H2".equals(produkt)) {
+			return "? FORMAT JSON";
+		}
+		if ("PostgreSQL".equals(produkt)) {
+			return "CAST(? AS jsonb)";
+		}
+		return "?";
+	}
+
+	private void vormerken(String update, int id, List<Zusatzinformation> dokument, List<Object[]> batch) {
+		try {
+			batch.add(new Object[]{mapper.writeValueAsString(dokument), id});
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Zusatzinformationen der KundIn " + id + " können nicht serialisiert werden.", e);
+		}
+		dokument.clear();
+		if (batch.size() >= BATCHGROESSE) {
+			schreiben(update, batch);
+		}
+	}
+
+	private void schreiben(String update, List<Object[]> batch) {
+		if (!batch.isEmpty()) {
+			jdbcTemplate.batchUpdate(update, batch);
+			batch.clear();
+		}
+	}
+}
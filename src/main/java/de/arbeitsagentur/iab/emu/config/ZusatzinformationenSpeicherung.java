@@ -0,0 +1,54 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Speicherung der Zusatzinformationen einer Kundin / eines Kunden ({@code emu.zusatzinformationen.speicherung}):
+ * <ul>
+ *     <li>{@value #DOKUMENT} (Standard): als JSON-Dokument in der Zeile der Tabelle kundin. Lesen und Ändern betreffen
+ *     nur diese Zeile. Bestehende Daten werden von der {@link ZusatzinformationenMigration} übernommen.</li>
+ *     <li>{@value #TABELLE}: wie bisher in der Tabelle kundin_zusatzinformationen, eine Zeile pro Zusatzinformation.
+ *     Die Abbildung aus {@link #ABBILDUNG_TABELLE} ersetzt dazu die des JSON-Dokuments.</li>
+ * </ul>
+ * Ein Wechsel von {@value #TABELLE} zu {@value #DOKUMENT} übernimmt die Daten beim Start. Der umgekehrte Wechsel
+ * wird nicht unterstützt: Zusatzinformationen, die als Dokument gespeichert wurden, werden nicht in die Tabelle
+ * zurückkopiert.
+ */
+@Configuration
+public class ZusatzinformationenSpeicherung {
+
+	public static final String EIGENSCHAFT = "emu.zusatzinformationen.speicherung";
+
+	public static final String DOKUMENT = "dokument";
+
+	public static final String TABELLE = "tabelle";
+
+	static final String ABBILDUNG_TABELLE = "META-INF/zusatzinformationen-tabelle.xml";
+
+	@Bean
+	@ConditionalOnProperty(name = EIGENSCHAFT, havingValue = TABELLE)
+	EntityManagerFactoryBuilderCustomizer zusatzinformationenTabelle() {
+		return builder -> builder.setPersistenceUnitPostProcessors(
+				persistenceUnit -> persistenceUnit.addMappingFileName(ABBILDUNG_TABELLE));
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jede MandantIn erhält eine eigene Datenbank, deren URL aus {@code emu.mandanten.datenbank-url} gebildet wird
+ * ({@code {tenant}} wird durch die Tenant-ID ersetzt, Sonderzeichen durch Unterstriche).
+ * <p>
+ * Pro Datenbank wird ein kleiner Pool mit höchstens {@code emu.mandanten.verbindungen-pro-datenbank} Verbindungen
+ * geöffnet. Sind mehr als {@code emu.mandanten.max-datenbanken} Pools offen, werden die am längsten nicht genutzten
+ * Pools geschlossen, sofern gerade keine ihrer Verbindungen verwendet wird.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.mandanten.trennung", havingValue = "datenbank")
+public class DatenbankProMandantIn extends Mandantenverbindungen {
+
+	static final String PLATZHALTER = "{tenant}";
+
+	private static final class Datenbank {
+
+		private final HikariDataSource dataSource;
+
+		/**
+		 * Anzahl der ausgegebenen Verbindungen, geschützt durch {@link #offen}.
+		 */
+		private int aktiv;
+
+		private Datenbank(HikariDataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+	}
+
+	private final String urlVorlage;
+
+	private final String username;
+
+	private final String password;
+
+	private final int maxDatenbanken;
+
+	private final int verbindungenProDatenbank;
+
+	/**
+	 * Offene Pools in der Reihenfolge des letzten Zugriffs.
+	 */
+	private final LinkedHashMap<String, Datenbank> offen = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Map<Connection, Datenbank> ausgegeben = new ConcurrentHashMap<>();
+
+	public DatenbankProMandantIn(DataSource dataSource,
+								 Strukturabgleich strukturabgleich,
+								 @Value("${emu.mandanten.datenbank-url}") String urlVorlage,
+								 @Value("${spring.datasource.username:}") String username,
+								 @Value("${spring.datasource.password:}") String password,
+								 @Value("${emu.mandanten.max-datenbanken:50}") int maxDatenbanken,
+								 @Value("${emu.mandanten.verbindungen-pro-datenbank:2}") int verbindungenProDatenbank) {
+		super(dataSource, strukturabgleich);
+		if (!urlVorlage.contains(PLATZHALTER)) {
+			throw new IllegalArgumentException("emu.mandanten.datenbank-url muss " + PLATZHALTER + " enthalten: " + urlVorlage);
+		}
+		this.urlVorlage = urlVorlage;
+		this.username = username;
+		this.password = password;
+		this.maxDatenbanken = maxDatenbanken;
+		this.verbindungenProDatenbank = verbindungenProDatenbank;
+	}
+
+	/**
+	 * @return Die Tenant-ID als Teil eines Dateinamens. Wurden Zeichen ersetzt, wird der Hashcode angehängt,
+	 * damit verschiedene Tenant-IDs nicht auf denselben Namen abgebildet werden.
+	 */
+	static String dateiname(String tenant) {
+		final String name = tenant.replaceAll("[^A-Za-z0-9_-]", "_");
+		return name.equals(tenant) ? name : name + "_" + Integer.toHexString(tenant.hashCode());
+	}
+
+	String url(String tenant) {
+		return urlVorlage.replace(PLATZHALTER, dateiname(tenant));
+	}
+
+	private HikariDataSource erzeugen(String tenant) {
+		final HikariDataSource pool = new HikariDataSource();
+		pool.setJdbcUrl(url(tenant));
+		pool.setUsername(username);
+		pool.setPassword(password);
+		pool.setMaximumPoolSize(verbindungenProDatenbank);
+		pool.setMinimumIdle(0);
+		pool.setPoolName("emu-" + dateiname(tenant));
+		return pool;
+	}
+
+	@Override
+	protected boolean strukturVorhanden(String tenant) throws SQLException {
+		final Connection connection = verbinden(tenant);
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = '"
+					 + Mandantenstruktur.GEMEINSAMES_SCHEMA + "'")) {
+			return resultSet.next() && resultSet.getInt(1) > 0;
+		} finally {
+			freigeben(tenant, connection);
+		}
+	}
+
+	@Override
+	protected void strukturAnlegen(String tenant) throws SQLException {
+		final List<String> ddl;
+		try (Connection gemeinsam = dataSource.getConnection()) {
+			ddl = Mandantenstruktur.auslesen(gemeinsam);
+		}
+		final Connection connection = verbinden(tenant);
+		try {
+			Mandantenstruktur.anlegen(connection, ddl, Mandantenstruktur.GEMEINSAMES_SCHEMA);
+		} finally {
+			freigeben(tenant, connection);
+		}
+	}
+
+	@Override
+	protected Connection verbinden(String tenant) throws SQLException {
+		final Datenbank datenbank;
+		synchronized (offen) {
+			datenbank = offen.computeIfAbsent(tenant, t -> new Datenbank(erzeugen(t)));
+			datenbank.aktiv++;
+		}
+		final Connection connection;
+		try {
+			connection = datenbank.dataSource.getConnection();
+		} catch (SQLException | RuntimeException e) {
+			zurueckgeben(datenbank);
+			throw e;
+		}
+		ausgegeben.put(connection, datenbank);
+		return connection;
+	}
+
+	@Override
+	protected void freigeben(String tenant, Connection connection) throws SQLException {
+		final Datenbank datenbank = ausgegeben.remove(connection);
+		try {
+			connection.close();
+		} finally {
+			if (datenbank != null) {
+				zurueckgeben(datenbank);
+			}
+		}
+	}
+
+	private void zurueckgeben(Datenbank datenbank) {
+		final List<HikariDataSource> schliessen = new ArrayList<>();
+		synchronized (offen) {
+			datenbank.aktiv--;
+			final Iterator<Datenbank> aeltere = offen.values().iterator();
+			while (offen.size() > maxDatenbanken && aeltere.hasNext()) {
+				final Datenbank kandidat = aeltere.next();
+				if (kandidat.aktiv == 0) {
+					aeltere.remove();
+					schliessen.add(kandidat.dataSource);
+				}
+			}
+		}
+		schliessen.forEach(HikariDataSource::close);
+	}
+
+	/**
+	 * @return Anzahl der offenen Pools.
+	 */
+	int getAnzahlOffen() {
+		synchronized (offen) {
+			return offen.size();
+		}
+	}
+
+	@PreDestroy
+	void schliessen() {
+		synchronized (offen) {
+			offen.values().forEach(datenbank -> datenbank.dataSource.close());
+			offen.clear();
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verschiebt die Zeilen einer MandantIn zwischen zwei Verbindungen mit derselben Struktur, siehe
+ * {@link Mandantenstruktur}.
+ * <p>
+ * Verschoben werden alle Zeilen der Tabellen mit Spalte tenant_id sowie die Zeilen der Tabellen ohne diese Spalte,
+ * die per Fremdschlüssel auf eine solche Zeile verweisen (z. B. die Felddefinitionen eines Projekts). Die Zeilen
+ * werden erst ins Ziel geschrieben und danach in der Quelle gelöscht. Bricht das Verschieben dazwischen ab, kann es
+ * wiederholt werden, weil Reste eines früheren Versuchs im Ziel zuerst gelöscht werden.
+ */
+final class Mandantenkopie {
+
+	static final String TENANT_SPALTE = "TENANT_ID";
+
+	private static final int BATCHGROESSE = 500;
+
+	/**
+	 * Eine Tabelle, deren Zeilen zu einer MandantIn gehören.
+	 * @param name Name der Tabelle.
+	 * @param spalte Spalte, über die die Zeilen ausgewählt werden.
+	 * @param eltern Tabelle mit Spalte tenant_id, auf die {@code spalte} verweist, oder null.
+	 * @param elternspalte Spalte in {@code eltern}, auf die verwiesen wird.
+	 */
+	record Tabelle(String name, String spalte, String eltern, String elternspalte) {
+
+		/**
+		 * @return Bedingung für die Zeilen der MandantIn mit einem Parameter für die Tenant-ID.
+		 */
+		String bedingung() {
+			if (eltern == null) {
+				return Mandantenstruktur.bezeichner(TENANT_SPALTE) + " = ?";
+			}
+			return Mandantenstruktur.bezeichner(spalte) + " IN (SELECT " + Mandantenstruktur.bezeichner(elternspalte)
+					+ " FROM " + Mandantenstruktur.bezeichner(eltern) + " WHERE "
+					+ Mandantenstruktur.bezeichner(TENANT_SPALTE) + " = ?)";
+		}
+	}
+
+	private Mandantenkopie() {
+	}
+
+	/**
+	 * Verschiebt die Zeilen der MandantIn. Beide Verbindungen müssen im Auto-Commit-Modus sein und werden es danach
+	 * wieder sein.
+	 * @return Anzahl der verschobenen Zeilen pro Tabelle.
+	 */
+	static Map<String, Integer> verschieben(Connection quelle, Connection ziel, String tenant) throws SQLException {
+		final Map<String, Integer> zeilen = new LinkedHashMap<>();
+		final List<Tabelle> tabellen = tabellen(quelle);
+		quelle.setAutoCommit(false);
+		ziel.setAutoCommit(false);
+		try {
+			loeschen(ziel, tabellen, tenant);
+			for (Tabelle tabelle : tabellen) {
+				zeilen.put(tabelle.name(), kopieren(quelle, ziel, tabelle, tenant));
+			}
+			ziel.commit();
+			loeschen(quelle, tabellen, tenant);
+			quelle.commit();
+		} catch (SQLException | RuntimeException e) {
+			ziel.rollback();
+			quelle.rollback();
+			throw e;
+		} finally {
+			ziel.setAutoCommit(true);
+			quelle.setAutoCommit(true);
+		}
+		return zeilen;
+	}
+
+	/**
+	 * Ermittelt die Tabellen mit Daten der MandantInnen im aktuellen Schema der Verbindung, geordnet nach den
+	 * Fremdschlüsseln, d. h. Tabellen, auf die verwiesen wird, stehen vorn.
+	 */
+	static List<Tabelle> tabellen(Connection connection) throws SQLException {
+		final DatabaseMetaData metaData = connection.getMetaData();
+		final String schema = connection.getSchema();
+		final List<String> namen = new ArrayList<>();
+		final Set<String> mitTenant = new HashSet<>();
+		try (ResultSet resultSet = metaData.getTables(null, schema, "%", new String[]{"TABLE"})) {
+			while (resultSet.next()) {
+				namen.add(resultSet.getString("TABLE_NAME"));
+			}
+		}
+		for (String name : namen) {
+			try (ResultSet resultSet = metaData.getColumns(null, schema, name, TENANT_SPALTE)) {
+				if (resultSet.next()) {
+					mitTenant.add(name);
+				}
+			}
+		}
+
+		final Map<String, Tabelle> tabellen = new HashMap<>();
+		final Map<String, Set<String>> verweise = new HashMap<>();
+		for (String name : namen) {
+			final Set<String> ziele = new HashSet<>();
+			Tabelle tabelle = mitTenant.contains(name) ? new Tabelle(name, TENANT_SPALTE, null, null) : null;
+			try (ResultSet resultSet = metaData.getImportedKeys(null, schema, name)) {
+				while (resultSet.next()) {
+					final String eltern = resultSet.getString("PKTABLE_NAME");
+					if (!eltern.equals(name)) {
+						ziele.add(eltern);
+					}
+					if (tabelle == null && mitTenant.contains(eltern)) {
+						tabelle = new Tabelle(name, resultSet.getString("FKCOLUMN_NAME"), eltern, resultSet.getString("PKCOLUMN_NAME"));
+					}
+				}
+			}
+			if (tabelle != null) {
+				tabellen.put(name, tabelle);
+				verweise.put(name, ziele);
+			}
+		}
+
+		final List<Tabelle> sortiert = new ArrayList<>();
+		final Set<String> erledigt = new HashSet<>();
+		while (sortiert.size() < tabellen.size()) {
+			boolean weiter = false;
+			for (String name : namen) {
+				if (tabellen.containsKey(name) && !erledigt.contains(name)
+						&& verweise.get(name).stream().noneMatch(z -> tabellen.containsKey(z) && !erledigt.contains(z))) {
+					sortiert.add(tabellen.get(name));
+					erledigt.add(name);
+					weiter = true;
+				}
+			}
+			if (!weiter) {
+				throw new IllegalStateException("Zyklische Fremdschlüssel zwischen den Tabellen " + tabellen.keySet());
+			}
+		}
+		return sortiert;
+	}
+
+	private static int kopieren(Connection quelle, Connection ziel, Tabelle tabelle, String tenant) throws SQLException {
+		int anzahl = 0;
+		try (PreparedStatement lesen = quelle.prepareStatement("SELECT * FROM "
+				+ Mandantenstruktur.bezeichner(tabelle.name()) + " WHERE " + tabelle.bedingung())) {
+			lesen.setString(1, tenant);
+			try (ResultSet resultSet = lesen.executeQuery()) {
+				final ResultSetMetaData metaData = resultSet.getMetaData();
+				final int spalten = metaData.getColumnCount();
+				final List<String> namen = new ArrayList<>(spalten);
+				for (int i = 1; i <= spalten; i++) {
+					namen.add(Mandantenstruktur.bezeichner(metaData.getColumnName(i)));
+				}
+				try (PreparedStatement schreiben = ziel.prepareStatement("INSERT INTO "
+						+ Mandantenstruktur.bezeichner(tabelle.name()) + " (" + String.join(", ", namen) + ") VALUES ("
+						+ String.join(", ", Collections.nCopies(spalten, "?")) + ")")) {
+					while (resultSet.next()) {
+						for (int i = 1; i <= spalten; i++) {
+							schreiben.setObject(i, resultSet.getObject(i));
+						}
+						schreiben.addBatch();
+						if (++anzahl % BATCHGROESSE == 0) {
+							schreiben.executeBatch();
+						}
+					}
+					schreiben.executeBatch();
+				}
+			}
+		}
+		return anzahl;
+	}
+
+	private static void loeschen(Connection connection, List<Tabelle> tabellen, String tenant) throws SQLException {
+		for (int i = tabellen.size() - 1; i >= 0; i--) {
+			final Tabelle tabelle = tabellen.get(i);
+			try (PreparedStatement statement = connection.prepareStatement("DELETE FROM "
+					+ Mandantenstruktur.bezeichner(tabelle.name()) + " WHERE " + tabelle.bedingung())) {
+				statement.setString(1, tenant);
+				statement.executeUpdate();
+			}
+		}
+	}
+}
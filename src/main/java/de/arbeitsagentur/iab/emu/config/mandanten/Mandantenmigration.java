@@ -0,0 +1,90 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.config.SequenzMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Verschiebt die Daten einer MandantIn aus den gemeinsamen Tabellen in ihr eigenes Schema bzw. ihre eigene
+ * Datenbank. Erreichbar als Actuator-Endpoint {@code POST /actuator/mandantenmigration/{tenant}}.
+ * <p>
+ * Welche Zeilen verschoben werden, beschreibt {@link Mandantenkopie}. Bricht die Migration ab, kann sie wiederholt
+ * werden. Während der Migration werden neue Verbindungen der MandantIn auf dieser Instanz zurückgehalten, siehe
+ * {@link Zugriffssperre}. Laufen mehrere Instanzen, darf die MandantIn nur über diese Instanz erreichbar sein.
+ */
+@Component
+@Endpoint(id = "mandantenmigration")
+@ConditionalOnExpression("'${emu.mandanten.trennung:}' == 'schema' or '${emu.mandanten.trennung:}' == 'datenbank'")
+public class Mandantenmigration {
+
+	private final Logger logger = LoggerFactory.getLogger(Mandantenmigration.class);
+
+	private final Mandantenverbindungen mandantenverbindungen;
+
+	private final SequenzMigration sequenzMigration;
+
+	/**
+	 * @param zeilen Anzahl der verschobenen Zeilen pro Tabelle.
+	 */
+	public record Ergebnis(Map<String, Integer> zeilen) {
+	}
+
+	public Mandantenmigration(Mandantenverbindungen mandantenverbindungen, SequenzMigration sequenzMigration) {
+		this.mandantenverbindungen = mandantenverbindungen;
+		this.sequenzMigration = sequenzMigration;
+	}
+
+	@WriteOperation
+	public Ergebnis herausloesen(@Selector String tenant) throws SQLException {
+		final Map<String, Integer> zeilen;
+		mandantenverbindungen.zugriffeSperren(tenant);
+		try {
+			final Connection quelle = mandantenverbindungen.getAnyConnection();
+			try {
+				final Connection ziel = mandantenverbindungen.eigeneVerbindung(tenant);
+				try {
+					zeilen = Mandantenkopie.verschieben(quelle, ziel, tenant);
+					// Die Sequenzen im Ziel müssen oberhalb der verschobenen IDs liegen.
+					sequenzMigration.migrieren(new JdbcTemplate(new SingleConnectionDataSource(ziel, true)));
+				} finally {
+					mandantenverbindungen.freigeben(tenant, ziel);
+				}
+			} finally {
+				mandantenverbindungen.releaseAnyConnection(quelle);
+			}
+			mandantenverbindungen.herausgeloest(tenant);
+		} finally {
+			mandantenverbindungen.zugriffeFreigeben(tenant);
+		}
+		logger.info("Tenant-ID {} aus den gemeinsamen Tabellen herausgelöst: {}", tenant, zeilen);
+		return new Ergebnis(zeilen);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kopiert die Struktur der gemeinsamen Tabellen (Tabellen inkl. der temporären Tabellen von Hibernate, Constraints,
+ * Indizes und Sequenzen) in ein anderes Schema bzw. eine andere Datenbank. Die Verwaltungstabellen der
+ * MandantInnen ({@value Mandantenverbindungen#TABELLE}, {@value Shardverbindungen#TABELLE}) werden nicht kopiert. Die Struktur wird mit SCRIPT von H2
+ * ausgelesen, d. h. sie entspricht immer dem Stand, den Hibernate und die Migrationen beim Start hergestellt haben.
+ * Die Sequenzen beginnen beim aktuellen Wert der gemeinsamen Sequenzen, damit verschobene IDs nicht erneut vergeben
+ * werden.
+ */
+final class Mandantenstruktur {
+
+	static final String GEMEINSAMES_SCHEMA = "PUBLIC";
+
+	private static final List<String> ANWEISUNGEN = List.of(
+			"CREATE SEQUENCE ", "CREATE MEMORY TABLE ", "CREATE CACHED TABLE ", "CREATE GLOBAL TEMPORARY TABLE ",
+			"ALTER TABLE ", "CREATE INDEX ", "CREATE UNIQUE INDEX ");
+
+	private static final List<String> VERWALTUNGSTABELLEN = List.of(Mandantenverbindungen.TABELLE, Shardverbindungen.TABELLE);
+
+	private Mandantenstruktur() {
+	}
+
+	/**
+	 * @param gemeinsam Verbindung zur gemeinsamen Datenbank.
+	 * @return Die DDL-Anweisungen für die gemeinsamen Tabellen, mit {@link #GEMEINSAMES_SCHEMA} qualifiziert.
+	 */
+	static List<String> auslesen(Connection gemeinsam) throws SQLException {
+		final List<String> ddl = new ArrayList<>();
+		try (Statement statement = gemeinsam.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SCRIPT NODATA NOSETTINGS SCHEMA " + GEMEINSAMES_SCHEMA)) {
+			while (resultSet.next()) {
+				final String anweisung = resultSet.getString(1);
+				if (ANWEISUNGEN.stream().anyMatch(anweisung::startsWith) && VERWALTUNGSTABELLEN.stream().noneMatch(tabelle ->
+						anweisung.contains(bezeichner(GEMEINSAMES_SCHEMA) + "." + bezeichner(tabelle.toUpperCase())))) {
+					ddl.add(anweisung);
+				}
+			}
+		}
+		return ddl;
+	}
+
+	/**
+	 * Führt die DDL-Anweisungen aus.
+	 * @param ziel Verbindung zur Zieldatenbank.
+	 * @param ddl Ergebnis von {@link #auslesen(Connection)}.
+	 * @param schema Zielschema, das {@link #GEMEINSAMES_SCHEMA} ersetzt. Das Schema wird angelegt.
+	 */
+	static void anlegen(Connection ziel, List<String> ddl, String schema) throws SQLException {
+		final String gemeinsam = bezeichner(GEMEINSAMES_SCHEMA) + ".";
+		final String ersatz = bezeichner(schema) + ".";
+		try (Statement statement = ziel.createStatement()) {
+			statement.execute("CREATE SCHEMA IF NOT EXISTS " + bezeichner(schema));
+			for (String anweisung : ddl) {
+				statement.execute(anweisung.replace(gemeinsam, ersatz));
+			}
+		}
+	}
+
+	/**
+	 * @return True, falls die MandantIn in den Tabellen der Verbindung bereits ein Projekt oder UserInnen hat.
+	 */
+	static boolean enthaeltDaten(Connection connection, String tenant) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT EXISTS(SELECT 1 FROM projekt WHERE tenant_id = ?) OR EXISTS(SELECT 1 FROM userin WHERE tenant_id = ?)")) {
+			statement.setString(1, tenant);
+			statement.setString(2, tenant);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() && resultSet.getBoolean(1);
+			}
+		}
+	}
+
+	/**
+	 * @return Der Name als SQL-Bezeichner in Anführungszeichen, d. h. unabhängig von Groß- und Kleinschreibung
+	 * und Sonderzeichen.
+	 */
+	static String bezeichner(String name) {
+		return '"' + name.replace("\"", "\"\"") + '"';
+	}
+}
@@ -0,0 +1,348 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Basis für die Trennung der MandantInnen in eigene Schemas bzw. Datenbanken ({@code emu.mandanten.trennung}).
+ * Hibernate holt hier die Verbindung für jede Session ab.
+ * <p>
+ * Die Spalte tenant_id und der Filter über {@link org.hibernate.annotations.TenantId} bleiben erhalten. Dadurch
+ * können die Daten einer MandantIn ohne Änderung zwischen den gemeinsamen Tabellen und einem eigenen Schema bzw.
+ * einer eigenen Datenbank verschoben werden.
+ * <p>
+ * Eine eigene Struktur erhalten nur MandantInnen, die bei der Bestellung bereitgestellt
+ * ({@link #bereitstellen(String)}) oder mit der {@link Mandantenmigration} herausgelöst wurden. Sie stehen in der
+ * Tabelle {@value #TABELLE} der gemeinsamen Datenbank und erhalten eine Kopie der Struktur der gemeinsamen Tabellen,
+ * siehe {@link Mandantenstruktur}. Alle anderen Tenant-IDs verwenden die gemeinsamen Tabellen, eine unbekannte
+ * Tenant-ID legt also weder Schema noch Datenbank an. Das Ergebnis "eigene Struktur" wird dauerhaft im Speicher
+ * gehalten. Weil andere Instanzen eine MandantIn jederzeit bereitstellen können, gilt das Ergebnis "gemeinsame
+ * Tabellen" nur {@link #GEMEINSAME_TABELLEN_GUELTIG} lang. So lange kann eine Bereitstellung oder Migration auf einer
+ * anderen Instanz hier unbemerkt bleiben.
+ * <p>
+ * Beim ersten Zugriff in diesem Prozess wird die Struktur mit dem {@link Strukturabgleich} auf den Stand der
+ * Entities gebracht. Während die {@link Mandantenmigration} die Daten einer MandantIn verschiebt, hält die
+ * {@link Zugriffssperre} neue Verbindungen der MandantIn zurück.
+ */
+public abstract class Mandantenverbindungen implements MultiTenantConnectionProvider<String>, HibernatePropertiesCustomizer,
+		Mandantenbereitstellung {
+
+	static final String TABELLE = "mandantenstruktur";
+
+	private static final int ANZAHL_SPERREN = 64;
+
+	static final Duration GEMEINSAME_TABELLEN_GUELTIG = Duration.ofSeconds(2);
+
+	protected final DataSource dataSource;
+
+	private final Strukturabgleich strukturabgleich;
+
+	private final Zugriffssperre zugriffe = new Zugriffssperre();
+
+	/**
+	 * MandantInnen, die ein eigenes Schema bzw. eine eigene Datenbank verwenden.
+	 */
+	private final Set<String> eigeneStruktur = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * MandantInnen, die zuletzt ohne Eintrag in {@value #TABELLE} gefunden wurden, mit dem Zeitpunkt
+	 * ({@link System#nanoTime()}), bis zu dem sie ohne Abfrage die gemeinsamen Tabellen verwenden.
+	 */
+	private final Map<String, Long> gemeinsameTabellenBis = new ConcurrentHashMap<>();
+
+	private final ReentrantLock[] sperren = new ReentrantLock[ANZAHL_SPERREN];
+
+	private volatile boolean tabelleVorhanden;
+
+	protected Mandantenverbindungen(DataSource dataSource, Strukturabgleich strukturabgleich) {
+		this.dataSource = dataSource;
+		this.strukturabgleich = strukturabgleich;
+		for (int i = 0; i < sperren.length; i++) {
+			sperren[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * @return True, falls das Schema bzw. die Datenbank der MandantIn bereits Tabellen enthält.
+	 */
+	protected abstract boolean strukturVorhanden(String tenant) throws SQLException;
+
+	protected abstract void strukturAnlegen(String tenant) throws SQLException;
+
+	/**
+	 * @return Eine Verbindung zum Schema bzw. zur Datenbank der MandantIn.
+	 */
+	protected abstract Connection verbinden(String tenant) throws SQLException;
+
+	/**
+	 * Gibt eine Verbindung zurück, die {@link #verbinden(String)} oder {@link #getAnyConnection()} geliefert hat.
+	 */
+	protected abstract void freigeben(String tenant, Connection connection) throws SQLException;
+
+	@Override
+	public Connection getAnyConnection() throws SQLException {
+		return dataSource.getConnection();
+	}
+
+	@Override
+	public void releaseAnyConnection(Connection connection) throws SQLException {
+		connection.close();
+	}
+
+	@Override
+	public Connection getConnection(String tenant) throws SQLException {
+		zugriffe.betreten(tenant);
+		try {
+			if (hatEigeneStruktur(tenant)) {
+				return verbinden(tenant);
+			}
+			return getAnyConnection();
+		} catch (SQLException | RuntimeException e) {
+			zugriffe.verlassen(tenant);
+			throw e;
+		}
+	}
+
+	@Override
+	public void releaseConnection(String tenant, Connection connection) throws SQLException {
+		try {
+			freigeben(tenant, connection);
+		} finally {
+			zugriffe.verlassen(tenant);
+		}
+	}
+
+	/**
+	 * Hält neue Verbindungen der MandantIn zurück und wartet, bis die offenen geschlossen sind. Danach muss
+	 * {@link #zugriffeFreigeben(String)} aufgerufen werden.
+	 */
+	void zugriffeSperren(String tenant) throws SQLException {
+		zugriffe.sperren(tenant);
+	}
+
+	void zugriffeFreigeben(String tenant) {
+		zugriffe.freigeben(tenant);
+	}
+
+	/**
+	 * Liefert eine Verbindung zum eigenen Schema bzw. zur eigenen Datenbank, auch wenn die MandantIn noch die
+	 * gemeinsamen Tabellen verwendet. Die Verbindung muss mit {@link #freigeben(String, Connection)} zurückgegeben
+	 * werden.
+	 */
+	Connection eigeneVerbindung(String tenant) throws SQLException {
+		final boolean vorhanden = sperren(tenant, () -> {
+			if (strukturVorhanden(tenant)) {
+				return true;
+			}
+			strukturAnlegen(tenant);
+			return false;
+		});
+		final Connection connection = verbinden(tenant);
+		if (vorhanden) {
+			try {
+				strukturabgleich.abgleichen(connection);
+			} catch (RuntimeException e) {
+				freigeben(tenant, connection);
+				throw e;
+			}
+		}
+		return connection;
+	}
+
+	/**
+	 * Muss aufgerufen werden, nachdem die Daten der MandantIn aus den gemeinsamen Tabellen verschoben wurden.
+	 */
+	void herausgeloest(String tenant) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			eintragen(connection, tenant);
+		}
+		sperren(tenant, () -> {
+			merken(tenant);
+			return true;
+		});
+	}
+
+	@Override
+	public void bereitstellen(String tenant) throws SQLException {
+		if (TenantResolver.UNBEKANNT.equals(tenant) || eigeneStruktur.contains(tenant)) {
+			return;
+		}
+		sperren(tenant, () -> {
+			if (eigeneStruktur.contains(tenant)) {
+				return true;
+			}
+			try (Connection connection = dataSource.getConnection()) {
+				if (Mandantenstruktur.enthaeltDaten(connection, tenant)) {
+					return false;
+				}
+				if (!strukturVorhanden(tenant)) {
+					strukturAnlegen(tenant);
+				}
+				eintragen(connection, tenant);
+			}
+			merken(tenant);
+			return true;
+		});
+	}
+
+	boolean hatEigeneStruktur(String tenant) throws SQLException {
+		if (TenantResolver.UNBEKANNT.equals(tenant)) {
+			return false;
+		}
+		if (eigeneStruktur.contains(tenant)) {
+			return true;
+		}
+		final Long bis = gemeinsameTabellenBis.get(tenant);
+		if (bis != null && System.nanoTime() - bis < 0) {
+			return false;
+		}
+		// Ohne Sperre, die meisten MandantInnen verwenden die gemeinsamen Tabellen.
+		if (!eingetragen(tenant)) {
+			gemeinsameTabellenBis.put(tenant, System.nanoTime() + GEMEINSAME_TABELLEN_GUELTIG.toNanos());
+			return false;
+		}
+		return sperren(tenant, () -> {
+			if (eigeneStruktur.contains(tenant)) {
+				return true;
+			}
+			// Bereitgestellt, z. B. von einer anderen Instanz.
+			if (!strukturVorhanden(tenant)) {
+				strukturAnlegen(tenant);
+			}
+			merken(tenant);
+			return true;
+		});
+	}
+
+	/**
+	 * Merkt sich die eigene Struktur der MandantIn und gleicht sie dabei ab, einmal pro Prozess.
+	 */
+	private void merken(String tenant) throws SQLException {
+		final Connection connection = verbinden(tenant);
+		try {
+			strukturabgleich.abgleichen(connection);
+		} finally {
+			freigeben(tenant, connection);
+		}
+		eigeneStruktur.add(tenant);
+		gemeinsameTabellenBis.remove(tenant);
+	}
+
+	@Override
+	public List<String> bereitgestellte() throws SQLException {
+		final List<String> ergebnis = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			tabelleAnlegen(connection);
+			try (Statement statement = connection.createStatement();
+				 ResultSet resultSet = statement.executeQuery("SELECT mandantin FROM " + TABELLE + " ORDER BY mandantin")) {
+				while (resultSet.next()) {
+					ergebnis.add(resultSet.getString(1));
+				}
+			}
+		}
+		return ergebnis;
+	}
+
+	private boolean eingetragen(String tenant) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			tabelleAnlegen(connection);
+			try (PreparedStatement statement = connection.prepareStatement(
+					"SELECT COUNT(*) FROM " + TABELLE + " WHERE mandantin = ?")) {
+				statement.setString(1, tenant);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					return resultSet.next() && resultSet.getInt(1) > 0;
+				}
+			}
+		}
+	}
+
+	private void eintragen(Connection connection, String tenant) throws SQLException {
+		tabelleAnlegen(connection);
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + TABELLE
+				+ " (mandantin) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM " + TABELLE + " WHERE mandantin = ?)")) {
+			statement.setString(1, tenant);
+			statement.setString(2, tenant);
+			statement.executeUpdate();
+		} catch (SQLIntegrityConstraintViolationException e) {
+			// Gleichzeitig von einer anderen Instanz eingetragen.
+		}
+	}
+
+	private void tabelleAnlegen(Connection connection) throws SQLException {
+		if (!tabelleVorhanden) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS " + TABELLE + " (mandantin VARCHAR(255) PRIMARY KEY)");
+			}
+			tabelleVorhanden = true;
+		}
+	}
+
+	private interface Aufgabe {
+		boolean ausfuehren() throws SQLException;
+	}
+
+	private boolean sperren(String tenant, Aufgabe aufgabe) throws SQLException {
+		final ReentrantLock sperre = sperren[Math.floorMod(tenant.hashCode(), ANZAHL_SPERREN)];
+		sperre.lock();
+		try {
+			return aufgabe.ausfuehren();
+		} finally {
+			sperre.unlock();
+		}
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	@Override
+	public boolean isUnwrappableAs(Class<?> unwrapType) {
+		return unwrapType.isInstance(this);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> unwrapType) {
+		return unwrapType.cast(this);
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, this);
+	}
+}
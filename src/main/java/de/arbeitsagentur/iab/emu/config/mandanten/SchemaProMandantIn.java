@@ -0,0 +1,87 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Jede MandantIn erhält ein eigenes Schema {@code mandant_<Tenant-ID>} in der gemeinsamen Datenbank. Die
+ * Verbindungen stammen aus dem gemeinsamen Pool, beim Abholen wird das Schema gesetzt und bei der Rückgabe
+ * zurückgesetzt. Der Pool setzt das Schema nur zurück, wenn es konfiguriert ist.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.mandanten.trennung", havingValue = "schema")
+public class SchemaProMandantIn extends Mandantenverbindungen {
+
+	static final String PRAEFIX = "mandant_";
+
+	public SchemaProMandantIn(DataSource dataSource, Strukturabgleich strukturabgleich) {
+		super(dataSource, strukturabgleich);
+	}
+
+	static String schema(String tenant) {
+		return PRAEFIX + tenant;
+	}
+
+	@Override
+	protected boolean strukturVorhanden(String tenant) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+			 PreparedStatement statement = connection.prepareStatement(
+					 "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?")) {
+			statement.setString(1, schema(tenant));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() && resultSet.getInt(1) > 0;
+			}
+		}
+	}
+
+	@Override
+	protected void strukturAnlegen(String tenant) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			Mandantenstruktur.anlegen(connection, Mandantenstruktur.auslesen(connection), schema(tenant));
+		}
+	}
+
+	@Override
+	protected Connection verbinden(String tenant) throws SQLException {
+		final Connection connection = dataSource.getConnection();
+		try {
+			connection.setSchema(schema(tenant));
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		return connection;
+	}
+
+	@Override
+	protected void freigeben(String tenant, Connection connection) throws SQLException {
+		try {
+			connection.setSchema(Mandantenstruktur.GEMEINSAMES_SCHEMA);
+		} finally {
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Konsistentes Hashing der Tenant-IDs auf die Shards. Jeder Shard belegt viele virtuelle Punkte auf einem Ring,
+ * eine Tenant-ID gehört zum ersten Punkt ab ihrem eigenen Hashwert. Kommt ein Shard hinzu, wechseln deshalb nur
+ * etwa 1/n der MandantInnen den Shard, und zwar alle auf den neuen Shard.
+ */
+final class Shardring {
+
+	static final int VIRTUELLE_KNOTEN = 128;
+
+	private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+	private final int anzahl;
+
+	Shardring(int anzahl) {
+		if (anzahl < 1) {
+			throw new IllegalArgumentException("Mindestens ein Shard erforderlich: " + anzahl);
+		}
+		this.anzahl = anzahl;
+		for (int shard = 0; shard < anzahl; shard++) {
+			for (int knoten = 0; knoten < VIRTUELLE_KNOTEN; knoten++) {
+				ring.put(hash("shard-" + shard + "#" + knoten), shard);
+			}
+		}
+	}
+
+	int getAnzahl() {
+		return anzahl;
+	}
+
+	/**
+	 * @return Der Shard der Tenant-ID, zwischen 0 und {@link #getAnzahl()} - 1.
+	 */
+	int shard(String tenant) {
+		final Map.Entry<Long, Integer> punkt = ring.ceilingEntry(hash(tenant));
+		return punkt != null ? punkt.getValue() : ring.firstEntry().getValue();
+	}
+
+	/**
+	 * FNV-1a über die UTF-8-Bytes, gefolgt vom Finalizer von MurmurHash3, damit auch ähnliche Tenant-IDs
+	 * gleichmäßig über den Ring verteilt werden. Anders als {@link String#hashCode()} ist der Wert über
+	 * Versionen hinweg festgelegt, die Zuordnung ändert sich also nicht mit der Java-Version.
+	 */
+	static long hash(String wert) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : wert.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,430 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import com.zaxxer.hikari.HikariDataSource;
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.SequenzMigration;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verteilt die MandantInnen auf mehrere Datenbanken (Shards, {@code emu.mandanten.trennung=shards}). Shard 0 ist
+ * die Datenbank aus {@code spring.datasource.url}, die weiteren Shards stehen in {@code emu.mandanten.shards}.
+ * Hibernate holt hier die Verbindung für jede Session ab, die Repositories bleiben unverändert.
+ * <p>
+ * Die Zuordnung steht in der Tabelle {@value #TABELLE} auf Shard 0. Bei der Bestellung ({@link #bereitstellen(String)})
+ * wird der Shard einer neuen MandantIn über {@link Shardring} bestimmt und eingetragen, danach gilt der Eintrag, bis
+ * die MandantIn mit {@link Shardverwaltung} verschoben wird. MandantInnen, die bereits Daten auf Shard 0 haben,
+ * bleiben dort und werden beim ersten Zugriff eingetragen. Alle anderen Tenant-IDs verwenden Shard 0, ohne
+ * eingetragen zu werden. Weil andere Instanzen eine MandantIn jederzeit bereitstellen können, werden nur
+ * eingetragene Zuordnungen im Speicher gehalten.
+ * <p>
+ * Jeder Shard vergibt IDs aus einem eigenen Bereich der Größe {@link #ID_BEREICH}, damit die Zeilen einer MandantIn
+ * beim Verschieben ihre IDs behalten können. Die weiteren Shards erhalten beim ersten Zugriff eine Kopie der
+ * Struktur von Shard 0, siehe {@link Mandantenstruktur}. Eine vorhandene Struktur wird beim ersten Zugriff in
+ * diesem Prozess mit dem {@link Strukturabgleich} auf den Stand der Entities gebracht. Während eine MandantIn
+ * verschoben wird, hält die {@link Zugriffssperre} ihre neuen Verbindungen zurück.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.mandanten.trennung", havingValue = "shards")
+public class Shardverbindungen implements MultiTenantConnectionProvider<String>, HibernatePropertiesCustomizer,
+		Mandantenbereitstellung {
+
+	public static final int MAX_SHARDS = 16;
+
+	/**
+	 * Anzahl der IDs pro Shard. Shard n vergibt die IDs ab n * ID_BEREICH.
+	 */
+	public static final long ID_BEREICH = Integer.MAX_VALUE / MAX_SHARDS;
+
+	static final String TABELLE = "mandantenshard";
+
+	private static final int ANZAHL_SPERREN = 64;
+
+	/**
+	 * Eintrag der Tabelle {@value #TABELLE}.
+	 * @param fest True, falls die MandantIn beim Ausgleichen nicht verschoben wird.
+	 */
+	record Zuordnung(String tenant, int shard, boolean fest) {
+	}
+
+	private final Logger logger = LoggerFactory.getLogger(Shardverbindungen.class);
+
+	private final List<DataSource> shards = new ArrayList<>();
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+
+	private final ObjectProvider<SequenzMigration> sequenzMigration;
+
+	private final Strukturabgleich strukturabgleich;
+
+	private final Zugriffssperre zugriffe = new Zugriffssperre();
+
+	private final Shardring ring;
+
+	private final Map<String, Integer> zuordnungen = new ConcurrentHashMap<>();
+
+	private final Set<Integer> bereit = ConcurrentHashMap.newKeySet();
+
+	private final ReentrantLock[] sperren = new ReentrantLock[ANZAHL_SPERREN];
+
+	private volatile boolean tabelleVorhanden;
+
+	public Shardverbindungen(DataSource dataSource,
+							 ObjectProvider<SequenzMigration> sequenzMigration,
+							 Strukturabgleich strukturabgleich,
+							 @Value("${emu.mandanten.shards:}") String[] urls,
+							 @Value("${spring.datasource.username:}") String username,
+							 @Value("${spring.datasource.password:}") String password,
+							 @Value("${emu.mandanten.verbindungen-pro-shard:10}") int verbindungenProShard) {
+		if (urls.length + 1 > MAX_SHARDS) {
+			throw new IllegalArgumentException("Höchstens " + MAX_SHARDS + " Shards möglich: " + (urls.length + 1));
+		}
+		this.sequenzMigration = sequenzMigration;
+		this.strukturabgleich = strukturabgleich;
+		shards.add(dataSource);
+		for (String url : urls) {
+			final HikariDataSource pool = new HikariDataSource();
+			pool.setJdbcUrl(url.trim());
+			pool.setUsername(username);
+			pool.setPassword(password);
+			pool.setMaximumPoolSize(verbindungenProShard);
+			pool.setPoolName("emu-shard-" + shards.size());
+			shards.add(pool);
+			pools.add(pool);
+		}
+		ring = new Shardring(shards.size());
+		bereit.add(0);
+		for (int i = 0; i < sperren.length; i++) {
+			sperren[i] = new ReentrantLock();
+		}
+	}
+
+	int getAnzahl() {
+		return shards.size();
+	}
+
+	DataSource getShard(int shard) {
+		return shards.get(shard);
+	}
+
+	Shardring getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return Der eingetragene Shard der MandantIn, sonst 0. MandantInnen mit Daten auf Shard 0 werden dabei
+	 * eingetragen.
+	 */
+	int shard(String tenant) throws SQLException {
+		if (TenantResolver.UNBEKANNT.equals(tenant)) {
+			return 0;
+		}
+		final Integer shard = zuordnungen.get(tenant);
+		if (shard != null) {
+			return shard;
+		}
+		return sperren(tenant, () -> {
+			final Integer vorhanden = zuordnungen.get(tenant);
+			if (vorhanden != null) {
+				return vorhanden;
+			}
+			try (Connection connection = shards.get(0).getConnection()) {
+				Integer ergebnis = eingetragen(connection, tenant);
+				if (ergebnis == null) {
+					if (!Mandantenstruktur.enthaeltDaten(connection, tenant)) {
+						return 0;
+					}
+					ergebnis = eintragen(connection, tenant, 0);
+				}
+				zuordnungen.put(tenant, ergebnis);
+				return ergebnis;
+			}
+		});
+	}
+
+	/**
+	 * Legt den Shard einer neuen MandantIn über {@link Shardring} fest und trägt ihn ein. MandantInnen mit Daten auf
+	 * Shard 0 bleiben dort.
+	 */
+	@Override
+	public void bereitstellen(String tenant) throws SQLException {
+		if (TenantResolver.UNBEKANNT.equals(tenant) || zuordnungen.containsKey(tenant)) {
+			return;
+		}
+		sperren(tenant, () -> {
+			if (zuordnungen.containsKey(tenant)) {
+				return true;
+			}
+			try (Connection connection = shards.get(0).getConnection()) {
+				Integer shard = eingetragen(connection, tenant);
+				if (shard == null) {
+					shard = eintragen(connection, tenant, Mandantenstruktur.enthaeltDaten(connection, tenant) ? 0 : ring.shard(tenant));
+				}
+				zuordnungen.put(tenant, shard);
+			}
+			return true;
+		});
+	}
+
+	@Override
+	public List<String> bereitgestellte() throws SQLException {
+		return zuordnungen().stream().map(Zuordnung::tenant).toList();
+	}
+
+	private Integer eingetragen(Connection connection, String tenant) throws SQLException {
+		tabelleAnlegen(connection);
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT shard FROM " + TABELLE + " WHERE mandantin = ?")) {
+			statement.setString(1, tenant);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? pruefen(resultSet.getInt(1)) : null;
+			}
+		}
+	}
+
+	/**
+	 * @return Der eingetragene Shard. Hat eine andere Instanz die MandantIn gleichzeitig eingetragen, gilt ihr
+	 * Eintrag.
+	 */
+	private int eintragen(Connection connection, String tenant, int shard) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO " + TABELLE + " (mandantin, shard, fest) VALUES (?, ?, FALSE)")) {
+			statement.setString(1, tenant);
+			statement.setInt(2, shard);
+			statement.executeUpdate();
+			return shard;
+		} catch (SQLIntegrityConstraintViolationException e) {
+			return eingetragen(connection, tenant);
+		}
+	}
+
+	private int pruefen(int shard) {
+		if (shard < 0 || shard >= shards.size()) {
+			throw new IllegalStateException("Shard " + shard + " ist nicht konfiguriert, vorhanden sind " + shards.size());
+		}
+		return shard;
+	}
+
+	private void tabelleAnlegen(Connection connection) throws SQLException {
+		if (!tabelleVorhanden) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS " + TABELLE
+						+ " (mandantin VARCHAR(255) PRIMARY KEY, shard INT NOT NULL, fest BOOLEAN DEFAULT FALSE NOT NULL)");
+			}
+			tabelleVorhanden = true;
+		}
+	}
+
+	/**
+	 * @return Alle eingetragenen MandantInnen.
+	 */
+	List<Zuordnung> zuordnungen() throws SQLException {
+		final List<Zuordnung> ergebnis = new ArrayList<>();
+		try (Connection connection = shards.get(0).getConnection()) {
+			tabelleAnlegen(connection);
+			try (Statement statement = connection.createStatement();
+				 ResultSet resultSet = statement.executeQuery("SELECT mandantin, shard, fest FROM " + TABELLE + " ORDER BY mandantin")) {
+				while (resultSet.next()) {
+					ergebnis.add(new Zuordnung(resultSet.getString(1), resultSet.getInt(2), resultSet.getBoolean(3)));
+				}
+			}
+		}
+		return ergebnis;
+	}
+
+	/**
+	 * Verschiebt die Daten der MandantIn auf den Zielshard und trägt ihn ein. Während des Verschiebens werden neue
+	 * Verbindungen der MandantIn auf dieser Instanz zurückgehalten. Laufen mehrere Instanzen, darf die MandantIn nur
+	 * über diese Instanz erreichbar sein.
+	 * @param fest True, falls die MandantIn beim Ausgleichen nicht mehr verschoben werden soll.
+	 * @return Anzahl der verschobenen Zeilen pro Tabelle, leer falls die MandantIn bereits auf dem Zielshard ist.
+	 */
+	Map<String, Integer> verschieben(String tenant, int ziel, boolean fest) throws SQLException {
+		pruefen(ziel);
+		zugriffe.sperren(tenant);
+		try {
+			return sperren(tenant, () -> {
+				final int quelle = shard(tenant);
+				Map<String, Integer> zeilen = Map.of();
+				if (quelle != ziel) {
+					shardBereitstellen(quelle);
+					shardBereitstellen(ziel);
+					try (Connection von = shards.get(quelle).getConnection(); Connection nach = shards.get(ziel).getConnection()) {
+						zeilen = Mandantenkopie.verschieben(von, nach, tenant);
+					}
+					logger.info("Tenant-ID {} von Shard {} auf Shard {} verschoben: {}", tenant, quelle, ziel, zeilen);
+				}
+				try (Connection connection = shards.get(0).getConnection();
+					 PreparedStatement statement = connection.prepareStatement(
+							 "UPDATE " + TABELLE + " SET shard = ?, fest = ? WHERE mandantin = ?")) {
+					statement.setInt(1, ziel);
+					statement.setBoolean(2, fest);
+					statement.setString(3, tenant);
+					if (statement.executeUpdate() == 0) {
+						// Noch nicht bereitgestellt, das Verschieben stellt die MandantIn bereit.
+						try (PreparedStatement einfuegen = connection.prepareStatement(
+								"INSERT INTO " + TABELLE + " (mandantin, shard, fest) VALUES (?, ?, ?)")) {
+							einfuegen.setString(1, tenant);
+							einfuegen.setInt(2, ziel);
+							einfuegen.setBoolean(3, fest);
+							einfuegen.executeUpdate();
+						}
+					}
+				}
+				zuordnungen.put(tenant, ziel);
+				return zeilen;
+			});
+		} finally {
+			zugriffe.freigeben(tenant);
+		}
+	}
+
+	/**
+	 * Legt beim ersten Zugriff auf einen weiteren Shard die Struktur an und setzt die Sequenzen auf den ID-Bereich
+	 * des Shards. Shard 0 wird beim Start von Hibernate und der {@link SequenzMigration} vorbereitet.
+	 */
+	private void shardBereitstellen(int shard) throws SQLException {
+		if (bereit.contains(shard)) {
+			return;
+		}
+		synchronized (bereit) {
+			if (bereit.contains(shard)) {
+				return;
+			}
+			try (Connection connection = shards.get(shard).getConnection()) {
+				if (!strukturVorhanden(connection)) {
+					final List<String> ddl;
+					try (Connection gemeinsam = shards.get(0).getConnection()) {
+						ddl = Mandantenstruktur.auslesen(gemeinsam);
+					}
+					Mandantenstruktur.anlegen(connection, ddl, Mandantenstruktur.GEMEINSAMES_SCHEMA);
+					logger.info("Struktur auf Shard {} angelegt.", shard);
+				} else {
+					strukturabgleich.abgleichen(connection);
+				}
+			}
+			sequenzMigration.getObject().migrieren(new JdbcTemplate(shards.get(shard)), shard * ID_BEREICH, (shard + 1) * ID_BEREICH);
+			bereit.add(shard);
+		}
+	}
+
+	private static boolean strukturVorhanden(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = '"
+					 + Mandantenstruktur.GEMEINSAMES_SCHEMA + "'")) {
+			return resultSet.next() && resultSet.getInt(1) > 0;
+		}
+	}
+
+	private interface Aufgabe<T> {
+		T ausfuehren() throws SQLException;
+	}
+
+	private <T> T sperren(String tenant, Aufgabe<T> aufgabe) throws SQLException {
+		final ReentrantLock sperre = sperren[Math.floorMod(tenant.hashCode(), ANZAHL_SPERREN)];
+		sperre.lock();
+		try {
+			return aufgabe.ausfuehren();
+		} finally {
+			sperre.unlock();
+		}
+	}
+
+	@Override
+	public Connection getAnyConnection() throws SQLException {
+		return shards.get(0).getConnection();
+	}
+
+	@Override
+	public void releaseAnyConnection(Connection connection) throws SQLException {
+		connection.close();
+	}
+
+	@Override
+	public Connection getConnection(String tenant) throws SQLException {
+		zugriffe.betreten(tenant);
+		try {
+			final int shard = shard(tenant);
+			shardBereitstellen(shard);
+			return shards.get(shard).getConnection();
+		} catch (SQLException | RuntimeException e) {
+			zugriffe.verlassen(tenant);
+			throw e;
+		}
+	}
+
+	@Override
+	public void releaseConnection(String tenant, Connection connection) throws SQLException {
+		try {
+			connection.close();
+		} finally {
+			zugriffe.verlassen(tenant);
+		}
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	@Override
+	public boolean isUnwrappableAs(Class<?> unwrapType) {
+		return unwrapType.isInstance(this);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> unwrapType) {
+		return unwrapType.cast(this);
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, this);
+	}
+
+	@PreDestroy
+	void schliessen() {
+		pools.forEach(HikariDataSource::close);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Verwaltung der Shards als Actuator-Endpoint {@code /actuator/shards}, siehe {@link Shardverbindungen}.
+ * <ul>
+ *     <li>{@code GET}: Anzahl der MandantInnen pro Shard.</li>
+ *     <li>{@code POST /{tenant}} mit {@code {"shard": n}}: verschiebt die MandantIn auf Shard n und hält sie dort
+ *     fest.</li>
+ *     <li>{@code POST}: verschiebt alle nicht festgehaltenen MandantInnen auf den Shard, den der {@link Shardring}
+ *     vorsieht, z. B. nachdem ein Shard hinzugefügt wurde.</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "emu.mandanten.trennung", havingValue = "shards")
+public class Shardverwaltung {
+
+	private final Logger logger = LoggerFactory.getLogger(Shardverwaltung.class);
+
+	private final Shardverbindungen shardverbindungen;
+
+	/**
+	 * @param mandantinnen Anzahl der MandantInnen pro Shard.
+	 * @param abweichend Anzahl der nicht festgehaltenen MandantInnen, die nicht auf dem Shard des {@link Shardring}
+	 * liegen, d. h. beim Ausgleichen verschoben werden.
+	 */
+	public record Uebersicht(Map<Integer, Integer> mandantinnen, int abweichend) {
+	}
+
+	/**
+	 * @param verschoben Zielshard pro verschobener Tenant-ID.
+	 */
+	public record Ergebnis(Map<String, Integer> verschoben) {
+	}
+
+	public Shardverwaltung(Shardverbindungen shardverbindungen) {
+		this.shardverbindungen = shardverbindungen;
+	}
+
+	@ReadOperation
+	public Uebersicht uebersicht() throws SQLException {
+		final Map<Integer, Integer> mandantinnen = new TreeMap<>();
+		for (int shard = 0; shard < shardverbindungen.getAnzahl(); shard++) {
+			mandantinnen.put(shard, 0);
+		}
+		int abweichend = 0;
+		for (Shardverbindungen.Zuordnung zuordnung : shardverbindungen.zuordnungen()) {
+			mandantinnen.merge(zuordnung.shard(), 1, Integer::sum);
+			if (!zuordnung.fest() && zuordnung.shard() != shardverbindungen.getRing().shard(zuordnung.tenant())) {
+				abweichend++;
+			}
+		}
+		return new Uebersicht(mandantinnen, abweichend);
+	}
+
+	@WriteOperation
+	public Map<String, Integer> festlegen(@Selector String tenant, int shard) throws SQLException {
+		return shardverbindungen.verschieben(tenant, shard, true);
+	}
+
+	@WriteOperation
+	public Ergebnis ausgleichen() throws SQLException {
+		final Map<String, Integer> verschoben = new LinkedHashMap<>();
+		for (Shardverbindungen.Zuordnung zuordnung : shardverbindungen.zuordnungen()) {
+			final int ziel = shardverbindungen.getRing().shard(zuordnung.tenant());
+			if (!zuordnung.fest() && zuordnung.shard() != ziel) {
+				shardverbindungen.verschieben(zuordnung.tenant(), ziel, false);
+				verschoben.put(zuordnung.tenant(), ziel);
+			}
+		}
+		logger.info("{} MandantInnen beim Ausgleichen verschoben.", verschoben.size());
+		return new Ergebnis(verschoben);
+	}
+}
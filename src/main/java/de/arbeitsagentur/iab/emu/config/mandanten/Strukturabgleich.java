@@ -0,0 +1,137 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gleicht die Struktur eines eigenen Schemas, einer eigenen Datenbank oder eines Shards mit den Entities ab, wie
+ * {@code hibernate.hbm2ddl.auto=update}: fehlende Tabellen, Spalten und Sequenzen werden angelegt, es wird nichts
+ * gelöscht. Ohne den Abgleich bliebe eine einmal kopierte Struktur auf dem Stand ihrer Anlage, z. B. fehlte eine
+ * neue Spalte.
+ * <p>
+ * Der Abgleich läuft pro Prozess einmal beim ersten Zugriff auf die Struktur. Er läuft nur, wenn Hibernate auch die
+ * gemeinsamen Tabellen verwaltet. Bei {@code none} oder {@code validate} passiert nichts, dann müssen alle Schemas
+ * bzw. Datenbanken extern migriert werden. Datenmigrationen wie die {@link
+ * de.arbeitsagentur.iab.emu.config.ZusatzinformationenMigration} laufen immer nur auf den gemeinsamen Tabellen.
+ */
+@Component
+@ConditionalOnProperty(name = "emu.mandanten.trennung")
+public class Strukturabgleich implements HibernatePropertiesCustomizer, Integrator {
+
+	private static final String AKTUALISIEREN = "update";
+
+	/**
+	 * Werte von {@code hibernate.hbm2ddl.auto}, bei denen Hibernate die gemeinsamen Tabellen anlegt bzw. ergänzt.
+	 */
+	private static final Set<String> VERWALTET = Set.of(AKTUALISIEREN, "create", "create-drop", "create-only");
+
+	private volatile Metadata metadata;
+
+	private volatile Dialect dialect;
+
+	/**
+	 * Gleicht die Struktur hinter der Verbindung ab. Die Verbindung wird nicht geschlossen.
+	 */
+	void abgleichen(Connection connection) {
+		final Metadata aktuell = metadata;
+		if (aktuell == null) {
+			// Hibernate startet noch.
+			return;
+		}
+		final Map<String, Object> einstellungen = new HashMap<>();
+		einstellungen.put(AvailableSettings.DIALECT, dialect);
+		einstellungen.put(AvailableSettings.CONNECTION_PROVIDER, new Einzelverbindung(connection));
+		einstellungen.put(AvailableSettings.HBM2DDL_AUTO, AKTUALISIEREN);
+		final StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(einstellungen).build();
+		try {
+			SchemaManagementToolCoordinator.process(aktuell, registry, einstellungen, aktion -> {
+			});
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registry);
+		}
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+	}
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+		if (VERWALTET.contains(String.valueOf(sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO)))) {
+			this.dialect = sessionFactory.getJdbcServices().getDialect();
+			this.metadata = metadata;
+		}
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+		metadata = null;
+	}
+
+	/**
+	 * Stellt Hibernate die Verbindung für den Abgleich bereit, ohne sie zu schließen.
+	 */
+	private record Einzelverbindung(Connection connection) implements ConnectionProvider {
+
+		@Override
+		public Connection getConnection() {
+			return connection;
+		}
+
+		@Override
+		public void closeConnection(Connection connection) {
+		}
+
+		@Override
+		public boolean supportsAggressiveRelease() {
+			return false;
+		}
+
+		@Override
+		public boolean isUnwrappableAs(Class<?> unwrapType) {
+			return false;
+		}
+
+		@Override
+		public <T> T unwrap(Class<T> unwrapType) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
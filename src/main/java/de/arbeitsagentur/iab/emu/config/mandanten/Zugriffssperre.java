@@ -0,0 +1,149 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Zählt die offenen Verbindungen pro MandantIn und hält neue Verbindungen zurück, während die Daten der MandantIn
+ * verschoben werden. Dadurch schreibt keine Session in die Tabellen, die gerade kopiert bzw. geleert werden.
+ * <p>
+ * Die Sperre gilt nur für diese Instanz. Laufen mehrere Instanzen, darf die MandantIn während des Verschiebens nur
+ * über die Instanz erreichbar sein, die verschiebt.
+ */
+class Zugriffssperre {
+
+	/**
+	 * So lange wartet eine neue Verbindung auf das Ende des Verschiebens bzw. das Verschieben auf das Schließen der
+	 * offenen Verbindungen.
+	 */
+	static final Duration WARTEZEIT = Duration.ofSeconds(30);
+
+	private static final int ANZAHL_SPERREN = 64;
+
+	private final ReentrantLock[] sperren = new ReentrantLock[ANZAHL_SPERREN];
+
+	private final Condition[] aenderungen = new Condition[ANZAHL_SPERREN];
+
+	private final Map<String, Integer> offen = new ConcurrentHashMap<>();
+
+	private final Set<String> gesperrt = ConcurrentHashMap.newKeySet();
+
+	Zugriffssperre() {
+		for (int i = 0; i < sperren.length; i++) {
+			sperren[i] = new ReentrantLock();
+			aenderungen[i] = sperren[i].newCondition();
+		}
+	}
+
+	/**
+	 * Vor dem Abholen einer Verbindung für die MandantIn. Wartet, solange die MandantIn gesperrt ist.
+	 */
+	void betreten(String tenant) throws SQLException {
+		final int index = index(tenant);
+		sperren[index].lock();
+		try {
+			long rest = WARTEZEIT.toNanos();
+			while (gesperrt.contains(tenant)) {
+				if (rest <= 0) {
+					throw new SQLTransientConnectionException("Die Daten der Tenant-ID " + tenant + " werden verschoben.");
+				}
+				rest = aenderungen[index].awaitNanos(rest);
+			}
+			offen.merge(tenant, 1, Integer::sum);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Unterbrochen beim Warten auf die Tenant-ID " + tenant, e);
+		} finally {
+			sperren[index].unlock();
+		}
+	}
+
+	/**
+	 * Nach dem Zurückgeben einer Verbindung, die mit {@link #betreten(String)} angemeldet wurde.
+	 */
+	void verlassen(String tenant) {
+		final int index = index(tenant);
+		sperren[index].lock();
+		try {
+			offen.computeIfPresent(tenant, (schluessel, anzahl) -> anzahl == 1 ? null : anzahl - 1);
+			aenderungen[index].signalAll();
+		} finally {
+			sperren[index].unlock();
+		}
+	}
+
+	/**
+	 * Sperrt die MandantIn und wartet, bis ihre offenen Verbindungen geschlossen sind. Danach muss
+	 * {@link #freigeben(String)} aufgerufen werden.
+	 */
+	void sperren(String tenant) throws SQLException {
+		final int index = index(tenant);
+		sperren[index].lock();
+		if (!gesperrt.add(tenant)) {
+			sperren[index].unlock();
+			throw new IllegalStateException("Die Daten der Tenant-ID " + tenant + " werden bereits verschoben.");
+		}
+		try {
+			long rest = WARTEZEIT.toNanos();
+			while (offen.containsKey(tenant)) {
+				if (rest <= 0) {
+					throw new SQLTransientConnectionException("Die Tenant-ID " + tenant + " hat noch "
+							+ offen.get(tenant) + " offene Verbindungen.");
+				}
+				rest = aenderungen[index].awaitNanos(rest);
+			}
+		} catch (SQLException | RuntimeException e) {
+			entsperren(tenant, index);
+			throw e;
+		} catch (InterruptedException e) {
+			entsperren(tenant, index);
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Unterbrochen beim Sperren der Tenant-ID " + tenant, e);
+		} finally {
+			sperren[index].unlock();
+		}
+	}
+
+	void freigeben(String tenant) {
+		final int index = index(tenant);
+		sperren[index].lock();
+		try {
+			entsperren(tenant, index);
+		} finally {
+			sperren[index].unlock();
+		}
+	}
+
+	private void entsperren(String tenant, int index) {
+		gesperrt.remove(tenant);
+		aenderungen[index].signalAll();
+	}
+
+	private static int index(String tenant) {
+		return Math.floorMod(tenant.hashCode(), ANZAHL_SPERREN);
+	}
+}
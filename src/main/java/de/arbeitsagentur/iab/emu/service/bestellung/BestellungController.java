@@ -18,6 +18,9 @@
 
 package de.arbeitsagentur.iab.emu.service.bestellung;
 
+import de.arbeitsagentur.iab.emu.config.Idempotenzfilter;
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
 import de.arbeitsagentur.iab.emu.service.projekt.ProjektBereitsVorhandenException;
 import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.UngueltigeFelddefintionException;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
@@ -25,18 +28,21 @@ import de.arbeitsagentur.iab.emu.service.userin.LoginMehrfachVergebenException;
 import de.arbeitsagentur.iab.emu.service.userin.UngueltigeUserInnendatenException;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
 import java.util.Objects;
 
 @OpenAPIDefinition(
@@ -70,20 +76,35 @@ public class BestellungController {
 
     private final BestellungService service;
 
-    public BestellungController(BestellungService service) {
+    private final ObjectProvider<Mandantenbereitstellung> mandantenbereitstellung;
+
+    private final TenantResolver tenantResolver;
+
+    public BestellungController(BestellungService service, ObjectProvider<Mandantenbereitstellung> mandantenbereitstellung,
+                                TenantResolver tenantResolver) {
         this.service = service;
+        this.mandantenbereitstellung = mandantenbereitstellung;
+        this.tenantResolver = tenantResolver;
     }
 
+    /**
+     * Bei getrennten MandantInnen wird die Datenhaltung vor der Transaktion der Bestellung bereitgestellt.
+     */
     @PostMapping(path ="/")
-    @Transactional
     @Operation(description = "Schickt eine Bestellung ab und legt dadurch Gruppen, UserInnen und ein Projekt für einen Mandanten an.")
     @ApiResponses({
             @ApiResponse(responseCode = "409",description = "Wenn bereits ein Projekt für die verwendete TenantID angelegt ist."),
             @ApiResponse(responseCode = "400",description = "Wenn ungültige Gruppen oder Felddefinitionen im Projekt übergeben werden."),
             @ApiResponse(responseCode = "201",description = "Wenn alles angelegt wurde.")
     })
-    public ResponseEntity<?> bestellen(@NonNull @RequestBody Bestellung bestellung) throws ProjektBereitsVorhandenException, UngueltigeGruppenException, UngueltigeFelddefintionException, LoginMehrfachVergebenException, UngueltigeUserInnendatenException {
+    @Parameter(name = Idempotenzfilter.HEADER, in = ParameterIn.HEADER, description = "Optional. Wiederholungen mit demselben Wert " +
+            "erhalten die Antwort der ersten Anfrage, ohne dass die Bestellung erneut ausgeführt wird.")
+    public ResponseEntity<?> bestellen(@NonNull @RequestBody Bestellung bestellung) throws ProjektBereitsVorhandenException, UngueltigeGruppenException, UngueltigeFelddefintionException, LoginMehrfachVergebenException, UngueltigeUserInnendatenException, SQLException {
         Objects.requireNonNull(bestellung);
+        final Mandantenbereitstellung bereitstellung = mandantenbereitstellung.getIfAvailable();
+        if (bereitstellung != null) {
+            bereitstellung.bereitstellen(tenantResolver.resolveCurrentTenantIdentifier());
+        }
         try {
             service.bestellen(bestellung);
         } catch (DataIntegrityViolationException ex) {
@@ -18,13 +18,18 @@
 
 package de.arbeitsagentur.iab.emu.service.bestellung;
 
+import de.arbeitsagentur.iab.emu.config.CacheKonfiguration;
 import de.arbeitsagentur.iab.emu.service.projekt.ProjektBereitsVorhandenException;
 import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
 import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.UngueltigeFelddefintionException;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Randomisierung;
 import de.arbeitsagentur.iab.emu.service.userin.LoginMehrfachVergebenException;
 import de.arbeitsagentur.iab.emu.service.userin.UngueltigeUserInnendatenException;
 import de.arbeitsagentur.iab.emu.service.userin.UserInService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,17 +44,26 @@ public class BestellungService {
 
     private final UserInService userInService;
 
+    private final Randomisierung randomisierung;
 
-    public BestellungService(ProjektService projektService, UserInService userInService) {
+
+    public BestellungService(ProjektService projektService, UserInService userInService, Randomisierung randomisierung) {
         this.projektService = projektService;
         this.userInService = userInService;
+        this.randomisierung = randomisierung;
 
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheKonfiguration.PROJEKT, key = CacheKonfiguration.MANDANT),
+            @CacheEvict(cacheNames = CacheKonfiguration.USERINNEN, key = CacheKonfiguration.MANDANT)
+    })
+    @Timed(value = "emu.bestellungen", extraTags = {"operation", "bestellen"})
     public void bestellen(@NonNull Bestellung bestellung) throws ProjektBereitsVorhandenException, UngueltigeGruppenException, UngueltigeFelddefintionException, LoginMehrfachVergebenException, UngueltigeUserInnendatenException {
         Objects.requireNonNull(bestellung);
 
-        projektService.create(bestellung.getProjekt());
+        // Bei einer Zuteilungsliste wird die Liste zusammen mit dem Projekt erzeugt.
+        randomisierung.projektAngelegt(projektService.create(bestellung.getProjekt()));
         userInService.create(bestellung.getUserInnen());
 
     }
@@ -0,0 +1,163 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom-Filter über Zeichenketten, der mit der Anzahl der Einträge wächst (Scalable Bloom Filter). Liefert
+ * {@link #moeglicherweiseEnthalten(String)} false, wurde der Wert sicher nie hinzugefügt. Bei true kann der Wert
+ * mit der Fehlerrate auch fehlen.
+ * <p>
+ * Der Filter besteht aus Stufen. Ist die aktuelle Stufe voll, kommt eine mit doppelter Kapazität und halbierter
+ * Fehlerrate hinzu. Die Fehlerrate insgesamt bleibt dadurch unter der doppelten Fehlerrate der ersten Stufe.
+ * Hinzufügen und Prüfen sind ohne Sperren threadsicher, Einträge werden nie entfernt.
+ */
+public class Bloomfilter {
+
+	private static final int MIN_KAPAZITAET = 1024;
+
+	private static final class Stufe {
+
+		private final AtomicLongArray bits;
+
+		private final long anzahlBits;
+
+		private final int anzahlHashes;
+
+		private final int kapazitaet;
+
+		private final AtomicInteger anzahl = new AtomicInteger();
+
+		Stufe(int kapazitaet, double fehlerrate) {
+			final double ln2 = Math.log(2);
+			final long bitsGesamt = (long) Math.ceil(-kapazitaet * Math.log(fehlerrate) / (ln2 * ln2));
+			this.bits = new AtomicLongArray((int) ((bitsGesamt + 63) / 64));
+			this.anzahlBits = bits.length() * 64L;
+			this.anzahlHashes = Math.max(1, (int) Math.round((double) anzahlBits / kapazitaet * ln2));
+			this.kapazitaet = kapazitaet;
+		}
+
+		/**
+		 * Die Positionen werden per Double Hashing (h1 + i * h2) aus den beiden Hälften eines 64-Bit-Hashwerts
+		 * gebildet.
+		 */
+		void setzen(long hash) {
+			final int h1 = (int) hash;
+			final int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < anzahlHashes; i++) {
+				final long position = Integer.toUnsignedLong(h1 + i * h2) % anzahlBits;
+				final int index = (int) (position >>> 6);
+				final long maske = 1L << position;
+				long alt;
+				do {
+					alt = bits.get(index);
+				} while ((alt & maske) == 0 && !bits.compareAndSet(index, alt, alt | maske));
+			}
+		}
+
+		boolean gesetzt(long hash) {
+			final int h1 = (int) hash;
+			final int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < anzahlHashes; i++) {
+				final long position = Integer.toUnsignedLong(h1 + i * h2) % anzahlBits;
+				if ((bits.get((int) (position >>> 6)) & (1L << position)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private final List<Stufe> stufen = new CopyOnWriteArrayList<>();
+
+	private volatile Stufe aktuell;
+
+	private final double fehlerrate;
+
+	/**
+	 * @param erwarteteAnzahl Kapazität der ersten Stufe.
+	 * @param fehlerrate Fehlerrate der ersten Stufe, z. B. 0.01.
+	 */
+	public Bloomfilter(int erwarteteAnzahl, double fehlerrate) {
+		if (fehlerrate <= 0 || fehlerrate >= 1) {
+			throw new IllegalArgumentException("Die Fehlerrate muss zwischen 0 und 1 liegen: " + fehlerrate);
+		}
+		this.fehlerrate = fehlerrate;
+		aktuell = new Stufe(Math.max(MIN_KAPAZITAET, erwarteteAnzahl), fehlerrate);
+		stufen.add(aktuell);
+	}
+
+	public void hinzufuegen(String wert) {
+		final long hash = hash(wert);
+		Stufe stufe = aktuell;
+		if (stufe.anzahl.incrementAndGet() > stufe.kapazitaet) {
+			stufe = erweitern(stufe);
+		}
+		stufe.setzen(hash);
+	}
+
+	private synchronized Stufe erweitern(Stufe volle) {
+		if (aktuell == volle) {
+			final Stufe neue = new Stufe(volle.kapazitaet * 2, fehlerrate / (1 << Math.min(stufen.size(), 30)));
+			stufen.add(neue);
+			aktuell = neue;
+		}
+		aktuell.anzahl.incrementAndGet();
+		return aktuell;
+	}
+
+	public boolean moeglicherweiseEnthalten(String wert) {
+		final long hash = hash(wert);
+		for (Stufe stufe : stufen) {
+			if (stufe.gesetzt(hash)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Belegter Speicher der Bits in Bytes.
+	 */
+	public long getGroesse() {
+		return stufen.stream().mapToLong(stufe -> stufe.anzahlBits / 8).sum();
+	}
+
+	/**
+	 * FNV-1a über die UTF-8-Bytes, gefolgt vom Finalizer von MurmurHash3, damit beide Hälften des Werts gut
+	 * durchmischt sind.
+	 */
+	static long hash(String wert) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : wert.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Kodiert die Position für das Weiterblättern in der KundInnen-Suche. Für Clients ist der Wert undurchsichtig,
+ * intern enthält er die ID der letzten gelieferten Kundin / des letzten gelieferten Kunden.
+ */
+public final class Fortsetzungstoken {
+
+	private static final String PRAEFIX = "k1:";
+
+	private Fortsetzungstoken() {}
+
+	public static String kodieren(int letzteId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((PRAEFIX + letzteId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return Die ID, nach der weitergesucht wird.
+	 * @throws IllegalArgumentException Falls das Token ungültig ist.
+	 */
+	public static int dekodieren(String token) {
+		final String inhalt = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		if (!inhalt.startsWith(PRAEFIX)) {
+			throw new IllegalArgumentException("Ungültiges Fortsetzungstoken: " + token);
+		}
+		return Integer.parseInt(inhalt.substring(PRAEFIX.length()));
+	}
+}
@@ -23,6 +23,7 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.TenantId;
 
 @Entity
+@EntityListeners(KundInAenderungsListener.class)
 @Table(
 	    name="kundin",
 	    uniqueConstraints=
@@ -30,8 +31,15 @@ import org.hibernate.annotations.TenantId;
 	)
 public class KundIn {
 
+	/**
+	 * Anzahl der IDs, die Hibernate pro Sequenzabfrage reserviert. Entspricht der JDBC-Batchgröße, damit
+	 * beim Import pro Batch höchstens eine Sequenzabfrage nötig ist.
+	 */
+	public static final int ID_BLOCKGROESSE = 50;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kundin_seq")
+	@SequenceGenerator(name = "kundin_seq", sequenceName = "kundin_seq", allocationSize = ID_BLOCKGROESSE)
 	private Integer id;
 	@TenantId
 	private String tenantId;
@@ -0,0 +1,49 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity-Listener für {@link KundIn}: Jede neue oder geänderte Kundin / jeder neue oder geänderte Kunde
+ * wird in den {@link KundInSuchindex} und den {@link KundInnennummernfilter} übernommen. Beide werden erst beim
+ * Ereignis aufgelöst, weil der Listener bereits beim Aufbau der EntityManagerFactory erzeugt wird.
+ */
+@Component
+public class KundInAenderungsListener {
+
+	private final ObjectProvider<KundInSuchindex> kundInSuchindex;
+
+	private final ObjectProvider<KundInnennummernfilter> kundInnennummernfilter;
+
+	public KundInAenderungsListener(ObjectProvider<KundInSuchindex> kundInSuchindex,
+									ObjectProvider<KundInnennummernfilter> kundInnennummernfilter) {
+		this.kundInSuchindex = kundInSuchindex;
+		this.kundInnennummernfilter = kundInnennummernfilter;
+	}
+
+	@PostPersist
+	@PostUpdate
+	void kundInGeaendert(KundIn kundIn) {
+		kundInSuchindex.getObject().aktualisieren(kundIn);
+		kundInnennummernfilter.getObject().vermerken(kundIn);
+	}
+}
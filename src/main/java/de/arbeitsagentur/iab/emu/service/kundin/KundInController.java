@@ -18,18 +18,32 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.config.Idempotenzfilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @RestController()
 @RequestMapping(path = "/api/v1/{tenantId}/")
 @Tag(name = "KundInnen",description = "Hauptbestandteil der Anwendung. Verwaltet die KundInnen und ordnet diese ggf. Gruppen zu. Bei KundInnen " +
@@ -39,8 +53,13 @@ public class KundInController {
 	
 	private final KundInService service;
 
-	public KundInController(@NonNull KundInService service) {
+	private final ObjectMapper mapper;
+
+	static final int MAX_SEITENGROESSE = 1000;
+
+	public KundInController(@NonNull KundInService service, @NonNull ObjectMapper mapper) {
 		this.service = service;
+		this.mapper = mapper;
 	}
 
 	@PostMapping(path="/kundinnen")
@@ -52,6 +71,8 @@ public class KundInController {
 			@ApiResponse(responseCode = "409",description = "Falls die KundInnennummer bereits vorhanden ist."),
 			@ApiResponse(responseCode = "201",description = "Falls eine Kundin / ein Kunde mit den übergebenen Daten angelegt wurde.")
 	})
+	@Parameter(name = Idempotenzfilter.HEADER, in = ParameterIn.HEADER, description = "Optional. Wiederholungen mit demselben Wert " +
+			"erhalten die Antwort der ersten Anfrage, ohne dass erneut eine Kundin / ein Kunde angelegt wird.")
 	public ResponseEntity<?> create(@NonNull @RequestBody KundInnendaten kundInnendaten) throws UngueltigeKundInnennummerException,
 			GruppeNichtGefundenException, KundInnennummerBereitsVorhandenException {
 
@@ -63,6 +84,48 @@ public class KundInController {
 		}
 	}
 
+	@PostMapping(path="/kundinnen/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Legt mehrere KundInnen in einer Transaktion an.",
+			description = "Für den Projektstart mit vielen KundInnen. Jede Zeile wird wie beim Anlegen einer einzelnen Kundin / " +
+					"eines einzelnen Kunden behandelt. Zeilen mit ungültiger oder bereits vergebener KundInnennummer werden " +
+					"übersprungen und im Ergebnis mit dem entsprechenden Status zurückgegeben. Alternativ kann NDJSON " +
+					"(application/x-ndjson, ein Datensatz pro Zeile) übergeben werden.")
+	@ApiResponses({
+			@ApiResponse(responseCode = "200",description = "Ergebnis pro übergebener Zeile in derselben Reihenfolge."),
+			@ApiResponse(responseCode = "409",description = "Falls eine KundInnennummer parallel vergeben wurde. Es wurde dann nichts angelegt.")
+	})
+	public List<KundInnenImportErgebnis> importieren(@NonNull @RequestBody List<KundInnendaten> kundInnendaten) throws GruppeNichtGefundenException {
+		try {
+			return service.importieren(kundInnendaten);
+		} catch (DataIntegrityViolationException ex) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT,"Datenkonflikt! KundInnennummer mehrfach vergeben?");
+		}
+	}
+
+	@PostMapping(path="/kundinnen/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(hidden = true)
+	public List<KundInnenImportErgebnis> importierenNdjson(InputStream ndjson) throws GruppeNichtGefundenException, IOException {
+		// Die Zeilen werden während des Imports gelesen. Ein Fehler in einer späteren Zeile bricht den Import ab,
+		// die Transaktion wird dann zurückgerollt.
+		try (MappingIterator<KundInnendaten> iterator = mapper.readerFor(KundInnendaten.class).readValues(ndjson)) {
+			return service.importieren(iterator);
+		} catch (JsonProcessingException ex) {
+			throw ungueltigesNdjson(ex);
+		} catch (DataIntegrityViolationException ex) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT,"Datenkonflikt! KundInnennummer mehrfach vergeben?");
+		} catch (RuntimeException ex) {
+			// MappingIterator meldet Fehler beim Lesen als RuntimeException.
+			if (ex.getCause() instanceof JsonProcessingException cause) {
+				throw ungueltigesNdjson(cause);
+			}
+			throw ex;
+		}
+	}
+
+	private static ResponseStatusException ungueltigesNdjson(JsonProcessingException ex) {
+		return new ResponseStatusException(HttpStatus.BAD_REQUEST,"Ungültiges NDJSON: " + ex.getOriginalMessage());
+	}
+
 	@PatchMapping(path="/kundinnen/{id}")
 	@Operation(summary = "KundInnendaten aktualisieren.",
 			description = "Aktualisiert die KundInnendaten einer Kundin / eines Kunden, sofern diese gültig sind. " +
@@ -103,17 +166,85 @@ public class KundInController {
 		return service.getKundInnenProGruppe();
 	}
 
-	@Operation(description = "Lädt bis zu 101 KundInnen einer Tenant-ID anhand eines Suchbegriffs. " +
+	/**
+	 * Response-Header mit dem Token für die nächste Seite. Fehlt der Header, gibt es keine weiteren Treffer.
+	 */
+	static final String HEADER_FORTSETZUNG = "X-Fortsetzungstoken";
+
+	/**
+	 * Response-Header mit der Gesamtzahl der Treffer, nur falls mit 'mitAnzahl=true' angefordert.
+	 */
+	static final String HEADER_GESAMTANZAHL = "X-Gesamtanzahl";
+
+	@Operation(description = "Lädt bis zu 101 KundInnen einer Tenant-ID anhand eines Suchbegriffs, aufsteigend nach ID sortiert. " +
 			"Wenn mehr als 100 KundInnen gefunden werden, sollte den Nutzenden ggf. der Hinweis gegeben werden, dass die " +
-			"Suche verfeinert werden sollte.")
+			"Suche verfeinert werden sollte. Gibt es weitere Treffer, enthält der Header '" + HEADER_FORTSETZUNG + "' ein Token, " +
+			"mit dem über den Parameter 'fortsetzung' die nächste Seite geladen werden kann.")
 	@Parameter(name = "suchbegriff",description = "'Like'-Suche im Nachnamen und der KundInnennummer. Case-Insensitive. " +
 			"Suchbegriff muss im Nachnamen ODER in der KundInnennummer vorkommen. " +
 			"Wenn kein Suchbegriff oder ein leerer Suchbegriff übergeben wird, werden KundInnen ohne Sucheinschränkung " +
 			"geladen.")
+	@Parameter(name = "fortsetzung", description = "Token aus dem Header '" + HEADER_FORTSETZUNG + "' der vorherigen Seite.")
+	@Parameter(name = "anzahl", description = "Maximale Anzahl der KundInnen pro Seite (1 bis 1000, Standard 101).")
+	@Parameter(name = "mitAnzahl", description = "Falls true, wird die Gesamtzahl der Treffer im Header '" + HEADER_GESAMTANZAHL +
+			"' geliefert. Das Zählen ist bei vielen Treffern teurer als das Laden einer Seite.")
 	@GetMapping(path="/kundinnen/suche/" ,params = {"suchbegriff"})
-	@ApiResponse(responseCode = "200")
-	public Iterable<KundIn> getBySuchbegiff(final @RequestParam(name = "suchbegriff",required = false) String suchbegriff) {
-		return service.getBySuchbegriff(suchbegriff);
+	@ApiResponses({
+			@ApiResponse(responseCode = "200"),
+			@ApiResponse(responseCode = "400", description = "Falls das Fortsetzungstoken oder die Anzahl ungültig ist.")
+	})
+	public ResponseEntity<Iterable<KundIn>> getBySuchbegiff(final @RequestParam(name = "suchbegriff",required = false) String suchbegriff,
+			final @RequestParam(name = "fortsetzung", required = false) String fortsetzung,
+			final @RequestParam(name = "anzahl", defaultValue = "101") int anzahl,
+			final @RequestParam(name = "mitAnzahl", defaultValue = "false") boolean mitAnzahl) {
+		final KundInnenSeite<KundIn> seite = service.getBySuchbegriff(suchbegriff, seitenbeginn(fortsetzung), pruefeAnzahl(anzahl));
+		return seitenantwort(seite, suchbegriff, mitAnzahl);
+	}
+
+	@Operation(description = "Wie '/kundinnen/suche/', liefert aber pro Kundin / Kunde nur ID, Vorname, Nachname, KundInnennummer, " +
+			"Geburtsdatum und die Bezeichnung der Gruppe. Für Ergebnislisten deutlich schneller als die vollständigen KundInnen.")
+	@Parameter(name = "suchbegriff",description = "Wie bei '/kundinnen/suche/'.")
+	@Parameter(name = "fortsetzung", description = "Token aus dem Header '" + HEADER_FORTSETZUNG + "' der vorherigen Seite.")
+	@Parameter(name = "anzahl", description = "Maximale Anzahl der KundInnen pro Seite (1 bis 1000, Standard 101).")
+	@Parameter(name = "mitAnzahl", description = "Falls true, wird die Gesamtzahl der Treffer im Header '" + HEADER_GESAMTANZAHL +
+			"' geliefert.")
+	@GetMapping(path="/kundinnen/suchergebnisse/" ,params = {"suchbegriff"})
+	@ApiResponses({
+			@ApiResponse(responseCode = "200"),
+			@ApiResponse(responseCode = "400", description = "Falls das Fortsetzungstoken oder die Anzahl ungültig ist.")
+	})
+	public ResponseEntity<Iterable<KundInSuchergebnis>> getSuchergebnisse(final @RequestParam(name = "suchbegriff",required = false) String suchbegriff,
+			final @RequestParam(name = "fortsetzung", required = false) String fortsetzung,
+			final @RequestParam(name = "anzahl", defaultValue = "101") int anzahl,
+			final @RequestParam(name = "mitAnzahl", defaultValue = "false") boolean mitAnzahl) {
+		final KundInnenSeite<KundInSuchergebnis> seite = service.getSuchergebnisse(suchbegriff, seitenbeginn(fortsetzung), pruefeAnzahl(anzahl));
+		return seitenantwort(seite, suchbegriff, mitAnzahl);
+	}
+
+	private static int pruefeAnzahl(int anzahl) {
+		if (anzahl < 1 || anzahl > MAX_SEITENGROESSE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Ungültige Anzahl: " + anzahl);
+		}
+		return anzahl;
+	}
+
+	private static Integer seitenbeginn(String fortsetzung) {
+		try {
+			return fortsetzung == null || fortsetzung.isEmpty() ? null : Fortsetzungstoken.dekodieren(fortsetzung);
+		} catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Ungültiges Fortsetzungstoken.");
+		}
+	}
+
+	private <T> ResponseEntity<Iterable<T>> seitenantwort(KundInnenSeite<T> seite, String suchbegriff, boolean mitAnzahl) {
+		final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (seite.weiterNachId() != null) {
+			response.header(HEADER_FORTSETZUNG, Fortsetzungstoken.kodieren(seite.weiterNachId()));
+		}
+		if (mitAnzahl) {
+			response.header(HEADER_GESAMTANZAHL, String.valueOf(service.zaehleBySuchbegriff(suchbegriff)));
+		}
+		return response.body(seite.kundInnen());
 	}
 
 	@Operation(description = "Lädt einen Kunden / eine Kundin anhand der KundInnennummer aus der Datenbank.")
@@ -125,4 +256,29 @@ public class KundInController {
 	public KundIn getByKundInnennummer(final @NonNull @RequestParam(name = "kundinnennummer") String kundInnennummer) throws KundInNichtGefundenException {
 		return service.getByKundInnennummer(kundInnennummer);
 	}
+
+	@Operation(description = "Exportiert alle KundInnen der Tenant-ID mit Gruppe, KundInnendaten und Zusatzinformationen. " +
+			"Die Daten werden beim Lesen aus der Datenbank direkt in die Antwort geschrieben, der Export ist daher auch " +
+			"für sehr viele KundInnen geeignet.")
+	@Parameter(name = "format", description = "'csv' (Standard, Trennzeichen ';', eine Spalte pro Zusatzinformation) oder " +
+			"'ndjson' (ein JSON-Objekt pro Zeile).")
+	@GetMapping(path="/kundinnen/export")
+	@ApiResponses({
+			@ApiResponse(responseCode = "200"),
+			@ApiResponse(responseCode = "400", description = "Falls ein unbekanntes Format angefordert wird.")
+	})
+	public void exportieren(final @RequestParam(name = "format", defaultValue = "csv") String format, HttpServletResponse response) throws IOException {
+		final KundInnenExport.Format exportformat;
+		try {
+			exportformat = KundInnenExport.Format.von(format);
+		} catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Unbekanntes Exportformat: " + format);
+		}
+
+		response.setContentType(exportformat.getContentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename("kundinnen." + exportformat.getDateiendung()).build().toString());
+		service.exportieren(exportformat, response.getWriter());
+	}
 }
@@ -18,26 +18,66 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface KundInRepository extends CrudRepository<KundIn, Integer> {
+public interface KundInRepository extends CrudRepository<KundIn, Integer>, KundInZusatzinformationenAbfragen {
 
 	
-	@Query("SELECT k FROM KundIn k WHERE (?1 is null or lower(k.kundInnendaten.nachname) like concat('%', lower(?1), '%') or lower(k.kundInnendaten.kundInnennummer) like concat('%', lower(?1), '%'))")
-	List<KundIn> findBySuchbegriff(@Param("suchbegriff") String suchbegriff, Pageable pageable);
+	/**
+	 * Keyset-Paginierung: Es werden nur KundInnen mit einer ID größer als nachId geliefert, sortiert nach ID.
+	 * Das Pageable dient nur der Begrenzung und sollte immer die erste Seite anfordern.
+	 */
+	@Query("SELECT k FROM KundIn k WHERE (?1 is null or lower(k.kundInnendaten.nachname) like concat('%', lower(?1), '%') or lower(k.kundInnendaten.kundInnennummer) like concat('%', lower(?1), '%')) " +
+			"AND k.id > ?2 ORDER BY k.id")
+	List<KundIn> findBySuchbegriff(@Param("suchbegriff") String suchbegriff, int nachId, Pageable pageable);
+
+	@Query("SELECT count(k) FROM KundIn k WHERE (?1 is null or lower(k.kundInnendaten.nachname) like concat('%', lower(?1), '%') or lower(k.kundInnendaten.kundInnennummer) like concat('%', lower(?1), '%'))")
+	long countBySuchbegriff(@Param("suchbegriff") String suchbegriff);
+
+	/**
+	 * Keyset-Paginierung, siehe {@link #findBySuchbegriff(String, int, Pageable)}.
+	 */
+	@Query("SELECT k FROM KundIn k WHERE k.id > ?1 ORDER BY k.id")
+	List<KundIn> findAllPagable(int nachId, Pageable pageable);
+
+	/**
+	 * Wie {@link #findBySuchbegriff(String, int, Pageable)}, liefert aber nur die Spalten für die Ergebnisliste.
+	 * Es werden keine Entities geladen, Gruppe und Zusatzinformationen werden also nicht gelesen.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInSuchergebnis(k.id, k.kundInnendaten.vorname, k.kundInnendaten.nachname, " +
+			"k.kundInnendaten.kundInnennummer, k.kundInnendaten.geburtsdatum, g.bezeichnung) FROM KundIn k LEFT JOIN k.gruppe g " +
+			"WHERE (?1 is null or lower(k.kundInnendaten.nachname) like concat('%', lower(?1), '%') or lower(k.kundInnendaten.kundInnennummer) like concat('%', lower(?1), '%')) " +
+			"AND k.id > ?2 ORDER BY k.id")
+	List<KundInSuchergebnis> findSuchergebnisseBySuchbegriff(String suchbegriff, int nachId, Pageable pageable);
 
-	@Query("SELECT k FROM KundIn k")
-	List<KundIn> findAllPagable(Pageable pageable);
+	/**
+	 * Wie {@link #findAllPagable(int, Pageable)}, liefert aber nur die Spalten für die Ergebnisliste.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInSuchergebnis(k.id, k.kundInnendaten.vorname, k.kundInnendaten.nachname, " +
+			"k.kundInnendaten.kundInnennummer, k.kundInnendaten.geburtsdatum, g.bezeichnung) FROM KundIn k LEFT JOIN k.gruppe g " +
+			"WHERE k.id > ?1 ORDER BY k.id")
+	List<KundInSuchergebnis> findSuchergebnisse(int nachId, Pageable pageable);
 
-	@Query("select new de.arbeitsagentur.iab.emu.service.kundin.KundInnenProGruppe(count(k.id),g.bezeichnung) from Gruppe g left join KundIn k on k.gruppe.id = g.id group by g.bezeichnung")
-	List<KundInnenProGruppe> getAnzahlInGruppen();
+	/**
+	 * Anzahl der KundInnen pro Gruppe. Gruppen ohne KundInnen sind nicht enthalten.
+	 */
+	@Query("select new de.arbeitsagentur.iab.emu.service.kundin.AnzahlProGruppe(k.gruppe.id, count(k.id)) from KundIn k where k.gruppe is not null group by k.gruppe.id")
+	List<AnzahlProGruppe> getAnzahlProGruppe();
 
 	/**
      * Work-Around für einen Bug in Hibernate. Dieser führt dazu,
@@ -53,5 +93,53 @@ public interface KundInRepository extends CrudRepository<KundIn, Integer> {
 	@NonNull
 	@Query("SELECT k FROM KundIn k WHERE lower(k.kundInnendaten.kundInnennummer) = lower(?1)")
 	Optional<KundIn> findByKundInnennummer(@NonNull String kundInnennummer);
-	
+
+	/**
+	 * Liefert die bereits vergebenen KundInnennummern aus der übergebenen Menge. Die Nummern müssen
+	 * normalisiert sein (siehe {@link KundInnennummerValidator#normalisiere(String)}), so gespeichert werden sie auch.
+	 */
+	@Query("SELECT k.kundInnendaten.kundInnennummer FROM KundIn k WHERE k.kundInnendaten.kundInnennummer IN ?1")
+	Set<String> findVergebeneKundInnennummern(@NonNull Collection<String> kundInnennummern);
+
+	/**
+	 * Liefert die Gruppen aller zugeordneten KundInnen für den Abgleich mit dem Zuteilungsjournal. Der Stream muss
+	 * innerhalb einer Transaktion gelesen und danach geschlossen werden.
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInZuordnung(k.id, k.gruppe.id) FROM KundIn k WHERE k.gruppe IS NOT NULL")
+	Stream<KundInZuordnung> streamZuordnungen();
+
+	/**
+	 * Liefert alle KundInnennummern für den Aufbau des {@link KundInnennummernfilter}. Der Stream muss innerhalb einer
+	 * Transaktion gelesen und danach geschlossen werden.
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT k.kundInnendaten.kundInnennummer FROM KundIn k WHERE k.kundInnendaten.kundInnennummer IS NOT NULL")
+	Stream<String> streamKundInnennummern();
+
+	/**
+	 * Liefert Nachname und KundInnennummer aller KundInnen für den Aufbau des {@link KundInSuchindex}. Der Stream muss
+	 * innerhalb einer Transaktion gelesen und danach geschlossen werden.
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInnenSuchtext(k.id, k.kundInnendaten.nachname, k.kundInnendaten.kundInnennummer) FROM KundIn k ORDER BY k.id")
+	Stream<KundInnenSuchtext> streamSuchtexte();
+
+	@Query("SELECT k FROM KundIn k WHERE k.id IN ?1 ORDER BY k.id")
+	List<KundIn> findAllByIdIn(@NonNull Collection<Integer> ids);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInSuchergebnis(k.id, k.kundInnendaten.vorname, k.kundInnendaten.nachname, " +
+			"k.kundInnendaten.kundInnennummer, k.kundInnendaten.geburtsdatum, g.bezeichnung) FROM KundIn k LEFT JOIN k.gruppe g " +
+			"WHERE k.id IN ?1 ORDER BY k.id")
+	List<KundInSuchergebnis> findSuchergebnisseByIdIn(@NonNull Collection<Integer> ids);
 }
@@ -18,17 +18,37 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
-import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppeRepository;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Randomisierung;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Zuteilung;
+import de.arbeitsagentur.iab.emu.service.randomisierung.journal.Zuteilungsjournal;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -36,16 +56,52 @@ public class KundInService {
 
     private final KundInRepository kundInRepository;
 
-    private final GruppeRepository gruppeRepository;
+    private final Randomisierung randomisierung;
 
-    public KundInService(KundInRepository kundInRepository, GruppeRepository gruppeRepository) {
+    private final EntityManager entityManager;
+
+    private final ObjectMapper mapper;
+
+    private final KundInSuchindex kundInSuchindex;
+
+    private final KundInnenZaehler kundInnenZaehler;
+
+    private final KundInnennummernfilter kundInnennummernfilter;
+
+    private final Zuteilungsjournal zuteilungsjournal;
+
+    /**
+     * Die Suche liefert höchstens so viele KundInnen. Der Client erkennt daran, dass die Suche verfeinert werden sollte.
+     */
+    static final int MAX_SUCHERGEBNISSE = 101;
+
+    /**
+     * Anzahl der Zeilen, die beim Import gemeinsam geprüft werden (Größe der IN-Liste).
+     */
+    static final int IMPORT_PRUEFBLOCK = 500;
+
+    /**
+     * Übersetzt Fehler beim Flush des Imports wie bei den Repositories in eine {@link DataAccessException}.
+     */
+    private static final PersistenceExceptionTranslator FEHLERUEBERSETZUNG = new HibernateJpaDialect();
+
+    public KundInService(KundInRepository kundInRepository, Randomisierung randomisierung, EntityManager entityManager,
+                         ObjectMapper mapper, KundInSuchindex kundInSuchindex, KundInnenZaehler kundInnenZaehler,
+                         KundInnennummernfilter kundInnennummernfilter, Zuteilungsjournal zuteilungsjournal) {
         this.kundInRepository = kundInRepository;
-        this.gruppeRepository = gruppeRepository;
+        this.randomisierung = randomisierung;
+        this.entityManager = entityManager;
+        this.mapper = mapper;
+        this.kundInSuchindex = kundInSuchindex;
+        this.kundInnenZaehler = kundInnenZaehler;
+        this.kundInnennummernfilter = kundInnennummernfilter;
+        this.zuteilungsjournal = zuteilungsjournal;
     }
 
 
     /**
-     * Ordnet der Kundin / dem Kunden eine zufällige {@link Gruppe} zu.
+     * Ordnet der Kundin / dem Kunden eine zufällige {@link Gruppe} zu. Das Verfahren richtet sich nach dem
+     * Randomisierungsverfahren des Projekts, siehe {@link Randomisierung}.
      * @param kundIn Diese(r) Kundin / Kunde wird einer Gruppe zugeordnet.
      * @throws IllegalArgumentException Falls der Kundin / dem Kunden bereits eine Gruppe zugeordnert ist.
      * @throws GruppeNichtGefundenException Falls die Gruppendaten inkonsistent sind.
@@ -59,14 +115,16 @@ public class KundInService {
             throw new IllegalArgumentException("Gruppe bereits gesetzt.");
         }
 
-        final int maxObergrenze = gruppeRepository.getMaxObergrenze();
-        final int minUntergrenze = gruppeRepository.getMinUntergrenze();
-        final int zufallswert = Zufallsgenerator.zufallsgenerator(minUntergrenze,maxObergrenze);
-        final Gruppe gruppe = gruppeRepository.findGruppeByZufallswert(zufallswert)
-                .orElseThrow(() -> new GruppeNichtGefundenException("Gruppe für Zufallswert "+zufallswert+" nicht gefunden!"));
-
+        final Zuteilung zuteilung = randomisierung.zuteilen(kundIn);
+        // Die Gruppe der Zuteilung ist eine Kopie aus dem Cache ohne Version. Gesetzt wird die verwaltete Entity,
+        // die innerhalb der Transaktion aus dem Persistenzkontext kommt.
+        final Gruppe gruppe = entityManager.find(Gruppe.class, zuteilung.gruppe().getId());
+        if (gruppe == null) {
+            throw new GruppeNichtGefundenException("Gruppe " + zuteilung.gruppe().getId() + " nicht gefunden!");
+        }
         kundIn.setGruppe(gruppe);
-
+        kundInnenZaehler.zugeordnet(zuteilung.gruppe());
+        zuteilungsjournal.vermerken(kundIn, zuteilung);
     }
 
     /**
@@ -78,6 +136,7 @@ public class KundInService {
      * @param kundInnendaten Erzeugt eine neue Kundin / einen neuen Kunden mit diesen Daten.
      * @return Das angelegte Objekt.
      */
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "anlegen"})
     public KundIn create(@NonNull KundInnendaten kundInnendaten) throws UngueltigeKundInnennummerException, GruppeNichtGefundenException, KundInnennummerBereitsVorhandenException {
 
         Objects.requireNonNull(kundInnendaten);
@@ -92,6 +151,96 @@ public class KundInService {
         return kundInRepository.save(kundIn);
     }
 
+    /**
+     * Legt mehrere KundInnen in einer Transaktion an. Im Gegensatz zu {@link #create(KundInnendaten)} wird für
+     * ungültige oder bereits vergebene KundInnennummern keine Exception geworfen, sondern die Zeile übersprungen
+     * und im Ergebnis vermerkt. Die Prüfung auf vergebene KundInnennummern erfolgt mengenbasiert, die Inserts
+     * werden per JDBC-Batch ausgeführt.
+     * @throws GruppeNichtGefundenException Falls die Gruppendaten inkonsistent sind. Es wird dann nichts angelegt.
+     * @throws DataIntegrityViolationException Falls eine KundInnennummer parallel vergeben wurde. Es wird dann nichts angelegt.
+     * @param kundInnendatenListe Für jeden Eintrag wird eine Kundin / ein Kunde angelegt.
+     * @return Ein Ergebnis pro Eintrag in der Reihenfolge der übergebenen Liste.
+     */
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "importieren"})
+    public List<KundInnenImportErgebnis> importieren(@NonNull List<KundInnendaten> kundInnendatenListe) throws GruppeNichtGefundenException {
+        Objects.requireNonNull(kundInnendatenListe);
+        return importieren(kundInnendatenListe.iterator());
+    }
+
+    /**
+     * Wie {@link #importieren(List)}, liest die Einträge aber erst beim Import. Es werden jeweils nur
+     * {@link #IMPORT_PRUEFBLOCK} Einträge gleichzeitig gehalten, z. B. beim Lesen eines NDJSON-Uploads.
+     * @param kundInnendaten Für jeden Eintrag wird eine Kundin / ein Kunde angelegt.
+     * @return Ein Ergebnis pro Eintrag in der Reihenfolge der übergebenen Einträge.
+     */
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "importieren"})
+    public List<KundInnenImportErgebnis> importieren(@NonNull Iterator<KundInnendaten> kundInnendaten) throws GruppeNichtGefundenException {
+        Objects.requireNonNull(kundInnendaten);
+
+        final List<KundInnenImportErgebnis> ergebnisse = new ArrayList<>();
+        final List<KundInnendaten> block = new ArrayList<>(IMPORT_PRUEFBLOCK);
+        int ersteZeile = 0;
+        while (kundInnendaten.hasNext()) {
+            block.add(kundInnendaten.next());
+            if (block.size() == IMPORT_PRUEFBLOCK || !kundInnendaten.hasNext()) {
+                importierenBlock(block, ersteZeile, ergebnisse);
+                ersteZeile += block.size();
+                block.clear();
+            }
+        }
+        return ergebnisse;
+    }
+
+    private void importierenBlock(List<KundInnendaten> block, int ersteZeile, List<KundInnenImportErgebnis> ergebnisse) throws GruppeNichtGefundenException {
+
+        // Ohne den KundInnennummernfilter: Er kennt Nummern anderer Instanzen ggf. noch nicht, und ein Treffer auf den
+        // Unique-Constraint würde den gesamten Import zurückrollen. Die Abfrage pro Block kostet dagegen wenig.
+        final Set<String> nummern = new HashSet<>();
+        for (KundInnendaten kundInnendaten : block) {
+            if (kundInnendaten != null && kundInnendaten.isKundInnennummerValid()) {
+                nummern.add(kundInnendaten.getKundInnenennummer());
+            }
+        }
+        // Enthält nach der Schleife auch die Nummern dieses Imports, damit Dubletten innerhalb des Imports erkannt werden.
+        final Set<String> vergeben = new HashSet<>(nummern.isEmpty() ? Set.of() : kundInRepository.findVergebeneKundInnennummern(nummern));
+
+        final List<KundIn> neu = new ArrayList<>(block.size());
+        for (int i = 0; i < block.size(); i++) {
+            final int zeile = ersteZeile + i;
+            final KundInnendaten kundInnendaten = block.get(i);
+            if (kundInnendaten == null || !kundInnendaten.isKundInnennummerValid()) {
+                ergebnisse.add(KundInnenImportErgebnis.fehler(zeile, KundInnenImportErgebnis.Status.UngueltigeKundInnennummer,
+                        "Ungültige kundInnenennummer: " + (kundInnendaten == null ? null : kundInnendaten.getKundInnenennummer())));
+                continue;
+            }
+            if (!vergeben.add(kundInnendaten.getKundInnenennummer())) {
+                ergebnisse.add(KundInnenImportErgebnis.fehler(zeile, KundInnenImportErgebnis.Status.KundInnennummerBereitsVorhanden,
+                        "Die KundInnenennummer '"+ kundInnendaten.getKundInnenennummer()+"' ist bereits im System vergeben."));
+                continue;
+            }
+
+            final KundIn kundIn = new KundIn();
+            kundIn.setKundInnendaten(kundInnendaten);
+            if (kundInnendaten.getTeilnahmeAbsagegrund() == TeilnahmeAbsagegrund.Teilnahme) {
+                muenzwurf(kundIn);
+            }
+            neu.add(kundIn);
+            ergebnisse.add(KundInnenImportErgebnis.angelegt(zeile, kundIn));
+        }
+
+        kundInRepository.saveAll(neu);
+        // Inserts ausführen und den Persistenzkontext leeren, damit er bei großen Importen nicht wächst.
+        try {
+            entityManager.flush();
+        } catch (PersistenceException ex) {
+            // Der EntityManager übersetzt Fehler nicht wie die Repositories. Eine parallel vergebene KundInnennummer
+            // soll aber wie beim Anlegen als DataIntegrityViolationException ankommen.
+            final DataAccessException uebersetzt = FEHLERUEBERSETZUNG.translateExceptionIfPossible(ex);
+            throw uebersetzt != null ? uebersetzt : ex;
+        }
+        entityManager.clear();
+    }
+
     /**
      * Überprüft die Gültigkeit einer KundInnennummer und ob diese bereits vergeben wurde.
      * @throws UngueltigeKundInnennummerException Falls KundInnennummer ungültig.
@@ -118,6 +267,7 @@ public class KundInService {
      * @param id ID der Kundin / des Kunden.
      * @param kundInnendaten Diese Daten werden bei der Kundin / beim Kunden eingetagen, sofern diese gültig sind.
      */
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "aendern"})
     public KundIn update(int id, @NonNull KundInnendaten kundInnendaten) throws UngueltigeKundInnennummerException, KundInNichtGefundenException,
             KundInnennummerBereitsVorhandenException,
             GruppeNichtGefundenException {
@@ -136,35 +286,195 @@ public class KundInService {
         return kundIn;
     }
 
+    @Transactional(readOnly = true)
     public KundIn getById(@NonNull int id) throws KundInNichtGefundenException {
         return kundInRepository.findById(id)
                 .orElseThrow(() -> new KundInNichtGefundenException("KundIn "+id+" nicht gefunden!"));
     }
 
+    @Transactional(readOnly = true)
     public KundIn getByKundInnennummer(@NonNull String kundInnennummer) throws KundInNichtGefundenException {
         return kundInRepository.findByKundInnennummer(kundInnennummer)
                 .orElseThrow(() -> new KundInNichtGefundenException("KundIn mit KundInnennummer "+kundInnennummer+" nicht gefunden!"));
     }
 
+    /**
+     * Anzahl der KundInnen pro Gruppe, siehe {@link KundInnenZaehler}.
+     */
+    @Transactional(readOnly = true)
     public Iterable<KundInnenProGruppe> getKundInnenProGruppe() {
-        return kundInRepository.getAnzahlInGruppen();
+        return kundInnenZaehler.getKundInnenProGruppe();
     }
 
+    /**
+     * Sucht KundInnen anhand eines Teilstrings im Nachnamen oder in der KundInnennummer. Suchbegriffe ab drei Zeichen
+     * werden über den {@link KundInSuchindex} beantwortet, kürzere über die Datenbank.
+     * @return Die ersten {@link #MAX_SUCHERGEBNISSE} Treffer.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "suchen"})
     public Iterable<KundIn> getBySuchbegriff(String suchbegriff) {
+        return getBySuchbegriff(suchbegriff, null, MAX_SUCHERGEBNISSE).kundInnen();
+    }
+
+    /**
+     * Liefert eine Seite des Suchergebnisses. Die Treffer sind nach ID sortiert, die Folgeseite beginnt nach der
+     * letzten ID der vorherigen Seite (Keyset-Paginierung). Jede Seite kostet dadurch gleich viel, unabhängig davon,
+     * wie weit geblättert wurde.
+     * @param suchbegriff Wie bei {@link #getBySuchbegriff(String)}. Null oder leer liefert alle KundInnen.
+     * @param nachId Null für die erste Seite, sonst {@link KundInnenSeite#weiterNachId()} der vorherigen Seite.
+     * @param anzahl Maximale Anzahl der KundInnen auf der Seite.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "suchen"})
+    public KundInnenSeite<KundIn> getBySuchbegriff(String suchbegriff, Integer nachId, int anzahl) {
+        return suchen(suchbegriff, nachId, anzahl, kundInnenAbfragen);
+    }
+
+    /**
+     * Wie {@link #getBySuchbegriff(String, Integer, int)}, liefert aber nur die Spalten für die Ergebnisliste.
+     * Die KundInnen werden dabei nicht als Entities geladen.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "suchen"})
+    public KundInnenSeite<KundInSuchergebnis> getSuchergebnisse(String suchbegriff, Integer nachId, int anzahl) {
+        return suchen(suchbegriff, nachId, anzahl, suchergebnisAbfragen);
+    }
+
+    /**
+     * Die Abfragen, mit denen eine Seite des Suchergebnisses geladen wird.
+     * @param <T> {@link KundIn} oder {@link KundInSuchergebnis}.
+     */
+    private interface Suchabfragen<T> {
+        List<T> nachIds(List<Integer> ids);
+        List<T> nachSuchbegriff(String suchbegriff, int nachId, Pageable pageable);
+        List<T> alle(int nachId, Pageable pageable);
+        Integer id(T treffer);
+    }
+
+    private final Suchabfragen<KundIn> kundInnenAbfragen = new Suchabfragen<>() {
+        @Override
+        public List<KundIn> nachIds(List<Integer> ids) {
+            return kundInRepository.findAllByIdIn(ids);
+        }
+
+        @Override
+        public List<KundIn> nachSuchbegriff(String suchbegriff, int nachId, Pageable pageable) {
+            return kundInRepository.findBySuchbegriff(suchbegriff, nachId, pageable);
+        }
+
+        @Override
+        public List<KundIn> alle(int nachId, Pageable pageable) {
+            return kundInRepository.findAllPagable(nachId, pageable);
+        }
+
+        @Override
+        public Integer id(KundIn treffer) {
+            return treffer.getId();
+        }
+    };
+
+    private final Suchabfragen<KundInSuchergebnis> suchergebnisAbfragen = new Suchabfragen<>() {
+        @Override
+        public List<KundInSuchergebnis> nachIds(List<Integer> ids) {
+            return kundInRepository.findSuchergebnisseByIdIn(ids);
+        }
+
+        @Override
+        public List<KundInSuchergebnis> nachSuchbegriff(String suchbegriff, int nachId, Pageable pageable) {
+            return kundInRepository.findSuchergebnisseBySuchbegriff(suchbegriff, nachId, pageable);
+        }
+
+        @Override
+        public List<KundInSuchergebnis> alle(int nachId, Pageable pageable) {
+            return kundInRepository.findSuchergebnisse(nachId, pageable);
+        }
+
+        @Override
+        public Integer id(KundInSuchergebnis treffer) {
+            return treffer.id();
+        }
+    };
+
+    private <T> KundInnenSeite<T> suchen(String suchbegriff, Integer nachId, int anzahl, Suchabfragen<T> abfragen) {
+        final int nach = nachId == null ? Integer.MIN_VALUE : nachId;
+        // Ein Treffer mehr als angefordert zeigt an, ob es eine weitere Seite gibt.
+        final int anzahlMitNaechstem = anzahl + 1;
+
+        final List<T> kundInnen;
+        final Optional<int[]> ids = suchbegriff == null || suchbegriff.isEmpty()
+                ? Optional.empty()
+                : kundInSuchindex.suchen(suchbegriff, anzahlMitNaechstem, nach);
+        if (ids.isPresent()) {
+            kundInnen = ids.get().length == 0 ? new ArrayList<>() : abfragen.nachIds(Arrays.stream(ids.get()).boxed().toList());
+        } else if (suchbegriff == null || suchbegriff.isEmpty()) {
+            kundInnen = abfragen.alle(nach, PageRequest.of(0,anzahlMitNaechstem));
+        } else {
+            kundInnen = abfragen.nachSuchbegriff(suchbegriff, nach, PageRequest.of(0,anzahlMitNaechstem));
+        }
+
+        if (kundInnen.size() <= anzahl) {
+            return new KundInnenSeite<>(kundInnen, null);
+        }
+        final List<T> seite = kundInnen.subList(0, anzahl);
+        return new KundInnenSeite<>(seite, abfragen.id(seite.get(anzahl - 1)));
+    }
+
+    /**
+     * Zählt alle Treffer eines Suchbegriffs. Wird getrennt von der Suche aufgerufen, weil das Zählen bei vielen Treffern
+     * teurer ist als das Laden einer Seite.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "zaehlen"})
+    public long zaehleBySuchbegriff(String suchbegriff) {
         if (suchbegriff == null || suchbegriff.isEmpty()) {
+            return kundInRepository.count();
+        }
+        return kundInSuchindex.zaehlen(suchbegriff)
+                .map(Integer::longValue)
+                .orElseGet(() -> kundInRepository.countBySuchbegriff(suchbegriff));
+    }
 
-            return kundInRepository.findAllPagable(PageRequest.of(0,101));
+    /**
+     * Exportiert alle KundInnen der aktuellen Tenant-ID samt Gruppe und Zusatzinformationen. Die Daten werden
+     * beim Lesen geschrieben und nicht vorab vollständig geladen.
+     * @param format CSV oder NDJSON.
+     * @param writer Ziel des Exports, wird nicht geschlossen.
+     * @return Anzahl der exportierten KundInnen.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "emu.kundinnen", extraTags = {"operation", "exportieren"})
+    public int exportieren(@NonNull KundInnenExport.Format format, @NonNull Writer writer) throws IOException {
+        final List<String> zusatzinformationNamen = format == KundInnenExport.Format.CSV ? findZusatzinformationNamen() : List.of();
+        try (Stream<KundInnenExportZeile> zeilen = kundInRepository.streamExportZeilen()) {
+            return new KundInnenExport(format, writer, mapper, zusatzinformationNamen).schreiben(zeilen);
         }
-        return kundInRepository.findBySuchbegriff(suchbegriff,PageRequest.of(0,101));
     }
 
     /**
-     * Prüft, ob eine KundInnenennummer bereits vergeben ist.
+     * Die Namen aller Zusatzinformationen, sortiert. Werden nur für die Spalten des CSV-Exports benötigt.
+     */
+    private List<String> findZusatzinformationNamen() {
+        final Set<String> namen = new TreeSet<>();
+        try (Stream<ZusatzinformationenDokument> dokumente = kundInRepository.streamZusatzinformationen()) {
+            dokumente.forEach(dokument -> dokument.zusatzinformationen().stream()
+                    .filter(zusatzinformation -> zusatzinformation != null && zusatzinformation.getName() != null)
+                    .forEach(zusatzinformation -> namen.add(zusatzinformation.getName())));
+        }
+        return new ArrayList<>(namen);
+    }
+
+    /**
+     * Prüft, ob eine KundInnenennummer bereits vergeben ist. Nummern, die der {@link KundInnennummernfilter} sicher
+     * ausschließt, werden nicht in der Datenbank gesucht.
      * @param kundInnennummer Diese KundInnennummer wird geprüft.
      * @param kundInIdAusgeschlossen (Optional) KundIn-ID, die nicht bei der Prüfung berücksichtigt werden soll.
      * @return Gibt True zurück, falls die KundInnenennummer bereits vergeben ist.
      */
     boolean isKundInnennummerVergeben(final @NonNull String kundInnennummer,final Integer kundInIdAusgeschlossen) {
+        if (!kundInnennummernfilter.moeglicherweiseVergeben(kundInnennummer)) {
+            return false;
+        }
 
         final Optional<KundIn> kundInOption = kundInRepository.findByKundInnennummer(kundInnennummer);
         if (kundInOption.isPresent()) {
@@ -0,0 +1,197 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Hält pro Tenant-ID einen {@link Trigrammindex} für die Suche nach Nachname und KundInnennummer. Der Index
+ * wird bei der ersten Suche aus der {@link Primaerdatenbank} aufgebaut und danach bei jedem Anlegen und Ändern einer
+ * Kundin / eines Kunden nach dem Commit nachgeführt.
+ * <p>
+ * Der Speicher ist begrenzt: Es werden höchstens {@code emu.suchindex.max-mandantinnen} Indizes gehalten, die am
+ * längsten nicht genutzten werden verdrängt. Hat eine Tenant-ID mehr als {@code emu.suchindex.max-kundinnen}
+ * KundInnen, wird ihr Index verworfen und die Suche von der Datenbank beantwortet.
+ * <p>
+ * Nachgeführt werden nur Änderungen dieser Instanz. Laufen mehrere Instanzen, sieht ein Index Änderungen der
+ * anderen erst, nachdem er nach {@code emu.suchindex.abgleich} verworfen und neu aufgebaut wurde.
+ */
+@Component
+public class KundInSuchindex {
+
+	private final KundInRepository kundInRepository;
+
+	private final TenantResolver tenantResolver;
+
+	private final Primaerdatenbank primaerdatenbank;
+
+	private final Cache<String, Eintrag> indexProTenant;
+
+	private final int maxKundInnen;
+
+	/**
+	 * Index einer Tenant-ID. Wird vor dem Aufbau veröffentlicht, damit Änderungen, die während des Aufbaus
+	 * committet werden, nicht verloren gehen.
+	 */
+	private static final class Eintrag {
+
+		/**
+		 * Null, falls die Tenant-ID zu viele KundInnen für den Index hat.
+		 */
+		private volatile Trigrammindex index = new Trigrammindex();
+
+		private volatile boolean aufgebaut;
+	}
+
+	public KundInSuchindex(@NonNull KundInRepository kundInRepository, @NonNull TenantResolver tenantResolver,
+						   @NonNull Primaerdatenbank primaerdatenbank,
+						   @Value("${emu.suchindex.max-mandantinnen:100}") int maxMandantInnen,
+						   @Value("${emu.suchindex.max-kundinnen:500000}") int maxKundInnen,
+						   @Value("${emu.suchindex.abgleich:PT15M}") Duration abgleich) {
+		this.kundInRepository = kundInRepository;
+		this.tenantResolver = tenantResolver;
+		this.primaerdatenbank = primaerdatenbank;
+		this.maxKundInnen = maxKundInnen;
+		this.indexProTenant = Caffeine.newBuilder()
+				.maximumSize(maxMandantInnen)
+				.expireAfterWrite(abgleich)
+				.build();
+	}
+
+	/**
+	 * Sucht in der aktuellen Tenant-ID nach KundInnen, deren Nachname oder KundInnennummer den Suchbegriff enthält.
+	 * @return Die kleinsten passenden IDs in aufsteigender Reihenfolge oder leer, falls der Suchbegriff nicht über den
+	 * Index beantwortet werden kann (siehe {@link #isAnwendbar(String)}).
+	 */
+	@Transactional(readOnly = true)
+	public Optional<int[]> suchen(@NonNull String suchbegriff, int maxAnzahl) {
+		return suchen(suchbegriff, maxAnzahl, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Wie {@link #suchen(String, int)}, liefert aber nur IDs, die größer als nachId sind.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<int[]> suchen(@NonNull String suchbegriff, int maxAnzahl, int nachId) {
+		if (!isAnwendbar(suchbegriff)) {
+			return Optional.empty();
+		}
+		return getIndex().map(index -> index.suchen(suchbegriff, maxAnzahl, nachId));
+	}
+
+	/**
+	 * @return Die Anzahl aller Treffer oder leer, falls der Suchbegriff nicht über den Index beantwortet werden kann.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<Integer> zaehlen(@NonNull String suchbegriff) {
+		return suchen(suchbegriff, Integer.MAX_VALUE).map(ids -> ids.length);
+	}
+
+	/**
+	 * Kurze Suchbegriffe enthalten kein Trigramm. Begriffe mit '%' oder '_' werden weiterhin von der Datenbank
+	 * beantwortet, weil diese Zeichen dort als Platzhalter wirken.
+	 */
+	static boolean isAnwendbar(String suchbegriff) {
+		return suchbegriff.length() >= Trigrammindex.MIN_LAENGE
+				&& suchbegriff.indexOf('%') < 0
+				&& suchbegriff.indexOf('_') < 0;
+	}
+
+	/**
+	 * Übernimmt den aktuellen Stand einer Kundin / eines Kunden nach dem Commit in den Index. Ist der Index der
+	 * Tenant-ID noch nicht vorhanden, ist nichts zu tun: Er wird bei der ersten Suche mit dem dann gespeicherten
+	 * Stand aufgebaut.
+	 */
+	public void aktualisieren(@NonNull KundIn kundIn) {
+		if (kundIn.getId() == null || kundIn.getKundInnendaten() == null) {
+			return;
+		}
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final int id = kundIn.getId();
+		final String nachname = kundIn.getKundInnendaten().getNachname();
+		final String kundInnennummer = kundIn.getKundInnendaten().getKundInnenennummer();
+		NachCommit.ausfuehren(() -> {
+			final Eintrag eintrag = indexProTenant.getIfPresent(tenant);
+			final Trigrammindex index = eintrag == null ? null : eintrag.index;
+			if (index != null) {
+				index.setzen(id, nachname, kundInnennummer);
+				if (index.getAnzahl() > maxKundInnen) {
+					eintrag.index = null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Beim Aufbau werden nur IDs eingetragen, für die noch kein neuerer Stand vorliegt.
+	 * @return Der Index oder leer, falls die Tenant-ID zu viele KundInnen hat.
+	 */
+	private Optional<Trigrammindex> getIndex() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final Eintrag eintrag = indexProTenant.get(tenant, t -> new Eintrag());
+		if (!eintrag.aufgebaut) {
+			synchronized (eintrag) {
+				if (!eintrag.aufgebaut) {
+					primaerdatenbank.lesen(() -> {
+						aufbauen(eintrag);
+						return null;
+					});
+					eintrag.aufgebaut = true;
+				}
+			}
+		}
+		return Optional.ofNullable(eintrag.index);
+	}
+
+	private void aufbauen(Eintrag eintrag) {
+		final Trigrammindex index = eintrag.index;
+		if (index == null) {
+			return;
+		}
+		int anzahl = 0;
+		try (Stream<KundInnenSuchtext> suchtexte = kundInRepository.streamSuchtexte()) {
+			for (KundInnenSuchtext s : (Iterable<KundInnenSuchtext>) suchtexte::iterator) {
+				if (++anzahl > maxKundInnen) {
+					eintrag.index = null;
+					return;
+				}
+				index.setzenFallsFehlend(s.id(), s.nachname(), s.kundInnennummer());
+			}
+		}
+	}
+
+	/**
+	 * @return Anzahl der gehaltenen Indizes.
+	 */
+	long getAnzahlIndizes() {
+		indexProTenant.cleanUp();
+		return indexProTenant.estimatedSize();
+	}
+}
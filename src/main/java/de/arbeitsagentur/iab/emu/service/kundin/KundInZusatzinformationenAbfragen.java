@@ -0,0 +1,45 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.config.ZusatzinformationenSpeicherung;
+
+import java.util.stream.Stream;
+
+/**
+ * Abfragen, die Zusatzinformationen lesen. Sie hängen von der {@link ZusatzinformationenSpeicherung} ab und werden
+ * deshalb nicht über {@code @Query} definiert. Alle Streams müssen innerhalb einer Transaktion gelesen und danach
+ * geschlossen werden.
+ */
+public interface KundInZusatzinformationenAbfragen {
+
+	/**
+	 * Liefert alle KundInnen für den Export, sortiert nach ID. Der Persistenzkontext wächst dabei nicht.
+	 */
+	Stream<KundInnenExportZeile> streamExportZeilen();
+
+	/**
+	 * Liefert die Zusatzinformationen aller KundInnen, die welche haben.
+	 */
+	Stream<ZusatzinformationenDokument> streamZusatzinformationen();
+
+	/**
+	 * Liefert Gruppe und Zusatzinformationen aller zugeordneten KundInnen für den Aufbau der Zähler der Minimierung.
+	 */
+	Stream<GruppeMitZusatzinformationen> streamGruppenMitZusatzinformationen();
+}
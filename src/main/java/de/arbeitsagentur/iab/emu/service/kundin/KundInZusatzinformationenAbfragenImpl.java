@@ -0,0 +1,103 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.config.ZusatzinformationenSpeicherung;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bei der Speicherung als Dokument werden nur die benötigten Spalten gelesen, das Dokument ist Teil der Zeile.
+ * Bei der Speicherung in einer eigenen Tabelle werden die KundInnen als Entities gelesen, die Zusatzinformationen
+ * dabei pro Kundin / Kunde nachgeladen. Jede Entity wird nach der Umwandlung wieder aus dem Persistenzkontext entfernt.
+ */
+class KundInZusatzinformationenAbfragenImpl implements KundInZusatzinformationenAbfragen {
+
+	private final EntityManager entityManager;
+
+	private final boolean dokument;
+
+	KundInZusatzinformationenAbfragenImpl(EntityManager entityManager,
+										  @Value("${" + ZusatzinformationenSpeicherung.EIGENSCHAFT + ":" + ZusatzinformationenSpeicherung.DOKUMENT + "}") String speicherung) {
+		this.entityManager = entityManager;
+		this.dokument = !ZusatzinformationenSpeicherung.TABELLE.equals(speicherung);
+	}
+
+	@Override
+	public Stream<KundInnenExportZeile> streamExportZeilen() {
+		if (dokument) {
+			return stream(entityManager.createQuery("SELECT new de.arbeitsagentur.iab.emu.service.kundin.KundInnenExportZeile(k.id, " +
+					"k.kundInnendaten.kundInnennummer, k.kundInnendaten.vorname, k.kundInnendaten.nachname, k.kundInnendaten.geburtsdatum, " +
+					"k.kundInnendaten.teilnahmeAbsagegrund, g.bezeichnung, k.kundInnendaten.zusatzinformationen) " +
+					"FROM KundIn k LEFT JOIN k.gruppe g ORDER BY k.id", KundInnenExportZeile.class));
+		}
+		return entities("SELECT k FROM KundIn k LEFT JOIN FETCH k.gruppe ORDER BY k.id", k -> new KundInnenExportZeile(k.getId(),
+				k.getKundInnendaten().getKundInnenennummer(), k.getKundInnendaten().getVorname(), k.getKundInnendaten().getNachname(),
+				k.getKundInnendaten().getGeburtsdatum(), k.getKundInnendaten().getTeilnahmeAbsagegrund(),
+				k.getGruppe() == null ? null : k.getGruppe().getBezeichnung(), zusatzinformationen(k)));
+	}
+
+	@Override
+	public Stream<ZusatzinformationenDokument> streamZusatzinformationen() {
+		if (dokument) {
+			return stream(entityManager.createQuery("SELECT new de.arbeitsagentur.iab.emu.service.kundin.ZusatzinformationenDokument(" +
+					"k.kundInnendaten.zusatzinformationen) FROM KundIn k WHERE k.kundInnendaten.zusatzinformationen IS NOT NULL",
+					ZusatzinformationenDokument.class));
+		}
+		return entities("SELECT k FROM KundIn k", k -> new ZusatzinformationenDokument(zusatzinformationen(k)))
+				.filter(d -> d.zusatzinformationen() != null && !d.zusatzinformationen().isEmpty());
+	}
+
+	@Override
+	public Stream<GruppeMitZusatzinformationen> streamGruppenMitZusatzinformationen() {
+		if (dokument) {
+			return stream(entityManager.createQuery("SELECT new de.arbeitsagentur.iab.emu.service.kundin.GruppeMitZusatzinformationen(" +
+					"k.id, k.gruppe.id, k.kundInnendaten.zusatzinformationen) FROM KundIn k WHERE k.gruppe IS NOT NULL",
+					GruppeMitZusatzinformationen.class));
+		}
+		return entities("SELECT k FROM KundIn k WHERE k.gruppe IS NOT NULL",
+				k -> new GruppeMitZusatzinformationen(k.getId(), k.getGruppe().getId(), zusatzinformationen(k)));
+	}
+
+	private static List<Zusatzinformation> zusatzinformationen(KundIn kundIn) {
+		final List<Zusatzinformation> zusatzinformationen = kundIn.getKundInnendaten().getZusatzinformationen();
+		return zusatzinformationen == null ? null : new ArrayList<>(zusatzinformationen);
+	}
+
+	private <T> Stream<T> entities(String abfrage, Function<KundIn, T> umwandeln) {
+		return stream(entityManager.createQuery(abfrage, KundIn.class)).map(kundIn -> {
+			final T ergebnis = umwandeln.apply(kundIn);
+			entityManager.detach(kundIn);
+			return ergebnis;
+		});
+	}
+
+	private static <T> Stream<T> stream(TypedQuery<T> abfrage) {
+		return abfrage
+				.setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+	}
+}
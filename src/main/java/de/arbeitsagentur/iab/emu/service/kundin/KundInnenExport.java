@@ -0,0 +1,194 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Schreibt die KundInnen einer Tenant-ID zeilenweise als CSV oder NDJSON. Es wird immer nur eine Kundin / ein
+ * Kunde im Speicher gehalten, der Speicherbedarf hängt also nicht von der Anzahl der KundInnen ab.
+ */
+public class KundInnenExport {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String dateiendung;
+
+        Format(String contentType, String dateiendung) {
+            this.contentType = contentType;
+            this.dateiendung = dateiendung;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getDateiendung() {
+            return dateiendung;
+        }
+
+        /**
+         * @throws IllegalArgumentException Falls das Format nicht unterstützt wird.
+         */
+        public static Format von(String format) {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Eine Kundin / ein Kunde im Export. Die Zusatzinformationen werden als Name-Wert-Paare ausgegeben.
+     */
+    public record Datensatz(Integer id, String kundInnennummer, String vorname, String nachname, LocalDate geburtsdatum,
+                            TeilnahmeAbsagegrund teilnahmeAbsagegrund, String gruppe, Map<String, String> zusatzinformationen) {
+    }
+
+    static final char CSV_TRENNZEICHEN = ';';
+
+    private static final List<String> CSV_SPALTEN = List.of("id", "kundInnennummer", "vorname", "nachname",
+            "geburtsdatum", "teilnahmeAbsagegrund", "gruppe");
+
+    private final Format format;
+    private final Writer writer;
+    private final ObjectMapper mapper;
+    private final List<String> zusatzinformationNamen;
+
+    private boolean ersterWertInZeile = true;
+
+    private int anzahl;
+
+    /**
+     * @param zusatzinformationNamen Bei CSV wird für jeden dieser Namen eine Spalte mit dem Wert der gleichnamigen
+     *                               Zusatzinformation ausgegeben.
+     */
+    public KundInnenExport(Format format, Writer writer, ObjectMapper mapper, List<String> zusatzinformationNamen) {
+        this.format = format;
+        this.writer = writer;
+        this.mapper = mapper;
+        this.zusatzinformationNamen = zusatzinformationNamen;
+    }
+
+    /**
+     * Schreibt alle Zeilen.
+     * @return Anzahl der geschriebenen KundInnen.
+     */
+    public int schreiben(Stream<KundInnenExportZeile> zeilen) throws IOException {
+        final SequenceWriter ndjsonWriter = format == Format.NDJSON
+                ? mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).withRootValueSeparator("\n").writeValues(writer)
+                : null;
+        if (format == Format.CSV) {
+            schreibeCsvKopfzeile();
+        }
+
+        final Iterator<KundInnenExportZeile> iterator = zeilen.iterator();
+        while (iterator.hasNext()) {
+            schreibeDatensatz(datensatz(iterator.next()), ndjsonWriter);
+        }
+
+        if (ndjsonWriter != null && anzahl > 0) {
+            ndjsonWriter.flush();
+            writer.write('\n');
+        }
+        writer.flush();
+        return anzahl;
+    }
+
+    private static Datensatz datensatz(KundInnenExportZeile zeile) {
+        final Map<String, String> zusatzinformationen = new LinkedHashMap<>();
+        if (zeile.zusatzinformationen() != null) {
+            for (Zusatzinformation zusatzinformation : zeile.zusatzinformationen()) {
+                if (zusatzinformation != null && zusatzinformation.getName() != null) {
+                    zusatzinformationen.put(zusatzinformation.getName(), zusatzinformation.getWert());
+                }
+            }
+        }
+        return new Datensatz(zeile.id(), zeile.kundInnennummer(), zeile.vorname(), zeile.nachname(), zeile.geburtsdatum(),
+                zeile.teilnahmeAbsagegrund(), zeile.gruppe(), zusatzinformationen);
+    }
+
+    private void schreibeDatensatz(Datensatz datensatz, SequenceWriter ndjsonWriter) throws IOException {
+        anzahl++;
+        if (ndjsonWriter != null) {
+            ndjsonWriter.write(datensatz);
+            return;
+        }
+        schreibeCsvWert(datensatz.id());
+        schreibeCsvWert(datensatz.kundInnennummer());
+        schreibeCsvWert(datensatz.vorname());
+        schreibeCsvWert(datensatz.nachname());
+        schreibeCsvWert(datensatz.geburtsdatum());
+        schreibeCsvWert(datensatz.teilnahmeAbsagegrund());
+        schreibeCsvWert(datensatz.gruppe());
+        for (String name : zusatzinformationNamen) {
+            schreibeCsvWert(datensatz.zusatzinformationen().get(name));
+        }
+        schreibeCsvZeilenende();
+    }
+
+    private void schreibeCsvKopfzeile() throws IOException {
+        for (String spalte : CSV_SPALTEN) {
+            schreibeCsvWert(spalte);
+        }
+        for (String name : zusatzinformationNamen) {
+            schreibeCsvWert(name);
+        }
+        schreibeCsvZeilenende();
+    }
+
+    private void schreibeCsvZeilenende() throws IOException {
+        writer.write("\r\n");
+        ersterWertInZeile = true;
+    }
+
+    private void schreibeCsvWert(Object wert) throws IOException {
+        if (!ersterWertInZeile) {
+            writer.write(CSV_TRENNZEICHEN);
+        }
+        ersterWertInZeile = false;
+        if (wert != null) {
+            writer.write(csvMaskieren(wert.toString()));
+        }
+    }
+
+    /**
+     * Maskiert einen Wert nach RFC 4180, falls er Trennzeichen, Anführungszeichen oder Zeilenumbrüche enthält.
+     */
+    static String csvMaskieren(String wert) {
+        for (int i = 0; i < wert.length(); i++) {
+            final char c = wert.charAt(i);
+            if (c == CSV_TRENNZEICHEN || c == '"' || c == '\n' || c == '\r') {
+                return '"' + wert.replace("\"", "\"\"") + '"';
+            }
+        }
+        return wert;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Eine Ergebniszeile der Export-Abfrage: Kundin / Kunde mit Gruppe und Zusatzinformationen.
+ */
+public record KundInnenExportZeile(Integer id, String kundInnennummer, String vorname, String nachname,
+                                   LocalDate geburtsdatum, TeilnahmeAbsagegrund teilnahmeAbsagegrund, String gruppe,
+                                   List<Zusatzinformation> zusatzinformationen) {
+}
@@ -0,0 +1,88 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Ergebnis des Imports einer einzelnen Zeile.
+ */
+public class KundInnenImportErgebnis {
+
+    public enum Status {
+        Angelegt, UngueltigeKundInnennummer, KundInnennummerBereitsVorhanden
+    }
+
+    @Schema(description = "Position der Zeile im Import (beginnend bei 0).")
+    private int zeile;
+    private Status status;
+    @Schema(description = "Die angelegte Kundin / der angelegte Kunde. Nur bei Status 'Angelegt' gesetzt.")
+    private KundIn kundIn;
+    private String meldung;
+
+    public KundInnenImportErgebnis(int zeile, Status status, KundIn kundIn, String meldung) {
+        this.zeile = zeile;
+        this.status = status;
+        this.kundIn = kundIn;
+        this.meldung = meldung;
+    }
+
+    public KundInnenImportErgebnis() {
+
+    }
+
+    static KundInnenImportErgebnis angelegt(int zeile, KundIn kundIn) {
+        return new KundInnenImportErgebnis(zeile, Status.Angelegt, kundIn, null);
+    }
+
+    static KundInnenImportErgebnis fehler(int zeile, Status status, String meldung) {
+        return new KundInnenImportErgebnis(zeile, status, null, meldung);
+    }
+
+    public int getZeile() {
+        return zeile;
+    }
+
+    public void setZeile(int zeile) {
+        this.zeile = zeile;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public KundIn getKundIn() {
+        return kundIn;
+    }
+
+    public void setKundIn(KundIn kundIn) {
+        this.kundIn = kundIn;
+    }
+
+    public String getMeldung() {
+        return meldung;
+    }
+
+    public void setMeldung(String meldung) {
+        this.meldung = meldung;
+    }
+}
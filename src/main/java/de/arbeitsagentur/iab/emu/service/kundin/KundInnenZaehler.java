@@ -0,0 +1,145 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zählt pro Tenant-ID und Gruppe die zugeordneten KundInnen, damit der KundInnen-Report nicht bei jedem Aufruf
+ * alle KundInnen gruppieren muss. Die Zähler werden beim ersten Report aus der {@link Primaerdatenbank} geladen
+ * und nach jedem Münzwurf nach dem Commit erhöht. Gruppenzuordnungen werden nie geändert oder entfernt, Erhöhen genügt also.
+ * <p>
+ * Da die Zähler nicht Teil der Transaktion sind, können sie in seltenen Fällen (Commit während des Ladens)
+ * abweichen. Sie werden deshalb regelmäßig verworfen und beim nächsten Report neu geladen.
+ */
+@Component
+public class KundInnenZaehler {
+
+	private final Logger logger = LoggerFactory.getLogger(KundInnenZaehler.class);
+
+	private final KundInRepository kundInRepository;
+
+	private final GruppenintervallCache gruppenintervallCache;
+
+	private final TenantResolver tenantResolver;
+
+	private final Primaerdatenbank primaerdatenbank;
+
+	private final Map<String, Map<Integer, LongAdder>> zaehlerProTenant = new ConcurrentHashMap<>();
+
+	/**
+	 * Wird erhöht, wenn eine Zuordnung für eine Tenant-ID ohne geladene Zähler eingeht oder die Zähler verworfen
+	 * werden. Zähler, die währenddessen geladen wurden, werden dann nicht übernommen.
+	 */
+	private long stand;
+
+	public KundInnenZaehler(@NonNull KundInRepository kundInRepository, @NonNull GruppenintervallCache gruppenintervallCache,
+							@NonNull TenantResolver tenantResolver, @NonNull Primaerdatenbank primaerdatenbank) {
+		this.kundInRepository = kundInRepository;
+		this.gruppenintervallCache = gruppenintervallCache;
+		this.tenantResolver = tenantResolver;
+		this.primaerdatenbank = primaerdatenbank;
+	}
+
+	/**
+	 * Liefert die Anzahl der KundInnen für jede Gruppe der aktuellen Tenant-ID, auch für Gruppen ohne KundInnen.
+	 * Der Aufwand hängt nur von der Anzahl der Gruppen ab.
+	 */
+	public List<KundInnenProGruppe> getKundInnenProGruppe() {
+		final Map<Integer, LongAdder> zaehler = getZaehler();
+		final List<KundInnenProGruppe> ergebnis = new ArrayList<>();
+		for (Gruppe gruppe : gruppenintervallCache.getGruppenintervalle().getGruppen()) {
+			final LongAdder anzahl = zaehler.get(gruppe.getId());
+			ergebnis.add(new KundInnenProGruppe(anzahl == null ? 0 : anzahl.sum(), gruppe.getBezeichnung()));
+		}
+		return ergebnis;
+	}
+
+	/**
+	 * Vermerkt, dass der Gruppe eine Kundin / ein Kunde zugeordnet wurde. Der Zähler wird erst nach dem Commit erhöht.
+	 */
+	public void zugeordnet(@NonNull Gruppe gruppe) {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final Integer gruppeId = gruppe.getId();
+		NachCommit.ausfuehren(() -> erhoehen(tenant, gruppeId));
+	}
+
+	private void erhoehen(String tenant, Integer gruppeId) {
+		final Map<Integer, LongAdder> zaehler = zaehlerProTenant.get(tenant);
+		if (zaehler == null) {
+			synchronized (this) {
+				stand++;
+			}
+			return;
+		}
+		zaehler.computeIfAbsent(gruppeId, id -> new LongAdder()).increment();
+	}
+
+	private Map<Integer, LongAdder> getZaehler() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final Map<Integer, LongAdder> vorhanden = zaehlerProTenant.get(tenant);
+		if (vorhanden != null) {
+			return vorhanden;
+		}
+
+		final long standVorLaden;
+		synchronized (this) {
+			standVorLaden = stand;
+		}
+		final Map<Integer, LongAdder> geladen = new ConcurrentHashMap<>();
+		for (AnzahlProGruppe anzahlProGruppe : primaerdatenbank.lesen(kundInRepository::getAnzahlProGruppe)) {
+			final LongAdder anzahl = new LongAdder();
+			anzahl.add(anzahlProGruppe.anzahl());
+			geladen.put(anzahlProGruppe.gruppeId(), anzahl);
+		}
+		synchronized (this) {
+			if (stand == standVorLaden) {
+				final Map<Integer, LongAdder> bereitsGeladen = zaehlerProTenant.putIfAbsent(tenant, geladen);
+				return bereitsGeladen == null ? geladen : bereitsGeladen;
+			}
+		}
+		return geladen;
+	}
+
+	/**
+	 * Verwirft regelmäßig alle Zähler. Beim nächsten Report einer Tenant-ID werden sie neu aus der Datenbank geladen.
+	 */
+	@Scheduled(fixedDelayString = "${emu.kundinnenzaehler.abgleich:PT5M}", initialDelayString = "${emu.kundinnenzaehler.abgleich:PT5M}")
+	public void abgleichen() {
+		synchronized (this) {
+			stand++;
+			logger.debug("Verwerfe KundInnen-Zähler für {} Tenant-IDs.", zaehlerProTenant.size());
+			zaehlerProTenant.clear();
+		}
+	}
+}
@@ -22,6 +22,8 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -39,8 +41,14 @@ public class KundInnendaten {
 	private String kundInnennummer;
 	private TeilnahmeAbsagegrund teilnahmeAbsagegrund;
 
-	@ElementCollection(fetch = FetchType.EAGER)
-	@OrderColumn
+	/**
+	 * Die Zusatzinformationen werden als JSON-Dokument in der Zeile der Kundin / des Kunden gespeichert. Lesen und
+	 * Ändern betreffen damit nur eine Zeile. Bestehende Daten aus der früheren Tabelle kundin_zusatzinformationen
+	 * werden beim Start übernommen, siehe {@link de.arbeitsagentur.iab.emu.config.ZusatzinformationenMigration}.
+	 * Die frühere Speicherung in einer eigenen Tabelle kann weiter gewählt werden, siehe
+	 * {@link de.arbeitsagentur.iab.emu.config.ZusatzinformationenSpeicherung}.
+	 */
+	@JdbcTypeCode(SqlTypes.JSON)
 	private List<Zusatzinformation> zusatzinformationen;
 
 	public String getVorname() {
@@ -63,25 +71,21 @@ public class KundInnendaten {
 	}
 	@JsonGetter
 	public String getKundInnenennummer() {
-		
-		if (kundInnennummer != null) {
-			kundInnennummer = kundInnennummer.toLowerCase();
-		}
-		
 		return kundInnennummer;
 	}
 	
 	/**
 	 * Die KundInnennummer wird immer in Kleinbuchstaben gespeichert.
 	 * 
+	 * @see KundInnennummerValidator#normalisiere(String)
 	 */
 	public void setKundInnenennummer(String kundInnennummer) {
-		this.kundInnennummer = kundInnennummer.toLowerCase();
+		this.kundInnennummer = KundInnennummerValidator.normalisiere(kundInnennummer);
 	}
 
 	@JsonIgnore
 	public boolean isKundInnennummerValid() {
-		return KundInnennummerValidator.isValid(getKundInnenennummer());
+		return KundInnennummerValidator.isValid(kundInnennummer);
 	}
 
 	public TeilnahmeAbsagegrund getTeilnahmeAbsagegrund() {
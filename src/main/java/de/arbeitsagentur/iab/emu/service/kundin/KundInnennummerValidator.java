@@ -18,19 +18,60 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+/**
+ * Prüft KundInnennummern im Format 123x123456 (drei Ziffern, ein Buchstabe, sechs Ziffern).
+ * <p>
+ * Die Prüfung läuft bei jedem Anlegen und Ändern einer KundIn und wird deshalb ohne reguläre Ausdrücke
+ * und ohne Objekterzeugung durchgeführt.
+ */
 public class KundInnennummerValidator {
 
+	static final int LAENGE = 10;
+	private static final int POSITION_BUCHSTABE = 3;
+
 	private KundInnennummerValidator() {}
 	
+	/**
+	 * @return true, wenn die KundInnennummer exakt dem Format 123x123456 entspricht. Groß- und Kleinschreibung
+	 * des Buchstabens wird nicht unterschieden.
+	 */
 	public static boolean isValid(String kundInnennummer) {
-		if (kundInnennummer == null) {
+		if (kundInnennummer == null || kundInnennummer.length() != LAENGE) {
 			return false;
 		}
-		Pattern pattern = Pattern.compile("\\d{3}[a-z]\\d{6}", Pattern.CASE_INSENSITIVE);
-	    Matcher matcher = pattern.matcher(kundInnennummer);
-	    return matcher.find();
+		for (int i = 0; i < LAENGE; i++) {
+			char c = kundInnennummer.charAt(i);
+			boolean gueltig = i == POSITION_BUCHSTABE ? isBuchstabe(c) : isZiffer(c);
+			if (!gueltig) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Bringt eine gültige KundInnennummer in die gespeicherte Form mit kleinem Buchstaben. Ist der Buchstabe
+	 * bereits klein, wird dieselbe Instanz zurückgegeben. Ungültige Werte (und null) werden unverändert
+	 * zurückgegeben, damit sie in Fehlermeldungen erkennbar bleiben.
+	 */
+	public static String normalisiere(String kundInnennummer) {
+		if (!isValid(kundInnennummer)) {
+			return kundInnennummer;
+		}
+		char buchstabe = kundInnennummer.charAt(POSITION_BUCHSTABE);
+		if (buchstabe >= 'a') {
+			return kundInnennummer;
+		}
+		char[] zeichen = kundInnennummer.toCharArray();
+		zeichen[POSITION_BUCHSTABE] = (char) (buchstabe + ('a' - 'A'));
+		return new String(zeichen);
+	}
+
+	private static boolean isZiffer(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isBuchstabe(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
 	}
 }
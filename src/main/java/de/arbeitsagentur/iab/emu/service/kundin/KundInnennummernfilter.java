@@ -0,0 +1,172 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Hält pro Tenant-ID einen {@link Bloomfilter} über die vergebenen KundInnennummern. Ist eine Nummer dort nicht
+ * enthalten, ist sie sicher frei und die Abfrage in der Datenbank entfällt. Nur mögliche Treffer werden in der
+ * Datenbank geprüft. Der Unique-Constraint auf tenant_id und kundInnennummer bleibt die eigentliche Absicherung.
+ * <p>
+ * Der Filter wird bei der ersten Prüfung aus der {@link Primaerdatenbank} aufgebaut. Neue und geänderte Nummern
+ * werden sofort beim Speichern eingetragen, also noch vor dem Commit. Wird die Transaktion zurückgerollt, bleibt die
+ * Nummer im Filter und führt nur zu einer unnötigen Abfrage.
+ * <p>
+ * Eingetragen werden nur Nummern, die diese Instanz speichert. Nummern, die andere Instanzen oder Skripte direkt in der
+ * Datenbank anlegen, kennt der Filter erst nach dem nächsten Aufbau. Deshalb wird er nach
+ * {@code emu.kundinnennummern.abgleich} verworfen. Bis dahin scheitert das Anlegen einer solchen Nummer erst am
+ * Unique-Constraint, wie bei zwei gleichzeitigen Anfragen. Der Import prüft seine Nummern deshalb immer in der
+ * Datenbank. Gehalten werden Filter für höchstens {@code emu.kundinnennummern.max-mandantinnen} Tenant-IDs, und nur
+ * für solche mit KundInnen.
+ */
+@Component
+public class KundInnennummernfilter {
+
+	private final KundInRepository kundInRepository;
+
+	private final TenantResolver tenantResolver;
+
+	private final Primaerdatenbank primaerdatenbank;
+
+	private final double fehlerrate;
+
+	private final Cache<String, Eintrag> filterProTenant;
+
+	/**
+	 * Filter einer Tenant-ID. Wird vor dem Aufbau veröffentlicht, damit Nummern, die während des Aufbaus gespeichert
+	 * werden, nicht verloren gehen.
+	 */
+	private static final class Eintrag {
+
+		private final Bloomfilter filter;
+
+		private volatile boolean aufgebaut;
+
+		private Eintrag(Bloomfilter filter) {
+			this.filter = filter;
+		}
+	}
+
+	public KundInnennummernfilter(@NonNull KundInRepository kundInRepository, @NonNull TenantResolver tenantResolver,
+								  @NonNull Primaerdatenbank primaerdatenbank,
+								  @Value("${emu.kundinnennummern.fehlerrate:0.01}") double fehlerrate,
+								  @Value("${emu.kundinnennummern.max-mandantinnen:100}") int maxMandantInnen,
+								  @Value("${emu.kundinnennummern.abgleich:PT15M}") Duration abgleich) {
+		this.kundInRepository = kundInRepository;
+		this.tenantResolver = tenantResolver;
+		this.primaerdatenbank = primaerdatenbank;
+		this.fehlerrate = fehlerrate;
+		this.filterProTenant = Caffeine.newBuilder()
+				.maximumSize(maxMandantInnen)
+				.expireAfterWrite(abgleich)
+				.build();
+	}
+
+	/**
+	 * @return False, falls die KundInnennummer in der aktuellen Tenant-ID sicher noch nicht vergeben ist.
+	 */
+	@Transactional(readOnly = true)
+	public boolean moeglicherweiseVergeben(@NonNull String kundInnennummer) {
+		return getFilter().map(filter -> filter.moeglicherweiseEnthalten(schluessel(kundInnennummer))).orElse(true);
+	}
+
+	/**
+	 * Trägt die KundInnennummer in den Filter der aktuellen Tenant-ID ein, sofort und noch einmal nach dem Commit.
+	 * Ist der Filter nach dem Commit noch nicht vorhanden, ist nichts zu tun: Er wird bei der ersten Prüfung mit den
+	 * dann gespeicherten Nummern aufgebaut. Entsteht er zwischen Speichern und Commit, erfasst ihn der zweite Eintrag.
+	 */
+	public void vermerken(@NonNull KundIn kundIn) {
+		if (kundIn.getKundInnendaten() == null || kundIn.getKundInnendaten().getKundInnenennummer() == null) {
+			return;
+		}
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final String schluessel = schluessel(kundIn.getKundInnendaten().getKundInnenennummer());
+		eintragen(tenant, schluessel);
+		NachCommit.ausfuehren(() -> eintragen(tenant, schluessel));
+	}
+
+	private void eintragen(String tenant, String schluessel) {
+		final Eintrag eintrag = filterProTenant.getIfPresent(tenant);
+		if (eintrag != null) {
+			eintrag.filter.hinzufuegen(schluessel);
+		}
+	}
+
+	/**
+	 * Die Datenbank vergleicht die Nummern ohne Berücksichtigung der Groß- und Kleinschreibung, siehe
+	 * {@link KundInRepository#findByKundInnennummer(String)}.
+	 */
+	private static String schluessel(String kundInnennummer) {
+		return kundInnennummer.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return Der Filter oder leer, falls die Tenant-ID noch keine KundInnen hat. Dann wird jede Nummer in der
+	 * Datenbank geprüft, bis die erste gespeichert ist.
+	 */
+	private Optional<Bloomfilter> getFilter() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		Eintrag eintrag = filterProTenant.getIfPresent(tenant);
+		if (eintrag == null) {
+			final long anzahl = primaerdatenbank.lesen(kundInRepository::count);
+			if (anzahl == 0) {
+				return Optional.empty();
+			}
+			// Platz für doppelt so viele Nummern, wie bereits vergeben sind, damit der Filter nicht gleich wächst.
+			final int kapazitaet = (int) Math.min(Integer.MAX_VALUE / 2, anzahl * 2);
+			eintrag = filterProTenant.get(tenant, t -> new Eintrag(new Bloomfilter(kapazitaet, fehlerrate)));
+		}
+		if (!eintrag.aufgebaut) {
+			synchronized (eintrag) {
+				if (!eintrag.aufgebaut) {
+					final Bloomfilter ziel = eintrag.filter;
+					primaerdatenbank.lesen(() -> {
+						try (Stream<String> nummern = kundInRepository.streamKundInnennummern()) {
+							nummern.forEach(nummer -> ziel.hinzufuegen(schluessel(nummer)));
+						}
+						return null;
+					});
+					eintrag.aufgebaut = true;
+				}
+			}
+		}
+		return Optional.of(eintrag.filter);
+	}
+
+	/**
+	 * @return Anzahl der gehaltenen Filter.
+	 */
+	long getAnzahlFilter() {
+		filterProTenant.cleanUp();
+		return filterProTenant.estimatedSize();
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigramm-Index für die Teilstring-Suche im Nachnamen und in der KundInnennummer einer Tenant-ID.
+ * <p>
+ * Für jedes Trigramm (drei aufeinanderfolgende Zeichen, in Kleinbuchstaben) wird die sortierte Liste der
+ * KundInnen-IDs gehalten, in deren Suchtext es vorkommt. Bei der Suche werden die Listen der Trigramme des
+ * Suchbegriffs geschnitten, beginnend mit der kürzesten, und die verbleibenden Kandidaten gegen ihren Suchtext
+ * geprüft. Die Suche endet, sobald genügend Treffer gefunden sind. Der Aufwand hängt damit von der Anzahl der
+ * Treffer ab und nicht von der Anzahl der KundInnen.
+ * <p>
+ * Einträge werden bei Änderungen nicht aus den Listen entfernt. Veraltete Kandidaten fallen bei der Prüfung
+ * gegen den aktuellen Suchtext heraus.
+ */
+public class Trigrammindex {
+
+	/**
+	 * Suchbegriffe, die kürzer sind, können über den Index nicht beantwortet werden.
+	 */
+	public static final int MIN_LAENGE = 3;
+
+	/**
+	 * Trennt Nachname und KundInnennummer im Suchtext, damit keine Trigramme über Feldgrenzen entstehen.
+	 */
+	private static final char TRENNER = '\u0000';
+
+	private final Map<Long, IdListe> idsProTrigramm = new HashMap<>();
+
+	private final Map<Integer, String> suchtexte = new HashMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Setzt den Suchtext einer Kundin / eines Kunden und ersetzt einen vorhandenen.
+	 */
+	public void setzen(int id, String nachname, String kundInnennummer) {
+		lock.writeLock().lock();
+		try {
+			eintragen(id, suchtext(nachname, kundInnennummer));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Setzt den Suchtext nur, wenn für die ID noch keiner vorhanden ist. Wird beim Aufbau aus der Datenbank
+	 * verwendet, damit parallel eingetragene neuere Stände nicht überschrieben werden.
+	 */
+	public void setzenFallsFehlend(int id, String nachname, String kundInnennummer) {
+		lock.writeLock().lock();
+		try {
+			if (!suchtexte.containsKey(id)) {
+				eintragen(id, suchtext(nachname, kundInnennummer));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void eintragen(int id, String suchtext) {
+		suchtexte.put(id, suchtext);
+		for (int i = 0; i + MIN_LAENGE <= suchtext.length(); i++) {
+			idsProTrigramm.computeIfAbsent(trigramm(suchtext, i), t -> new IdListe()).hinzufuegen(id);
+		}
+	}
+
+	/**
+	 * Sucht KundInnen, deren Nachname oder KundInnennummer den Suchbegriff enthält (ohne Berücksichtigung der
+	 * Groß- und Kleinschreibung).
+	 * @param suchbegriff Mindestens {@link #MIN_LAENGE} Zeichen.
+	 * @param maxAnzahl Höchstens so viele IDs werden geliefert.
+	 * @return Die kleinsten passenden IDs in aufsteigender Reihenfolge.
+	 */
+	public int[] suchen(String suchbegriff, int maxAnzahl) {
+		return suchen(suchbegriff, maxAnzahl, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Wie {@link #suchen(String, int)}, liefert aber nur IDs, die größer als nachId sind (Keyset-Paginierung).
+	 * Der Einstieg in die kürzeste Liste erfolgt per Binärsuche, spätere Seiten kosten also nicht mehr als die erste.
+	 */
+	public int[] suchen(String suchbegriff, int maxAnzahl, int nachId) {
+		if (suchbegriff.length() < MIN_LAENGE) {
+			throw new IllegalArgumentException("Suchbegriff zu kurz: " + suchbegriff);
+		}
+		final String begriff = suchbegriff.toLowerCase(Locale.ROOT);
+
+		final IdListe[] listen = new IdListe[begriff.length() - MIN_LAENGE + 1];
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < listen.length; i++) {
+				listen[i] = idsProTrigramm.get(trigramm(begriff, i));
+				if (listen[i] == null) {
+					return new int[0];
+				}
+			}
+			Arrays.sort(listen, Comparator.comparingInt(IdListe::getAnzahl));
+
+			// Die kürzeste Liste wird durchlaufen, in den übrigen wird jeweils ab der letzten Position weitergesucht.
+			final IdListe kuerzeste = listen[0];
+			final int[] positionen = new int[listen.length];
+			final int[] treffer = new int[Math.min(maxAnzahl, kuerzeste.anzahl)];
+			int anzahlTreffer = 0;
+			int start = kuerzeste.suchenAb(nachId, 0);
+			if (start < kuerzeste.anzahl && kuerzeste.ids[start] == nachId) {
+				start++;
+			}
+			kandidaten:
+			for (int i = start; i < kuerzeste.anzahl && anzahlTreffer < treffer.length; i++) {
+				final int id = kuerzeste.ids[i];
+				for (int l = 1; l < listen.length; l++) {
+					positionen[l] = listen[l].suchenAb(id, positionen[l]);
+					if (positionen[l] == listen[l].anzahl) {
+						break kandidaten;
+					}
+					if (listen[l].ids[positionen[l]] != id) {
+						continue kandidaten;
+					}
+				}
+				// Die Trigramme müssen auch in der richtigen Reihenfolge und im aktuellen Suchtext vorkommen.
+				if (suchtexte.get(id).contains(begriff)) {
+					treffer[anzahlTreffer++] = id;
+				}
+			}
+			return anzahlTreffer == treffer.length ? treffer : Arrays.copyOf(treffer, anzahlTreffer);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getAnzahl() {
+		lock.readLock().lock();
+		try {
+			return suchtexte.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static String suchtext(String nachname, String kundInnennummer) {
+		final String n = nachname == null ? "" : nachname.toLowerCase(Locale.ROOT);
+		final String k = kundInnennummer == null ? "" : kundInnennummer.toLowerCase(Locale.ROOT);
+		return n + TRENNER + k;
+	}
+
+	private static long trigramm(String text, int position) {
+		return ((long) text.charAt(position) << 32) | ((long) text.charAt(position + 1) << 16) | text.charAt(position + 2);
+	}
+
+	/**
+	 * Aufsteigend sortierte Liste eindeutiger IDs ohne Boxing. Neue IDs sind in der Regel größer als alle
+	 * vorhandenen und werden dann angehängt.
+	 */
+	private static final class IdListe {
+		private int[] ids = new int[4];
+		private int anzahl;
+
+		int getAnzahl() {
+			return anzahl;
+		}
+
+		void hinzufuegen(int id) {
+			int position = anzahl;
+			if (anzahl > 0 && ids[anzahl - 1] >= id) {
+				position = Arrays.binarySearch(ids, 0, anzahl, id);
+				if (position >= 0) {
+					return;
+				}
+				position = -position - 1;
+			}
+			if (anzahl == ids.length) {
+				ids = Arrays.copyOf(ids, anzahl * 2);
+			}
+			System.arraycopy(ids, position, ids, position + 1, anzahl - position);
+			ids[position] = id;
+			anzahl++;
+		}
+
+		/**
+		 * @return Die erste Position ab von, an der eine ID größer oder gleich id steht, bzw. anzahl, falls es keine
+		 * solche gibt. Der Abstand wird zunächst exponentiell vergrößert, weil die gesuchte Position meist nahe liegt.
+		 */
+		int suchenAb(int id, int von) {
+			int bis = von;
+			int schritt = 1;
+			while (bis < anzahl && ids[bis] < id) {
+				von = bis + 1;
+				bis += schritt;
+				schritt <<= 1;
+			}
+			final int position = Arrays.binarySearch(ids, von, Math.min(bis, anzahl), id);
+			return position >= 0 ? position : -position - 1;
+		}
+	}
+}
@@ -18,9 +18,12 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
-import jakarta.persistence.Embeddable;
+import java.util.Objects;
 
-@Embeddable
+/**
+ * Eine frei definierbare Angabe zu einer Kundin / einem Kunden. Wird als Teil des JSON-Dokuments
+ * {@link KundInnendaten#getZusatzinformationen()} gespeichert.
+ */
 public class Zusatzinformation  {
 
     private String wert;
@@ -50,4 +53,23 @@ public class Zusatzinformation  {
     public void setWert(String wert) {
         this.wert = wert;
     }
+
+    /**
+     * Hibernate erkennt Änderungen am JSON-Dokument über einen Vergleich mit dem geladenen Stand.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Zusatzinformation that)) {
+            return false;
+        }
+        return Objects.equals(wert, that.wert) && Objects.equals(name, that.name) && Objects.equals(typ, that.typ);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(wert, name, typ);
+    }
 }
@@ -20,11 +20,13 @@ package de.arbeitsagentur.iab.emu.service.projekt;
 
 import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.Felddefinition;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 @Entity
@@ -37,8 +39,25 @@ import java.util.List;
 )
 public class Projekt {
 
+    /**
+     * Pro MandantIn gibt es nur ein Projekt, ein Vorrat an IDs lohnt sich daher nicht.
+     */
+    public static final int ID_BLOCKGROESSE = 1;
+
+    /**
+     * Eine Zuteilungsliste speichert pro Platz den Index der Gruppe in einem Byte.
+     */
+    public static final int MAX_GRUPPEN_ZUTEILUNGSLISTE = 256;
+
+    /**
+     * Größte zulässige Blockgröße bei {@link Randomisierungsverfahren#Block}. Die Blockgröße ergibt sich aus den
+     * gekürzten Intervallbreiten, siehe {@link Gruppenintervalle#getBlockanteile()}.
+     */
+    public static final int MAX_BLOCKGROESSE = 1000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "projekt_seq")
+    @SequenceGenerator(name = "projekt_seq", sequenceName = "projekt_seq", allocationSize = ID_BLOCKGROESSE)
     private Integer id;
 
     @TenantId
@@ -72,6 +91,10 @@ public class Projekt {
     @Embedded
     private ProjekterstellendePerson projekterstellendePerson;
 
+    @Schema(description = "Verfahren für die Zuordnung zu den Gruppen. Standard ist 'Intervall'.")
+    @Enumerated(EnumType.STRING)
+    private Randomisierungsverfahren randomisierungsverfahren;
+
     public Integer getId() {
         return id;
     }
@@ -136,6 +159,18 @@ public class Projekt {
         this.name = name;
     }
 
+    /**
+     * @return Das Verfahren für die Zuordnung zu den Gruppen, {@link Randomisierungsverfahren#Intervall} falls keines
+     * festgelegt wurde.
+     */
+    public Randomisierungsverfahren getRandomisierungsverfahren() {
+        return randomisierungsverfahren != null ? randomisierungsverfahren : Randomisierungsverfahren.Intervall;
+    }
+
+    public void setRandomisierungsverfahren(Randomisierungsverfahren randomisierungsverfahren) {
+        this.randomisierungsverfahren = randomisierungsverfahren;
+    }
+
     public List<Gruppe> getGruppen() {
         return gruppen;
     }
@@ -150,6 +185,11 @@ public class Projekt {
      * @return Fehlermeldung oder Null.
      */
     public String validiereFelddefinitionen() {
+        if (getRandomisierungsverfahren() == Randomisierungsverfahren.Minimierung
+                && (felddefinitionen == null || felddefinitionen.stream().noneMatch(Felddefinition::isMinimierungsfaktor))) {
+            return "Bei einer Minimierung muss mindestens eine Felddefinition als Minimierungsfaktor markiert sein.";
+        }
+
         if (felddefinitionen==null) {
             return null;
         }
@@ -171,6 +211,10 @@ public class Projekt {
             return "Es sind mindestens zwei Gruppen erforderlich.";
         }
 
+        if (getRandomisierungsverfahren() == Randomisierungsverfahren.Zuteilungsliste && gruppen.size() > MAX_GRUPPEN_ZUTEILUNGSLISTE) {
+            return "Bei einer Zuteilungsliste sind höchstens " + MAX_GRUPPEN_ZUTEILUNGSLISTE + " Gruppen möglich.";
+        }
+
         long anzahlUnterschiedlicheBezeichnungen = gruppen.stream().map(Gruppe::getBezeichnung).distinct().count();
         long anzahlBezeichnungen = gruppen.size();
         if (anzahlBezeichnungen != anzahlUnterschiedlicheBezeichnungen) {
@@ -191,6 +235,14 @@ public class Projekt {
             }
         }
 
+        if (getRandomisierungsverfahren() == Randomisierungsverfahren.Block) {
+            final int blockgroesse = Arrays.stream(Gruppenintervalle.erstellen(gruppen).getBlockanteile()).sum();
+            if (blockgroesse > MAX_BLOCKGROESSE) {
+                return "Die Intervallbreiten ergeben eine Blockgröße von " + blockgroesse + ", höchstens "
+                        + MAX_BLOCKGROESSE + " sind möglich.";
+            }
+        }
+
         return null;
     }
 }
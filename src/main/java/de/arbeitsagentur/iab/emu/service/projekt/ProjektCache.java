@@ -0,0 +1,57 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.projekt;
+
+import de.arbeitsagentur.iab.emu.config.CacheKonfiguration;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Lädt den {@link Projektstand} der aktuellen MandantIn in den Cache {@link CacheKonfiguration#PROJEKT}. Liegt in
+ * einer eigenen Bean, damit {@link ProjektService} über den Proxy auf den Cache zugreift. Invalidiert wird in
+ * {@link ProjektService} und beim Bestellen. Gelesen wird von der {@link Primaerdatenbank}, damit nach einer Änderung
+ * kein veralteter Stand vom Replikat in den Cache gelangt.
+ */
+@Component
+class ProjektCache {
+
+    private final ProjektRepository projektRepository;
+
+    private final Primaerdatenbank primaerdatenbank;
+
+    ProjektCache(@NonNull ProjektRepository projektRepository, @NonNull Primaerdatenbank primaerdatenbank) {
+        this.projektRepository = projektRepository;
+        this.primaerdatenbank = primaerdatenbank;
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheKonfiguration.PROJEKT, sync = true)
+    public Projektstand laden() throws ProjektNichtGefundenException {
+        final Optional<Projektstand> projektstand = primaerdatenbank.lesen(() -> {
+            Iterator<Projekt> it = projektRepository.findAll().iterator();
+            return it.hasNext() ? Optional.of(new Projektstand(it.next())) : Optional.empty();
+        });
+        return projektstand.orElseThrow(() -> new ProjektNichtGefundenException("Kein Projekt vorhanden!"));
+    }
+}
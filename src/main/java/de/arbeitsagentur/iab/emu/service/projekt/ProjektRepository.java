@@ -18,9 +18,12 @@
 
 package de.arbeitsagentur.iab.emu.service.projekt;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -36,4 +39,14 @@ public interface ProjektRepository extends CrudRepository<Projekt, Integer> {
     @NonNull
     @Query("SELECT CASE WHEN count(p)> 0 THEN true ELSE false END FROM Projekt p WHERE p.id = ?1")
     boolean existsById(@NonNull Integer id);
+
+    /**
+     * Sperrt das Projekt der aktuellen Tenant-ID bis zum Ende der Transaktion. Damit wird Zustand, der pro Tenant-ID
+     * einmal angelegt wird, nicht von parallelen Transaktionen doppelt angelegt.
+     * @return Das Projekt, falls vorhanden.
+     */
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Projekt p")
+    Optional<Projekt> sperren();
 }
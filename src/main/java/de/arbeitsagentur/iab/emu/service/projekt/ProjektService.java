@@ -18,34 +18,57 @@
 
 package de.arbeitsagentur.iab.emu.service.projekt;
 
+import de.arbeitsagentur.iab.emu.config.CacheKonfiguration;
 import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.UngueltigeFelddefintionException;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
-import java.util.Iterator;
-
 @Service
 @Transactional
 public class ProjektService {
 
     private final ProjektRepository projektRepository;
 
-    public ProjektService(final @NonNull ProjektRepository projektRepository) {
+    private final ProjektCache projektCache;
+
+    private final GruppenintervallCache gruppenintervallCache;
+
+    public ProjektService(final @NonNull ProjektRepository projektRepository, final @NonNull ProjektCache projektCache,
+                          final @NonNull GruppenintervallCache gruppenintervallCache) {
 
         this.projektRepository = projektRepository;
+        this.projektCache = projektCache;
+        this.gruppenintervallCache = gruppenintervallCache;
     }
 
+    /**
+     * Liefert das Projekt der aktuellen MandantIn. Der Stand wird pro Tenant-ID gecacht
+     * und bei {@link #create} und {@link #update} invalidiert.
+     * @return Eine eigene, nicht vom Persistenzkontext verwaltete Kopie des Projekts.
+     * @throws ProjektNichtGefundenException Es wurde noch kein Projekt angelegt.
+     */
+    @Transactional(readOnly = true)
     public Projekt getProjekt() throws ProjektNichtGefundenException {
-        Iterator<Projekt> it = projektRepository.findAll().iterator();
-        if (it.hasNext()) {
-            return it.next();
-        }
-        throw new ProjektNichtGefundenException("Kein Projekt vorhanden!");
+        return projektCache.laden().getProjekt();
+    }
+
+    /**
+     * Wie {@link #getProjekt()}, liefert aber den unveränderlichen Stand aus dem Cache ohne Kopie. Für häufige
+     * Zugriffe, z. B. auf das Randomisierungsverfahren bei jeder Zuordnung.
+     */
+    @Transactional(readOnly = true)
+    public Projektstand getProjektstand() throws ProjektNichtGefundenException {
+        return projektCache.laden();
     }
 
+    @CacheEvict(cacheNames = CacheKonfiguration.PROJEKT, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.projekte", extraTags = {"operation", "aendern"})
     public Projekt update(@NonNull Projekt projekt) throws UngueltigeGruppenException, UngueltigeFelddefintionException, ProjektNichtGefundenException {
 
         if (projekt.getId() == null || !projektRepository.existsById(projekt.getId())) {
@@ -66,13 +89,19 @@ public class ProjektService {
         if (validierungsfehlerFelddefinitionen != null) {
             throw new UngueltigeFelddefintionException(validierungsfehlerFelddefinitionen);
         }
-        return projektRepository.save(projekt);
+        final Projekt gespeichert = projektRepository.save(projekt);
+        // Die Gruppen können sich geändert haben.
+        gruppenintervallCache.invalidieren();
+        return gespeichert;
     }
 
+    @Transactional(readOnly = true)
     public boolean isProjektBereitsVorhanden() {
         return projektRepository.count()>0;
     }
 
+    @CacheEvict(cacheNames = CacheKonfiguration.PROJEKT, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.projekte", extraTags = {"operation", "anlegen"})
     public Projekt create(final @NonNull @RequestBody Projekt projekt) throws ProjektBereitsVorhandenException, UngueltigeGruppenException, UngueltigeFelddefintionException {
 
         if (isProjektBereitsVorhanden()) {
@@ -0,0 +1,111 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.projekt;
+
+import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.Felddefinition;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unveränderlicher Stand eines Projekts samt Gruppen und Felddefinitionen, wie er im Cache gehalten wird.
+ * Der Stand enthält eine eigene Kopie der Daten, die nicht herausgegeben wird. {@link #getProjekt()} liefert
+ * bei jedem Aufruf eine neue, vom Persistenzkontext gelöste Kopie, sodass sich Threads und Transaktionen
+ * keine Entity teilen.
+ */
+public final class Projektstand {
+
+    private final Projekt projekt;
+
+    private final List<String> minimierungsfaktoren;
+
+    Projektstand(Projekt projekt) {
+        this.projekt = kopieren(projekt);
+        this.minimierungsfaktoren = this.projekt.getFelddefinitionen() == null ? List.of() : this.projekt.getFelddefinitionen().stream()
+                .filter(Felddefinition::isMinimierungsfaktor)
+                .map(Felddefinition::getName)
+                .toList();
+    }
+
+    /**
+     * @return Eine neue Kopie des Projekts. Änderungen daran wirken sich weder auf den Cache noch auf die Datenbank aus.
+     */
+    public Projekt getProjekt() {
+        return kopieren(projekt);
+    }
+
+    public Integer getId() {
+        return projekt.getId();
+    }
+
+    public Randomisierungsverfahren getRandomisierungsverfahren() {
+        return projekt.getRandomisierungsverfahren();
+    }
+
+    /**
+     * @return Die Namen der Felddefinitionen, die als Minimierungsfaktor markiert sind (nicht veränderbar).
+     */
+    public List<String> getMinimierungsfaktoren() {
+        return minimierungsfaktoren;
+    }
+
+    private static Projekt kopieren(Projekt projekt) {
+        final Projekt kopie = new Projekt();
+        kopie.setId(projekt.getId());
+        kopie.setName(projekt.getName());
+        kopie.setBeschreibung(projekt.getBeschreibung());
+        kopie.setHilfetext(projekt.getHilfetext());
+        kopie.setStart(projekt.getStart());
+        kopie.setEnde(projekt.getEnde());
+        kopie.setRandomisierungsverfahren(projekt.getRandomisierungsverfahren());
+        if (projekt.getProjekterstellendePerson() != null) {
+            final ProjekterstellendePerson person = new ProjekterstellendePerson();
+            person.setVorname(projekt.getProjekterstellendePerson().getVorname());
+            person.setNachname(projekt.getProjekterstellendePerson().getNachname());
+            person.setEmail(projekt.getProjekterstellendePerson().getEmail());
+            kopie.setProjekterstellendePerson(person);
+        }
+
+        if (projekt.getFelddefinitionen() != null) {
+            final List<Felddefinition> felddefinitionen = new ArrayList<>();
+            for (Felddefinition felddefinition : projekt.getFelddefinitionen()) {
+                final Felddefinition f = new Felddefinition();
+                f.setName(felddefinition.getName());
+                f.setTyp(felddefinition.getTyp());
+                f.setMinimierungsfaktor(felddefinition.isMinimierungsfaktor());
+                felddefinitionen.add(f);
+            }
+            kopie.setFelddefinitionen(felddefinitionen);
+        }
+
+        if (projekt.getGruppen() != null) {
+            final List<Gruppe> gruppen = new ArrayList<>();
+            for (Gruppe gruppe : projekt.getGruppen()) {
+                final Gruppe g = new Gruppe();
+                g.setId(gruppe.getId());
+                g.setBezeichnung(gruppe.getBezeichnung());
+                g.setUntergrenze(gruppe.getUntergrenze());
+                g.setObergrenze(gruppe.getObergrenze());
+                gruppen.add(g);
+            }
+            kopie.setGruppen(gruppen);
+        }
+        return kopie;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.projekt;
+
+/**
+ * Verfahren, nach dem KundInnen bei Teilnahme einer Gruppe zugeordnet werden. Wird pro Projekt festgelegt.
+ */
+public enum Randomisierungsverfahren {
+    /**
+     * Pro Kundin / Kunde wird ein Zufallswert zwischen kleinster Untergrenze und größter Obergrenze gezogen,
+     * die Gruppe ergibt sich aus dem Intervall, in das der Wert fällt.
+     */
+    Intervall,
+    /**
+     * Die Zuordnungen werden bei der Anlage des Projekts aus einem gespeicherten Startwert vorab erzeugt und der
+     * Reihe nach vergeben. Die Verteilung entspricht {@link #Intervall}, ist aber reproduzierbar.
+     */
+    Zuteilungsliste,
+    /**
+     * Permutierte Blöcke: Jeder Block enthält jede Gruppe im Verhältnis ihrer Intervallbreiten, die Reihenfolge
+     * innerhalb des Blocks ist zufällig. Nach jedem vollständigen Block sind die Gruppen exakt im gewünschten
+     * Verhältnis besetzt, auch bei kleinen Projekten.
+     */
+    Block,
+    /**
+     * Minimierung nach Pocock und Simon: Die Gruppen werden über die Werte der als Minimierungsfaktor markierten
+     * Felddefinitionen ausgeglichen. Mit einer festen Wahrscheinlichkeit wird die Gruppe gewählt, die das
+     * Ungleichgewicht am wenigsten erhöht, sonst eine der übrigen Gruppen.
+     */
+    Minimierung
+}
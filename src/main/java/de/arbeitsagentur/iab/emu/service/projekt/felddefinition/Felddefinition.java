@@ -30,6 +30,9 @@ public class Felddefinition {
     @Schema(maxLength = 255)
     private String typ;
 
+    @Schema(description = "Beim Randomisierungsverfahren 'Minimierung' werden die Gruppen über die Werte dieses Feldes ausgeglichen.")
+    private Boolean minimierungsfaktor;
+
     public String getName() {
         return name;
     }
@@ -45,4 +48,12 @@ public class Felddefinition {
     public void setTyp(String typ) {
         this.typ = typ;
     }
+
+    public boolean isMinimierungsfaktor() {
+        return Boolean.TRUE.equals(minimierungsfaktor);
+    }
+
+    public void setMinimierungsfaktor(Boolean minimierungsfaktor) {
+        this.minimierungsfaktor = minimierungsfaktor;
+    }
 }
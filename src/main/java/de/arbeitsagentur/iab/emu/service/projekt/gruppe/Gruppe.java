@@ -26,6 +26,7 @@ import org.springframework.data.annotation.Version;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(GruppeAenderungsListener.class)
 @Table(
 		name="gruppe",
 		uniqueConstraints=
@@ -33,9 +34,14 @@ import java.util.Objects;
 )
 public class Gruppe implements Comparable<Gruppe> {
 
-	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	/**
+	 * Anzahl der IDs, die Hibernate pro Sequenzabfrage reserviert.
+	 */
+	public static final int ID_BLOCKGROESSE = 20;
 
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gruppe_seq")
+	@SequenceGenerator(name = "gruppe_seq", sequenceName = "gruppe_seq", allocationSize = ID_BLOCKGROESSE)
 	private Integer id;
 	@TenantId
 	private String tenantId;
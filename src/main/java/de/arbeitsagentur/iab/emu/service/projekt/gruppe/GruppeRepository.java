@@ -18,21 +18,8 @@
 
 package de.arbeitsagentur.iab.emu.service.projekt.gruppe;
 
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
-import org.springframework.data.repository.query.Param;
-
-import java.util.Optional;
 
 public interface GruppeRepository extends CrudRepository<Gruppe,Integer> {
 
-	@Query("SELECT g FROM Gruppe g WHERE g.untergrenze <= :zufallszahl AND g.obergrenze >= :zufallszahl ")
-	public Optional<Gruppe> findGruppeByZufallswert(@Param("zufallszahl") int zufallszahl);
-	
-	@Query("SELECT max(obergrenze) FROM Gruppe")
-	public int getMaxObergrenze();
-
-	@Query("SELECT min(untergrenze) FROM Gruppe")
-	public int getMinUntergrenze();
-	
 }
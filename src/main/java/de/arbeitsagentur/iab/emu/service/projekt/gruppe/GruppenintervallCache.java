@@ -0,0 +1,109 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.projekt.gruppe;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält pro Tenant-ID die {@link Gruppenintervalle} im Speicher, damit der Münzwurf im Normalfall
+ * ohne Datenbankabfrage auskommt. Die Tabelle wird beim ersten Zugriff aus den Gruppen der
+ * Mandantin / des Mandanten aufgebaut und bei Änderungen an den Gruppen verworfen. Gelesen wird von der
+ * {@link Primaerdatenbank}, damit kein veralteter Stand vom Replikat in den Cache gelangt.
+ * <p>
+ * Größe und Lebensdauer der Einträge richten sich wie bei den übrigen Caches nach {@code emu.cache.spezifikation},
+ * die Trefferquote wird als {@code cache.gets} mit {@code cache=gruppen} veröffentlicht.
+ */
+@Component
+public class GruppenintervallCache {
+
+	private final GruppeRepository gruppeRepository;
+
+	private final TenantResolver tenantResolver;
+
+	private final Primaerdatenbank primaerdatenbank;
+
+	private final Cache<String, Gruppenintervalle> intervalleProTenant;
+
+	/**
+	 * Wird bei jeder Invalidierung erhöht. Eine Tabelle, die vor einer Invalidierung geladen wurde,
+	 * wird dadurch nicht mehr in den Cache übernommen.
+	 */
+	private long stand;
+
+	public GruppenintervallCache(@NonNull GruppeRepository gruppeRepository, @NonNull TenantResolver tenantResolver,
+								 @NonNull Primaerdatenbank primaerdatenbank,
+								 @Value("${emu.cache.spezifikation:maximumSize=10000,expireAfterWrite=10m}") String spezifikation,
+								 @NonNull MeterRegistry meterRegistry) {
+		this.gruppeRepository = gruppeRepository;
+		this.tenantResolver = tenantResolver;
+		this.primaerdatenbank = primaerdatenbank;
+		this.intervalleProTenant = Caffeine.from(spezifikation).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, intervalleProTenant, "gruppen");
+	}
+
+	/**
+	 * Liefert die Gruppenintervalle der aktuellen Tenant-ID.
+	 * @return Die (ggf. leere) Tabelle der Gruppenintervalle.
+	 */
+	public Gruppenintervalle getGruppenintervalle() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		final Gruppenintervalle vorhanden = intervalleProTenant.getIfPresent(tenant);
+		if (vorhanden != null) {
+			return vorhanden;
+		}
+
+		final long standVorLaden;
+		synchronized (this) {
+			standVorLaden = stand;
+		}
+		final Gruppenintervalle geladen = primaerdatenbank.lesen(() -> Gruppenintervalle.erstellen(gruppeRepository.findAll()));
+		synchronized (this) {
+			if (stand == standVorLaden) {
+				// Parallel geladene Tabellen werden verworfen, damit alle Aufrufer dieselbe Instanz erhalten.
+				final Gruppenintervalle bereitsGeladen = intervalleProTenant.asMap().putIfAbsent(tenant, geladen);
+				return bereitsGeladen == null ? geladen : bereitsGeladen;
+			}
+		}
+		return geladen;
+	}
+
+	/**
+	 * Verwirft die Gruppenintervalle der aktuellen Tenant-ID. Läuft eine Transaktion, wird die Tabelle
+	 * zusätzlich nach dem Commit verworfen, damit kein zwischenzeitlich geladener alter Stand erhalten bleibt.
+	 */
+	public void invalidieren() {
+		final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+		entfernen(tenant);
+		NachCommit.ausfuehren(() -> entfernen(tenant));
+	}
+
+	private synchronized void entfernen(String tenant) {
+		stand++;
+		intervalleProTenant.invalidate(tenant);
+	}
+}
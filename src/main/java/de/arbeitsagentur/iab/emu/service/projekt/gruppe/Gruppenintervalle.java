@@ -0,0 +1,184 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.projekt.gruppe;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Unveränderliche, nach Untergrenze sortierte Tabelle der Gruppenintervalle einer Mandantin / eines Mandanten.
+ * Die Grenzen werden in int-Arrays gehalten, die Suche nach der Gruppe für einen Zufallswert
+ * erfolgt per binärer Suche.
+ */
+public final class Gruppenintervalle {
+
+	private final int[] untergrenzen;
+	private final int[] obergrenzen;
+	private final Gruppe[] gruppen;
+	private final int maxObergrenze;
+
+	private Gruppenintervalle(Gruppe[] gruppen) {
+		this.gruppen = gruppen;
+		this.untergrenzen = new int[gruppen.length];
+		this.obergrenzen = new int[gruppen.length];
+		int max = Integer.MIN_VALUE;
+		for (int i = 0; i < gruppen.length; i++) {
+			untergrenzen[i] = gruppen[i].getUntergrenze();
+			obergrenzen[i] = gruppen[i].getObergrenze();
+			max = Math.max(max, obergrenzen[i]);
+		}
+		this.maxObergrenze = max;
+	}
+
+	/**
+	 * Erzeugt die Tabelle aus den übergebenen Gruppen. Die Gruppen werden kopiert, damit spätere
+	 * Änderungen an den Entities die Tabelle nicht verändern.
+	 * @param gruppen Gruppen einer Mandantin / eines Mandanten.
+	 * @return Die erzeugte Tabelle.
+	 */
+	public static Gruppenintervalle erstellen(Iterable<Gruppe> gruppen) {
+		final List<Gruppe> kopien = new ArrayList<>();
+		for (Gruppe g : gruppen) {
+			final Gruppe kopie = new Gruppe();
+			kopie.setId(g.getId());
+			kopie.setBezeichnung(g.getBezeichnung());
+			kopie.setUntergrenze(g.getUntergrenze());
+			kopie.setObergrenze(g.getObergrenze());
+			kopien.add(kopie);
+		}
+		kopien.sort(Comparator.naturalOrder());
+		return new Gruppenintervalle(kopien.toArray(new Gruppe[0]));
+	}
+
+	public boolean isLeer() {
+		return gruppen.length == 0;
+	}
+
+	/**
+	 * @throws IllegalStateException Falls keine Gruppen vorhanden sind.
+	 */
+	public int getMinUntergrenze() {
+		if (isLeer()) {
+			throw new IllegalStateException("Keine Gruppen vorhanden.");
+		}
+		return untergrenzen[0];
+	}
+
+	/**
+	 * @throws IllegalStateException Falls keine Gruppen vorhanden sind.
+	 */
+	public int getMaxObergrenze() {
+		if (isLeer()) {
+			throw new IllegalStateException("Keine Gruppen vorhanden.");
+		}
+		return maxObergrenze;
+	}
+
+	/**
+	 * Sucht die Gruppe, in deren Intervall (inklusive Grenzen) der Zufallswert fällt.
+	 * @param zufallswert Der gewürfelte Zufallswert.
+	 * @return Die Gruppe oder ein leeres Optional, falls kein Intervall passt.
+	 */
+	public Optional<Gruppe> findeGruppe(int zufallswert) {
+		final int index = findeIndex(zufallswert);
+		return index < 0 ? Optional.empty() : Optional.of(gruppen[index]);
+	}
+
+	/**
+	 * Wie {@link #findeGruppe(int)}, liefert aber die Position der Gruppe in {@link #getGruppen()}.
+	 * @param zufallswert Der gewürfelte Zufallswert.
+	 * @return Die Position oder -1, falls kein Intervall passt.
+	 */
+	public int findeIndex(int zufallswert) {
+		int index = Arrays.binarySearch(untergrenzen, zufallswert);
+		if (index < 0) {
+			// Einfügeposition - 1 ist das letzte Intervall mit Untergrenze < Zufallswert.
+			index = -index - 2;
+		}
+		if (index < 0 || obergrenzen[index] < zufallswert) {
+			return -1;
+		}
+		return index;
+	}
+
+	/**
+	 * @param index Position in {@link #getGruppen()}.
+	 * @return Die Gruppe an dieser Position.
+	 */
+	public Gruppe getGruppe(int index) {
+		return gruppen[index];
+	}
+
+	/**
+	 * Liefert pro Gruppe die Anzahl der Plätze in einem Block. Die Intervallbreiten werden durch ihren größten
+	 * gemeinsamen Teiler gekürzt, z. B. ergeben die Breiten 100 und 200 die Anteile 1 und 2.
+	 * @return Die Anteile in der Reihenfolge von {@link #getGruppen()}.
+	 */
+	public int[] getBlockanteile() {
+		final int[] anteile = new int[gruppen.length];
+		int ggt = 0;
+		for (int i = 0; i < gruppen.length; i++) {
+			anteile[i] = obergrenzen[i] - untergrenzen[i] + 1;
+			ggt = BigInteger.valueOf(ggt).gcd(BigInteger.valueOf(anteile[i])).intValue();
+		}
+		for (int i = 0; i < anteile.length; i++) {
+			anteile[i] /= ggt;
+		}
+		return anteile;
+	}
+
+	public int getAnzahl() {
+		return gruppen.length;
+	}
+
+	/**
+	 * Vergleicht IDs und Grenzen der Gruppen. Zwei getrennt geladene Tabellen derselben Gruppen sind damit gleich,
+	 * auch wenn es verschiedene Objekte sind.
+	 * @param andere Die andere Tabelle.
+	 * @return true, falls beide Tabellen dieselben Gruppen mit denselben Grenzen enthalten.
+	 */
+	public boolean hatGleicheGruppen(Gruppenintervalle andere) {
+		if (andere == this) {
+			return true;
+		}
+		if (andere.gruppen.length != gruppen.length || !Arrays.equals(andere.untergrenzen, untergrenzen)
+				|| !Arrays.equals(andere.obergrenzen, obergrenzen)) {
+			return false;
+		}
+		for (int i = 0; i < gruppen.length; i++) {
+			if (!Objects.equals(andere.gruppen[i].getId(), gruppen[i].getId())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Alle Gruppen sortiert nach Untergrenze (nicht veränderbar).
+	 */
+	public List<Gruppe> getGruppen() {
+		return Collections.unmodifiableList(Arrays.asList(gruppen));
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Vergibt Blocknummern für {@link Blockrandomisierung} aus einer Datenbanksequenz. Die Nummern sind über alle
+ * Tenant-IDs eindeutig. Eine Sequenz ist nicht Teil der Transaktion: Eine Nummer wird auch nach einem Rollback oder
+ * Neustart nicht erneut vergeben, und parallele Zuordnungen warten nicht auf Sperren in der Datenbank.
+ */
+@Component
+public class Blocknummern {
+
+    static final String SEQUENZ = "blocknummer_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Blocknummern(@NonNull JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void sequenzAnlegen() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENZ);
+    }
+
+    /**
+     * @return Die nächste freie Blocknummer.
+     */
+    public long naechste() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENZ, Long.class);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.GruppeNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektRepository;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link Randomisierungsverfahren#Block}: Vergibt die Plätze permutierter Blöcke.
+ * <p>
+ * Der aktuelle Block wird pro Tenant-ID im Speicher gehalten, ein Platz wird per CAS auf den Zeiger des Blocks
+ * belegt. Erst wenn ein Block vollständig vergeben ist, wird unter einer Sperre eine neue Blocknummer aus der
+ * Datenbanksequenz geholt. Die Sperren sind über die Tenant-IDs verteilt, verschiedene Tenant-IDs warten im
+ * Normalfall nicht aufeinander. Gespeichert wird pro Tenant-ID nur der Startwert ({@link Blockzustand}).
+ * <p>
+ * Nach einem Neustart, einer Änderung der Gruppen oder einem Rollback bleiben Plätze des aktuellen Blocks frei.
+ * Die Abweichung vom gewünschten Verhältnis ist dadurch auf einen Block pro Ereignis beschränkt.
+ * <p>
+ * Der Zeiger auf den nächsten Platz wird nicht gespeichert, jede Instanz des Service vergibt ihren eigenen Block.
+ * Bei mehreren Instanzen ist die Abweichung deshalb zusätzlich auf einen Block pro Instanz beschränkt, exakt
+ * ausgeglichen sind die Gruppen nur bei einer Instanz. Den Blockzustand legt die erste Zuordnung einer Tenant-ID unter
+ * einer Sperre auf das Projekt an, damit parallele erste Zuordnungen auf verschiedenen Instanzen ihn nicht doppelt
+ * anlegen.
+ */
+@Component
+public class Blockrandomisierung implements Randomisierungsstrategie {
+
+    private static final int ANZAHL_SPERREN = 64;
+
+    private final BlockzustandRepository blockzustandRepository;
+
+    private final ProjektRepository projektRepository;
+
+    private final Blocknummern blocknummern;
+
+    private final TenantResolver tenantResolver;
+
+    private final SecureRandom startwerte = new SecureRandom();
+
+    private final Map<String, Block> blockProTenant = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] sperren = new ReentrantLock[ANZAHL_SPERREN];
+
+    /**
+     * Der aktuelle Block einer Tenant-ID.
+     * @param gruppenintervalle Die Gruppenintervalle, für die der Block erzeugt wurde. Der Block wird weiter verwendet,
+     *                          solange IDs und Grenzen der Gruppen gleich bleiben.
+     * @param startwert Der Startwert der Tenant-ID.
+     * @param blocknummer Die Blocknummer.
+     * @param plaetze Pro Platz der Index der Gruppe in {@link Gruppenintervalle#getGruppen()}.
+     * @param naechsterPlatz Der nächste freie Platz.
+     */
+    private record Block(Gruppenintervalle gruppenintervalle, long startwert, long blocknummer, int[] plaetze,
+                         AtomicInteger naechsterPlatz) {
+    }
+
+    public Blockrandomisierung(@NonNull BlockzustandRepository blockzustandRepository, @NonNull ProjektRepository projektRepository,
+                               @NonNull Blocknummern blocknummern, @NonNull TenantResolver tenantResolver) {
+        this.blockzustandRepository = blockzustandRepository;
+        this.projektRepository = projektRepository;
+        this.blocknummern = blocknummern;
+        this.tenantResolver = tenantResolver;
+        for (int i = 0; i < sperren.length; i++) {
+            sperren[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Randomisierungsverfahren getVerfahren() {
+        return Randomisierungsverfahren.Block;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Als Wert wird Blocknummer * {@link Projekt#MAX_BLOCKGROESSE} + Platz geliefert.
+     */
+    @Override
+    public Zuteilung zuteilen(KundIn kundIn, Gruppenintervalle gruppenintervalle) throws GruppeNichtGefundenException {
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        Block block = blockProTenant.get(tenant);
+        while (true) {
+            if (block != null && block.gruppenintervalle().hatGleicheGruppen(gruppenintervalle)) {
+                final int platz = block.naechsterPlatz().getAndIncrement();
+                if (platz < block.plaetze().length) {
+                    return new Zuteilung(block.gruppenintervalle().getGruppe(block.plaetze()[platz]),
+                            block.blocknummer() * Projekt.MAX_BLOCKGROESSE + platz, getVerfahren());
+                }
+            }
+            block = naechsterBlock(tenant, block, gruppenintervalle);
+        }
+    }
+
+    @Override
+    public void projektAngelegt(Projekt projekt) {
+        if (blockzustandRepository.findBlockzustand().isEmpty()) {
+            anlegen();
+        }
+    }
+
+    /**
+     * Erzeugt einen neuen Block, falls kein anderer Thread dies inzwischen getan hat. Fehlt noch ein Block, werden
+     * Blockzustand und ggf. die Sperre auf das Projekt vor der Sperre der Tenant-ID geholt. Sonst könnte ein Thread
+     * unter der Sperre der Tenant-ID auf die Datenbanksperre warten, während die Transaktion, die diese hält, auf
+     * die Sperre der Tenant-ID wartet.
+     */
+    private Block naechsterBlock(String tenant, Block verbraucht, Gruppenintervalle gruppenintervalle) {
+        Blockzustand vorhanden = null;
+        if (verbraucht == null) {
+            vorhanden = blockzustandRepository.findBlockzustand().orElse(null);
+            if (vorhanden == null) {
+                projektRepository.sperren();
+                vorhanden = blockzustandRepository.findBlockzustand().orElse(null);
+            }
+        }
+        final ReentrantLock sperre = sperren[Math.floorMod(tenant.hashCode(), ANZAHL_SPERREN)];
+        sperre.lock();
+        try {
+            final Block aktuell = blockProTenant.get(tenant);
+            if (aktuell != verbraucht) {
+                return aktuell;
+            }
+            if (verbraucht != null || vorhanden != null) {
+                final Block neu = neuerBlock(gruppenintervalle, verbraucht != null ? verbraucht.startwert() : vorhanden.getStartwert());
+                blockProTenant.put(tenant, neu);
+                return neu;
+            }
+            // Der Startwert wird erst nach dem Commit übernommen, damit kein ungespeicherter Startwert verwendet wird.
+            final Block neu = neuerBlock(gruppenintervalle, anlegen().getStartwert());
+            NachCommit.ausfuehren(() -> blockProTenant.putIfAbsent(tenant, neu));
+            return neu;
+        } finally {
+            sperre.unlock();
+        }
+    }
+
+    private Block neuerBlock(Gruppenintervalle gruppenintervalle, long startwert) {
+        final long blocknummer = blocknummern.naechste();
+        return new Block(gruppenintervalle, startwert, blocknummer, erzeugen(startwert, blocknummer, gruppenintervalle),
+                new AtomicInteger());
+    }
+
+    private Blockzustand anlegen() {
+        final Blockzustand blockzustand = new Blockzustand();
+        blockzustand.setStartwert(startwerte.nextLong());
+        return blockzustandRepository.save(blockzustand);
+    }
+    /**
+     * Erzeugt die Plätze eines Blocks. Für denselben Startwert, dieselbe Blocknummer und dieselben Gruppen ist das
+     * Ergebnis immer gleich.
+     * @return Pro Platz der Index der Gruppe in {@link Gruppenintervalle#getGruppen()}.
+     */
+    static int[] erzeugen(long startwert, long blocknummer, Gruppenintervalle gruppenintervalle) {
+        final int[] anteile = gruppenintervalle.getBlockanteile();
+        int groesse = 0;
+        for (int anteil : anteile) {
+            groesse += anteil;
+        }
+        final int[] plaetze = new int[groesse];
+        int platz = 0;
+        for (int index = 0; index < anteile.length; index++) {
+            for (int i = 0; i < anteile[index]; i++) {
+                plaetze[platz++] = index;
+            }
+        }
+        // Fisher-Yates
+        final SplittableRandom zufall = new SplittableRandom(startwert + blocknummer * 0x9E3779B97F4A7C15L);
+        for (int i = plaetze.length - 1; i > 0; i--) {
+            final int j = zufall.nextInt(i + 1);
+            final int tausch = plaetze[i];
+            plaetze[i] = plaetze[j];
+            plaetze[j] = tausch;
+        }
+        return plaetze;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Gespeicherter Zustand für {@link de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren#Block}.
+ * Die Reihenfolge innerhalb eines Blocks ergibt sich aus Startwert und Blocknummer (siehe {@link Blocknummern}),
+ * gespeichert wird deshalb nur der Startwert.
+ */
+@Entity
+@Table(
+        name = "blockzustand",
+        uniqueConstraints =
+        @UniqueConstraint(columnNames = {"tenantId"})
+)
+public class Blockzustand {
+
+    /**
+     * Pro Tenant-ID gibt es höchstens einen Blockzustand.
+     */
+    public static final int ID_BLOCKGROESSE = 1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blockzustand_seq")
+    @SequenceGenerator(name = "blockzustand_seq", sequenceName = "blockzustand_seq", allocationSize = ID_BLOCKGROESSE)
+    private Integer id;
+
+    @TenantId
+    private String tenantId;
+
+    /**
+     * Startwert des Zufallsgenerators, aus dem zusammen mit der Blocknummer die Reihenfolge eines Blocks entsteht.
+     */
+    private long startwert;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getStartwert() {
+        return startwert;
+    }
+
+    public void setStartwert(long startwert) {
+        this.startwert = startwert;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.kundin.GruppeNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.Zufallsgenerator;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link Randomisierungsverfahren#Intervall}: Zieht pro Kundin / Kunde einen Zufallswert und ordnet die Gruppe zu,
+ * in deren Intervall der Wert fällt.
+ */
+@Component
+public class Intervallrandomisierung implements Randomisierungsstrategie {
+
+    @Override
+    public Randomisierungsverfahren getVerfahren() {
+        return Randomisierungsverfahren.Intervall;
+    }
+
+    @Override
+    public Zuteilung zuteilen(KundIn kundIn, Gruppenintervalle gruppenintervalle) throws GruppeNichtGefundenException {
+        final int zufallswert = Zufallsgenerator.zufallsgenerator(gruppenintervalle.getMinUntergrenze(),gruppenintervalle.getMaxObergrenze());
+        final Gruppe gruppe = gruppenintervalle.findeGruppe(zufallswert)
+                .orElseThrow(() -> new GruppeNichtGefundenException("Gruppe für Zufallswert "+zufallswert+" nicht gefunden!"));
+        return new Zuteilung(gruppe, zufallswert, getVerfahren());
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.*;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * {@link Randomisierungsverfahren#Minimierung} nach Pocock und Simon.
+ * <p>
+ * Pro Tenant-ID wird eine {@link Minimierungstabelle} im Speicher gehalten. Sie wird beim Start für alle Projekte mit
+ * Minimierung und sonst beim ersten Zugriff aus der Datenbank aufgebaut und danach bei jeder Zuordnung fortgeschrieben.
+ * Eine Zuordnung liest also keine vorhandenen KundInnen. Wird die Transaktion zurückgerollt, wird die Zuordnung
+ * wieder abgezogen. Ändern sich Gruppen oder Faktoren, wird die Tabelle neu aufgebaut.
+ * <p>
+ * Der Aufbau läuft in einem eigenen Thread und liest dort in einer eigenen, schreibenden Transaktion, also immer von
+ * der primären Datenbank und über die Verbindung der Tenant-ID. Zuordnungen laufender Transaktionen sind dabei noch
+ * nicht gespeichert. Sie werden als {@link Vormerkung} gehalten und nach dem Aufbau in die neue Tabelle übernommen,
+ * falls der Aufbau sie nicht gelesen hat.
+ * <p>
+ * Die wartenden Aufrufer halten ihre Verbindung, der Aufbau benötigt eine weitere. Da nur ein Thread aufbaut, ist das
+ * höchstens eine Verbindung zusätzlich. Wartet ein Aufrufer länger als {@code emu.minimierung.aufbau-wartezeit}, wird
+ * seine Zuordnung abgebrochen und gibt ihre Verbindung frei. Der Aufbau läuft weiter, auch wenn der Pool erschöpft ist.
+ */
+@Component
+public class Minimierung implements Randomisierungsstrategie {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Minimierung.class);
+
+    private final KundInRepository kundInRepository;
+
+    private final ProjektService projektService;
+
+    private final GruppenintervallCache gruppenintervallCache;
+
+    private final TenantResolver tenantResolver;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectProvider<Mandantenbereitstellung> mandantenbereitstellung;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Wahrscheinlichkeit in Prozent, mit der die Gruppe mit dem geringsten Ungleichgewicht gewählt wird.
+     */
+    private final int wahrscheinlichkeit;
+
+    private final Duration aufbauWartezeit;
+
+    private final Map<String, Minimierungstabelle> tabelleProTenant = new ConcurrentHashMap<>();
+
+    /**
+     * Zuordnungen laufender Transaktionen pro Tenant-ID. Die Menge dient auch als Sperre beim Übernehmen in eine neu
+     * aufgebaute Tabelle, danach wird die Tabelle gesperrt.
+     */
+    private final Map<String, Set<Vormerkung>> vormerkungen = new ConcurrentHashMap<>();
+
+    /**
+     * Der zuletzt gestartete Aufbau pro Tenant-ID. Parallele Aufrufer warten auf denselben Aufbau.
+     */
+    private final Map<String, Aufbau> aufbauProTenant = new ConcurrentHashMap<>();
+
+    private final ExecutorService aufbauer = Executors.newSingleThreadExecutor(aufgabe -> {
+        final Thread thread = new Thread(aufgabe, "minimierung-aufbau");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Ein gestarteter Aufbau der Tabelle für diese Gruppen und Faktoren.
+     */
+    private record Aufbau(Gruppenintervalle gruppenintervalle, List<String> faktoren, CompletableFuture<Minimierungstabelle> tabelle) {
+
+        private boolean passt(Gruppenintervalle gruppenintervalle, List<String> faktoren) {
+            return !tabelle.isCompletedExceptionally() && this.gruppenintervalle.hatGleicheGruppen(gruppenintervalle)
+                    && this.faktoren.equals(faktoren);
+        }
+    }
+
+    public Minimierung(@NonNull KundInRepository kundInRepository, @NonNull ProjektService projektService,
+                       @NonNull GruppenintervallCache gruppenintervallCache, @NonNull TenantResolver tenantResolver,
+                       @NonNull JdbcTemplate jdbcTemplate, @NonNull PlatformTransactionManager transactionManager,
+                       @NonNull ObjectProvider<Mandantenbereitstellung> mandantenbereitstellung,
+                       @Value("${emu.minimierung.wahrscheinlichkeit:80}") int wahrscheinlichkeit,
+                       @Value("${emu.minimierung.aufbau-wartezeit:PT30S}") Duration aufbauWartezeit) {
+        this.kundInRepository = kundInRepository;
+        this.projektService = projektService;
+        this.gruppenintervallCache = gruppenintervallCache;
+        this.tenantResolver = tenantResolver;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mandantenbereitstellung = mandantenbereitstellung;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.wahrscheinlichkeit = wahrscheinlichkeit;
+        this.aufbauWartezeit = aufbauWartezeit;
+    }
+
+    @Override
+    public Randomisierungsverfahren getVerfahren() {
+        return Randomisierungsverfahren.Minimierung;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Als Wert wird der Münzwurf (1 bis 100) geliefert, der über die Wahl der Gruppe mit dem geringsten
+     * Ungleichgewicht entschieden hat.
+     */
+    @Override
+    public Zuteilung zuteilen(KundIn kundIn, Gruppenintervalle gruppenintervalle) throws GruppeNichtGefundenException {
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        final List<String> faktoren = faktoren();
+        final List<Zusatzinformation> zusatzinformationen =
+                kundIn.getKundInnendaten() == null ? null : kundIn.getKundInnendaten().getZusatzinformationen();
+        final Set<Vormerkung> offen = vormerkungen.computeIfAbsent(tenant, t -> ConcurrentHashMap.newKeySet());
+
+        final int wurf = Zufallsgenerator.zufallsgenerator(1, 100);
+        final Vormerkung vormerkung = vormerken(tenant, offen, gruppenintervalle, faktoren, zusatzinformationen,
+                wurf <= wahrscheinlichkeit);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    synchronized (offen) {
+                        vormerkung.id = kundIn.getId();
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (offen) {
+                        offen.remove(vormerkung);
+                        if (status != STATUS_COMMITTED) {
+                            synchronized (vormerkung.tabelle) {
+                                vormerkung.tabelle.zaehlen(vormerkung.gruppe.getId(), vormerkung.zusatzinformationen, -1);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return new Zuteilung(vormerkung.gruppe, wurf, getVerfahren());
+    }
+
+    /**
+     * Wählt die Gruppe und zählt die Zuordnung. Wird die Tabelle gerade neu aufgebaut, wird in der neuen Tabelle
+     * gezählt.
+     */
+    private Vormerkung vormerken(String tenant, Set<Vormerkung> offen, Gruppenintervalle gruppenintervalle, List<String> faktoren,
+                                 List<Zusatzinformation> zusatzinformationen, boolean geringstes) {
+        while (true) {
+            final Minimierungstabelle tabelle = getTabelle(tenant, gruppenintervalle, faktoren);
+            synchronized (offen) {
+                if (tabelleProTenant.get(tenant) != tabelle) {
+                    continue;
+                }
+                final Vormerkung vormerkung;
+                synchronized (tabelle) {
+                    final int[] zeilen = tabelle.zeilen(zusatzinformationen);
+                    final int gruppe = auswaehlen(tabelle.ungleichgewichte(zeilen), geringstes);
+                    tabelle.zaehlen(zeilen, gruppe, 1);
+                    vormerkung = new Vormerkung(gruppenintervalle.getGruppe(gruppe), zusatzinformationen, tabelle);
+                }
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    offen.add(vormerkung);
+                }
+                return vormerkung;
+            }
+        }
+    }
+
+    /**
+     * Wählt zufällig eine der Gruppen mit dem geringsten Ungleichgewicht bzw. eine der übrigen Gruppen. Haben alle
+     * Gruppen dasselbe Ungleichgewicht, wird unter allen gewählt.
+     */
+    private static int auswaehlen(double[] ungleichgewichte, boolean geringstes) {
+        double minimum = Double.MAX_VALUE;
+        for (double ungleichgewicht : ungleichgewichte) {
+            minimum = Math.min(minimum, ungleichgewicht);
+        }
+        int anzahlGeringste = 0;
+        for (double ungleichgewicht : ungleichgewichte) {
+            if (ungleichgewicht == minimum) {
+                anzahlGeringste++;
+            }
+        }
+        final boolean alleGleich = anzahlGeringste == ungleichgewichte.length;
+        final int kandidaten = geringstes || alleGleich ? anzahlGeringste : ungleichgewichte.length - anzahlGeringste;
+        int gewaehlt = Zufallsgenerator.zufallsgenerator(0, kandidaten - 1);
+        for (int g = 0; g < ungleichgewichte.length; g++) {
+            if ((ungleichgewichte[g] == minimum) == (geringstes || alleGleich) && gewaehlt-- == 0) {
+                return g;
+            }
+        }
+        throw new IllegalStateException("Keine Gruppe gewählt.");
+    }
+
+    private List<String> faktoren() throws GruppeNichtGefundenException {
+        try {
+            return projektService.getProjektstand().getMinimierungsfaktoren();
+        } catch (ProjektNichtGefundenException e) {
+            throw new GruppeNichtGefundenException("Kein Projekt vorhanden!");
+        }
+    }
+
+    private Minimierungstabelle getTabelle(String tenant, Gruppenintervalle gruppenintervalle, List<String> faktoren) {
+        final Minimierungstabelle vorhanden = tabelleProTenant.get(tenant);
+        if (vorhanden != null && vorhanden.passt(gruppenintervalle, faktoren)) {
+            return vorhanden;
+        }
+        final Aufbau aufbau = aufbauProTenant.compute(tenant, (t, laufend) -> laufend != null && laufend.passt(gruppenintervalle, faktoren)
+                ? laufend
+                : new Aufbau(gruppenintervalle, List.copyOf(faktoren),
+                        CompletableFuture.supplyAsync(() -> tabelleAufbauen(t, gruppenintervalle, faktoren), aufbauer)));
+        try {
+            return aufbau.tabelle().get(aufbauWartezeit.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Die Minimierung für Tenant-ID " + tenant + " wird noch aufgebaut.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten auf den Aufbau der Minimierung unterbrochen.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Die Minimierung für Tenant-ID " + tenant + " konnte nicht aufgebaut werden.", e.getCause());
+        }
+    }
+
+    /**
+     * Baut die Tabelle im Thread {@code minimierung-aufbau} auf und übernimmt die Vormerkungen.
+     */
+    private Minimierungstabelle tabelleAufbauen(String tenant, Gruppenintervalle gruppenintervalle, List<String> faktoren) {
+        tenantResolver.setCurrentTenant(tenant);
+        try {
+            final Minimierungstabelle geladen = new Minimierungstabelle(gruppenintervalle, faktoren);
+            final int[] gelesen = laden(geladen);
+            final Set<Vormerkung> offen = vormerkungen.computeIfAbsent(tenant, t -> ConcurrentHashMap.newKeySet());
+            synchronized (offen) {
+                for (Vormerkung vormerkung : offen) {
+                    if (vormerkung.id == null || Arrays.binarySearch(gelesen, vormerkung.id) < 0) {
+                        geladen.zaehlen(vormerkung.gruppe.getId(), vormerkung.zusatzinformationen, 1);
+                    }
+                    // Wird die Transaktion zurückgerollt, wird nun in der neuen Tabelle abgezogen.
+                    vormerkung.tabelle = geladen;
+                }
+                tabelleProTenant.put(tenant, geladen);
+            }
+            return geladen;
+        } finally {
+            tenantResolver.clearCurrentTenant();
+        }
+    }
+
+    /**
+     * Zählt alle gespeicherten Zuordnungen der aktuellen Tenant-ID.
+     * @return Die IDs der gelesenen KundInnen, aufsteigend sortiert.
+     */
+    private int[] laden(Minimierungstabelle tabelle) {
+        final int[][] gelesen = {new int[1024]};
+        final int[] anzahl = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<GruppeMitZusatzinformationen> zuordnungen = kundInRepository.streamGruppenMitZusatzinformationen()) {
+                zuordnungen.forEach(z -> {
+                    tabelle.zaehlen(z.gruppeId(), z.zusatzinformationen(), 1);
+                    if (anzahl[0] == gelesen[0].length) {
+                        gelesen[0] = Arrays.copyOf(gelesen[0], anzahl[0] * 2);
+                    }
+                    gelesen[0][anzahl[0]++] = z.id();
+                });
+            }
+        });
+        final int[] ergebnis = Arrays.copyOf(gelesen[0], anzahl[0]);
+        Arrays.sort(ergebnis);
+        return ergebnis;
+    }
+
+    /**
+     * Baut beim Start die Tabellen aller Projekte mit Minimierung auf, damit die ersten Zuordnungen nicht warten.
+     * Neben den gemeinsamen Tabellen werden alle bereitgestellten MandantInnen mit eigenem Schema, eigener Datenbank
+     * oder eigenem Shard geprüft.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void aufbauen() {
+        final Set<String> tenants = new LinkedHashSet<>(jdbcTemplate.queryForList(
+                "SELECT tenant_id FROM projekt WHERE randomisierungsverfahren = ?", String.class, getVerfahren().name()));
+        final Mandantenbereitstellung bereitstellung = mandantenbereitstellung.getIfAvailable();
+        if (bereitstellung != null) {
+            try {
+                tenants.addAll(bereitstellung.bereitgestellte());
+            } catch (SQLException e) {
+                LOGGER.warn("Bereitgestellte MandantInnen konnten nicht gelesen werden: {}", e.getMessage());
+            }
+        }
+        int aufgebaut = 0;
+        for (String tenant : tenants) {
+            tenantResolver.setCurrentTenant(tenant);
+            try {
+                if (projektService.getProjektstand().getRandomisierungsverfahren() == getVerfahren()) {
+                    getTabelle(tenant, gruppenintervallCache.getGruppenintervalle(), faktoren());
+                    aufgebaut++;
+                }
+            } catch (ProjektNichtGefundenException e) {
+                // Bereitgestellt, aber noch ohne Projekt.
+            } catch (GruppeNichtGefundenException e) {
+                LOGGER.warn("Minimierung für Tenant-ID {} konnte nicht aufgebaut werden: {}", tenant, e.getMessage());
+            } finally {
+                tenantResolver.clearCurrentTenant();
+            }
+        }
+        LOGGER.info("Minimierung für {} Tenant-IDs aufgebaut.", aufgebaut);
+    }
+
+    @PreDestroy
+    void beenden() {
+        aufbauer.shutdownNow();
+    }
+
+    /**
+     * @return Die Tabelle der aktuellen Tenant-ID, falls aufgebaut.
+     */
+    Minimierungstabelle getTabelle() {
+        return tabelleProTenant.get(tenantResolver.resolveCurrentTenantIdentifier());
+    }
+
+    /**
+     * Eine Zuordnung, deren Transaktion noch läuft.
+     */
+    private static final class Vormerkung {
+
+        private final Gruppe gruppe;
+
+        private final List<Zusatzinformation> zusatzinformationen;
+
+        /**
+         * Die Tabelle, in der die Zuordnung gezählt ist.
+         */
+        private Minimierungstabelle tabelle;
+
+        /**
+         * Die ID der Kundin / des Kunden, gesetzt vor dem Commit.
+         */
+        private Integer id;
+
+        private Vormerkung(Gruppe gruppe, List<Zusatzinformation> zusatzinformationen, Minimierungstabelle tabelle) {
+            this.gruppe = gruppe;
+            this.zusatzinformationen = zusatzinformationen;
+            this.tabelle = tabelle;
+        }
+    }
+}
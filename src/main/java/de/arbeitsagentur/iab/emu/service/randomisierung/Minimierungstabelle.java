@@ -0,0 +1,176 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.kundin.Zusatzinformation;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+
+import java.util.*;
+
+/**
+ * Randsummen der Minimierung für eine Tenant-ID: pro Faktor eine Matrix Ausprägung × Gruppe mit der Anzahl der
+ * zugeordneten KundInnen. Ausprägungen werden beim ersten Auftreten als neue Zeile angelegt.
+ * <p>
+ * Nicht threadsicher, Zugriffe werden von {@link Minimierung} synchronisiert.
+ */
+final class Minimierungstabelle {
+
+    private final Gruppenintervalle gruppenintervalle;
+
+    private final List<String> faktoren;
+
+    /**
+     * Pro Gruppe der Kehrwert des Blockanteils. Die Zähler werden damit auf das gewünschte Verhältnis normiert.
+     */
+    private final double[] gewichte;
+
+    private final Map<Integer, Integer> gruppenIndizes = new HashMap<>();
+
+    private final List<Map<String, Integer>> zeilenProFaktor = new ArrayList<>();
+
+    /**
+     * zaehler[Faktor][Ausprägung][Gruppe]
+     */
+    private final int[][][] zaehler;
+
+    Minimierungstabelle(Gruppenintervalle gruppenintervalle, List<String> faktoren) {
+        this.gruppenintervalle = gruppenintervalle;
+        this.faktoren = List.copyOf(faktoren);
+        final int[] anteile = gruppenintervalle.getBlockanteile();
+        this.gewichte = new double[anteile.length];
+        for (int i = 0; i < anteile.length; i++) {
+            gewichte[i] = 1.0 / anteile[i];
+            gruppenIndizes.put(gruppenintervalle.getGruppe(i).getId(), i);
+        }
+        this.zaehler = new int[faktoren.size()][][];
+        for (int f = 0; f < faktoren.size(); f++) {
+            zeilenProFaktor.add(new HashMap<>());
+            zaehler[f] = new int[4][anteile.length];
+        }
+    }
+
+    /**
+     * @return true, falls die Tabelle für dieselben Gruppen mit denselben Grenzen und dieselben Faktoren aufgebaut
+     * wurde. Eine neu geladene, aber gleiche Tabelle der Gruppenintervalle passt also weiterhin.
+     */
+    boolean passt(Gruppenintervalle gruppenintervalle, List<String> faktoren) {
+        return this.gruppenintervalle.hatGleicheGruppen(gruppenintervalle) && this.faktoren.equals(faktoren);
+    }
+
+    /**
+     * Ermittelt pro Faktor die Zeile der Ausprägung. Fehlt ein Faktor in den Zusatzinformationen, zählt dies als
+     * eigene Ausprägung.
+     * @param zusatzinformationen Die Zusatzinformationen einer Kundin / eines Kunden, ggf. null.
+     * @return Pro Faktor die Zeile in der Matrix.
+     */
+    int[] zeilen(List<Zusatzinformation> zusatzinformationen) {
+        final Map<String, String> werte = new HashMap<>();
+        if (zusatzinformationen != null) {
+            for (Zusatzinformation zusatzinformation : zusatzinformationen) {
+                werte.putIfAbsent(zusatzinformation.getName(), Objects.requireNonNullElse(zusatzinformation.getWert(), ""));
+            }
+        }
+        final int[] zeilen = new int[faktoren.size()];
+        for (int f = 0; f < zeilen.length; f++) {
+            final Map<String, Integer> zeilenDesFaktors = zeilenProFaktor.get(f);
+            final int zeile = zeilenDesFaktors.computeIfAbsent(werte.getOrDefault(faktoren.get(f), ""), w -> zeilenDesFaktors.size());
+            if (zeile == zaehler[f].length) {
+                final int[][] groesser = Arrays.copyOf(zaehler[f], zeile * 2);
+                for (int i = zeile; i < groesser.length; i++) {
+                    groesser[i] = new int[gewichte.length];
+                }
+                zaehler[f] = groesser;
+            }
+            zeilen[f] = zeile;
+        }
+        return zeilen;
+    }
+
+    /**
+     * Ändert die Zähler der Gruppe in den übergebenen Zeilen.
+     * @param zeilen Ergebnis von {@link #zeilen(List)}.
+     * @param gruppe Index der Gruppe in {@link Gruppenintervalle#getGruppen()}.
+     * @param differenz 1 für eine Zuordnung, -1 für deren Rücknahme.
+     */
+    void zaehlen(int[] zeilen, int gruppe, int differenz) {
+        for (int f = 0; f < zeilen.length; f++) {
+            zaehler[f][zeilen[f]][gruppe] += differenz;
+        }
+    }
+
+    /**
+     * Zählt eine Zuordnung über die ID der Gruppe. Zuordnungen zu Gruppen, die nicht mehr vorhanden sind, werden
+     * ignoriert.
+     * @param differenz 1 für eine Zuordnung, -1 für deren Rücknahme.
+     */
+    void zaehlen(Integer gruppeId, List<Zusatzinformation> zusatzinformationen, int differenz) {
+        final Integer gruppe = gruppenIndizes.get(gruppeId);
+        if (gruppe != null) {
+            zaehlen(zeilen(zusatzinformationen), gruppe, differenz);
+        }
+    }
+
+    /**
+     * Berechnet für jede Gruppe das Ungleichgewicht, das nach einer Zuordnung zu dieser Gruppe bestünde: die Summe
+     * über alle Faktoren der Spannweite der normierten Zähler in der Zeile der Kundin / des Kunden. Der Aufwand ist
+     * O(Faktoren × Gruppen).
+     * @param zeilen Ergebnis von {@link #zeilen(List)}.
+     * @return Pro Gruppe das Ungleichgewicht.
+     */
+    double[] ungleichgewichte(int[] zeilen) {
+        final int anzahlGruppen = gewichte.length;
+        final double[] ergebnis = new double[anzahlGruppen];
+        final double[] werte = new double[anzahlGruppen];
+        for (int f = 0; f < zeilen.length; f++) {
+            final int[] zeile = zaehler[f][zeilen[f]];
+            // Die zwei größten und kleinsten Werte genügen, um die Spannweite ohne die jeweilige Gruppe zu kennen.
+            int max1 = -1, max2 = -1, min1 = -1, min2 = -1;
+            for (int g = 0; g < anzahlGruppen; g++) {
+                werte[g] = zeile[g] * gewichte[g];
+                if (max1 < 0 || werte[g] > werte[max1]) {
+                    max2 = max1;
+                    max1 = g;
+                } else if (max2 < 0 || werte[g] > werte[max2]) {
+                    max2 = g;
+                }
+                if (min1 < 0 || werte[g] < werte[min1]) {
+                    min2 = min1;
+                    min1 = g;
+                } else if (min2 < 0 || werte[g] < werte[min2]) {
+                    min2 = g;
+                }
+            }
+            for (int g = 0; g < anzahlGruppen; g++) {
+                final double neu = werte[g] + gewichte[g];
+                final double maxOhne = werte[g == max1 ? max2 : max1];
+                final double minOhne = werte[g == min1 ? min2 : min1];
+                ergebnis[g] += Math.max(maxOhne, neu) - Math.min(minOhne, neu);
+            }
+        }
+        return ergebnis;
+    }
+
+    /**
+     * @return Anzahl der KundInnen mit dieser Ausprägung des Faktors in der Gruppe.
+     */
+    int anzahl(String faktor, String wert, int gruppe) {
+        final int f = faktoren.indexOf(faktor);
+        final Integer zeile = zeilenProFaktor.get(f).get(wert);
+        return zeile == null ? 0 : zaehler[f][zeile][gruppe];
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.Mandantenmetriken;
+import de.arbeitsagentur.iab.emu.service.kundin.GruppeNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordnet KundInnen nach dem {@link Randomisierungsverfahren} des Projekts der aktuellen Tenant-ID einer Gruppe zu.
+ * Projekt und Gruppenintervalle stammen aus Caches, d. h. im Normalfall ist für die Auswahl des Verfahrens keine
+ * Datenbankabfrage nötig.
+ * <p>
+ * Die Dauer wird als Histogramm {@code emu.muenzwurf} gemessen, die Ergebnisse werden pro Verfahren und
+ * Gruppenbezeichnung in {@code emu.muenzwurf.gruppen} gezählt, jeweils mit dem Tag der MandantIn (siehe
+ * {@link Mandantenmetriken}).
+ */
+@Component
+public class Randomisierung {
+
+    private final GruppenintervallCache gruppenintervallCache;
+
+    private final ProjektService projektService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Mandantenmetriken mandantenmetriken;
+
+    private final Map<Randomisierungsverfahren, Randomisierungsstrategie> strategien = new EnumMap<>(Randomisierungsverfahren.class);
+
+    public Randomisierung(@NonNull GruppenintervallCache gruppenintervallCache, @NonNull ProjektService projektService,
+                          @NonNull List<Randomisierungsstrategie> strategien, @NonNull MeterRegistry meterRegistry,
+                          @NonNull Mandantenmetriken mandantenmetriken) {
+        this.gruppenintervallCache = gruppenintervallCache;
+        this.projektService = projektService;
+        this.meterRegistry = meterRegistry;
+        this.mandantenmetriken = mandantenmetriken;
+        for (Randomisierungsstrategie strategie : strategien) {
+            this.strategien.put(strategie.getVerfahren(), strategie);
+        }
+    }
+
+    /**
+     * Ordnet die Kundin / den Kunden einer Gruppe zu. Die Gruppe wird nicht gesetzt.
+     * @param kundIn Die Kundin / der Kunde, noch ohne Gruppe.
+     * @return Die Zuordnung.
+     * @throws GruppeNichtGefundenException Falls keine Gruppen vorhanden oder die Gruppendaten inkonsistent sind.
+     */
+    @Timed(value = "emu.muenzwurf", histogram = true, description = "Dauer der Zuordnung zu einer Gruppe")
+    public Zuteilung zuteilen(@NonNull KundIn kundIn) throws GruppeNichtGefundenException {
+        final Gruppenintervalle gruppenintervalle = gruppenintervallCache.getGruppenintervalle();
+        if (gruppenintervalle.isLeer()) {
+            throw new GruppeNichtGefundenException("Es sind keine Gruppen vorhanden!");
+        }
+        final Zuteilung zuteilung = strategie(getVerfahren()).zuteilen(kundIn, gruppenintervalle);
+        meterRegistry.counter("emu.muenzwurf.gruppen",
+                Mandantenmetriken.TAG, mandantenmetriken.tag(),
+                "verfahren", zuteilung.verfahren().name(),
+                "gruppe", String.valueOf(zuteilung.gruppe().getBezeichnung())).increment();
+        return zuteilung;
+    }
+
+    /**
+     * Muss nach der Anlage eines Projekts aufgerufen werden, damit das Verfahren ggf. Daten vorab erzeugen kann.
+     * @param projekt Das angelegte Projekt mit Gruppen.
+     */
+    public void projektAngelegt(@NonNull Projekt projekt) {
+        strategie(projekt.getRandomisierungsverfahren()).projektAngelegt(projekt);
+    }
+
+    private Randomisierungsverfahren getVerfahren() {
+        try {
+            return projektService.getProjektstand().getRandomisierungsverfahren();
+        } catch (ProjektNichtGefundenException e) {
+            return Randomisierungsverfahren.Intervall;
+        }
+    }
+
+    private Randomisierungsstrategie strategie(Randomisierungsverfahren verfahren) {
+        final Randomisierungsstrategie strategie = strategien.get(verfahren);
+        if (strategie == null) {
+            throw new IllegalStateException("Keine Umsetzung für das Randomisierungsverfahren " + verfahren + " vorhanden.");
+        }
+        return strategie;
+    }
+}
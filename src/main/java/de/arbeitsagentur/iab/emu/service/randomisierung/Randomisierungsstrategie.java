@@ -0,0 +1,50 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.kundin.GruppeNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+
+/**
+ * Umsetzung eines {@link Randomisierungsverfahren}. Jede Umsetzung ist eine Spring-Komponente und wird von
+ * {@link Randomisierung} anhand des Verfahrens des Projekts ausgewählt.
+ */
+public interface Randomisierungsstrategie {
+
+    Randomisierungsverfahren getVerfahren();
+
+    /**
+     * Ordnet eine Kundin / einen Kunden einer Gruppe zu. Läuft in der Transaktion, in der die Kundin / der Kunde
+     * gespeichert wird.
+     * @param kundIn Die Kundin / der Kunde, noch ohne Gruppe.
+     * @param gruppenintervalle Die Gruppen der aktuellen Tenant-ID, nicht leer.
+     * @return Die Zuordnung.
+     * @throws GruppeNichtGefundenException Falls die Gruppendaten inkonsistent sind.
+     */
+    Zuteilung zuteilen(KundIn kundIn, Gruppenintervalle gruppenintervalle) throws GruppeNichtGefundenException;
+
+    /**
+     * Wird nach der Anlage eines Projekts mit diesem Verfahren aufgerufen, z. B. um Daten vorab zu erzeugen.
+     * @param projekt Das angelegte Projekt mit Gruppen.
+     */
+    default void projektAngelegt(Projekt projekt) {
+    }
+}
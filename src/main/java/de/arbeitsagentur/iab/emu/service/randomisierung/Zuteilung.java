@@ -0,0 +1,31 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+
+/**
+ * Ergebnis einer Zuordnung zu einer Gruppe.
+ * @param gruppe Die zugeordnete Gruppe.
+ * @param wert Der gezogene Zufallswert bzw. bei einer Zuteilungsliste oder
+ *             einem Block der vergebene Platz.
+ * @param verfahren Das verwendete Verfahren.
+ */
+public record Zuteilung(Gruppe gruppe, long wert, Randomisierungsverfahren verfahren) {
+}
@@ -0,0 +1,202 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.TenantId;
+import org.hibernate.type.SqlTypes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Vorab erzeugte Zuordnungen für {@link de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren#Zuteilungsliste}.
+ * Pro Platz wird der Index der Gruppe in einem Byte gespeichert. Die Plätze werden der Reihe nach vergeben.
+ * Ändern sich die Gruppen oder ihre Grenzen, beginnt ab dem nächsten Platz ein neuer {@link Abschnitt}, die bereits
+ * vergebenen Plätze bleiben unverändert. Aus den Abschnitten lässt sich die Liste jederzeit nachvollziehen.
+ * <p>
+ * {@link #naechsterPlatz} wird nur per {@link ZuteilungslisteRepository#platzBelegen()} geändert. Damit ein
+ * geladenes Objekt den Wert beim Speichern nicht überschreibt, werden nur geänderte Spalten geschrieben.
+ */
+@Entity
+@DynamicUpdate
+@Table(
+        name = "zuteilungsliste",
+        uniqueConstraints =
+        @UniqueConstraint(columnNames = {"tenantId"})
+)
+public class Zuteilungsliste {
+
+    /**
+     * Anzahl der Plätze, die beim Anlegen und bei jeder Verlängerung erzeugt werden.
+     */
+    static final int LAENGE = 10_000;
+
+    static final int MAX_LAENGE = 1_000_000;
+
+    /**
+     * Pro Tenant-ID gibt es höchstens eine Zuteilungsliste.
+     */
+    public static final int ID_BLOCKGROESSE = 1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "zuteilungsliste_seq")
+    @SequenceGenerator(name = "zuteilungsliste_seq", sequenceName = "zuteilungsliste_seq", allocationSize = ID_BLOCKGROESSE)
+    private Integer id;
+
+    @TenantId
+    private String tenantId;
+
+    /**
+     * Die Abschnitte der Liste, sortiert nach ihrem ersten Platz. Der letzte Abschnitt reicht bis zum Ende der Liste.
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<Abschnitt> abschnitte;
+
+    /**
+     * Pro Platz der Index der Gruppe (vorzeichenlos).
+     */
+    @Column(length = MAX_LAENGE)
+    private byte[] plaetze;
+
+    /**
+     * Der nächste zu vergebende Platz.
+     */
+    private int naechsterPlatz;
+
+    /**
+     * Ein Abschnitt der Liste, dessen Plätze mit einem Startwert für dieselben Gruppen erzeugt wurden.
+     * @param start Der erste Platz des Abschnitts.
+     * @param startwert Startwert des Zufallsgenerators.
+     * @param gruppenIds IDs der Gruppen, sortiert nach Untergrenze. Die Indizes der Plätze beziehen sich auf diese Liste.
+     * @param untergrenzen Die Untergrenzen der Gruppen in derselben Reihenfolge.
+     * @param obergrenzen Die Obergrenzen der Gruppen in derselben Reihenfolge.
+     */
+    public record Abschnitt(int start, long startwert, List<Integer> gruppenIds, List<Integer> untergrenzen,
+                            List<Integer> obergrenzen) {
+
+        static Abschnitt erstellen(int start, long startwert, Gruppenintervalle gruppenintervalle) {
+            final List<Gruppe> gruppen = gruppenintervalle.getGruppen();
+            return new Abschnitt(start, startwert, gruppen.stream().map(Gruppe::getId).toList(),
+                    gruppen.stream().map(Gruppe::getUntergrenze).toList(),
+                    gruppen.stream().map(Gruppe::getObergrenze).toList());
+        }
+
+        /**
+         * @return true, falls der Abschnitt für dieselben Gruppen mit denselben Grenzen erzeugt wurde. Abschnitte
+         * ohne gespeicherte Grenzen passen nie.
+         */
+        boolean passt(Gruppenintervalle gruppenintervalle) {
+            return untergrenzen != null && obergrenzen != null && gruppenintervalle().hatGleicheGruppen(gruppenintervalle);
+        }
+
+        /**
+         * @return Die Gruppen, für die die Plätze des Abschnitts erzeugt wurden.
+         */
+        Gruppenintervalle gruppenintervalle() {
+            final List<Gruppe> gruppen = new ArrayList<>();
+            for (int i = 0; i < gruppenIds.size(); i++) {
+                final Gruppe gruppe = new Gruppe();
+                gruppe.setId(gruppenIds.get(i));
+                gruppe.setUntergrenze(untergrenzen.get(i));
+                gruppe.setObergrenze(obergrenzen.get(i));
+                gruppen.add(gruppe);
+            }
+            return Gruppenintervalle.erstellen(gruppen);
+        }
+    }
+
+    /**
+     * Verlängert die Plätze auf die angegebene Länge. Die Plätze werden aus dem Startwert und den gespeicherten
+     * Gruppen des Abschnitts erzeugt, aber erst ab dem angegebenen Platz übernommen. Davor bleibt die Liste
+     * unverändert, auch wenn sich die Gruppen inzwischen geändert haben.
+     * @param vorhanden Die bisherigen Plätze.
+     * @param abschnitt Der letzte Abschnitt.
+     * @param ab Der erste neu zu schreibende Platz, nicht vor dem Beginn des Abschnitts.
+     * @param laenge Anzahl der Plätze.
+     */
+    static byte[] erweitern(byte[] vorhanden, Abschnitt abschnitt, int ab, int laenge) {
+        if (ab < abschnitt.start()) {
+            throw new IllegalArgumentException("Platz " + ab + " liegt vor dem Abschnitt ab Platz " + abschnitt.start() + ".");
+        }
+        final byte[] plaetze = Arrays.copyOf(vorhanden, laenge);
+        final byte[] neu = erzeugen(abschnitt.startwert(), abschnitt.gruppenintervalle(), laenge - abschnitt.start());
+        System.arraycopy(neu, ab - abschnitt.start(), plaetze, ab, laenge - ab);
+        return plaetze;
+    }
+
+    /**
+     * Erzeugt die Plätze. Für denselben Startwert und dieselben Gruppen ist das Ergebnis immer gleich, eine
+     * längere Liste beginnt mit den Plätzen der kürzeren.
+     * @param startwert Startwert des Zufallsgenerators.
+     * @param gruppenintervalle Die Gruppen, nicht leer und lückenlos.
+     * @param laenge Anzahl der Plätze.
+     * @return Pro Platz der Index der Gruppe in {@link Gruppenintervalle#getGruppen()}.
+     */
+    static byte[] erzeugen(long startwert, Gruppenintervalle gruppenintervalle, int laenge) {
+        final SplittableRandom zufall = new SplittableRandom(startwert);
+        final int untergrenze = gruppenintervalle.getMinUntergrenze();
+        final int obergrenze = gruppenintervalle.getMaxObergrenze();
+        final byte[] plaetze = new byte[laenge];
+        for (int i = 0; i < laenge; i++) {
+            final int index = gruppenintervalle.findeIndex(zufall.nextInt(untergrenze, obergrenze + 1));
+            if (index < 0) {
+                throw new IllegalStateException("Die Gruppen sind nicht lückenlos.");
+            }
+            plaetze[i] = (byte) index;
+        }
+        return plaetze;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public List<Abschnitt> getAbschnitte() {
+        return abschnitte;
+    }
+
+    public void setAbschnitte(List<Abschnitt> abschnitte) {
+        this.abschnitte = abschnitte;
+    }
+
+    /**
+     * @return Der letzte Abschnitt, aus dem neue Plätze erzeugt werden.
+     */
+    public Abschnitt getAktuellerAbschnitt() {
+        return abschnitte.get(abschnitte.size() - 1);
+    }
+
+    public byte[] getPlaetze() {
+        return plaetze;
+    }
+
+    public void setPlaetze(byte[] plaetze) {
+        this.plaetze = plaetze;
+    }
+
+    public int getNaechsterPlatz() {
+        return naechsterPlatz;
+    }
+}
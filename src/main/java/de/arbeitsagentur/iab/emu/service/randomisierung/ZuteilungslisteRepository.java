@@ -0,0 +1,42 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Optional;
+
+public interface ZuteilungslisteRepository extends CrudRepository<Zuteilungsliste, Integer> {
+
+    /**
+     * Belegt den nächsten Platz der Zuteilungsliste der aktuellen Tenant-ID. Die Zeile bleibt bis zum Ende der
+     * Transaktion gesperrt, parallele Zuordnungen derselben Tenant-ID erhalten dadurch unterschiedliche Plätze.
+     * @return 1, falls eine Zuteilungsliste vorhanden ist, sonst 0.
+     */
+    @Modifying
+    @Query("UPDATE Zuteilungsliste z SET z.naechsterPlatz = z.naechsterPlatz + 1")
+    int platzBelegen();
+
+    @Query("SELECT z.naechsterPlatz FROM Zuteilungsliste z")
+    Optional<Integer> findNaechsterPlatz();
+
+    @Query("SELECT z FROM Zuteilungsliste z")
+    Optional<Zuteilungsliste> findZuteilungsliste();
+}
@@ -0,0 +1,166 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.GruppeNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektRepository;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Randomisierungsverfahren#Zuteilungsliste}: Vergibt die Plätze einer vorab erzeugten {@link Zuteilungsliste}
+ * der Reihe nach. Der Platz wird per UPDATE auf die Zeile der Tenant-ID belegt, parallele Zuordnungen derselben
+ * Tenant-ID werden dadurch von der Datenbank serialisiert, verschiedene Tenant-IDs blockieren sich nicht.
+ * Fehlt die Zeile noch, wird sie unter einer Sperre auf das Projekt angelegt, damit parallele erste Zuordnungen sie
+ * nicht doppelt anlegen. Die Plätze selbst werden pro Tenant-ID im Speicher gehalten.
+ */
+@Component
+public class Zuteilungslistenrandomisierung implements Randomisierungsstrategie {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Zuteilungslistenrandomisierung.class);
+
+    private final ZuteilungslisteRepository zuteilungslisteRepository;
+
+    private final ProjektRepository projektRepository;
+
+    private final TenantResolver tenantResolver;
+
+    private final SecureRandom startwerte = new SecureRandom();
+
+    private final Map<String, Geladen> geladenProTenant = new ConcurrentHashMap<>();
+
+    /**
+     * Die Plätze einer Tenant-ID zusammen mit den Gruppenintervallen, für die sie geladen wurden.
+     */
+    private record Geladen(Gruppenintervalle gruppenintervalle, byte[] plaetze) {
+    }
+
+    public Zuteilungslistenrandomisierung(@NonNull ZuteilungslisteRepository zuteilungslisteRepository,
+                                          @NonNull ProjektRepository projektRepository,
+                                          @NonNull TenantResolver tenantResolver) {
+        this.zuteilungslisteRepository = zuteilungslisteRepository;
+        this.projektRepository = projektRepository;
+        this.tenantResolver = tenantResolver;
+    }
+
+    @Override
+    public Randomisierungsverfahren getVerfahren() {
+        return Randomisierungsverfahren.Zuteilungsliste;
+    }
+
+    @Override
+    public Zuteilung zuteilen(KundIn kundIn, Gruppenintervalle gruppenintervalle) throws GruppeNichtGefundenException {
+        if (zuteilungslisteRepository.platzBelegen() == 0) {
+            projektRepository.sperren();
+            if (zuteilungslisteRepository.platzBelegen() == 0) {
+                anlegen(gruppenintervalle);
+                zuteilungslisteRepository.platzBelegen();
+            }
+        }
+        final int platz = zuteilungslisteRepository.findNaechsterPlatz()
+                .orElseThrow(() -> new IllegalStateException("Zuteilungsliste nicht gefunden.")) - 1;
+
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        final Geladen geladen = geladenProTenant.get(tenant);
+        final byte[] plaetze;
+        if (geladen != null && geladen.gruppenintervalle().hatGleicheGruppen(gruppenintervalle) && platz < geladen.plaetze().length) {
+            plaetze = geladen.plaetze();
+        } else {
+            plaetze = laden(tenant, gruppenintervalle, platz);
+        }
+
+        final int index = Byte.toUnsignedInt(plaetze[platz]);
+        if (index >= gruppenintervalle.getAnzahl()) {
+            throw new GruppeNichtGefundenException("Gruppe für Platz " + platz + " der Zuteilungsliste nicht gefunden!");
+        }
+        return new Zuteilung(gruppenintervalle.getGruppe(index), platz, getVerfahren());
+    }
+
+    @Override
+    public void projektAngelegt(Projekt projekt) {
+        final Gruppenintervalle gruppenintervalle = Gruppenintervalle.erstellen(projekt.getGruppen());
+        if (!gruppenintervalle.isLeer() && zuteilungslisteRepository.findNaechsterPlatz().isEmpty()) {
+            anlegen(gruppenintervalle);
+        }
+    }
+
+    private void anlegen(Gruppenintervalle gruppenintervalle) {
+        final Zuteilungsliste zuteilungsliste = new Zuteilungsliste();
+        final Zuteilungsliste.Abschnitt abschnitt = neuerAbschnitt(0, gruppenintervalle);
+        zuteilungsliste.setAbschnitte(List.of(abschnitt));
+        zuteilungsliste.setPlaetze(Zuteilungsliste.erweitern(new byte[0], abschnitt, 0, Zuteilungsliste.LAENGE));
+        zuteilungslisteRepository.save(zuteilungsliste);
+    }
+
+    /**
+     * Lädt die Zuteilungsliste der Tenant-ID aus der Datenbank. Passen die gespeicherten Gruppen oder ihre Grenzen
+     * nicht mehr, beginnt ab dem belegten Platz ein neuer Abschnitt. Sind alle Plätze vergeben, wird die Liste mit den
+     * Gruppen des letzten Abschnitts verlängert. Die Plätze
+     * werden erst nach dem Commit in den Speicher übernommen, damit ein Rollback keine ungespeicherte Liste hinterlässt.
+     */
+    private byte[] laden(String tenant, Gruppenintervalle gruppenintervalle, int platz) {
+        final Zuteilungsliste zuteilungsliste = zuteilungslisteRepository.findZuteilungsliste()
+                .orElseThrow(() -> new IllegalStateException("Zuteilungsliste nicht gefunden."));
+        final byte[] vorhanden = zuteilungsliste.getPlaetze();
+        final int benoetigt = platz + 1;
+        if (!zuteilungsliste.getAktuellerAbschnitt().passt(gruppenintervalle)) {
+            LOGGER.info("Die Gruppen der Tenant-ID {} haben sich geändert, die Zuteilungsliste wird ab Platz {} neu erzeugt.", tenant, platz);
+            final Zuteilungsliste.Abschnitt abschnitt = neuerAbschnitt(platz, gruppenintervalle);
+            final List<Zuteilungsliste.Abschnitt> abschnitte = new ArrayList<>(zuteilungsliste.getAbschnitte());
+            abschnitte.add(abschnitt);
+            zuteilungsliste.setAbschnitte(abschnitte);
+            zuteilungsliste.setPlaetze(Zuteilungsliste.erweitern(vorhanden, abschnitt, platz,
+                    verlaengern(vorhanden.length, benoetigt)));
+        } else if (vorhanden.length < benoetigt) {
+            zuteilungsliste.setPlaetze(Zuteilungsliste.erweitern(vorhanden, zuteilungsliste.getAktuellerAbschnitt(),
+                    vorhanden.length, verlaengern(vorhanden.length, benoetigt)));
+        }
+        final Geladen geladen = new Geladen(gruppenintervalle, zuteilungsliste.getPlaetze());
+        NachCommit.ausfuehren(() -> geladenProTenant.put(tenant, geladen));
+        return geladen.plaetze();
+    }
+
+    private Zuteilungsliste.Abschnitt neuerAbschnitt(int start, Gruppenintervalle gruppenintervalle) {
+        return Zuteilungsliste.Abschnitt.erstellen(start, startwerte.nextLong(), gruppenintervalle);
+    }
+
+    private static int verlaengern(int laenge, int benoetigt) {
+        int neueLaenge = Math.max(laenge, Zuteilungsliste.LAENGE);
+        while (neueLaenge < benoetigt) {
+            neueLaenge += Zuteilungsliste.LAENGE;
+        }
+        if (neueLaenge > Zuteilungsliste.MAX_LAENGE) {
+            throw new IllegalStateException("Die Zuteilungsliste ist auf " + Zuteilungsliste.MAX_LAENGE + " Plätze beschränkt.");
+        }
+        return neueLaenge;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Liest ein {@link Zuteilungsjournal} und prüft die Prüfsumme jedes Eintrags. Kann auch als Kommandozeilenwerkzeug
+ * verwendet werden:
+ * <pre>
+ * java -cp emu.jar de.arbeitsagentur.iab.emu.service.randomisierung.journal.JournalLeser &lt;Datei&gt; [Tenant-ID]
+ * </pre>
+ * Gibt alle Einträge (bzw. die der Tenant-ID) aus und meldet beschädigte Einträge und KundInnen, die mehrfach
+ * zugeordnet wurden. Der Exit-Code ist dann 1.
+ */
+public final class JournalLeser {
+
+    /**
+     * Ergebnis des Lesens.
+     * @param anzahl Anzahl der gültigen Einträge.
+     * @param gueltigBis Position hinter dem letzten gültigen Eintrag.
+     * @param vollstaendig false, falls danach noch unvollständige oder beschädigte Daten folgen.
+     */
+    public record Ergebnis(long anzahl, long gueltigBis, boolean vollstaendig) {
+    }
+
+    private JournalLeser() {}
+
+    /**
+     * Liest alle gültigen Einträge. Das Lesen endet beim ersten unvollständigen oder beschädigten Eintrag, z. B.
+     * einem nach einem Absturz nur teilweise geschriebenen Eintrag am Ende der Datei.
+     * @param datei Das Journal.
+     * @param verbraucher Erhält die Einträge in der Reihenfolge des Journals.
+     * @return Das Ergebnis.
+     * @throws IOException Falls die Datei nicht gelesen werden kann oder kein Zuteilungsjournal ist.
+     */
+    public static Ergebnis lesen(Path datei, Consumer<Journaleintrag> verbraucher) throws IOException {
+        try (InputStream eingabe = Files.newInputStream(datei);
+             DataInputStream daten = new DataInputStream(new BufferedInputStream(eingabe, 1 << 16))) {
+            final byte[] kopf = new byte[Journalformat.KOPF_LAENGE];
+            try {
+                daten.readFully(kopf);
+            } catch (EOFException e) {
+                throw new IOException("Kein Zuteilungsjournal: " + datei);
+            }
+            if (!Journalformat.kopfPruefen(ByteBuffer.wrap(kopf))) {
+                throw new IOException("Kein Zuteilungsjournal: " + datei);
+            }
+
+            final CRC32 crc = new CRC32();
+            final byte[] nutzdaten = new byte[Journalformat.MAX_NUTZDATEN];
+            long position = Journalformat.KOPF_LAENGE;
+            long anzahl = 0;
+            while (true) {
+                final int laenge;
+                final int pruefsumme;
+                try {
+                    laenge = daten.readInt();
+                    if (laenge < Journalformat.MIN_NUTZDATEN || laenge > Journalformat.MAX_NUTZDATEN) {
+                        return new Ergebnis(anzahl, position, false);
+                    }
+                    daten.readFully(nutzdaten, 0, laenge);
+                    pruefsumme = daten.readInt();
+                } catch (EOFException e) {
+                    return new Ergebnis(anzahl, position, position == Files.size(datei));
+                }
+                crc.reset();
+                crc.update(nutzdaten, 0, laenge);
+                final ByteBuffer puffer = ByteBuffer.wrap(nutzdaten, 0, laenge);
+                if ((int) crc.getValue() != pruefsumme
+                        || Byte.toUnsignedInt(puffer.get(Journalformat.MIN_NUTZDATEN - Short.BYTES - Byte.BYTES)) >= Randomisierungsverfahren.values().length) {
+                    return new Ergebnis(anzahl, position, false);
+                }
+                verbraucher.accept(Journalformat.lesen(puffer));
+                anzahl++;
+                position += Integer.BYTES + laenge + Integer.BYTES;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Aufruf: JournalLeser <Datei> [Tenant-ID]");
+            System.exit(2);
+        }
+        final String tenant = args.length == 2 ? args[1] : null;
+        final Set<String> zugeordnet = new HashSet<>();
+        final long[] ausgegeben = {0};
+        final boolean[] mehrfach = {false};
+        System.out.println("zeitpunkt;tenant;kundin;gruppe;wert;verfahren");
+        final Ergebnis ergebnis = lesen(Path.of(args[0]), eintrag -> {
+            if (tenant != null && !tenant.equals(eintrag.tenant())) {
+                return;
+            }
+            ausgegeben[0]++;
+            System.out.println(eintrag.zeitpunkt() + ";" + eintrag.tenant() + ";" + eintrag.kundInId() + ";"
+                    + eintrag.gruppeId() + ";" + eintrag.wert() + ";" + eintrag.verfahren());
+            if (!zugeordnet.add(eintrag.tenant() + "\u0000" + eintrag.kundInId())) {
+                System.err.println("Mehrfache Zuordnung: Tenant-ID " + eintrag.tenant() + ", KundIn " + eintrag.kundInId());
+                mehrfach[0] = true;
+            }
+        });
+        System.err.println(ergebnis.anzahl() + " Einträge gelesen, " + ausgegeben[0] + " ausgegeben.");
+        if (!ergebnis.vollstaendig()) {
+            System.err.println("Journal ab Byte " + ergebnis.gueltigBis() + " unvollständig oder beschädigt.");
+        }
+        if (!ergebnis.vollstaendig() || mehrfach[0]) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInRepository;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInZuordnung;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Gleicht die Zuordnungen einer Tenant-ID im {@link Zuteilungsjournal} mit den Gruppen der KundInnen in der
+ * Datenbank ab. Erreichbar als Actuator-Endpoint {@code /actuator/zuteilungsjournal/{tenant}}.
+ */
+@Component
+@Endpoint(id = "zuteilungsjournal")
+public class JournalPruefung {
+
+    /**
+     * Es werden höchstens so viele Abweichungen einzeln aufgeführt.
+     */
+    static final int MAX_ABWEICHUNGEN = 100;
+
+    private final Zuteilungsjournal zuteilungsjournal;
+
+    private final KundInRepository kundInRepository;
+
+    private final TenantResolver tenantResolver;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Ergebnis des Abgleichs.
+     * @param eintraege Anzahl der KundInnen der Tenant-ID im Journal.
+     * @param kundInnen Anzahl der zugeordneten KundInnen in der Datenbank.
+     * @param journalVollstaendig false, falls das Journal beschädigte Einträge enthält.
+     * @param anzahlAbweichungen Anzahl der Abweichungen.
+     * @param abweichungen Die ersten {@link #MAX_ABWEICHUNGEN} Abweichungen.
+     */
+    public record Ergebnis(long eintraege, long kundInnen, boolean journalVollstaendig, long anzahlAbweichungen,
+                           List<String> abweichungen) {
+    }
+
+    public JournalPruefung(@NonNull Zuteilungsjournal zuteilungsjournal, @NonNull KundInRepository kundInRepository,
+                           @NonNull TenantResolver tenantResolver, @NonNull PlatformTransactionManager transactionManager) {
+        this.zuteilungsjournal = zuteilungsjournal;
+        this.kundInRepository = kundInRepository;
+        this.tenantResolver = tenantResolver;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @ReadOperation
+    public Ergebnis pruefen(@Selector String tenant) throws IOException, InterruptedException {
+        final Path datei = zuteilungsjournal.getDatei();
+        if (datei == null) {
+            throw new IllegalStateException("Kein Zuteilungsjournal konfiguriert.");
+        }
+        zuteilungsjournal.synchronisieren();
+
+        final List<String> abweichungen = new ArrayList<>();
+        final long[] anzahlAbweichungen = {0};
+        final Map<Integer, Integer> journal = new HashMap<>();
+        final JournalLeser.Ergebnis gelesen = JournalLeser.lesen(datei, eintrag -> {
+            if (tenant.equals(eintrag.tenant()) && journal.put(eintrag.kundInId(), eintrag.gruppeId()) != null) {
+                abweichung(abweichungen, anzahlAbweichungen, "KundIn " + eintrag.kundInId() + " ist mehrfach im Journal.");
+            }
+        });
+        final long eintraege = journal.size();
+
+        final long[] kundInnen = {0};
+        tenantResolver.setCurrentTenant(tenant);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<KundInZuordnung> zuordnungen = kundInRepository.streamZuordnungen()) {
+                    zuordnungen.forEach(zuordnung -> {
+                        kundInnen[0]++;
+                        final Integer gruppeImJournal = journal.remove(zuordnung.kundInId());
+                        if (gruppeImJournal == null) {
+                            abweichung(abweichungen, anzahlAbweichungen, "KundIn " + zuordnung.kundInId() + " (Gruppe "
+                                    + zuordnung.gruppeId() + ") fehlt im Journal.");
+                        } else if (!gruppeImJournal.equals(zuordnung.gruppeId())) {
+                            abweichung(abweichungen, anzahlAbweichungen, "KundIn " + zuordnung.kundInId() + ": Gruppe "
+                                    + zuordnung.gruppeId() + " in der Datenbank, Gruppe " + gruppeImJournal + " im Journal.");
+                        }
+                    });
+                }
+            });
+        } finally {
+            tenantResolver.clearCurrentTenant();
+        }
+        journal.keySet().forEach(kundInId ->
+                abweichung(abweichungen, anzahlAbweichungen, "KundIn " + kundInId + " ist im Journal, aber nicht in der Datenbank zugeordnet."));
+
+        return new Ergebnis(eintraege, kundInnen[0], gelesen.vollstaendig(), anzahlAbweichungen[0], abweichungen);
+    }
+
+    private static void abweichung(List<String> abweichungen, long[] anzahl, String abweichung) {
+        anzahl[0]++;
+        if (abweichungen.size() < MAX_ABWEICHUNGEN) {
+            abweichungen.add(abweichung);
+        }
+    }
+}
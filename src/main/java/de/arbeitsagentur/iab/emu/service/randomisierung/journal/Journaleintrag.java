@@ -0,0 +1,35 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+
+import java.time.Instant;
+
+/**
+ * Eine Zuordnung im {@link Zuteilungsjournal}.
+ * @param tenant Die Tenant-ID.
+ * @param kundInId ID der Kundin / des Kunden.
+ * @param wert Zufallswert bzw. Platz, siehe {@link de.arbeitsagentur.iab.emu.service.randomisierung.Zuteilung#wert()}.
+ * @param gruppeId ID der zugeordneten Gruppe.
+ * @param zeitpunkt Zeitpunkt des Commits.
+ * @param verfahren Das verwendete Verfahren.
+ */
+public record Journaleintrag(String tenant, int kundInId, long wert, int gruppeId, Instant zeitpunkt,
+                             Randomisierungsverfahren verfahren) {
+}
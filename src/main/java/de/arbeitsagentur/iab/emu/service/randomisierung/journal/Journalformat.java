@@ -0,0 +1,120 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * Binärformat des {@link Zuteilungsjournal}s (Big Endian):
+ * <pre>
+ * Kopf:    "EMUJ" | short Version
+ * Eintrag: int Länge der Nutzdaten | Nutzdaten | int CRC32 der Nutzdaten
+ * Nutzdaten: long Zeitpunkt (Epoch-Millisekunden) | int KundIn-ID | long Wert | int Gruppen-ID
+ *            | byte Verfahren (Ordinalzahl) | short Länge der Tenant-ID | Tenant-ID (UTF-8)
+ * </pre>
+ * Neue {@link Randomisierungsverfahren} dürfen deshalb nur am Ende der Aufzählung ergänzt werden.
+ */
+final class Journalformat {
+
+    static final byte[] KENNUNG = {'E', 'M', 'U', 'J'};
+
+    static final short VERSION = 1;
+
+    static final int KOPF_LAENGE = KENNUNG.length + Short.BYTES;
+
+    /**
+     * Nutzdaten ohne Tenant-ID.
+     */
+    static final int MIN_NUTZDATEN = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + Short.BYTES;
+
+    static final int MAX_TENANT_LAENGE = 0xFFFF;
+
+    static final int MAX_NUTZDATEN = MIN_NUTZDATEN + MAX_TENANT_LAENGE;
+
+    private Journalformat() {}
+
+    static void kopfSchreiben(ByteBuffer puffer) {
+        puffer.put(KENNUNG).putShort(VERSION);
+    }
+
+    /**
+     * @return true, falls der Puffer mit einem gültigen Kopf beginnt.
+     */
+    static boolean kopfPruefen(ByteBuffer puffer) {
+        if (puffer.remaining() < KOPF_LAENGE) {
+            return false;
+        }
+        for (byte b : KENNUNG) {
+            if (puffer.get() != b) {
+                return false;
+            }
+        }
+        return puffer.getShort() == VERSION;
+    }
+
+    static byte[] tenantKodieren(String tenant) {
+        final byte[] tenantBytes = tenant.getBytes(StandardCharsets.UTF_8);
+        if (tenantBytes.length > MAX_TENANT_LAENGE) {
+            throw new IllegalArgumentException("Tenant-ID zu lang für das Journal.");
+        }
+        return tenantBytes;
+    }
+
+    /**
+     * @return Anzahl der Bytes, die der Eintrag im Journal belegt.
+     */
+    static int groesse(byte[] tenantBytes) {
+        return Integer.BYTES + MIN_NUTZDATEN + tenantBytes.length + Integer.BYTES;
+    }
+
+    static void schreiben(ByteBuffer puffer, Journaleintrag eintrag, byte[] tenantBytes, CRC32 crc) {
+        final int laenge = MIN_NUTZDATEN + tenantBytes.length;
+        puffer.putInt(laenge);
+        final int beginn = puffer.position();
+        puffer.putLong(eintrag.zeitpunkt().toEpochMilli())
+                .putInt(eintrag.kundInId())
+                .putLong(eintrag.wert())
+                .putInt(eintrag.gruppeId())
+                .put((byte) eintrag.verfahren().ordinal())
+                .putShort((short) tenantBytes.length)
+                .put(tenantBytes);
+        crc.reset();
+        crc.update(puffer.duplicate().position(beginn).limit(beginn + laenge));
+        puffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Liest die Nutzdaten eines Eintrags, deren Prüfsumme bereits geprüft wurde.
+     */
+    static Journaleintrag lesen(ByteBuffer nutzdaten) {
+        final Instant zeitpunkt = Instant.ofEpochMilli(nutzdaten.getLong());
+        final int kundInId = nutzdaten.getInt();
+        final long wert = nutzdaten.getLong();
+        final int gruppeId = nutzdaten.getInt();
+        final int verfahren = nutzdaten.get();
+        final byte[] tenantBytes = new byte[Short.toUnsignedInt(nutzdaten.getShort())];
+        nutzdaten.get(tenantBytes);
+        return new Journaleintrag(new String(tenantBytes, StandardCharsets.UTF_8), kundInId, wert, gruppeId, zeitpunkt,
+                Randomisierungsverfahren.values()[verfahren]);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.config.NachCommit;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.randomisierung.Zuteilung;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Schreibt jede Zuordnung zu einer Gruppe nach dem Commit in ein binäres Journal, das nur fortgeschrieben wird
+ * (Format siehe {@link Journalformat}, Auswertung mit {@link JournalLeser}).
+ * <p>
+ * Der aufrufende Thread reiht den Eintrag nur ein. Ein eigener Thread schreibt alle bis dahin eingereihten Einträge
+ * mit einem Schreibzugriff und einem {@link FileChannel#force(boolean)} (Group Commit). Bei einem Absturz können
+ * dadurch die Einträge des zuletzt laufenden Schreibvorgangs fehlen, ein unvollständiger Eintrag am Ende der Datei
+ * wird beim nächsten Start abgeschnitten.
+ * <p>
+ * Schlägt ein Schreibvorgang fehl, wird die Datei auf das Ende des letzten vollständig geschriebenen Blocks gekürzt
+ * und die Einträge des Blocks gelten als verloren. Gelingt das Kürzen nicht, wird das Journal nicht mehr
+ * fortgeschrieben und {@link #synchronisieren()} meldet den Fehler. Verlorene Einträge werden als Fehler
+ * protokolliert und von der {@link JournalPruefung} als fehlend gemeldet. Nimmt der Schreib-Thread innerhalb von
+ * {@link #WARTEZEIT_MS} keinen Eintrag an, gilt dieser ebenfalls als verloren, der aufrufende Thread wartet also
+ * nie unbegrenzt.
+ * <p>
+ * Ohne {@code emu.journal.datei} ist das Journal deaktiviert.
+ */
+@Component
+public class Zuteilungsjournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Zuteilungsjournal.class);
+
+    /**
+     * Maximale Anzahl wartender Einträge. Ist die Warteschlange voll, warten die aufrufenden Threads höchstens
+     * {@link #WARTEZEIT_MS}.
+     */
+    static final int KAPAZITAET = 65_536;
+
+    static final long WARTEZEIT_MS = 5_000;
+
+    /**
+     * Maximale Anzahl Einträge pro Schreibvorgang.
+     */
+    static final int MAX_SCHREIBBLOCK = 4096;
+
+    private final TenantResolver tenantResolver;
+
+    private final String datei;
+
+    private final BlockingQueue<Journaleintrag> warteschlange = new ArrayBlockingQueue<>(KAPAZITAET);
+
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel kanal;
+
+    private Thread schreiber;
+
+    private volatile boolean beendet;
+
+    /**
+     * False, sobald der Schreib-Thread keine Einträge mehr aus der Warteschlange nimmt.
+     */
+    private volatile boolean schreibt;
+
+    /**
+     * Fehler, nach dem das Journal nicht mehr fortgeschrieben wird.
+     */
+    private volatile IOException ausfall;
+
+    /**
+     * Ende des letzten vollständig geschriebenen Blocks. Nur im Schreib-Thread verwendet.
+     */
+    private long gueltigBis;
+
+    private ByteBuffer puffer = ByteBuffer.allocateDirect(1 << 16);
+
+    /**
+     * Anzahl eingereihter, geschriebener bzw. verlorener Einträge, siehe {@link #synchronisieren()}.
+     */
+    private long eingereiht;
+
+    private long geschrieben;
+
+    private long verloren;
+
+    public Zuteilungsjournal(@NonNull TenantResolver tenantResolver, @Value("${emu.journal.datei:}") String datei) {
+        this.tenantResolver = tenantResolver;
+        this.datei = datei;
+    }
+
+    @PostConstruct
+    void oeffnen() throws IOException {
+        if (datei == null || datei.isBlank()) {
+            LOGGER.info("Kein Zuteilungsjournal konfiguriert (emu.journal.datei).");
+            return;
+        }
+        final Path pfad = Path.of(datei);
+        if (pfad.getParent() != null) {
+            Files.createDirectories(pfad.getParent());
+        }
+        kanal = FileChannel.open(pfad, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (kanal.size() == 0) {
+            final ByteBuffer kopf = ByteBuffer.allocate(Journalformat.KOPF_LAENGE);
+            Journalformat.kopfSchreiben(kopf);
+            kanal.write(kopf.flip());
+            kanal.force(true);
+        } else {
+            final JournalLeser.Ergebnis ergebnis = JournalLeser.lesen(pfad, eintrag -> {});
+            if (!ergebnis.vollstaendig()) {
+                LOGGER.warn("Zuteilungsjournal {} ab Byte {} unvollständig, wird auf {} Einträge gekürzt.",
+                        pfad, ergebnis.gueltigBis(), ergebnis.anzahl());
+                kanal.truncate(ergebnis.gueltigBis());
+                kanal.force(true);
+            }
+        }
+        gueltigBis = kanal.size();
+        kanal.position(gueltigBis);
+        schreibt = true;
+        schreiber = new Thread(this::schreiben, "zuteilungsjournal");
+        schreiber.setDaemon(true);
+        schreiber.start();
+        LOGGER.info("Zuteilungsjournal: {}", pfad.toAbsolutePath());
+    }
+
+    /**
+     * Vermerkt die Zuordnung nach dem Commit der aktuellen Transaktion im Journal. Die ID der Kundin / des Kunden wird
+     * erst dann gelesen, sie muss bis dahin vergeben sein.
+     * @param kundIn Die Kundin / der Kunde.
+     * @param zuteilung Die Zuordnung.
+     */
+    public void vermerken(@NonNull KundIn kundIn, @NonNull Zuteilung zuteilung) {
+        if (kanal == null) {
+            return;
+        }
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        NachCommit.ausfuehren(() -> einreihen(new Journaleintrag(tenant, kundIn.getId(), zuteilung.wert(),
+                zuteilung.gruppe().getId(), Instant.now(), zuteilung.verfahren())));
+    }
+
+    void einreihen(Journaleintrag eintrag) {
+        synchronized (this) {
+            eingereiht++;
+        }
+        if (!schreibt) {
+            verlieren(List.of(eintrag), "der Schreib-Thread läuft nicht", ausfall);
+            return;
+        }
+        try {
+            if (!warteschlange.offer(eintrag, WARTEZEIT_MS, TimeUnit.MILLISECONDS)) {
+                verlieren(List.of(eintrag), "die Warteschlange ist voll", null);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            verlieren(List.of(eintrag), "unterbrochen", null);
+            return;
+        }
+        // Der Schreib-Thread hat sich inzwischen beendet, den Eintrag nimmt er nicht mehr.
+        if (!schreibt && warteschlange.remove(eintrag)) {
+            verlieren(List.of(eintrag), "der Schreib-Thread läuft nicht", ausfall);
+        }
+    }
+
+    private void schreiben() {
+        final List<Journaleintrag> block = new ArrayList<>(MAX_SCHREIBBLOCK);
+        try {
+            while ((!beendet || !warteschlange.isEmpty()) && ausfall == null) {
+                final Journaleintrag erster = warteschlange.poll(100, TimeUnit.MILLISECONDS);
+                if (erster == null) {
+                    continue;
+                }
+                block.add(erster);
+                warteschlange.drainTo(block, MAX_SCHREIBBLOCK - 1);
+                try {
+                    schreiben(block);
+                    gueltigBis = kanal.position();
+                    synchronized (this) {
+                        geschrieben += block.size();
+                        notifyAll();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    verlieren(block, "Schreibfehler", e);
+                    zuruecksetzen();
+                }
+                block.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            schreibt = false;
+            warteschlange.drainTo(block);
+            if (!block.isEmpty()) {
+                verlieren(block, "der Schreib-Thread wurde beendet", ausfall);
+            }
+        }
+    }
+
+    /**
+     * Kürzt die Datei nach einem Schreibfehler auf das Ende des letzten vollständigen Blocks, damit weitere Einträge
+     * nicht hinter einem unvollständigen stehen. Gelingt das nicht, wird das Journal nicht mehr fortgeschrieben.
+     */
+    private void zuruecksetzen() {
+        try {
+            kanal.truncate(gueltigBis);
+            kanal.position(gueltigBis);
+            kanal.force(false);
+        } catch (IOException | RuntimeException e) {
+            ausfall = e instanceof IOException io ? io : new IOException(e);
+            LOGGER.error("Zuteilungsjournal {} konnte nicht auf Byte {} gekürzt werden und wird nicht mehr fortgeschrieben.",
+                    datei, gueltigBis, e);
+        }
+    }
+
+    private void verlieren(List<Journaleintrag> eintraege, String grund, Exception ursache) {
+        LOGGER.error("{} Einträge konnten nicht in das Zuteilungsjournal geschrieben werden ({}): {}",
+                eintraege.size(), grund, eintraege, ursache);
+        synchronized (this) {
+            verloren += eintraege.size();
+            notifyAll();
+        }
+    }
+
+    private void schreiben(List<Journaleintrag> block) throws IOException {
+        puffer.clear();
+        for (Journaleintrag eintrag : block) {
+            final byte[] tenantBytes = Journalformat.tenantKodieren(eintrag.tenant());
+            if (puffer.remaining() < Journalformat.groesse(tenantBytes)) {
+                final ByteBuffer groesser = ByteBuffer.allocateDirect(Math.max(puffer.capacity() * 2,
+                        puffer.position() + Journalformat.groesse(tenantBytes)));
+                groesser.put(puffer.flip());
+                puffer = groesser;
+            }
+            Journalformat.schreiben(puffer, eintrag, tenantBytes, crc);
+        }
+        puffer.flip();
+        while (puffer.hasRemaining()) {
+            kanal.write(puffer);
+        }
+        kanal.force(false);
+    }
+
+    /**
+     * Wartet, bis alle bisher eingereihten Einträge geschrieben oder verloren sind.
+     * @throws IOException Falls das Journal nach einem Fehler nicht mehr fortgeschrieben wird.
+     */
+    public synchronized void synchronisieren() throws InterruptedException, IOException {
+        final long ziel = eingereiht;
+        while (kanal != null && geschrieben + verloren < ziel) {
+            wait();
+        }
+        if (ausfall != null) {
+            throw new IOException("Das Zuteilungsjournal wird nach einem Fehler nicht mehr fortgeschrieben.", ausfall);
+        }
+    }
+
+    /**
+     * @return Anzahl der Einträge, die seit dem Start nicht geschrieben werden konnten.
+     */
+    public synchronized long getVerloren() {
+        return verloren;
+    }
+
+    @PreDestroy
+    void schliessen() throws IOException, InterruptedException {
+        if (kanal == null) {
+            return;
+        }
+        beendet = true;
+        schreiber.join();
+        kanal.close();
+        kanal = null;
+    }
+
+    /**
+     * @return Die Datei des Journals, falls konfiguriert.
+     */
+    public Path getDatei() {
+        return datei == null || datei.isBlank() ? null : Path.of(datei);
+    }
+}
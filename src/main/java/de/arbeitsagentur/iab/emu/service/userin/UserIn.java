@@ -28,8 +28,14 @@ import org.hibernate.annotations.TenantId;
 @UniqueConstraint(columnNames={"tenantId", "login"}))
 public class UserIn {
 
+    /**
+     * Anzahl der IDs, die Hibernate pro Sequenzabfrage reserviert. Entspricht der JDBC-Batchgröße.
+     */
+    public static final int ID_BLOCKGROESSE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "userin_seq")
+    @SequenceGenerator(name = "userin_seq", sequenceName = "userin_seq", allocationSize = ID_BLOCKGROESSE)
     private Integer id;
 
     @TenantId
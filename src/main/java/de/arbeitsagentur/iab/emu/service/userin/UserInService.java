@@ -18,6 +18,11 @@
 
 package de.arbeitsagentur.iab.emu.service.userin;
 
+import de.arbeitsagentur.iab.emu.config.CacheKonfiguration;
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +33,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 @Service
 @Transactional
@@ -36,19 +42,43 @@ public class UserInService {
     final
     UserInRepository userInRepository;
 
+    private final Primaerdatenbank primaerdatenbank;
 
-    public UserInService(@NonNull UserInRepository userInRepository) {
+
+    public UserInService(@NonNull UserInRepository userInRepository, @NonNull Primaerdatenbank primaerdatenbank) {
         this.userInRepository = userInRepository;
+        this.primaerdatenbank = primaerdatenbank;
     }
 
+    @Transactional(readOnly = true)
     public UserIn get(@PathVariable int id) throws UserInNichtGefundenException {
         return userInRepository.findById(id).orElseThrow(() -> new UserInNichtGefundenException("UserIn mit " + id + " wurde nicht gefunden!"));
     }
 
+    /**
+     * Liefert alle UserInnen der aktuellen MandantIn. Das Ergebnis wird pro Tenant-ID gecacht
+     * und bei jeder Änderung an den UserInnen invalidiert. Gelesen wird deshalb von der {@link Primaerdatenbank}.
+     * Gecacht wird eine unveränderliche Liste von Kopien, die nicht mit dem Persistenzkontext verbunden sind.
+     * @return Alle UserInnen (nicht veränderbar).
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheKonfiguration.USERINNEN, sync = true)
     public Iterable<UserIn> getAll() {
-        return userInRepository.findAll();
+        return primaerdatenbank.lesen(() -> StreamSupport.stream(userInRepository.findAll().spliterator(), false)
+                .map(UserInService::kopieren)
+                .toList());
+    }
+
+    private static UserIn kopieren(UserIn userIn) {
+        final UserIn kopie = new UserIn();
+        kopie.setId(userIn.getId());
+        kopie.setLogin(userIn.getLogin());
+        kopie.setRolle(userIn.getRolle());
+        return kopie;
     }
 
+    @CacheEvict(cacheNames = CacheKonfiguration.USERINNEN, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.userinnen", extraTags = {"operation", "anlegen"})
     public Iterable<UserIn> create(@NonNull @RequestBody List<UserIn> userInnen) throws LoginMehrfachVergebenException, UngueltigeUserInnendatenException {
         for (final UserIn u : userInnen) {
             if (!u.isValid()) {
@@ -62,6 +92,8 @@ public class UserInService {
         return userInRepository.saveAll(userInnen);
     }
 
+    @CacheEvict(cacheNames = CacheKonfiguration.USERINNEN, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.userinnen", extraTags = {"operation", "anlegen"})
     public UserIn create(@NonNull @RequestBody UserIn userIn) throws UngueltigeUserInnendatenException, LoginMehrfachVergebenException {
         if (!userIn.isValid()) {
             throw new UngueltigeUserInnendatenException("Es wurden ungültige UserInnendaten übergeben!");
@@ -77,6 +109,8 @@ public class UserInService {
     }
 
 
+    @CacheEvict(cacheNames = CacheKonfiguration.USERINNEN, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.userinnen", extraTags = {"operation", "aendern"})
     public UserIn update(@NonNull @RequestBody UserIn userIn) throws UngueltigeUserInnendatenException, LoginMehrfachVergebenException, UserInNichtGefundenException {
         if (userIn.getId() == null || !userInRepository.existsById(userIn.getId())) {
             throw new UserInNichtGefundenException("UserIn mit ID "+userIn.getId()+" wurde nicht gefunden.");
@@ -92,6 +126,8 @@ public class UserInService {
         return userInRepository.save(userIn);
     }
 
+    @CacheEvict(cacheNames = CacheKonfiguration.USERINNEN, key = CacheKonfiguration.MANDANT)
+    @Timed(value = "emu.userinnen", extraTags = {"operation", "loeschen"})
     public void delete(@PathVariable("id") int id) {
         userInRepository.deleteById(id);
     }
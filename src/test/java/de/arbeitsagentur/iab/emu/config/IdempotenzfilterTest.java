@@ -0,0 +1,87 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotenzfilterTest {
+
+    private final Idempotenzfilter filter = new Idempotenzfilter(Duration.ofMinutes(1), 1_000_000);
+
+    private final AtomicInteger ausgefuehrt = new AtomicInteger();
+
+    /**
+     * Legt an und gibt den Body der Anfrage zurück.
+     */
+    private final HttpServlet anlegen = new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            final int id = ausgefuehrt.incrementAndGet();
+            response.setStatus(HttpStatus.CREATED.value());
+            response.setHeader("Location", "/api/v1/a/kundinnen/" + id);
+            response.setContentType("application/json");
+            response.getOutputStream().write(request.getInputStream().readAllBytes());
+        }
+    };
+
+    private MockHttpServletResponse senden(String inhalt) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/a/kundinnen");
+        request.addHeader(Idempotenzfilter.HEADER, "1");
+        request.setContent(inhalt.getBytes(StandardCharsets.UTF_8));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(anlegen));
+        return response;
+    }
+
+    @Test
+    void wiederholungMitHeadern() throws Exception {
+        final MockHttpServletResponse erste = senden("{\"nachname\":\"A\"}");
+        final MockHttpServletResponse wiederholt = senden("{\"nachname\":\"A\"}");
+
+        assertEquals(1, ausgefuehrt.get());
+        assertEquals(HttpStatus.CREATED.value(), wiederholt.getStatus());
+        assertEquals("/api/v1/a/kundinnen/1", wiederholt.getHeader("Location"));
+        assertEquals("true", wiederholt.getHeader(Idempotenzfilter.HEADER_WIEDERHOLT));
+        assertEquals(erste.getContentAsString(), wiederholt.getContentAsString());
+        assertEquals("{\"nachname\":\"A\"}", wiederholt.getContentAsString());
+    }
+
+    @Test
+    void andereAnfrageMitDemselbenSchluessel() throws Exception {
+        senden("{\"nachname\":\"A\"}");
+        final MockHttpServletResponse andere = senden("{\"nachname\":\"B\"}");
+
+        assertEquals(1, ausgefuehrt.get());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), andere.getStatus());
+        assertNull(andere.getHeader(Idempotenzfilter.HEADER_WIEDERHOLT));
+    }
+}
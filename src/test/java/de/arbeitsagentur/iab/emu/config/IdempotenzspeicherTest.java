@@ -0,0 +1,86 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotenzspeicherTest {
+
+    private static final byte[] FINGERABDRUCK = {1, 2, 3};
+
+    private static Idempotenzspeicher.Antwort antwort(String inhalt) {
+        return new Idempotenzspeicher.Antwort(201, "application/json", Map.of(), inhalt.getBytes(StandardCharsets.UTF_8), FINGERABDRUCK);
+    }
+
+    @Test
+    void reservierenUndSpeichern() {
+        final Idempotenzspeicher speicher = new Idempotenzspeicher(Duration.ofMinutes(1), 1_000_000);
+
+        assertNull(speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK));
+        assertTrue(speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK).isInArbeit());
+        assertNull(speicher.reservieren("b", "/pfad", "1", FINGERABDRUCK));
+        assertNull(speicher.reservieren("a", "/anderer", "1", FINGERABDRUCK));
+
+        final Idempotenzspeicher.Antwort antwort = antwort("{}");
+        speicher.speichern("a", "/pfad", "1", antwort);
+        assertSame(antwort, speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK));
+    }
+
+    @Test
+    void freigeben() {
+        final Idempotenzspeicher speicher = new Idempotenzspeicher(Duration.ofMinutes(1), 1_000_000);
+        assertNull(speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK));
+        speicher.freigeben("a", "/pfad", "1");
+        assertNull(speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK));
+    }
+
+    @Test
+    void ablauf() throws Exception {
+        final Idempotenzspeicher speicher = new Idempotenzspeicher(Duration.ofMillis(50), 1_000_000);
+        speicher.speichern("a", "/pfad", "1", antwort("{}"));
+        Thread.sleep(100);
+        assertNull(speicher.reservieren("a", "/pfad", "1", FINGERABDRUCK));
+    }
+
+    @Test
+    void groesseBegrenzt() {
+        final Idempotenzspeicher speicher = new Idempotenzspeicher(Duration.ofMinutes(1), 10_000);
+        for (int i = 0; i < 1000; i++) {
+            speicher.speichern("a", "/pfad", Integer.toString(i), antwort("x".repeat(100)));
+        }
+        speicher.bereinigen();
+        assertTrue(speicher.getAnzahl() < 100, "Einträge: " + speicher.getAnzahl());
+    }
+
+    @Test
+    void laufendeAnfragenNichtVerdraengt() {
+        final Idempotenzspeicher speicher = new Idempotenzspeicher(Duration.ofMinutes(1), 10_000);
+        assertNull(speicher.reservieren("a", "/pfad", "laufend", FINGERABDRUCK));
+        for (int i = 0; i < 1000; i++) {
+            speicher.speichern("a", "/pfad", Integer.toString(i), antwort("x".repeat(100)));
+        }
+        speicher.bereinigen();
+        assertTrue(speicher.reservieren("a", "/pfad", "laufend", FINGERABDRUCK).isInArbeit());
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnenProGruppe;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnenZaehler;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInSuchindex;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import de.arbeitsagentur.iab.emu.service.userin.UserIn;
+import de.arbeitsagentur.iab.emu.service.userin.UserInService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Das Replikat ist eine eigene, leere Datenbank mit derselben Struktur. Was von dort gelesen wird, ist also nicht
+ * vorhanden.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {"emu.replika.url=jdbc:h2:mem:emutest_replikat;DB_CLOSE_DELAY=-1",
+        "emu.replika.max-verzoegerung=PT1H"})
+class LesereplikatTest {
+
+    private static final List<String> ANWEISUNGEN = List.of(
+            "CREATE SEQUENCE ", "CREATE MEMORY TABLE ", "CREATE CACHED TABLE ", "CREATE GLOBAL TEMPORARY TABLE ",
+            "ALTER TABLE ", "CREATE INDEX ", "CREATE UNIQUE INDEX ");
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    Schreibzeitpunkte schreibzeitpunkte;
+
+    @Autowired
+    Lesereplikat lesereplikat;
+
+    @Autowired
+    KundInSuchindex kundInSuchindex;
+
+    @Autowired
+    GruppenintervallCache gruppenintervallCache;
+
+    @Autowired
+    KundInnenZaehler kundInnenZaehler;
+
+    @Autowired
+    UserInService userInService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void replikatAnlegen() {
+        final JdbcTemplate replikat = new JdbcTemplate(lesereplikat.getReplikat());
+        replikat.execute("DROP ALL OBJECTS");
+        for (String anweisung : jdbcTemplate.queryForList("SCRIPT NODATA NOSETTINGS SCHEMA PUBLIC", String.class)) {
+            if (ANWEISUNGEN.stream().anyMatch(anweisung::startsWith)) {
+                replikat.execute(anweisung);
+            }
+        }
+    }
+
+    @AfterEach
+    void tenantEntfernen() {
+        tenantResolver.clearCurrentTenant();
+    }
+
+    private KundIn anlegen() throws Exception {
+        tenantResolver.setCurrentTenant("replikat-" + System.nanoTime());
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A100000");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        return kundInService.create(kd);
+    }
+
+    @Test
+    void dataSourceUmgeleitet() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+    }
+
+    @Test
+    void eigeneAenderungenSofortLesbar() throws Exception {
+        final KundIn kundIn = anlegen();
+
+        assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+        assertEquals(1, kundInService.zaehleBySuchbegriff(null));
+        assertTrue(schreibzeitpunkte.kuerzlichGeschrieben());
+    }
+
+    @Test
+    void ohneKuerzlichenSchreibzugriffVomReplikat() throws Exception {
+        final KundIn kundIn = anlegen();
+        schreibzeitpunkte.vergessen();
+
+        assertThrows(KundInNichtGefundenException.class, () -> kundInService.getById(kundIn.getId()));
+        assertEquals(0, kundInService.zaehleBySuchbegriff(null));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kundin WHERE id = ?", Integer.class, kundIn.getId()));
+    }
+
+    @Test
+    void schreibzeitpunktAnDenClient() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        schreibzeitpunkte.preHandle(new MockHttpServletRequest(), response, null);
+        try {
+            anlegen();
+        } finally {
+            schreibzeitpunkte.afterCompletion(null, response, null, null);
+        }
+
+        final long zeitpunkt = Long.parseLong(response.getHeader(Schreibzeitpunkte.NAME));
+        assertTrue(Math.abs(System.currentTimeMillis() - zeitpunkt) < Duration.ofMinutes(1).toMillis());
+        assertEquals(String.valueOf(zeitpunkt), response.getCookie(Schreibzeitpunkte.NAME).getValue());
+        assertFalse(schreibzeitpunkte.kuerzlichGeschrieben());
+    }
+
+    @Test
+    void schreibzeitpunktVomClient() throws Exception {
+        final KundIn kundIn = anlegen();
+        schreibzeitpunkte.vergessen();
+
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(Schreibzeitpunkte.NAME, String.valueOf(System.currentTimeMillis()));
+        schreibzeitpunkte.preHandle(request, new MockHttpServletResponse(), null);
+        try {
+            assertEquals(kundIn.getId(), kundInService.getById(kundIn.getId()).getId());
+        } finally {
+            schreibzeitpunkte.afterCompletion(request, null, null, null);
+        }
+
+        final MockHttpServletRequest abgelaufen = new MockHttpServletRequest();
+        abgelaufen.addHeader(Schreibzeitpunkte.NAME, String.valueOf(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+        schreibzeitpunkte.preHandle(abgelaufen, new MockHttpServletResponse(), null);
+        try {
+            assertThrows(KundInNichtGefundenException.class, () -> kundInService.getById(kundIn.getId()));
+        } finally {
+            schreibzeitpunkte.afterCompletion(abgelaufen, null, null, null);
+        }
+    }
+
+    @Test
+    void gehalteneDatenVonDerPrimaerenDatenbank() throws Exception {
+        anlegen();
+        schreibzeitpunkte.vergessen();
+        cacheManager.getCache(CacheKonfiguration.PROJEKT).clear();
+
+        assertNotNull(projektService.getProjektstand());
+        assertEquals(Optional.of(1), kundInSuchindex.zaehlen("Nachname"));
+        assertEquals(0, kundInService.zaehleBySuchbegriff(null));
+    }
+
+    @Test
+    void gruppenZaehlerUndUserInnenVonDerPrimaerenDatenbank() throws Exception {
+        anlegen();
+        final UserIn userIn = new UserIn();
+        userIn.setLogin("replikat");
+        userIn.setRolle("testrolle");
+        userInService.create(userIn);
+        schreibzeitpunkte.vergessen();
+        gruppenintervallCache.invalidieren();
+        kundInnenZaehler.abgleichen();
+        cacheManager.getCache(CacheKonfiguration.USERINNEN).clear();
+
+        assertFalse(gruppenintervallCache.getGruppenintervalle().getGruppen().isEmpty());
+        long anzahl = 0;
+        for (KundInnenProGruppe kundInnenProGruppe : kundInService.getKundInnenProGruppe()) {
+            anzahl += kundInnenProGruppe.getAnzahl();
+        }
+        assertEquals(1, anzahl);
+        assertTrue(userInService.getAll().iterator().hasNext());
+        assertEquals(0, kundInService.zaehleBySuchbegriff(null));
+    }
+}
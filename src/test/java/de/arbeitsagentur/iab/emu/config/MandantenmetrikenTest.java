@@ -0,0 +1,97 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MandantenmetrikenTest {
+
+    private final TenantResolver tenantResolver = new TenantResolver();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ProjektService projektService = Mockito.mock(ProjektService.class);
+
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<ProjektService> projektServiceProvider = Mockito.mock(ObjectProvider.class);
+
+    private final Mandantenmetriken mandantenmetriken = new Mandantenmetriken(tenantResolver, registry, projektServiceProvider, 2);
+
+    @BeforeEach
+    void setUp() throws ProjektNichtGefundenException {
+        Mockito.when(projektServiceProvider.getObject()).thenReturn(projektService);
+        final Set<String> mitProjekt = Set.of("a", "b", "c", "d");
+        Mockito.when(projektService.getProjektstand()).thenAnswer(aufruf -> {
+            if (!mitProjekt.contains(tenantResolver.resolveCurrentTenantIdentifier())) {
+                throw new ProjektNichtGefundenException("Kein Projekt");
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void tagsBegrenzt() {
+        assertEquals("a", tag("a"));
+        assertEquals("b", tag("b"));
+        assertEquals(Mandantenmetriken.ANDERE, tag("c"));
+        assertEquals("a", tag("a"));
+    }
+
+    @Test
+    void nurMandantInnenMitProjektErhaltenEinTag() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Mandantenmetriken.ANDERE, tag("unbekannt-" + i));
+        }
+        assertEquals("a", tag("a"));
+        assertEquals("b", tag("b"));
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    @Test
+    void anfragenProMandantIn() {
+        for (String tenant : new String[]{"a", "a", "b", "c", "d"}) {
+            tenantResolver.setCurrentTenant(tenant);
+            mandantenmetriken.preHandle(null, null, null);
+        }
+        tenantResolver.clearCurrentTenant();
+
+        assertEquals(2, registry.get("emu.anfragen").tag(Mandantenmetriken.TAG, "a").counter().count());
+        assertEquals(1, registry.get("emu.anfragen").tag(Mandantenmetriken.TAG, "b").counter().count());
+        assertEquals(2, registry.get("emu.anfragen").tag(Mandantenmetriken.TAG, Mandantenmetriken.ANDERE).counter().count());
+    }
+
+    private String tag(String tenant) {
+        tenantResolver.setCurrentTenant(tenant);
+        try {
+            return mandantenmetriken.tag();
+        } finally {
+            tenantResolver.clearCurrentTenant();
+        }
+    }
+}
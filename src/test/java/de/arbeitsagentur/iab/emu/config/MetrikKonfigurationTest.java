@@ -0,0 +1,91 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = {"management.endpoints.web.exposure.include=prometheus",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class MetrikKonfigurationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    KundInService kundInService;
+
+    String tenant;
+
+    @BeforeEach
+    void beforeEach() {
+        tenant = "metriken" + System.currentTimeMillis();
+        tenantResolver.setCurrentTenant(tenant);
+    }
+
+    @Test
+    void prometheus() throws Exception {
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        kundInService.create(kd);
+        mockMvc.perform(get("/api/v1/" + tenant + "/projekt/")).andExpect(status().isOk());
+        tenantResolver.clearCurrentTenant();
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("emu_anfragen_total{tenant=\"" + tenant + "\"}")))
+                .andExpect(content().string(containsString("emu_kundinnen_seconds_count{")))
+                .andExpect(content().string(containsString("operation=\"anlegen\"")))
+                .andExpect(content().string(containsString("emu_muenzwurf_seconds_bucket{")))
+                .andExpect(content().string(containsString("emu_muenzwurf_gruppen_total{")))
+                .andExpect(content().string(containsString("tenant=\"" + tenant + "\",verfahren=")))
+                .andExpect(content().string(containsString("hikaricp_connections")))
+                .andExpect(content().string(containsString("hibernate_sessions_open_total")));
+    }
+}
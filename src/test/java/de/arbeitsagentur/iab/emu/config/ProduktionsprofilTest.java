@@ -0,0 +1,91 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.appender.ConsoleAppender;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.logging.log4j2.Log4J2LoggingSystem;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.Conventions;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("produktion")
+class ProduktionsprofilTest {
+
+    @Value("${spring.jpa.show-sql}")
+    boolean showSql;
+
+    @Value("${spring.jpa.properties.hibernate.log_slow_query}")
+    long langsamAb;
+
+    @Value("${emu.sql.stichprobe}")
+    double stichprobe;
+
+    /**
+     * Lädt log4j2-spring.xml in einen eigenen LoggerContext, weil Spring Boot das Logging pro JVM nur einmal
+     * initialisiert und die übrigen Tests ohne Profil laufen.
+     */
+    private static Map<String, Appender> appenderDerRootLoggerin(String... profile) throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(profile);
+        LoggerContext context = new LoggerContext("produktionsprofil");
+        context.putObject(Conventions.getQualifiedAttributeName(Log4J2LoggingSystem.class, "environment"), environment);
+        try {
+            context.setConfigLocation(ProduktionsprofilTest.class.getResource("/log4j2-spring.xml").toURI());
+            return context.getRootLogger().getAppenders();
+        } finally {
+            context.stop();
+        }
+    }
+
+    @Test
+    void asynchroneAusgabe() throws Exception {
+        Map<String, Appender> appender = appenderDerRootLoggerin("produktion");
+
+        assertEquals(1, appender.size());
+        assertInstanceOf(AsyncAppender.class, appender.get("AsyncConsole"));
+    }
+
+    @Test
+    void synchroneAusgabeOhneProfil() throws Exception {
+        Map<String, Appender> appender = appenderDerRootLoggerin();
+
+        assertEquals(1, appender.size());
+        assertInstanceOf(ConsoleAppender.class, appender.get("Console"));
+    }
+
+    @Test
+    void nurLangsameStatementsUndStichprobe() {
+        assertFalse(showSql);
+        assertFalse(LogManager.getLogger("org.hibernate.SQL").isDebugEnabled());
+        assertTrue(LogManager.getLogger("org.hibernate.SQL_SLOW").isInfoEnabled());
+        assertEquals(200, langsamAb);
+        assertTrue(stichprobe > 0);
+    }
+}
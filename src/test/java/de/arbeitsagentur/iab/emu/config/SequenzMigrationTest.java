@@ -0,0 +1,67 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenzMigrationTest extends AbstractServiceTest {
+
+    @Autowired
+    SequenzMigration sequenzMigration;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Simuliert eine bestehende Datenbank, in der IDs noch per IDENTITY-Spalte vergeben wurden.
+     */
+    @Test
+    void sequenzWirdUeberVorhandeneIdsGesetzt() {
+        final long vorhandeneId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM kundin", Long.class) + 10_000;
+        jdbcTemplate.update("INSERT INTO kundin (id, tenant_id) VALUES (?, ?)", vorhandeneId, "sequenzmigration");
+        try {
+            sequenzMigration.migrieren();
+
+            // Der nächste Block, den Hibernate reserviert, beginnt bei naechsterWert - blockgroesse + 1.
+            final long naechsterWert = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = 'kundin_seq' AND SEQUENCE_SCHEMA = CURRENT_SCHEMA", Long.class);
+            assertTrue(naechsterWert - KundIn.ID_BLOCKGROESSE + 1 > vorhandeneId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM kundin WHERE id = ?", vorhandeneId);
+        }
+    }
+
+    /**
+     * Die Namen in {@link SequenzMigration#SEQUENZEN} müssen zu den Sequenzen passen, die Hibernate anlegt.
+     */
+    @Test
+    void alleSequenzenSindVorhanden() {
+        for (SequenzMigration.IdSequenz idSequenz : SequenzMigration.SEQUENZEN) {
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ? AND SEQUENCE_SCHEMA = CURRENT_SCHEMA", Integer.class, idSequenz.sequenz()),
+                    idSequenz.sequenz());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStichprobeTest {
+
+    private static long gezogen(SqlStichprobe stichprobe, int anzahl) {
+        return IntStream.range(0, anzahl).filter(i -> stichprobe.gezogen()).count();
+    }
+
+    @Test
+    void deaktiviert() {
+        assertEquals(0, gezogen(new SqlStichprobe(0), 10_000));
+    }
+
+    @Test
+    void alleStatements() {
+        assertEquals(10_000, gezogen(new SqlStichprobe(1), 10_000));
+    }
+
+    @Test
+    void anteil() {
+        long anzahl = gezogen(new SqlStichprobe(0.1), 100_000);
+        assertTrue(anzahl > 9_000 && anzahl < 11_000, "gezogen: " + anzahl);
+    }
+
+    @Test
+    void statementBleibtUnveraendert() {
+        String sql = "select 1";
+        assertSame(sql, new SqlStichprobe(1).inspect(sql));
+    }
+
+    @Test
+    void ungueltigerAnteil() {
+        assertThrows(IllegalArgumentException.class, () -> new SqlStichprobe(1.5));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantIdInterceptorTest {
+
+    private final TenantResolver tenantResolver = new TenantResolver();
+
+    private final TenantIdInterceptor interceptor = new TenantIdInterceptor(tenantResolver);
+
+    private static MockHttpServletRequest request(String tenantId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("tenantId", tenantId));
+        return request;
+    }
+
+    @Test
+    void tenantIdWirdNachRequestEntfernt() {
+        MockHttpServletRequest request = request("mandantin");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        assertEquals("mandantin", tenantResolver.resolveCurrentTenantIdentifier());
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(TenantResolver.UNBEKANNT, tenantResolver.resolveCurrentTenantIdentifier());
+    }
+
+    @Test
+    void requestOhneTenantIdUebernimmtKeineAlteTenantId() {
+        tenantResolver.setCurrentTenant("alt");
+
+        interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+
+        assertEquals(TenantResolver.UNBEKANNT, tenantResolver.resolveCurrentTenantIdentifier());
+    }
+
+    @Test
+    void mitCurrentTenant() throws Exception {
+        tenantResolver.setCurrentTenant("mandantin");
+        Runnable aufgabe = tenantResolver.mitCurrentTenant(() -> assertEquals("mandantin", tenantResolver.resolveCurrentTenantIdentifier()));
+        tenantResolver.clearCurrentTenant();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(aufgabe).get();
+            // Nach der Aufgabe darf am Thread keine Tenant-ID zurückbleiben.
+            assertEquals(TenantResolver.UNBEKANNT, executor.submit(tenantResolver::resolveCurrentTenantIdentifier).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Lasttest: Viele verschränkte Requests unterschiedlicher MandantInnen dürfen niemals
+     * die Tenant-ID eines anderen Requests sehen.
+     */
+    @Test
+    void keineVermischungBeiParallelenRequests() throws Exception {
+        final int anzahlThreads = 32;
+        final int anzahlRequests = 20000;
+        final int anzahlMandantInnen = 50;
+        final AtomicInteger fehler = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(anzahlThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < anzahlRequests; i++) {
+                final String tenantId = "mandant-" + (i % anzahlMandantInnen);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    MockHttpServletRequest request = request(tenantId);
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    interceptor.preHandle(request, response, null);
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            Thread.yield();
+                            if (!tenantId.equals(tenantResolver.resolveCurrentTenantIdentifier())) {
+                                fehler.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        interceptor.afterCompletion(request, response, null, null);
+                    }
+                    if (!TenantResolver.UNBEKANNT.equals(tenantResolver.resolveCurrentTenantIdentifier())) {
+                        fehler.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, fehler.get(), "Tenant-IDs wurden zwischen Requests vermischt.");
+    }
+}
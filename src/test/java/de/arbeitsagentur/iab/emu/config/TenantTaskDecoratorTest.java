@@ -0,0 +1,47 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TenantTaskDecoratorTest extends AbstractServiceTest {
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    AsyncTaskExecutor applicationTaskExecutor;
+
+    @Test
+    void tenantIdWirdAnTaskExecutorUebergeben() throws Exception {
+        Projekt projekt = projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+
+        Projekt geladen = applicationTaskExecutor.submit(() -> projektService.getProjekt()).get();
+
+        assertEquals(projekt.getId(), geladen.getId());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config;
+
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.Zusatzinformation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZusatzinformationenMigrationTest extends AbstractServiceTest {
+
+    @Autowired
+    ZusatzinformationenMigration zusatzinformationenMigration;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    KundInService kundInService;
+
+    /**
+     * Simuliert eine bestehende Datenbank, in der die Zusatzinformationen noch in einer eigenen Tabelle liegen.
+     */
+    @Test
+    void zusatzinformationenWerdenAusAlterTabelleUebernommen() throws KundInNichtGefundenException {
+        final int id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM kundin", Integer.class) + 10_000;
+        jdbcTemplate.update("INSERT INTO kundin (id, tenant_id, kund_innennummer) VALUES (?, ?, ?)",
+                id, tenantResolver.resolveCurrentTenantIdentifier(), "123a456789");
+        jdbcTemplate.execute("CREATE TABLE " + ZusatzinformationenMigration.ALTE_TABELLE +
+                " (kundin_id INTEGER NOT NULL, zusatzinformationen_order INTEGER NOT NULL, name VARCHAR(255), typ VARCHAR(255), wert VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO " + ZusatzinformationenMigration.ALTE_TABELLE + " VALUES (?, 1, 'zweite', 'typ', 'b')", id);
+        jdbcTemplate.update("INSERT INTO " + ZusatzinformationenMigration.ALTE_TABELLE + " VALUES (?, 0, 'erste', 'typ', 'a')", id);
+        try {
+            zusatzinformationenMigration.migrieren();
+
+            final KundIn kundIn = kundInService.getById(id);
+            final List<Zusatzinformation> zusatzinformationen = kundIn.getKundInnendaten().getZusatzinformationen();
+            assertEquals(2, zusatzinformationen.size());
+            assertEquals("erste", zusatzinformationen.get(0).getName());
+            assertEquals("a", zusatzinformationen.get(0).getWert());
+            assertEquals("zweite", zusatzinformationen.get(1).getName());
+            assertEquals(0, anzahlTabellen(ZusatzinformationenMigration.ALTE_TABELLE));
+            assertEquals(1, anzahlTabellen(ZusatzinformationenMigration.MIGRIERTE_TABELLE));
+
+            zusatzinformationenMigration.alteTabelleLoeschen();
+            assertEquals(0, anzahlTabellen(ZusatzinformationenMigration.MIGRIERTE_TABELLE));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + ZusatzinformationenMigration.ALTE_TABELLE);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + ZusatzinformationenMigration.MIGRIERTE_TABELLE);
+            jdbcTemplate.update("DELETE FROM kundin WHERE id = ?", id);
+        }
+    }
+
+    /**
+     * Hat eine Kundin / ein Kunde aus der umbenannten Tabelle noch kein Dokument, bleibt die Tabelle erhalten.
+     */
+    @Test
+    void alteTabelleBleibtOhneDokumentErhalten() {
+        final int id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM kundin", Integer.class) + 10_000;
+        jdbcTemplate.update("INSERT INTO kundin (id, tenant_id, kund_innennummer) VALUES (?, ?, ?)",
+                id, tenantResolver.resolveCurrentTenantIdentifier(), "123a456780");
+        jdbcTemplate.execute("CREATE TABLE " + ZusatzinformationenMigration.MIGRIERTE_TABELLE +
+                " (kundin_id INTEGER NOT NULL, zusatzinformationen_order INTEGER NOT NULL, name VARCHAR(255), typ VARCHAR(255), wert VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO " + ZusatzinformationenMigration.MIGRIERTE_TABELLE + " VALUES (?, 0, 'erste', 'typ', 'a')", id);
+        try {
+            zusatzinformationenMigration.alteTabelleLoeschen();
+
+            assertEquals(1, anzahlTabellen(ZusatzinformationenMigration.MIGRIERTE_TABELLE));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + ZusatzinformationenMigration.MIGRIERTE_TABELLE);
+            jdbcTemplate.update("DELETE FROM kundin WHERE id = ?", id);
+        }
+    }
+
+    private Integer anzahlTabellen(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?", Integer.class, name);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {"emu.mandanten.trennung=datenbank",
+        "emu.mandanten.datenbank-url=jdbc:h2:mem:emutest_{tenant};DB_CLOSE_DELAY=-1",
+        "emu.mandanten.max-datenbanken=2"})
+class DatenbankProMandantInTest {
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    DatenbankProMandantIn datenbankProMandantIn;
+
+    @Autowired
+    Mandantenmigration mandantenmigration;
+
+    @Autowired
+    Mandantenverbindungen mandantenverbindungen;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tenantEntfernen() {
+        tenantResolver.clearCurrentTenant();
+    }
+
+    private List<KundIn> anlegen(String tenant, int anzahl) throws Exception {
+        // Wie bei der Bestellung.
+        mandantenverbindungen.bereitstellen(tenant);
+        tenantResolver.setCurrentTenant(tenant);
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        final List<KundIn> kundInnen = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setGeburtsdatum(LocalDate.now());
+            kd.setKundInnenennummer("123A" + (100000 + i));
+            kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+            kd.setNachname("Nachname");
+            kundInnen.add(kundInService.create(kd));
+        }
+        return kundInnen;
+    }
+
+    private int zaehlenGemeinsam(String tenant) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kundin WHERE tenant_id = ?", Integer.class, tenant);
+    }
+
+    @Test
+    void dateiname() {
+        assertEquals("abc-1_2", DatenbankProMandantIn.dateiname("abc-1_2"));
+        assertNotEquals(DatenbankProMandantIn.dateiname("a/b"), DatenbankProMandantIn.dateiname("a.b"));
+        assertTrue(DatenbankProMandantIn.dateiname("../x").matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void eigeneDatenbankMitBegrenztenPools() throws Exception {
+        final Map<String, List<KundIn>> kundInnen = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            final String tenant = "db-" + i + "-" + System.nanoTime();
+            kundInnen.put(tenant, anlegen(tenant, 2));
+            assertTrue(datenbankProMandantIn.getAnzahlOffen() <= 2);
+        }
+
+        for (Map.Entry<String, List<KundIn>> eintrag : kundInnen.entrySet()) {
+            assertEquals(0, zaehlenGemeinsam(eintrag.getKey()));
+            tenantResolver.setCurrentTenant(eintrag.getKey());
+            for (KundIn kundIn : eintrag.getValue()) {
+                assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+            }
+            assertTrue(datenbankProMandantIn.getAnzahlOffen() <= 2);
+        }
+    }
+
+    @Test
+    void unbekannteMandantInOhneDatenbank() {
+        final String tenant = "db-unbekannt-" + System.nanoTime();
+        final int offen = datenbankProMandantIn.getAnzahlOffen();
+        tenantResolver.setCurrentTenant(tenant);
+
+        assertThrows(ProjektNichtGefundenException.class, () -> projektService.getProjekt());
+
+        assertEquals(offen, datenbankProMandantIn.getAnzahlOffen());
+    }
+
+    @Test
+    void herausloesen() throws Exception {
+        final String tenant = "db-alt-" + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO userin (id, tenant_id, login, rolle) VALUES (NEXT VALUE FOR userin_seq, ?, 'login', 'rolle')", tenant);
+        final List<KundIn> kundInnen = anlegen(tenant, 3);
+        assertEquals(3, zaehlenGemeinsam(tenant));
+
+        final Mandantenmigration.Ergebnis ergebnis = mandantenmigration.herausloesen(tenant);
+
+        assertEquals(3, ergebnis.zeilen().get("KUNDIN"));
+        assertEquals(0, zaehlenGemeinsam(tenant));
+        tenantResolver.setCurrentTenant(tenant);
+        for (KundIn kundIn : kundInnen) {
+            assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = "emu.mandanten.trennung=schema")
+class SchemaProMandantInTest {
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    Mandantenmigration mandantenmigration;
+
+    @Autowired
+    Mandantenverbindungen mandantenverbindungen;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tenantEntfernen() {
+        tenantResolver.clearCurrentTenant();
+    }
+
+    private List<KundIn> anlegen(String tenant, int anzahl) throws Exception {
+        // Wie bei der Bestellung.
+        mandantenverbindungen.bereitstellen(tenant);
+        tenantResolver.setCurrentTenant(tenant);
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        final List<KundIn> kundInnen = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setGeburtsdatum(LocalDate.now());
+            kd.setKundInnenennummer("123A" + (100000 + i));
+            kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+            kd.setNachname("Nachname");
+            kundInnen.add(kundInService.create(kd));
+        }
+        return kundInnen;
+    }
+
+    private int zaehlen(String schema, String tabelle, String tenant) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + Mandantenstruktur.bezeichner(schema) + "." + tabelle
+                + " WHERE tenant_id = ?", Integer.class, tenant);
+    }
+
+    @Test
+    void neueMandantInImEigenenSchema() throws Exception {
+        final String tenant = "schema-neu-" + System.nanoTime();
+
+        final KundIn kundIn = anlegen(tenant, 3).get(0);
+
+        assertEquals(3, zaehlen(SchemaProMandantIn.schema(tenant), "KUNDIN", tenant));
+        assertEquals(1, zaehlen(SchemaProMandantIn.schema(tenant), "PROJEKT", tenant));
+        assertEquals(0, zaehlen(Mandantenstruktur.GEMEINSAMES_SCHEMA, "KUNDIN", tenant));
+        assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+    }
+
+    @Test
+    void unbekannteMandantInOhneSchema() {
+        final String tenant = "schema-unbekannt-" + System.nanoTime();
+        tenantResolver.setCurrentTenant(tenant);
+
+        assertThrows(ProjektNichtGefundenException.class, () -> projektService.getProjekt());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME = ?",
+                Integer.class, SchemaProMandantIn.schema(tenant)));
+    }
+
+    @Test
+    void bereitstellungEinerAnderenInstanz() throws Exception {
+        final String tenant = "schema-andere-" + System.nanoTime();
+        assertFalse(mandantenverbindungen.hatEigeneStruktur(tenant));
+
+        // Eingetragen wie von einer anderen Instanz, bis zum Ablauf gelten noch die gemeinsamen Tabellen.
+        jdbcTemplate.update("INSERT INTO " + Mandantenverbindungen.TABELLE + " (mandantin) VALUES (?)", tenant);
+        assertFalse(mandantenverbindungen.hatEigeneStruktur(tenant));
+
+        Thread.sleep(Mandantenverbindungen.GEMEINSAME_TABELLEN_GUELTIG.toMillis() + 100);
+        assertTrue(mandantenverbindungen.hatEigeneStruktur(tenant));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME = ?",
+                Integer.class, SchemaProMandantIn.schema(tenant)));
+    }
+
+    @Test
+    void bereitstellungDieserInstanzSofortSichtbar() throws Exception {
+        final String tenant = "schema-sofort-" + System.nanoTime();
+        assertFalse(mandantenverbindungen.hatEigeneStruktur(tenant));
+
+        mandantenverbindungen.bereitstellen(tenant);
+
+        assertTrue(mandantenverbindungen.hatEigeneStruktur(tenant));
+    }
+
+    @Test
+    void herausloesen() throws Exception {
+        final String tenant = "schema-alt-" + System.nanoTime();
+        // Mit einer UserIn in den gemeinsamen Tabellen bleibt die MandantIn zunächst dort.
+        jdbcTemplate.update("INSERT INTO userin (id, tenant_id, login, rolle) VALUES (NEXT VALUE FOR userin_seq, ?, 'login', 'rolle')", tenant);
+        final List<KundIn> kundInnen = anlegen(tenant, 3);
+        assertEquals(3, zaehlen(Mandantenstruktur.GEMEINSAMES_SCHEMA, "KUNDIN", tenant));
+
+        final Mandantenmigration.Ergebnis ergebnis = mandantenmigration.herausloesen(tenant);
+
+        assertEquals(3, ergebnis.zeilen().get("KUNDIN"));
+        assertEquals(1, ergebnis.zeilen().get("USERIN"));
+        assertEquals(1, ergebnis.zeilen().get("PROJEKT"));
+        assertEquals(2, ergebnis.zeilen().get("PROJEKT_FELDDEFINITIONEN"));
+        assertEquals(0, zaehlen(Mandantenstruktur.GEMEINSAMES_SCHEMA, "KUNDIN", tenant));
+        assertEquals(0, zaehlen(Mandantenstruktur.GEMEINSAMES_SCHEMA, "PROJEKT", tenant));
+        assertEquals(3, zaehlen(SchemaProMandantIn.schema(tenant), "KUNDIN", tenant));
+
+        tenantResolver.setCurrentTenant(tenant);
+        for (KundIn kundIn : kundInnen) {
+            assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+        }
+        assertEquals(2, projektService.getProjekt().getFelddefinitionen().size());
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A200000");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        final KundIn neu = kundInService.create(kd);
+        assertTrue(kundInnen.stream().noneMatch(k -> k.getId().equals(neu.getId())));
+        assertEquals(4, zaehlen(SchemaProMandantIn.schema(tenant), "KUNDIN", tenant));
+    }
+}
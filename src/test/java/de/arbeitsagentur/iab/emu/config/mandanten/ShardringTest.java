@@ -0,0 +1,63 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardringTest {
+
+    private static final int ANZAHL_MANDANTINNEN = 10000;
+
+    @Test
+    void gleichmaessigVerteilt() {
+        final Shardring ring = new Shardring(4);
+        final int[] anzahl = new int[4];
+        for (int i = 0; i < ANZAHL_MANDANTINNEN; i++) {
+            anzahl[ring.shard("mandantin-" + i)]++;
+        }
+        for (int shard = 0; shard < 4; shard++) {
+            assertTrue(anzahl[shard] > ANZAHL_MANDANTINNEN / 4 * 0.8, "Shard " + shard + ": " + anzahl[shard]);
+            assertTrue(anzahl[shard] < ANZAHL_MANDANTINNEN / 4 * 1.2, "Shard " + shard + ": " + anzahl[shard]);
+        }
+    }
+
+    @Test
+    void neuerShardUebernimmtNurEinenTeil() {
+        final Shardring alt = new Shardring(4);
+        final Shardring neu = new Shardring(5);
+        int verschoben = 0;
+        for (int i = 0; i < ANZAHL_MANDANTINNEN; i++) {
+            final String tenant = "mandantin-" + i;
+            if (alt.shard(tenant) != neu.shard(tenant)) {
+                assertEquals(4, neu.shard(tenant));
+                verschoben++;
+            }
+        }
+        assertTrue(verschoben > ANZAHL_MANDANTINNEN / 5 * 0.8, "Verschoben: " + verschoben);
+        assertTrue(verschoben < ANZAHL_MANDANTINNEN / 5 * 1.2, "Verschoben: " + verschoben);
+    }
+
+    @Test
+    void festeZuordnung() {
+        assertEquals(new Shardring(3).shard("abc"), new Shardring(3).shard("abc"));
+        assertEquals(0, new Shardring(1).shard("abc"));
+        assertThrows(IllegalArgumentException.class, () -> new Shardring(0));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektNichtGefundenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {"emu.mandanten.trennung=shards",
+        "emu.mandanten.shards=jdbc:h2:mem:emutest_shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:emutest_shard2;DB_CLOSE_DELAY=-1"})
+class ShardverbindungenTest {
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    Shardverbindungen shardverbindungen;
+
+    @Autowired
+    Shardverwaltung shardverwaltung;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tenantEntfernen() {
+        tenantResolver.clearCurrentTenant();
+    }
+
+    private List<KundIn> anlegen(String tenant, int anzahl) throws Exception {
+        // Wie bei der Bestellung.
+        shardverbindungen.bereitstellen(tenant);
+        tenantResolver.setCurrentTenant(tenant);
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+        final List<KundIn> kundInnen = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            kundInnen.add(kundInAnlegen(100000 + i));
+        }
+        return kundInnen;
+    }
+
+    private KundIn kundInAnlegen(int nummer) throws Exception {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A" + nummer);
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        return kundInService.create(kd);
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardverbindungen.getShard(shard));
+    }
+
+    private int zaehlen(int shard, String tenant) {
+        return shard(shard).queryForObject("SELECT COUNT(*) FROM kundin WHERE tenant_id = ?", Integer.class, tenant);
+    }
+
+    private void pruefen(String tenant, List<KundIn> kundInnen) throws Exception {
+        tenantResolver.setCurrentTenant(tenant);
+        for (KundIn kundIn : kundInnen) {
+            assertEquals(kundIn.getGruppe().getId(), kundInService.getById(kundIn.getId()).getGruppe().getId());
+        }
+    }
+
+    /**
+     * @return Eine neue Tenant-ID, die der Ring dem Shard zuordnet.
+     */
+    private String tenantAuf(int shard) {
+        String tenant;
+        do {
+            tenant = "shard-" + System.nanoTime();
+        } while (shardverbindungen.getRing().shard(tenant) != shard);
+        return tenant;
+    }
+
+    @Test
+    void verteiltNachRing() throws Exception {
+        final Map<String, List<KundIn>> kundInnen = new HashMap<>();
+        final Set<Integer> shards = new HashSet<>();
+        for (int shard = 0; shard < 3; shard++) {
+            final String tenant = tenantAuf(shard);
+            kundInnen.put(tenant, anlegen(tenant, 2));
+        }
+
+        for (Map.Entry<String, List<KundIn>> eintrag : kundInnen.entrySet()) {
+            final int shard = shardverbindungen.shard(eintrag.getKey());
+            shards.add(shard);
+            for (int andererShard = 0; andererShard < 3; andererShard++) {
+                assertEquals(andererShard == shard ? 2 : 0, zaehlen(andererShard, eintrag.getKey()));
+            }
+            pruefen(eintrag.getKey(), eintrag.getValue());
+            for (KundIn kundIn : eintrag.getValue()) {
+                assertTrue(kundIn.getId() > shard * Shardverbindungen.ID_BEREICH);
+                assertTrue(kundIn.getId() < (shard + 1) * Shardverbindungen.ID_BEREICH);
+            }
+        }
+        assertEquals(Set.of(0, 1, 2), shards);
+    }
+
+    @Test
+    void unbekannteMandantInOhneEintrag() throws Exception {
+        final String tenant = tenantAuf(1);
+        tenantResolver.setCurrentTenant(tenant);
+
+        assertThrows(ProjektNichtGefundenException.class, () -> projektService.getProjekt());
+
+        assertEquals(0, shardverbindungen.shard(tenant));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + Shardverbindungen.TABELLE + " WHERE mandantin = ?",
+                Integer.class, tenant));
+    }
+
+    @Test
+    void sequenzenEndenAmIdBereich() throws Exception {
+        anlegen(tenantAuf(1), 1);
+
+        assertEquals(2 * Shardverbindungen.ID_BEREICH - 1, shard(1).queryForObject(
+                "SELECT MAXIMUM_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND LOWER(SEQUENCE_NAME) = 'kundin_seq'", Long.class));
+        assertEquals(Shardverbindungen.ID_BEREICH - 1, shard(0).queryForObject(
+                "SELECT MAXIMUM_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND LOWER(SEQUENCE_NAME) = 'kundin_seq'", Long.class));
+    }
+
+    @Test
+    void festlegen() throws Exception {
+        final String tenant = tenantAuf(1);
+        final List<KundIn> kundInnen = anlegen(tenant, 3);
+        assertEquals(3, zaehlen(1, tenant));
+
+        final Map<String, Integer> zeilen = shardverwaltung.festlegen(tenant, 2);
+
+        assertEquals(3, zeilen.get("KUNDIN"));
+        assertEquals(0, zaehlen(1, tenant));
+        assertEquals(3, zaehlen(2, tenant));
+        pruefen(tenant, kundInnen);
+        assertNotNull(kundInAnlegen(200000).getId());
+        assertEquals(4, zaehlen(2, tenant));
+
+        shardverwaltung.ausgleichen();
+        assertEquals(2, shardverbindungen.shard(tenant));
+    }
+
+    @Test
+    void bestehendeMandantInBleibtBisZumAusgleich() throws Exception {
+        final String tenant = tenantAuf(2);
+        jdbcTemplate.update("INSERT INTO userin (id, tenant_id, login, rolle) VALUES (NEXT VALUE FOR userin_seq, ?, 'login', 'rolle')", tenant);
+        final List<KundIn> kundInnen = anlegen(tenant, 2);
+        assertEquals(2, zaehlen(0, tenant));
+        assertTrue(shardverwaltung.uebersicht().abweichend() > 0);
+
+        final Shardverwaltung.Ergebnis ergebnis = shardverwaltung.ausgleichen();
+
+        assertEquals(2, ergebnis.verschoben().get(tenant));
+        assertEquals(0, zaehlen(0, tenant));
+        assertEquals(2, zaehlen(2, tenant));
+        pruefen(tenant, kundInnen);
+        assertEquals(0, shardverwaltung.uebersicht().abweichend());
+    }
+}
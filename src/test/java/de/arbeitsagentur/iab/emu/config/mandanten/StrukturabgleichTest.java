@@ -0,0 +1,70 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(properties = "emu.mandanten.trennung=schema")
+class StrukturabgleichTest {
+
+    @Autowired
+    Strukturabgleich strukturabgleich;
+
+    @Autowired
+    Mandantenverbindungen mandantenverbindungen;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private int spalten(String schema, String tabelle, String spalte) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                Integer.class, schema, tabelle, spalte);
+    }
+
+    @Test
+    void fehlendeSpalteWirdAngelegt() throws Exception {
+        final String tenant = "abgleich-" + System.nanoTime();
+        final String schema = SchemaProMandantIn.schema(tenant);
+        mandantenverbindungen.bereitstellen(tenant);
+        // Eine Struktur, die vor einer neuen Spalte angelegt wurde.
+        jdbcTemplate.execute("ALTER TABLE " + Mandantenstruktur.bezeichner(schema) + ".KUNDIN DROP COLUMN ZUSATZINFORMATIONEN");
+        assertEquals(0, spalten(schema, "KUNDIN", "ZUSATZINFORMATIONEN"));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(schema);
+            strukturabgleich.abgleichen(connection);
+            connection.setSchema(Mandantenstruktur.GEMEINSAMES_SCHEMA);
+        }
+
+        assertEquals(1, spalten(schema, "KUNDIN", "ZUSATZINFORMATIONEN"));
+        assertEquals(1, spalten(Mandantenstruktur.GEMEINSAMES_SCHEMA, "KUNDIN", "ZUSATZINFORMATIONEN"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.config.mandanten;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZugriffssperreTest {
+
+    private final Zugriffssperre sperre = new Zugriffssperre();
+
+    @Test
+    void sperrenWartetAufOffeneVerbindungen() throws Exception {
+        sperre.betreten("a");
+        final CompletableFuture<Void> sperren = CompletableFuture.runAsync(() -> {
+            try {
+                sperre.sperren("a");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> sperren.get(200, TimeUnit.MILLISECONDS));
+
+        sperre.verlassen("a");
+
+        sperren.get(5, TimeUnit.SECONDS);
+        sperre.freigeben("a");
+    }
+
+    @Test
+    void neueVerbindungenWartenAufFreigabe() throws Exception {
+        sperre.sperren("a");
+        final CompletableFuture<Void> betreten = CompletableFuture.runAsync(() -> {
+            try {
+                sperre.betreten("a");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // Andere MandantInnen sind nicht betroffen.
+        sperre.betreten("b");
+        sperre.verlassen("b");
+        assertThrows(TimeoutException.class, () -> betreten.get(200, TimeUnit.MILLISECONDS));
+
+        sperre.freigeben("a");
+
+        betreten.get(5, TimeUnit.SECONDS);
+        sperre.verlassen("a");
+    }
+
+    @Test
+    void nurEineSperreProMandantIn() throws Exception {
+        sperre.sperren("a");
+
+        assertThrows(IllegalStateException.class, () -> sperre.sperren("a"));
+
+        sperre.freigeben("a");
+        sperre.sperren("a");
+        sperre.freigeben("a");
+    }
+}
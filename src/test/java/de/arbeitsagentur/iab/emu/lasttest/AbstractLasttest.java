@@ -0,0 +1,113 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.lasttest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.service.bestellung.Bestellung;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.userin.UserIn;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lasttest mit vielen gleichzeitigen Verbindungen. Die Unterklassen starten den Service einmal mit
+ * Plattform-Threads und einmal mit virtuellen Threads, damit die Durchsätze verglichen werden können.
+ * Wird nur im Maven-Profil "lasttest" ausgeführt.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+abstract class AbstractLasttest {
+
+    static final int ANZAHL_VERBINDUNGEN = 1000;
+
+    static final int ANZAHL_MANDANTINNEN = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+    private HttpRequest.Builder request(String tenantId, String pfad) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/" + tenantId + pfad))
+                .timeout(Duration.ofMinutes(2));
+    }
+
+    private void bestellen(String tenantId) throws Exception {
+        Bestellung bestellung = new Bestellung();
+        bestellung.setProjekt(ProjektFactory.gueltigesProjektErzeugen());
+        UserIn userIn = new UserIn();
+        userIn.setLogin("login");
+        userIn.setRolle("rolle");
+        bestellung.setUserInnen(List.of(userIn));
+
+        HttpResponse<String> response = client.send(request(tenantId, "/bestellung/")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(bestellung))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+    }
+
+    @Test
+    void parallelerZugriff() throws Exception {
+        List<String> tenantIds = new ArrayList<>();
+        for (int i = 0; i < ANZAHL_MANDANTINNEN; i++) {
+            String tenantId = UUID.randomUUID().toString();
+            bestellen(tenantId);
+            tenantIds.add(tenantId);
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> antworten = new ArrayList<>();
+        for (int i = 0; i < ANZAHL_VERBINDUNGEN; i++) {
+            String tenantId = tenantIds.get(i % tenantIds.size());
+            antworten.add(client.sendAsync(request(tenantId, "/projekt/").GET().build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> antwort : antworten) {
+            assertEquals(200, antwort.get().statusCode());
+        }
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("{}: {} Requests in {} ms ({} Requests/s)", getClass().getSimpleName(), ANZAHL_VERBINDUNGEN, dauerMs,
+                ANZAHL_VERBINDUNGEN * 1000L / Math.max(1, dauerMs));
+    }
+}
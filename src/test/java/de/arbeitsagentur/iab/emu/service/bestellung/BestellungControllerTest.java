@@ -20,6 +20,7 @@ package de.arbeitsagentur.iab.emu.service.bestellung;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.config.Idempotenzfilter;
 import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
 import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
 import de.arbeitsagentur.iab.emu.service.userin.UserIn;
@@ -39,6 +40,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -94,6 +96,29 @@ class BestellungControllerTest {
 
     }
 
+    @Test
+    void bestellenWiederholtMitIdempotencyKey() throws Exception {
+        Bestellung bestellung = new Bestellung();
+        UserIn user = new UserIn();
+        user.setLogin("login");
+        user.setRolle("rolle");
+        bestellung.setUserInnen(Collections.singletonList(user));
+        bestellung.setProjekt(ProjektFactory.gueltigesProjektErzeugen());
+        final String bestellungJson = mapper.writeValueAsString(bestellung);
+
+        mockMvc.perform(post("/api/v1/" + tenant + "/bestellung/").header(Idempotenzfilter.HEADER, "bestellung-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(bestellungJson))
+                .andExpect(status().isCreated());
+        // Ohne Idempotency-Key wäre das ein Konflikt, siehe bestellenTenantIDBereitsVergeben.
+        mockMvc.perform(post("/api/v1/" + tenant + "/bestellung/").header(Idempotenzfilter.HEADER, "bestellung-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(bestellungJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(Idempotenzfilter.HEADER_WIEDERHOLT, "true"));
+        mockMvc.perform(post("/api/v1/" + tenant + "/bestellung/").header(Idempotenzfilter.HEADER, "bestellung-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(bestellungJson))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void bestellenTenantIDBereitsVergeben() throws Exception {
 
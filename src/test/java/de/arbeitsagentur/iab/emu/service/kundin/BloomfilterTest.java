@@ -0,0 +1,92 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomfilterTest {
+
+	@Test
+	void keineFalschNegativenBeimWachsen() {
+		Bloomfilter filter = new Bloomfilter(0, 0.01);
+		long groesseVorher = filter.getGroesse();
+		for (int i = 0; i < 20_000; i++) {
+			filter.hinzufuegen("123A" + i);
+		}
+
+		assertTrue(filter.getGroesse() > groesseVorher);
+		for (int i = 0; i < 20_000; i++) {
+			assertTrue(filter.moeglicherweiseEnthalten("123A" + i), "123A" + i);
+		}
+	}
+
+	@Test
+	void fehlerrate() {
+		Bloomfilter filter = new Bloomfilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.hinzufuegen("123A" + i);
+		}
+
+		long falschPositiv = IntStream.range(0, 100_000)
+				.filter(i -> filter.moeglicherweiseEnthalten("987B" + i))
+				.count();
+		assertTrue(falschPositiv < 2_000, "Falsch positiv: " + falschPositiv);
+	}
+
+	@Test
+	void gleichzeitigesHinzufuegen() throws InterruptedException {
+		Bloomfilter filter = new Bloomfilter(0, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			final int thread = t;
+			executor.execute(() -> {
+				for (int i = 0; i < 5_000; i++) {
+					filter.hinzufuegen(thread + "-" + i);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		for (int t = 0; t < 4; t++) {
+			for (int i = 0; i < 5_000; i++) {
+				assertTrue(filter.moeglicherweiseEnthalten(t + "-" + i), t + "-" + i);
+			}
+		}
+	}
+
+	@Test
+	void leer() {
+		assertFalse(new Bloomfilter(100, 0.01).moeglicherweiseEnthalten("123A456789"));
+	}
+
+	@Test
+	void ungueltigeFehlerrate() {
+		assertThrows(IllegalArgumentException.class, () -> new Bloomfilter(100, 0));
+		assertThrows(IllegalArgumentException.class, () -> new Bloomfilter(100, 1));
+	}
+}
@@ -20,7 +20,9 @@ package de.arbeitsagentur.iab.emu.service.kundin;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.config.Idempotenzfilter;
 import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -29,13 +31,17 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.Writer;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -45,6 +51,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(KundInController.class)
+@Import(SimpleMeterRegistry.class)
 class KundInControllerTest {
 
 	@Autowired
@@ -62,6 +69,9 @@ class KundInControllerTest {
 	@Captor
 	ArgumentCaptor<KundInnendaten> kundendatenCaptor;
 
+	@Captor
+	ArgumentCaptor<List<KundInnendaten>> kundendatenListeCaptor;
+
 	@BeforeEach
 	void setupTenantID() {
 		when(tenantResolver.resolveCurrentTenantIdentifier()).thenReturn("1");
@@ -90,6 +100,40 @@ class KundInControllerTest {
 
 	}
 	
+	@Test
+	void createMitIdempotencyKey() throws Exception {
+		KundInnendaten k = new KundInnendaten();
+		k.setGeburtsdatum(LocalDate.now());
+		k.setNachname("Unittest");
+		k.setKundInnenennummer("123A567890");
+		k.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+
+		KundIn kundIn = Mockito.mock(KundIn.class);
+		when(kundIn.getId()).thenReturn(43);
+		Mockito.when(service.create(Mockito.any(KundInnendaten.class))).thenReturn(kundIn);
+
+		final String schluessel = "create-" + System.nanoTime();
+		final String erste = mockMvc.perform(post("/api/v1/1/kundinnen").header(Idempotenzfilter.HEADER, schluessel)
+						.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(k)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		final String wiederholt = mockMvc.perform(post("/api/v1/1/kundinnen").header(Idempotenzfilter.HEADER, schluessel)
+						.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(k)))
+				.andExpect(status().isCreated())
+				.andExpect(MockMvcResultMatchers.header().string(Idempotenzfilter.HEADER_WIEDERHOLT, "true"))
+				.andReturn().getResponse().getContentAsString();
+
+		assertEquals(erste, wiederholt);
+		verify(service, times(1)).create(Mockito.any(KundInnendaten.class));
+
+		// Derselbe Schlüssel einer anderen MandantIn ist unabhängig.
+		mockMvc.perform(post("/api/v1/2/kundinnen").header(Idempotenzfilter.HEADER, schluessel)
+						.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(k)))
+				.andExpect(status().isCreated())
+				.andExpect(MockMvcResultMatchers.header().doesNotExist(Idempotenzfilter.HEADER_WIEDERHOLT));
+		verify(service, times(2)).create(Mockito.any(KundInnendaten.class));
+	}
+
 	@Test
 	void createDoppelteKundennummer() throws Exception {
 		KundInnendaten k = new KundInnendaten();
@@ -157,6 +201,122 @@ class KundInControllerTest {
 
 	}
 
+	@Test
+	void importieren() throws Exception {
+		KundInnendaten k = new KundInnendaten();
+		k.setKundInnenennummer("123A567890");
+		k.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+
+		Mockito.when(service.importieren(Mockito.anyList())).thenReturn(List.of(
+				KundInnenImportErgebnis.fehler(0, KundInnenImportErgebnis.Status.UngueltigeKundInnennummer, "")));
+
+		List<KundInnenImportErgebnis> ergebnisse = mapper.readValue(mockMvc.perform(post("/api/v1/"+1+"/kundinnen/import")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(List.of(k, k))))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), new TypeReference<List<KundInnenImportErgebnis>>() {});
+
+		assertEquals(1, ergebnisse.size());
+		assertEquals(KundInnenImportErgebnis.Status.UngueltigeKundInnennummer, ergebnisse.get(0).getStatus());
+
+		verify(service,times(1)).importieren(kundendatenListeCaptor.capture());
+		assertEquals(2, kundendatenListeCaptor.getValue().size());
+		assertEquals("123a567890", kundendatenListeCaptor.getValue().get(0).getKundInnenennummer());
+	}
+
+	@Test
+	void importierenNdjson() throws Exception {
+		KundInnendaten k1 = new KundInnendaten();
+		k1.setKundInnenennummer("123A567890");
+		KundInnendaten k2 = new KundInnendaten();
+		k2.setKundInnenennummer("123A567891");
+
+		List<KundInnendaten> gelesen = new ArrayList<>();
+		Mockito.when(service.importieren(Mockito.<Iterator<KundInnendaten>>any())).thenAnswer(invocation -> {
+			invocation.<Iterator<KundInnendaten>>getArgument(0).forEachRemaining(gelesen::add);
+			return List.of();
+		});
+
+		mockMvc.perform(post("/api/v1/"+1+"/kundinnen/import")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content(mapper.writeValueAsString(k1) + "\n" + mapper.writeValueAsString(k2) + "\n"))
+				.andExpect(status().isOk());
+
+		verify(service,never()).importieren(Mockito.anyList());
+		assertEquals(2, gelesen.size());
+		assertEquals("123a567891", gelesen.get(1).getKundInnenennummer());
+	}
+
+	@Test
+	void importierenNdjsonUngueltig() throws Exception {
+		importierenLiestAlleZeilen();
+
+		mockMvc.perform(post("/api/v1/"+1+"/kundinnen/import")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"vorname\":"))
+				.andExpect(status().isBadRequest());
+
+		verify(service,never()).importieren(Mockito.anyList());
+	}
+
+	@Test
+	void importierenNdjsonUngueltigeFolgezeile() throws Exception {
+		importierenLiestAlleZeilen();
+
+		mockMvc.perform(post("/api/v1/"+1+"/kundinnen/import")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"kundInnenennummer\":\"123A567890\"}\n{\"vorname\":"))
+				.andExpect(status().isBadRequest());
+	}
+
+	/**
+	 * Die NDJSON-Zeilen werden erst im Service gelesen, deshalb muss der Mock sie lesen, damit Fehler auftreten.
+	 */
+	private void importierenLiestAlleZeilen() throws GruppeNichtGefundenException {
+		Mockito.when(service.importieren(Mockito.<Iterator<KundInnendaten>>any())).thenAnswer(invocation -> {
+			invocation.<Iterator<KundInnendaten>>getArgument(0).forEachRemaining(k -> { });
+			return List.of();
+		});
+	}
+
+	@Test
+	void importierenDataIntegrityViolationException() throws Exception {
+		Mockito.when(service.importieren(Mockito.anyList())).thenThrow(DataIntegrityViolationException.class);
+
+		mockMvc.perform(post("/api/v1/"+1+"/kundinnen/import")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[]"))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	void exportieren() throws Exception {
+		Mockito.when(service.exportieren(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+			invocation.getArgument(1, Writer.class).write("id\r\n");
+			return 0;
+		});
+
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/export"))
+				.andExpect(status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType("text/csv;charset=UTF-8"))
+				.andExpect(MockMvcResultMatchers.header().string("Content-Disposition", "attachment; filename=\"kundinnen.csv\""))
+				.andExpect(MockMvcResultMatchers.content().string("id\r\n"));
+
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/export?format=ndjson"))
+				.andExpect(status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson;charset=UTF-8"));
+
+		verify(service,times(1)).exportieren(Mockito.eq(KundInnenExport.Format.CSV), Mockito.any());
+		verify(service,times(1)).exportieren(Mockito.eq(KundInnenExport.Format.NDJSON), Mockito.any());
+	}
+
+	@Test
+	void exportierenUnbekanntesFormat() throws Exception {
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/export?format=xlsx"))
+				.andExpect(status().isBadRequest());
+
+		verify(service,never()).exportieren(Mockito.any(), Mockito.any());
+	}
+
 	@Test
 	void update() throws Exception {
 
@@ -287,7 +447,7 @@ class KundInControllerTest {
 	void getBySuchbegriff() throws Exception {
 		KundIn kundIn = Mockito.mock(KundIn.class);
 		when(kundIn.getId()).thenReturn(42);
-		Mockito.when(service.getBySuchbegriff(Mockito.eq("suchwort"))).thenReturn(List.of(kundIn));
+		Mockito.when(service.getBySuchbegriff(Mockito.eq("suchwort"), Mockito.isNull(), Mockito.eq(101))).thenReturn(new KundInnenSeite<>(List.of(kundIn), null));
 
 		List<KundIn> kundenGeladen = mapper.readValue(mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suche/?suchbegriff=suchwort")).andExpect(MockMvcResultMatchers
 				.status()
@@ -299,6 +459,49 @@ class KundInControllerTest {
 
 	}
 
+	@Test
+	void getSuchergebnisse() throws Exception {
+		KundInSuchergebnis treffer = new KundInSuchergebnis(42, "Erika", "Mustermann", "123a456789", LocalDate.of(1980, 1, 31), "Gruppe 1");
+		Mockito.when(service.getSuchergebnisse(Mockito.eq("suchwort"), Mockito.isNull(), Mockito.eq(101))).thenReturn(new KundInnenSeite<>(List.of(treffer), null));
+
+		List<KundInSuchergebnis> geladen = mapper.readValue(mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suchergebnisse/?suchbegriff=suchwort"))
+				.andExpect(status().isOk())
+				.andExpect(MockMvcResultMatchers.header().doesNotExist(KundInController.HEADER_FORTSETZUNG))
+				.andReturn().getResponse().getContentAsString(), new TypeReference<List<KundInSuchergebnis>>() {});
+
+		assertEquals(List.of(treffer), geladen);
+	}
+
+	@Test
+	void getBySuchbegriffFortsetzung() throws Exception {
+		KundIn kundIn = Mockito.mock(KundIn.class);
+		when(kundIn.getId()).thenReturn(42);
+		Mockito.when(service.getBySuchbegriff(Mockito.eq("suchwort"), Mockito.isNull(), Mockito.eq(1))).thenReturn(new KundInnenSeite<>(List.of(kundIn), 42));
+		Mockito.when(service.zaehleBySuchbegriff(Mockito.eq("suchwort"))).thenReturn(2L);
+
+		String token = mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suche/?suchbegriff=suchwort&anzahl=1&mitAnzahl=true"))
+				.andExpect(status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(KundInController.HEADER_GESAMTANZAHL, "2"))
+				.andReturn().getResponse().getHeader(KundInController.HEADER_FORTSETZUNG);
+		assertNotNull(token);
+
+		Mockito.when(service.getBySuchbegriff(Mockito.eq("suchwort"), Mockito.eq(42), Mockito.eq(1))).thenReturn(new KundInnenSeite<>(List.of(), null));
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suche/?suchbegriff=suchwort&anzahl=1&fortsetzung="+token))
+				.andExpect(status().isOk())
+				.andExpect(MockMvcResultMatchers.header().doesNotExist(KundInController.HEADER_FORTSETZUNG))
+				.andExpect(MockMvcResultMatchers.header().doesNotExist(KundInController.HEADER_GESAMTANZAHL));
+
+		verify(service,times(1)).getBySuchbegriff(Mockito.eq("suchwort"), Mockito.eq(42), Mockito.eq(1));
+	}
+
+	@Test
+	void getBySuchbegriffUngueltigeFortsetzung() throws Exception {
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suche/?suchbegriff=suchwort&fortsetzung=kaputt"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/"+1+"/kundinnen/suche/?suchbegriff=suchwort&anzahl=0"))
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void getByKundInnennummer() throws Exception {
 		KundIn kundIn = Mockito.mock(KundIn.class);
@@ -18,6 +18,7 @@
 
 package de.arbeitsagentur.iab.emu.service.kundin;
 
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
 import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
 import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
 import de.arbeitsagentur.iab.emu.service.projekt.ProjektBereitsVorhandenException;
@@ -28,8 +29,20 @@ import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
-
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -43,6 +56,20 @@ class KundInServiceTest extends AbstractServiceTest {
     @Autowired
     ProjektService projektService;
 
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    KundInRepository kundInRepository;
 
 
     private List<Gruppe> alleGruppen;
@@ -362,6 +389,107 @@ class KundInServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    void getBySuchbegriffNachUpdate() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException, KundInnennummerBereitsVorhandenException, KundInNichtGefundenException {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+        kd.setNachname("Mustermann");
+
+        KundIn kundIn = service.create(kd);
+        // Baut den Suchindex der Tenant-ID auf.
+        assertEquals(1, zaehlen(service.getBySuchbegriff("Muster")));
+
+        kd.setNachname("Schmidt");
+        service.update(kundIn.getId(), kd);
+
+        assertEquals(0, zaehlen(service.getBySuchbegriff("Muster")));
+        assertEquals(1, zaehlen(service.getBySuchbegriff("chmi")));
+
+        kd.setKundInnenennummer("123A111111");
+        kd.setNachname("Musterfrau");
+        service.create(kd);
+        assertEquals(1, zaehlen(service.getBySuchbegriff("Muster")));
+        assertEquals(2, zaehlen(service.getBySuchbegriff("123a")));
+        // Kurze Suchbegriffe werden von der Datenbank beantwortet.
+        assertEquals(2, zaehlen(service.getBySuchbegriff("23")));
+    }
+
+    @Test
+    void getBySuchbegriffSeitenweise() throws GruppeNichtGefundenException {
+        List<KundInnendaten> kundInnendatenListe = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setKundInnenennummer(String.format("123a%06d", i));
+            kd.setNachname(i % 2 == 0 ? "Mustermann" : "Schmidt");
+            kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+            kundInnendatenListe.add(kd);
+        }
+        service.importieren(kundInnendatenListe);
+
+        // Index ("muster"), Datenbank ("mu") und ohne Suchbegriff liefern dieselbe Reihenfolge.
+        assertEquals(13, alleSeitenLaden("muster", 5).size());
+        assertEquals(alleSeitenLaden("muster", 5), alleSeitenLaden("mu", 4));
+        List<Integer> alle = alleSeitenLaden(null, 7);
+        assertEquals(25, alle.size());
+        assertEquals(alle.stream().sorted().toList(), alle);
+
+        assertEquals(13, service.zaehleBySuchbegriff("muster"));
+        assertEquals(13, service.zaehleBySuchbegriff("mu"));
+        assertEquals(25, service.zaehleBySuchbegriff(""));
+    }
+
+    @Test
+    void getSuchergebnisse() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException, KundInnennummerBereitsVorhandenException {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.of(1980, 1, 31));
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setVorname("Erika");
+        kd.setNachname("Mustermann");
+        KundIn mitGruppe = service.create(kd);
+
+        KundInnendaten ohneGruppe = new KundInnendaten();
+        ohneGruppe.setKundInnenennummer("123A456788");
+        ohneGruppe.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+        ohneGruppe.setNachname("Musterfrau");
+        service.create(ohneGruppe);
+
+        // Index ("muster"), Datenbank ("mu") und ohne Suchbegriff liefern dieselben Treffer wie die Suche nach Entities.
+        for (String suchbegriff : Arrays.asList("muster", "mu", null)) {
+            KundInnenSeite<KundInSuchergebnis> seite = service.getSuchergebnisse(suchbegriff, null, 10);
+            assertEquals(service.getBySuchbegriff(suchbegriff, null, 10).kundInnen().stream().map(KundIn::getId).toList(),
+                    seite.kundInnen().stream().map(KundInSuchergebnis::id).toList());
+        }
+
+        KundInnenSeite<KundInSuchergebnis> seite = service.getSuchergebnisse("mu", null, 1);
+        assertEquals(mitGruppe.getId(), seite.weiterNachId());
+        KundInSuchergebnis treffer = seite.kundInnen().get(0);
+        assertEquals(new KundInSuchergebnis(mitGruppe.getId(), "Erika", "Mustermann", "123a456789",
+                LocalDate.of(1980, 1, 31), mitGruppe.getGruppe().getBezeichnung()), treffer);
+        assertNull(service.getSuchergebnisse("musterfrau", null, 1).kundInnen().get(0).gruppe());
+    }
+
+    private List<Integer> alleSeitenLaden(String suchbegriff, int anzahl) {
+        List<Integer> ids = new ArrayList<>();
+        Integer nachId = null;
+        do {
+            KundInnenSeite<KundIn> seite = service.getBySuchbegriff(suchbegriff, nachId, anzahl);
+            assertTrue(seite.kundInnen().size() <= anzahl);
+            seite.kundInnen().forEach(k -> ids.add(k.getId()));
+            nachId = seite.weiterNachId();
+        } while (nachId != null);
+        return ids;
+    }
+
+    private static int zaehlen(Iterable<KundIn> kundInnen) {
+        int anzahl = 0;
+        for (KundIn ignored : kundInnen) {
+            anzahl++;
+        }
+        return anzahl;
+    }
+
     @Test
     void getBySuchbegiffAlle() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException, KundInnennummerBereitsVorhandenException {
         KundInnendaten kd = new KundInnendaten();
@@ -391,6 +519,196 @@ class KundInServiceTest extends AbstractServiceTest {
         assertTrue(kundInnen.stream().anyMatch(k -> k.getId().equals(kundIn2.getId())));
     }
 
+    @Test
+    void importieren() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException, KundInnennummerBereitsVorhandenException, KundInNichtGefundenException {
+        KundInnendaten vorhanden = new KundInnendaten();
+        vorhanden.setKundInnenennummer("123A456789");
+        vorhanden.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+        service.create(vorhanden);
+
+        KundInnendaten teilnahme = new KundInnendaten();
+        teilnahme.setKundInnenennummer("123B456789");
+        teilnahme.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        teilnahme.setNachname("Nachname");
+        Zusatzinformation zi = new Zusatzinformation();
+        zi.setName("test");
+        zi.setWert("wert");
+        teilnahme.setZusatzinformationen(List.of(zi));
+
+        KundInnendaten absage = new KundInnendaten();
+        absage.setKundInnenennummer("123c456789");
+        absage.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+
+        KundInnendaten ungueltig = new KundInnendaten();
+        ungueltig.setKundInnenennummer("123A45678");
+
+        KundInnendaten bereitsVorhanden = new KundInnendaten();
+        bereitsVorhanden.setKundInnenennummer("123a456789");
+
+        KundInnendaten doppeltImImport = new KundInnendaten();
+        doppeltImImport.setKundInnenennummer("123b456789");
+
+        List<KundInnenImportErgebnis> ergebnisse = service.importieren(Arrays.asList(
+                teilnahme, absage, ungueltig, bereitsVorhanden, doppeltImImport, null));
+
+        assertEquals(6, ergebnisse.size());
+        for (int i = 0; i < ergebnisse.size(); i++) {
+            assertEquals(i, ergebnisse.get(i).getZeile());
+        }
+        assertEquals(KundInnenImportErgebnis.Status.Angelegt, ergebnisse.get(0).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.Angelegt, ergebnisse.get(1).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.UngueltigeKundInnennummer, ergebnisse.get(2).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.KundInnennummerBereitsVorhanden, ergebnisse.get(3).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.KundInnennummerBereitsVorhanden, ergebnisse.get(4).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.UngueltigeKundInnennummer, ergebnisse.get(5).getStatus());
+        assertNull(ergebnisse.get(2).getKundIn());
+
+        KundIn angelegt = service.getById(ergebnisse.get(0).getKundIn().getId());
+        assertEquals("123b456789", angelegt.getKundInnendaten().getKundInnenennummer());
+        assertNotNull(angelegt.getGruppe());
+        assertTrue(alleGruppen.stream().anyMatch(g -> g.getId().equals(angelegt.getGruppe().getId())));
+        assertEquals(1, angelegt.getKundInnendaten().getZusatzinformationen().size());
+
+        assertNull(service.getById(ergebnisse.get(1).getKundIn().getId()).getGruppe());
+    }
+
+    @Test
+    void importierenMitNummerAusAndererInstanz() throws Exception {
+        KundInnendaten vorhanden = new KundInnendaten();
+        vorhanden.setKundInnenennummer("123A456789");
+        vorhanden.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+        service.create(vorhanden);
+        // Baut den Filter auf, die erste Kundin ist jetzt vorhanden.
+        KundInnendaten zweite = new KundInnendaten();
+        zweite.setKundInnenennummer("123D456789");
+        zweite.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+        service.create(zweite);
+        // Vorbei an dieser Instanz und damit am KundInnennummernfilter gespeichert.
+        jdbcTemplate.update("INSERT INTO kundin (id, tenant_id, kund_innennummer) VALUES (NEXT VALUE FOR kundin_seq, ?, ?)",
+                tenantResolver.resolveCurrentTenantIdentifier(), "123b456789");
+
+        KundInnendaten andereInstanz = new KundInnendaten();
+        andereInstanz.setKundInnenennummer("123b456789");
+        KundInnendaten neu = new KundInnendaten();
+        neu.setKundInnenennummer("123C456789");
+        neu.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+
+        List<KundInnenImportErgebnis> ergebnisse = service.importieren(List.of(andereInstanz, neu));
+
+        assertEquals(KundInnenImportErgebnis.Status.KundInnennummerBereitsVorhanden, ergebnisse.get(0).getStatus());
+        assertEquals(KundInnenImportErgebnis.Status.Angelegt, ergebnisse.get(1).getStatus());
+    }
+
+    @Test
+    void importierenMitParallelVergebenerNummer() {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        final TransactionTemplate parallel = new TransactionTemplate(transactionManager);
+        parallel.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Die Nummer wird zwischen der Prüfung und dem Flush von einer anderen Transaktion vergeben.
+        Mockito.doAnswer(invocation -> {
+            parallel.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO kundin (id, tenant_id, kund_innennummer) VALUES (NEXT VALUE FOR kundin_seq, ?, ?)",
+                    tenant, kd.getKundInnenennummer()));
+            return Set.of();
+        }).when(kundInRepository).findVergebeneKundInnennummern(Mockito.anyCollection());
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.importieren(List.of(kd)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kundin WHERE tenant_id = ?", Integer.class, tenant));
+    }
+
+    @Test
+    void importierenMehrereBloecke() throws GruppeNichtGefundenException {
+        final int anzahl = KundInService.IMPORT_PRUEFBLOCK * 2 + 10;
+        List<KundInnendaten> kundInnendatenListe = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setKundInnenennummer(String.format("123a%06d", i));
+            kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+            kundInnendatenListe.add(kd);
+        }
+
+        List<KundInnenImportErgebnis> ergebnisse = service.importieren(kundInnendatenListe);
+
+        assertEquals(anzahl, ergebnisse.size());
+        assertTrue(ergebnisse.stream().allMatch(e -> e.getStatus() == KundInnenImportErgebnis.Status.Angelegt));
+        assertEquals(anzahl, ergebnisse.stream().map(e -> e.getKundIn().getId()).distinct().count());
+
+        long anzahlInGruppen = 0;
+        for (KundInnenProGruppe kundInnenProGruppe : service.getKundInnenProGruppe()) {
+            anzahlInGruppen += kundInnenProGruppe.getAnzahl();
+        }
+        assertEquals(anzahl, anzahlInGruppen);
+    }
+
+    private List<KundInnendaten> exportdatenAnlegen() throws GruppeNichtGefundenException {
+        KundInnendaten mitZusatzinformationen = new KundInnendaten();
+        mitZusatzinformationen.setKundInnenennummer("123a456789");
+        mitZusatzinformationen.setNachname("Müller; \"Junior\"");
+        mitZusatzinformationen.setGeburtsdatum(LocalDate.of(1980, 1, 31));
+        mitZusatzinformationen.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        Zusatzinformation zi1 = new Zusatzinformation();
+        zi1.setName("B-Feld");
+        zi1.setWert("b");
+        Zusatzinformation zi2 = new Zusatzinformation();
+        zi2.setName("A-Feld");
+        zi2.setWert("a");
+        mitZusatzinformationen.setZusatzinformationen(List.of(zi1, zi2));
+
+        KundInnendaten ohneZusatzinformationen = new KundInnendaten();
+        ohneZusatzinformationen.setKundInnenennummer("123a456780");
+        ohneZusatzinformationen.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Absage);
+
+        List<KundInnendaten> kundInnendaten = List.of(mitZusatzinformationen, ohneZusatzinformationen);
+        service.importieren(kundInnendaten);
+        return kundInnendaten;
+    }
+
+    @Test
+    void exportierenCsv() throws GruppeNichtGefundenException, IOException {
+        exportdatenAnlegen();
+
+        StringWriter writer = new StringWriter();
+        int anzahl = service.exportieren(KundInnenExport.Format.CSV, writer);
+
+        assertEquals(2, anzahl);
+        String[] zeilen = writer.toString().split("\r\n");
+        assertEquals(3, zeilen.length);
+        assertEquals("id;kundInnennummer;vorname;nachname;geburtsdatum;teilnahmeAbsagegrund;gruppe;A-Feld;B-Feld", zeilen[0]);
+        assertTrue(zeilen[1].matches("\\d+;123a456789;;\"Müller; \"\"Junior\"\"\";1980-01-31;Teilnahme;[^;]+;a;b"), zeilen[1]);
+        assertTrue(zeilen[2].matches("\\d+;123a456780;;;;Absage;;;"), zeilen[2]);
+    }
+
+    @Test
+    void exportierenNdjson() throws GruppeNichtGefundenException, IOException {
+        exportdatenAnlegen();
+
+        StringWriter writer = new StringWriter();
+        service.exportieren(KundInnenExport.Format.NDJSON, writer);
+
+        String[] zeilen = writer.toString().split("\n");
+        assertEquals(2, zeilen.length);
+        JsonNode erste = mapper.readTree(zeilen[0]);
+        assertEquals("123a456789", erste.get("kundInnennummer").asText());
+        assertEquals("1980-01-31", erste.get("geburtsdatum").asText());
+        assertTrue(alleGruppen.stream().anyMatch(g -> g.getBezeichnung().equals(erste.get("gruppe").asText())));
+        assertEquals("b", erste.get("zusatzinformationen").get("B-Feld").asText());
+        assertEquals("a", erste.get("zusatzinformationen").get("A-Feld").asText());
+        JsonNode zweite = mapper.readTree(zeilen[1]);
+        assertTrue(zweite.get("gruppe").isNull());
+        assertEquals(0, zweite.get("zusatzinformationen").size());
+    }
+
+    @Test
+    void exportierenLeer() throws IOException {
+        StringWriter writer = new StringWriter();
+        assertEquals(0, service.exportieren(KundInnenExport.Format.NDJSON, writer));
+        assertEquals("", writer.toString());
+    }
+
     @Test
     void isKundennummerVergebenFalse() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException {
         assertFalse(service.isKundInnennummerVergeben("123A456789",null));
@@ -440,4 +758,19 @@ class KundInServiceTest extends AbstractServiceTest {
 
         assertTrue(service.isKundInnennummerVergeben("123A456789", kundIn2.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void isKundennummerVergebenGrossKleinschreibung() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException, KundInnennummerBereitsVorhandenException {
+
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+
+        service.create(kd);
+
+        assertTrue(service.isKundInnennummerVergeben("123a456789", null));
+        assertFalse(service.isKundInnennummerVergeben("123A456788", null));
+    }
+}
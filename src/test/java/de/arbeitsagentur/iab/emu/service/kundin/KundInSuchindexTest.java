@@ -0,0 +1,85 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KundInSuchindexTest {
+
+	private final KundInRepository kundInRepository = Mockito.mock(KundInRepository.class);
+
+	private final TenantResolver tenantResolver = new TenantResolver();
+
+	/**
+	 * Ohne Replikat wird direkt gelesen.
+	 */
+	private final Primaerdatenbank primaerdatenbank = new Primaerdatenbank(Mockito.mock(ObjectProvider.class),
+			Mockito.mock(PlatformTransactionManager.class));
+
+	@BeforeEach
+	void suchtexteBeforeEach() {
+		Mockito.when(kundInRepository.streamSuchtexte()).thenAnswer(invocation -> Stream.of(
+				new KundInnenSuchtext(1, "Mustermann", "123a456789"),
+				new KundInnenSuchtext(2, "Musterfrau", "123a456780"),
+				new KundInnenSuchtext(3, "Schmidt", "987b654321")));
+	}
+
+	@Test
+	void suchen() {
+		KundInSuchindex suchindex = new KundInSuchindex(kundInRepository, tenantResolver, primaerdatenbank, 10, 10, Duration.ofMinutes(5));
+		tenantResolver.setCurrentTenant("a");
+
+		assertArrayEquals(new int[]{1, 2}, suchindex.suchen("muster", 101).orElseThrow());
+		assertEquals(Optional.of(1), suchindex.zaehlen("schmi"));
+	}
+
+	@Test
+	void zuVieleKundInnen() {
+		KundInSuchindex suchindex = new KundInSuchindex(kundInRepository, tenantResolver, primaerdatenbank, 10, 2, Duration.ofMinutes(5));
+		tenantResolver.setCurrentTenant("a");
+
+		assertTrue(suchindex.suchen("muster", 101).isEmpty());
+		assertTrue(suchindex.zaehlen("muster").isEmpty());
+		Mockito.verify(kundInRepository, Mockito.times(1)).streamSuchtexte();
+	}
+
+	@Test
+	void verdraengen() {
+		KundInSuchindex suchindex = new KundInSuchindex(kundInRepository, tenantResolver, primaerdatenbank, 2, 10, Duration.ofMinutes(5));
+		for (String tenant : new String[]{"a", "b", "c", "d"}) {
+			tenantResolver.setCurrentTenant(tenant);
+			assertArrayEquals(new int[]{3}, suchindex.suchen("schmidt", 101).orElseThrow());
+		}
+
+		assertTrue(suchindex.getAnzahlIndizes() <= 2);
+	}
+}
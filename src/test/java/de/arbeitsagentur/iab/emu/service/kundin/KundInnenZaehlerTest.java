@@ -0,0 +1,98 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KundInnenZaehlerTest extends AbstractServiceTest {
+
+    @Autowired
+    KundInnenZaehler zaehler;
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    ProjektService projektService;
+
+    private int anzahlGruppen;
+
+    @BeforeEach
+    void projektAnlegenBeforeEach() throws Exception {
+        anzahlGruppen = projektService.create(ProjektFactory.gueltigesProjektErzeugen()).getGruppen().size();
+    }
+
+    @Test
+    void zaehlerWerdenNachCommitErhoeht() throws Exception {
+        anlegen(0, 2, TeilnahmeAbsagegrund.Teilnahme);
+        // Lädt die Zähler aus der Datenbank.
+        assertEquals(2, summe(zaehler.getKundInnenProGruppe()));
+
+        anlegen(2, 3, TeilnahmeAbsagegrund.Teilnahme);
+        anlegen(5, 4, TeilnahmeAbsagegrund.Absage);
+        List<KundInnenProGruppe> report = zaehler.getKundInnenProGruppe();
+        assertEquals(anzahlGruppen, report.size());
+        assertEquals(5, summe(report));
+
+        zaehler.abgleichen();
+        assertEquals(5, summe(zaehler.getKundInnenProGruppe()));
+    }
+
+    @Test
+    void zaehlerEntsprechenDerDatenbank() throws Exception {
+        zaehler.getKundInnenProGruppe();
+        anlegen(0, 50, TeilnahmeAbsagegrund.Teilnahme);
+
+        List<KundInnenProGruppe> erhoeht = zaehler.getKundInnenProGruppe();
+        zaehler.abgleichen();
+        List<KundInnenProGruppe> geladen = zaehler.getKundInnenProGruppe();
+
+        for (int i = 0; i < erhoeht.size(); i++) {
+            assertEquals(geladen.get(i).getGruppe(), erhoeht.get(i).getGruppe());
+            assertEquals(geladen.get(i).getAnzahl(), erhoeht.get(i).getAnzahl());
+        }
+        assertEquals(50, summe(geladen));
+    }
+
+    private void anlegen(int ab, int anzahl, TeilnahmeAbsagegrund teilnahmeAbsagegrund) throws Exception {
+        List<KundInnendaten> kundInnendaten = new ArrayList<>();
+        for (int i = ab; i < ab + anzahl; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setKundInnenennummer(String.format("123a%06d", i));
+            kd.setTeilnahmeAbsagegrund(teilnahmeAbsagegrund);
+            kundInnendaten.add(kd);
+        }
+        // Einzeln und als Import, beide Wege erhöhen die Zähler.
+        kundInService.create(kundInnendaten.remove(0));
+        kundInService.importieren(kundInnendaten);
+    }
+
+    private static long summe(List<KundInnenProGruppe> report) {
+        return report.stream().mapToLong(KundInnenProGruppe::getAnzahl).sum();
+    }
+}
@@ -20,7 +20,10 @@ package de.arbeitsagentur.iab.emu.service.kundin;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class KundInnennummerValidatorTest {
@@ -34,6 +37,27 @@ class KundInnennummerValidatorTest {
 		assertFalse(KundInnennummerValidator.isValid("123a5!7890"));
 		assertFalse(KundInnennummerValidator.isValid("1!3a56789"));
 		assertFalse(KundInnennummerValidator.isValid("13a56789"));
+		assertFalse(KundInnennummerValidator.isValid(null));
+		assertFalse(KundInnennummerValidator.isValid(""));
+		assertFalse(KundInnennummerValidator.isValid("123ä567890"));
+		assertFalse(KundInnennummerValidator.isValid("1234567890"));
+	}
+
+	@Test
+	void isValidNurExakterTreffer() {
+		assertFalse(KundInnennummerValidator.isValid("123a5678901"));
+		assertFalse(KundInnennummerValidator.isValid("x123a567890"));
+		assertFalse(KundInnennummerValidator.isValid(" 123a567890"));
+	}
+
+	@Test
+	void normalisiere() {
+		String kleingeschrieben = "123a567890";
+		assertSame(kleingeschrieben, KundInnennummerValidator.normalisiere(kleingeschrieben));
+		assertEquals("123z567890", KundInnennummerValidator.normalisiere("123Z567890"));
+
+		assertEquals("123A5!7890", KundInnennummerValidator.normalisiere("123A5!7890"));
+		assertNull(KundInnennummerValidator.normalisiere(null));
 	}
 
 }
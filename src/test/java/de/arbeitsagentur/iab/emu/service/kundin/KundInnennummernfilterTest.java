@@ -0,0 +1,98 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import de.arbeitsagentur.iab.emu.config.Primaerdatenbank;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KundInnennummernfilterTest {
+
+	private final KundInRepository kundInRepository = Mockito.mock(KundInRepository.class);
+
+	private final TenantResolver tenantResolver = new TenantResolver();
+
+	/**
+	 * Ohne Replikat wird direkt gelesen.
+	 */
+	private final Primaerdatenbank primaerdatenbank = new Primaerdatenbank(Mockito.mock(ObjectProvider.class),
+			Mockito.mock(PlatformTransactionManager.class));
+
+	/**
+	 * Die Nummern in der Datenbank, für alle Tenant-IDs gleich.
+	 */
+	private final List<String> nummern = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void repositoryBeforeEach() {
+		Mockito.when(kundInRepository.count()).thenAnswer(invocation -> (long) nummern.size());
+		Mockito.when(kundInRepository.streamKundInnennummern()).thenAnswer(invocation -> nummern.stream());
+	}
+
+	@Test
+	void ohneKundInnenKeinFilter() {
+		KundInnennummernfilter filter = new KundInnennummernfilter(kundInRepository, tenantResolver, primaerdatenbank,
+				0.01, 10, Duration.ofMinutes(15));
+		for (int i = 0; i < 100; i++) {
+			tenantResolver.setCurrentTenant("unbekannt-" + i);
+			assertTrue(filter.moeglicherweiseVergeben("123A456789"));
+		}
+
+		assertEquals(0, filter.getAnzahlFilter());
+	}
+
+	@Test
+	void anzahlBegrenzt() {
+		nummern.add("123A456789");
+		KundInnennummernfilter filter = new KundInnennummernfilter(kundInRepository, tenantResolver, primaerdatenbank,
+				0.01, 2, Duration.ofMinutes(15));
+		for (String tenant : new String[]{"a", "b", "c", "d"}) {
+			tenantResolver.setCurrentTenant(tenant);
+			assertTrue(filter.moeglicherweiseVergeben("123a456789"));
+		}
+
+		assertTrue(filter.getAnzahlFilter() <= 2);
+	}
+
+	@Test
+	void nachDemAbgleichNeuAufgebaut() throws Exception {
+		nummern.add("123A456789");
+		KundInnennummernfilter filter = new KundInnennummernfilter(kundInRepository, tenantResolver, primaerdatenbank,
+				0.01, 10, Duration.ofMillis(50));
+		tenantResolver.setCurrentTenant("a");
+		assertFalse(filter.moeglicherweiseVergeben("123B456789"));
+
+		// Von einer anderen Instanz angelegt.
+		nummern.add("123B456789");
+		Thread.sleep(100);
+
+		assertTrue(filter.moeglicherweiseVergeben("123B456789"));
+	}
+}
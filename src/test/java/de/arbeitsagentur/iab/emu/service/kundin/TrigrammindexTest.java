@@ -0,0 +1,88 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrigrammindexTest {
+
+	@Test
+	void suchen() {
+		Trigrammindex index = new Trigrammindex();
+		index.setzen(3, "Mustermann", "123a456789");
+		index.setzen(1, "Musterfrau", "123a456780");
+		index.setzen(2, "Schmidt", "987b654321");
+
+		assertArrayEquals(new int[]{1, 3}, index.suchen("muster", 101));
+		assertArrayEquals(new int[]{3}, index.suchen("TERM", 101));
+		assertArrayEquals(new int[]{2}, index.suchen("b65", 101));
+		assertArrayEquals(new int[]{1, 3}, index.suchen("123a45678", 101));
+		assertArrayEquals(new int[0], index.suchen("xyz", 101));
+		assertArrayEquals(new int[]{1}, index.suchen("muster", 1));
+	}
+
+	@Test
+	void keineTrefferUeberFeldgrenzen() {
+		Trigrammindex index = new Trigrammindex();
+		index.setzen(1, "Abc", "123a456789");
+
+		assertArrayEquals(new int[0], index.suchen("bc1", 101));
+	}
+
+	@Test
+	void setzenErsetztAltenSuchtext() {
+		Trigrammindex index = new Trigrammindex();
+		index.setzen(1, "Mustermann", "123a456789");
+		index.setzen(1, "Schmidt", "123a456789");
+
+		assertArrayEquals(new int[0], index.suchen("muster", 101));
+		assertArrayEquals(new int[]{1}, index.suchen("schmidt", 101));
+
+		index.setzen(1, "Mustermann", "123a456789");
+		assertArrayEquals(new int[]{1}, index.suchen("muster", 101));
+		assertEquals(1, index.getAnzahl());
+	}
+
+	@Test
+	void setzenFallsFehlendUeberschreibtNicht() {
+		Trigrammindex index = new Trigrammindex();
+		index.setzen(1, "Neu", "123a456789");
+		index.setzenFallsFehlend(1, "Alt", "123a456789");
+
+		assertArrayEquals(new int[]{1}, index.suchen("neu", 101));
+		assertArrayEquals(new int[0], index.suchen("alt", 101));
+	}
+
+	@Test
+	void wiederholteTrigramme() {
+		Trigrammindex index = new Trigrammindex();
+		index.setzen(1, "aaaaaa", null);
+
+		assertArrayEquals(new int[]{1}, index.suchen("aaaa", 101));
+	}
+
+	@Test
+	void suchbegriffZuKurz() {
+		Trigrammindex index = new Trigrammindex();
+		assertThrows(IllegalArgumentException.class, () -> index.suchen("ab", 101));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.kundin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektBereitsVorhandenException;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.UngueltigeFelddefintionException;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Speicherung der Zusatzinformationen in einer eigenen Tabelle, mit eigener Datenbank, weil das Schema abweicht.
+ */
+@TestPropertySource(properties = {"emu.zusatzinformationen.speicherung=tabelle",
+        "spring.datasource.url=jdbc:h2:mem:emutest_zusatzinformationen;DB_CLOSE_DELAY=-1"})
+class ZusatzinformationenTabelleTest extends AbstractServiceTest {
+
+    @Autowired
+    KundInService service;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @BeforeEach
+    void projektAufsetzenBeforeEach() throws UngueltigeGruppenException, UngueltigeFelddefintionException, ProjektBereitsVorhandenException {
+        projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+    }
+
+    @Test
+    void anlegenLesenExportieren() throws GruppeNichtGefundenException, UngueltigeKundInnennummerException,
+            KundInnennummerBereitsVorhandenException, KundInNichtGefundenException, IOException {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setKundInnenennummer("123A456789");
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        Zusatzinformation zi1 = new Zusatzinformation();
+        zi1.setName("B-Feld");
+        zi1.setWert("b");
+        Zusatzinformation zi2 = new Zusatzinformation();
+        zi2.setName("A-Feld");
+        zi2.setWert("a");
+        kd.setZusatzinformationen(List.of(zi1, zi2));
+
+        KundIn kundIn = service.create(kd);
+
+        List<Zusatzinformation> geladen = service.getById(kundIn.getId()).getKundInnendaten().getZusatzinformationen();
+        assertEquals(2, geladen.size());
+        assertEquals("B-Feld", geladen.get(0).getName());
+        assertEquals("A-Feld", geladen.get(1).getName());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kundin_zusatzinformationen WHERE kundin_id = ?",
+                Integer.class, kundIn.getId()));
+
+        StringWriter writer = new StringWriter();
+        assertEquals(1, service.exportieren(KundInnenExport.Format.NDJSON, writer));
+        JsonNode zeile = mapper.readTree(writer.toString());
+        assertEquals("a", zeile.get("zusatzinformationen").get("A-Feld").asText());
+        assertEquals("b", zeile.get("zusatzinformationen").get("B-Feld").asText());
+    }
+}
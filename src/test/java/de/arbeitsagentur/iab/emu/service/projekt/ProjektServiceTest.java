@@ -18,14 +18,19 @@
 
 package de.arbeitsagentur.iab.emu.service.projekt;
 
+import de.arbeitsagentur.iab.emu.config.CacheKonfiguration;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
 import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
 import de.arbeitsagentur.iab.emu.service.projekt.felddefinition.UngueltigeFelddefintionException;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
 import de.arbeitsagentur.iab.emu.service.projekt.gruppe.UngueltigeGruppenException;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
 
 import java.util.Collections;
 import java.util.List;
@@ -38,6 +43,15 @@ class ProjektServiceTest extends AbstractServiceTest {
     @Autowired
     ProjektService service;
 
+    @Autowired
+    GruppenintervallCache gruppenintervallCache;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    CacheManager cacheManager;
+
     @Test
     void getProjekt() throws ProjektBereitsVorhandenException, ProjektNichtGefundenException, UngueltigeGruppenException, UngueltigeFelddefintionException {
 
@@ -92,6 +106,19 @@ class ProjektServiceTest extends AbstractServiceTest {
         assertEquals(2,geladeneGruppenNachUpdate.size());
     }
 
+    @Test
+    void updateInvalidiertGruppenintervalle() throws UngueltigeGruppenException, ProjektBereitsVorhandenException, ProjektNichtGefundenException, UngueltigeFelddefintionException {
+
+        Projekt angelegtesProjekt = service.create(ProjektFactory.gueltigesProjektErzeugen());
+        assertEquals(20, gruppenintervallCache.getGruppenintervalle().getMaxObergrenze());
+
+        Collections.sort(angelegtesProjekt.getGruppen());
+        angelegtesProjekt.getGruppen().get(1).setObergrenze(30);
+        service.update(angelegtesProjekt);
+
+        assertEquals(30, gruppenintervallCache.getGruppenintervalle().getMaxObergrenze());
+    }
+
     @Test
     void updateFalscheId()  {
 
@@ -197,4 +224,31 @@ class ProjektServiceTest extends AbstractServiceTest {
         assertThrows(UngueltigeFelddefintionException.class, () -> service.create(p));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void getProjektWirdProMandantGecacht() throws ProjektBereitsVorhandenException, ProjektNichtGefundenException, UngueltigeGruppenException, UngueltigeFelddefintionException {
+        final String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        // Der Fehlschlag vor dem Anlegen darf nicht gecacht werden.
+        assertThrows(ProjektNichtGefundenException.class, () -> service.getProjekt());
+        Projekt angelegt = service.create(ProjektFactory.gueltigesProjektErzeugen());
+
+        Projekt geladen = service.getProjekt();
+        assertNotNull(cacheManager.getCache(CacheKonfiguration.PROJEKT).get(new SimpleKey(tenant)));
+
+        // Jeder Aufruf erhält eine eigene Kopie, Änderungen daran erreichen den Cache nicht.
+        assertNotSame(geladen, service.getProjekt());
+        geladen.setName("nur lokal");
+        geladen.getGruppen().get(0).setBezeichnung("nur lokal");
+        assertEquals(angelegt.getName(), service.getProjekt().getName());
+        assertNotEquals("nur lokal", service.getProjekt().getGruppen().get(0).getBezeichnung());
+
+        // Eine andere MandantIn sieht den Eintrag nicht.
+        tenantResolver.setCurrentTenant(tenant + "-anders");
+        assertThrows(ProjektNichtGefundenException.class, () -> service.getProjekt());
+
+        tenantResolver.setCurrentTenant(tenant);
+        angelegt.setName("geändert");
+        service.update(angelegt);
+        assertEquals("geändert", service.getProjekt().getName());
+    }
+}
@@ -18,8 +18,12 @@
 
 package de.arbeitsagentur.iab.emu.service.projekt;
 
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -100,4 +104,57 @@ class ProjektTest {
         assertNotNull(p.validiereGruppen());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void validiereGruppenZuteilungslisteZuVieleGruppen() {
+
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        List<Gruppe> gruppen = new ArrayList<>();
+        for (int i = 0; i <= Projekt.MAX_GRUPPEN_ZUTEILUNGSLISTE; i++) {
+            Gruppe g = new Gruppe();
+            g.setUntergrenze(i * 10 + 1);
+            g.setObergrenze(i * 10 + 10);
+            g.setBezeichnung("Gruppe " + i);
+            gruppen.add(g);
+        }
+        p.setGruppen(gruppen);
+
+        assertNull(p.validiereGruppen());
+
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Zuteilungsliste);
+
+        assertNotNull(p.validiereGruppen());
+
+    }
+
+    @Test
+    void validiereGruppenBlockZuGross() {
+
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Block);
+
+        assertNull(p.validiereGruppen());
+
+        // Breiten 10 und 1000 ergeben die Anteile 1 und 100.
+        p.getGruppen().get(1).setObergrenze(1010);
+        assertNull(p.validiereGruppen());
+
+        // Breiten 10 und 1001 haben keinen gemeinsamen Teiler.
+        p.getGruppen().get(1).setObergrenze(1011);
+        assertNotNull(p.validiereGruppen());
+
+    }
+
+    @Test
+    void validiereFelddefinitionenMinimierungOhneFaktor() {
+
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Minimierung);
+
+        assertNotNull(p.validiereFelddefinitionen());
+
+        p.getFelddefinitionen().get(0).setMinimierungsfaktor(true);
+        assertNull(p.validiereFelddefinitionen());
+
+    }
+}
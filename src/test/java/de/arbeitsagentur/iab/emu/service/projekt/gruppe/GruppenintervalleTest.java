@@ -0,0 +1,86 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.arbeitsagentur.iab.emu.service.projekt.gruppe;
+
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GruppenintervalleTest {
+
+    @Test
+    void findeGruppe() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        // Reihenfolge umdrehen, damit die Sortierung geprüft wird.
+        Collections.reverse(gruppen);
+
+        Gruppenintervalle intervalle = Gruppenintervalle.erstellen(gruppen);
+
+        assertEquals(1, intervalle.getMinUntergrenze());
+        assertEquals(20, intervalle.getMaxObergrenze());
+        assertEquals("Gruppe 1", intervalle.findeGruppe(1).orElseThrow().getBezeichnung());
+        assertEquals("Gruppe 1", intervalle.findeGruppe(10).orElseThrow().getBezeichnung());
+        assertEquals("Gruppe 2", intervalle.findeGruppe(11).orElseThrow().getBezeichnung());
+        assertEquals("Gruppe 2", intervalle.findeGruppe(20).orElseThrow().getBezeichnung());
+        assertTrue(intervalle.findeGruppe(0).isEmpty());
+        assertTrue(intervalle.findeGruppe(21).isEmpty());
+    }
+
+    @Test
+    void findeGruppeMitLuecke() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        gruppen.get(1).setUntergrenze(15);
+
+        Gruppenintervalle intervalle = Gruppenintervalle.erstellen(gruppen);
+
+        assertTrue(intervalle.findeGruppe(12).isEmpty());
+        assertEquals("Gruppe 2", intervalle.findeGruppe(15).orElseThrow().getBezeichnung());
+    }
+
+    @Test
+    void gruppenWerdenKopiert() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+
+        Gruppenintervalle intervalle = Gruppenintervalle.erstellen(gruppen);
+        gruppen.get(0).setObergrenze(5);
+
+        assertEquals("Gruppe 1", intervalle.findeGruppe(10).orElseThrow().getBezeichnung());
+    }
+
+    @Test
+    void leer() {
+        Gruppenintervalle intervalle = Gruppenintervalle.erstellen(Collections.emptyList());
+
+        assertTrue(intervalle.isLeer());
+        assertTrue(intervalle.findeGruppe(1).isEmpty());
+        assertThrows(IllegalStateException.class, intervalle::getMaxObergrenze);
+    }
+
+    @Test
+    void getBlockanteile() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        gruppen.get(1).setObergrenze(30);
+
+        assertArrayEquals(new int[]{1, 2}, Gruppenintervalle.erstellen(gruppen).getBlockanteile());
+    }
+}
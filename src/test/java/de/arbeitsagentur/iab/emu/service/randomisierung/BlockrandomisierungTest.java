@@ -0,0 +1,199 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockrandomisierungTest extends AbstractServiceTest {
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    Randomisierung randomisierung;
+
+    @Autowired
+    BlockzustandRepository blockzustandRepository;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    GruppenintervallCache gruppenintervallCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Gruppenintervalle gruppenintervalle;
+
+    @BeforeEach
+    void projektAnlegenBeforeEach() throws Exception {
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        // Anteile 1 und 2, Blockgröße 3
+        p.getGruppen().get(1).setObergrenze(30);
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Block);
+        p = projektService.create(p);
+        gruppenintervalle = Gruppenintervalle.erstellen(p.getGruppen());
+    }
+
+    private Map<Integer, Integer> zuteilen(int anzahl) throws Exception {
+        Map<Integer, Integer> anzahlProGruppe = new HashMap<>();
+        for (int i = 0; i < anzahl; i++) {
+            anzahlProGruppe.merge(randomisierung.zuteilen(new KundIn()).gruppe().getId(), 1, Integer::sum);
+        }
+        return anzahlProGruppe;
+    }
+
+    @Test
+    void erzeugenIstReproduzierbar() {
+        int[] block = Blockrandomisierung.erzeugen(42, 7, gruppenintervalle);
+
+        assertArrayEquals(block, Blockrandomisierung.erzeugen(42, 7, gruppenintervalle));
+        int[] sortiert = block.clone();
+        Arrays.sort(sortiert);
+        assertArrayEquals(new int[]{0, 1, 1}, sortiert);
+    }
+
+    @Test
+    void vollstaendigeBloeckeSindAusgeglichen() throws Exception {
+        Map<Integer, Integer> anzahlProGruppe = zuteilen(30);
+
+        assertEquals(10, anzahlProGruppe.get(gruppenintervalle.getGruppe(0).getId()));
+        assertEquals(20, anzahlProGruppe.get(gruppenintervalle.getGruppe(1).getId()));
+    }
+
+    @Test
+    void neuGeladeneGruppenSetzenDenBlockFort() throws Exception {
+        // Werden dieselben Gruppen neu geladen, wird der angefangene Block weiter vergeben.
+        Map<Integer, Integer> anzahlProGruppe = zuteilen(1);
+        gruppenintervallCache.invalidieren();
+        zuteilen(2).forEach((gruppe, anzahl) -> anzahlProGruppe.merge(gruppe, anzahl, Integer::sum));
+
+        assertEquals(1, anzahlProGruppe.get(gruppenintervalle.getGruppe(0).getId()));
+        assertEquals(2, anzahlProGruppe.get(gruppenintervalle.getGruppe(1).getId()));
+    }
+
+    @Test
+    void bloeckeProTenantId() throws Exception {
+        // Ein angefangener Block der ersten Tenant-ID beeinflusst die zweite nicht.
+        zuteilen(2);
+        String ersteTenantId = tenantResolver.resolveCurrentTenantIdentifier();
+        long ersterStartwert = blockzustandRepository.findBlockzustand().orElseThrow().getStartwert();
+
+        tenantResolver.setCurrentTenant(ersteTenantId + "-2");
+        projektAnlegenBeforeEach();
+        Map<Integer, Integer> anzahlProGruppe = zuteilen(3);
+
+        assertEquals(1, anzahlProGruppe.get(gruppenintervalle.getGruppe(0).getId()));
+        assertEquals(2, anzahlProGruppe.get(gruppenintervalle.getGruppe(1).getId()));
+        assertNotEquals(ersterStartwert, blockzustandRepository.findBlockzustand().orElseThrow().getStartwert());
+    }
+
+    @Test
+    void blockzustandWirdBeiBedarfAngelegt() throws Exception {
+        assertTrue(blockzustandRepository.findBlockzustand().isEmpty());
+
+        Zuteilung zuteilung = randomisierung.zuteilen(new KundIn());
+
+        assertEquals(Randomisierungsverfahren.Block, zuteilung.verfahren());
+        assertTrue(blockzustandRepository.findBlockzustand().isPresent());
+    }
+
+    @Test
+    void paralleleZuteilungen() throws Exception {
+        String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> ergebnisse = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ergebnisse.add(executor.submit(() -> {
+                tenantResolver.setCurrentTenant(tenant);
+                return randomisierung.zuteilen(new KundIn()).gruppe().getId();
+            }));
+        }
+        Map<Integer, Integer> anzahlProGruppe = new HashMap<>();
+        for (Future<Integer> ergebnis : ergebnisse) {
+            anzahlProGruppe.merge(ergebnis.get(), 1, Integer::sum);
+        }
+        executor.shutdown();
+
+        assertEquals(100, anzahlProGruppe.get(gruppenintervalle.getGruppe(0).getId()));
+        assertEquals(200, anzahlProGruppe.get(gruppenintervalle.getGruppe(1).getId()));
+    }
+
+    @Test
+    void ersteZuteilungenOhneBlockzustandWartenNichtAufeinander() throws Exception {
+        String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch angelegt = new CountDownLatch(1);
+        CountDownLatch wartet = new CountDownLatch(1);
+        Thread[] zweiter = new Thread[1];
+
+        // Die erste Transaktion legt den Blockzustand an und hält bis zum Commit die Sperre auf das Projekt.
+        Future<?> erste = executor.submit(() -> {
+            tenantResolver.setCurrentTenant(tenant);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                try {
+                    randomisierung.zuteilen(new KundIn());
+                    angelegt.countDown();
+                    assertTrue(wartet.await(10, TimeUnit.SECONDS));
+                    // Der zweite Thread wartet auf die Sperre des Projekts, der Block ist noch nicht übernommen.
+                    while (zweiter[0].getState() == Thread.State.RUNNABLE) {
+                        Thread.sleep(10);
+                    }
+                    randomisierung.zuteilen(new KundIn());
+                } catch (Exception e) {
+                    fail(e);
+                }
+            });
+        });
+        Future<?> zweite = executor.submit(() -> {
+            tenantResolver.setCurrentTenant(tenant);
+            zweiter[0] = Thread.currentThread();
+            assertTrue(angelegt.await(10, TimeUnit.SECONDS));
+            wartet.countDown();
+            return randomisierung.zuteilen(new KundIn());
+        });
+
+        erste.get(5, TimeUnit.SECONDS);
+        assertNotNull(zweite.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(blockzustandRepository.findBlockzustand().isPresent());
+    }
+}
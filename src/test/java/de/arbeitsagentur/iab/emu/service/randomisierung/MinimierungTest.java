@@ -0,0 +1,199 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.Mandantenbereitstellung;
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.*;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.GruppenintervallCache;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinimierungTest extends AbstractServiceTest {
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    Minimierung minimierung;
+
+    @Autowired
+    Randomisierung randomisierung;
+
+    @Autowired
+    KundInRepository kundInRepository;
+
+    @Autowired
+    GruppenintervallCache gruppenintervallCache;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ObjectProvider<Mandantenbereitstellung> mandantenbereitstellung;
+
+    private Gruppenintervalle gruppenintervalle;
+
+    private int naechsteKundInnennummer = 100000;
+
+    @BeforeEach
+    void projektAnlegenBeforeEach() throws Exception {
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        p.getFelddefinitionen().get(0).setName("Region");
+        p.getFelddefinitionen().get(0).setMinimierungsfaktor(true);
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Minimierung);
+        p = projektService.create(p);
+        gruppenintervalle = Gruppenintervalle.erstellen(p.getGruppen());
+    }
+
+    private KundIn kundIn(String region) {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A" + naechsteKundInnennummer++);
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        Zusatzinformation zi = new Zusatzinformation();
+        zi.setName("Region");
+        zi.setTyp("String");
+        zi.setWert(region);
+        kd.setZusatzinformationen(List.of(zi));
+        KundIn kundIn = new KundIn();
+        kundIn.setKundInnendaten(kd);
+        return kundIn;
+    }
+
+    private void anlegen(String region) throws Exception {
+        kundInService.create(kundIn(region).getKundInnendaten());
+    }
+
+    @Test
+    void gruppenSindProAuspraegungAusgeglichen() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            anlegen("Nord");
+            anlegen(i % 4 == 0 ? "Süd" : "Nord");
+        }
+
+        Minimierungstabelle tabelle = minimierung.getTabelle();
+        assertEquals(70, tabelle.anzahl("Region", "Nord", 0) + tabelle.anzahl("Region", "Nord", 1));
+        assertEquals(10, tabelle.anzahl("Region", "Süd", 0) + tabelle.anzahl("Region", "Süd", 1));
+        assertTrue(Math.abs(tabelle.anzahl("Region", "Nord", 0) - tabelle.anzahl("Region", "Nord", 1)) <= 8);
+        assertTrue(Math.abs(tabelle.anzahl("Region", "Süd", 0) - tabelle.anzahl("Region", "Süd", 1)) <= 8);
+    }
+
+    @Test
+    void neuAufgebauteTabelleEntsprichtFortgeschriebener() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            anlegen(i % 3 == 0 ? "Süd" : "Nord");
+        }
+        Minimierungstabelle fortgeschrieben = minimierung.getTabelle();
+
+        // Eine neue Instanz entspricht einem Neustart.
+        Minimierung neu = new Minimierung(kundInRepository, projektService, gruppenintervallCache, tenantResolver,
+                jdbcTemplate, transactionManager, mandantenbereitstellung, 80, Duration.ofSeconds(30));
+        String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        neu.aufbauen();
+        tenantResolver.setCurrentTenant(tenant);
+        Minimierungstabelle aufgebaut = neu.getTabelle();
+
+        assertNotNull(aufgebaut);
+        for (String region : List.of("Nord", "Süd")) {
+            for (int g = 0; g < gruppenintervalle.getAnzahl(); g++) {
+                assertEquals(fortgeschrieben.anzahl("Region", region, g), aufgebaut.anzahl("Region", region, g));
+            }
+        }
+    }
+
+    @Test
+    void rollbackNimmtZuordnungZurueck() throws Exception {
+        anlegen("Nord");
+        Minimierungstabelle tabelle = minimierung.getTabelle();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                assertEquals(Randomisierungsverfahren.Minimierung, randomisierung.zuteilen(kundIn("Nord")).verfahren());
+            } catch (GruppeNichtGefundenException e) {
+                fail(e);
+            }
+            assertEquals(2, tabelle.anzahl("Region", "Nord", 0) + tabelle.anzahl("Region", "Nord", 1));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1, tabelle.anzahl("Region", "Nord", 0) + tabelle.anzahl("Region", "Nord", 1));
+    }
+
+    @Test
+    void laufendeZuordnungBleibtBeimNeuaufbauErhalten() throws Exception {
+        anlegen("Nord");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                anlegen("Nord");
+                // Geänderte Grenzen erzwingen einen Neuaufbau, der die Zuordnung oben noch nicht lesen kann.
+                jdbcTemplate.update("UPDATE gruppe SET obergrenze = 12 WHERE id = ?", gruppenintervalle.getGruppe(0).getId());
+                jdbcTemplate.update("UPDATE gruppe SET untergrenze = 13 WHERE id = ?", gruppenintervalle.getGruppe(1).getId());
+                gruppenintervallCache.invalidieren();
+                anlegen("Süd");
+            } catch (Exception e) {
+                fail(e);
+            }
+        });
+
+        Minimierungstabelle tabelle = minimierung.getTabelle();
+        assertEquals(2, tabelle.anzahl("Region", "Nord", 0) + tabelle.anzahl("Region", "Nord", 1));
+        assertEquals(1, tabelle.anzahl("Region", "Süd", 0) + tabelle.anzahl("Region", "Süd", 1));
+    }
+
+    @Test
+    void gleicheGruppenBehaltenDieTabelle() throws Exception {
+        anlegen("Nord");
+        Minimierungstabelle tabelle = minimierung.getTabelle();
+
+        // Der Cache liefert danach eine neue, aber gleiche Tabelle der Gruppenintervalle.
+        gruppenintervallCache.invalidieren();
+        anlegen("Nord");
+
+        assertSame(tabelle, minimierung.getTabelle());
+        assertEquals(2, tabelle.anzahl("Region", "Nord", 0) + tabelle.anzahl("Region", "Nord", 1));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.service.kundin.Zusatzinformation;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinimierungstabelleTest {
+
+    private static List<Zusatzinformation> zusatzinformationen(String region, String geschlecht) {
+        Zusatzinformation r = new Zusatzinformation();
+        r.setName("Region");
+        r.setWert(region);
+        Zusatzinformation g = new Zusatzinformation();
+        g.setName("Geschlecht");
+        g.setWert(geschlecht);
+        return List.of(r, g);
+    }
+
+    @Test
+    void ungleichgewichte() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        Minimierungstabelle tabelle = new Minimierungstabelle(Gruppenintervalle.erstellen(gruppen), List.of("Region", "Geschlecht"));
+
+        int[] nordW = tabelle.zeilen(zusatzinformationen("Nord", "w"));
+        int[] nordM = tabelle.zeilen(zusatzinformationen("Nord", "m"));
+        tabelle.zaehlen(nordW, 0, 1);
+        tabelle.zaehlen(nordW, 0, 1);
+        tabelle.zaehlen(nordM, 1, 1);
+
+        // Region Nord: 2 zu 1, Geschlecht w: 2 zu 0
+        double[] ungleichgewichte = tabelle.ungleichgewichte(tabelle.zeilen(zusatzinformationen("Nord", "w")));
+        assertEquals(2 + 3, ungleichgewichte[0]);
+        assertEquals(0 + 1, ungleichgewichte[1]);
+
+        // Eine neue Ausprägung und ein fehlender Faktor zählen als eigene Zeilen.
+        assertArrayEquals(new double[]{1 + 1, 1 + 1}, tabelle.ungleichgewichte(tabelle.zeilen(List.of())), 0);
+        assertEquals(0, tabelle.anzahl("Region", "Süd", 0));
+    }
+
+    @Test
+    void ungleichgewichteNachAnteil() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        // Anteile 1 und 2
+        gruppen.get(1).setObergrenze(30);
+        Minimierungstabelle tabelle = new Minimierungstabelle(Gruppenintervalle.erstellen(gruppen), List.of("Region"));
+
+        int[] nord = tabelle.zeilen(zusatzinformationen("Nord", null));
+        tabelle.zaehlen(nord, 0, 1);
+        tabelle.zaehlen(nord, 1, 1);
+
+        // Gruppe 2 soll doppelt so viele KundInnen erhalten.
+        double[] ungleichgewichte = tabelle.ungleichgewichte(nord);
+        assertTrue(ungleichgewichte[1] < ungleichgewichte[0]);
+    }
+
+    @Test
+    void zeilenWachsen() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        Minimierungstabelle tabelle = new Minimierungstabelle(Gruppenintervalle.erstellen(gruppen), List.of("Region"));
+
+        for (int i = 0; i < 100; i++) {
+            tabelle.zaehlen(tabelle.zeilen(zusatzinformationen("Region " + i, null)), i % 2, 1);
+        }
+
+        assertEquals(1, tabelle.anzahl("Region", "Region 99", 1));
+        assertEquals(0, tabelle.anzahl("Region", "Region 99", 0));
+    }
+
+    @Test
+    void passt() {
+        List<Gruppe> gruppen = ProjektFactory.gueltigesProjektErzeugen().getGruppen();
+        gruppen.get(0).setId(1);
+        gruppen.get(1).setId(2);
+        Minimierungstabelle tabelle = new Minimierungstabelle(Gruppenintervalle.erstellen(gruppen), List.of("Region"));
+
+        assertTrue(tabelle.passt(Gruppenintervalle.erstellen(gruppen), List.of("Region")));
+        assertFalse(tabelle.passt(Gruppenintervalle.erstellen(gruppen), List.of("Region", "Geschlecht")));
+        gruppen.get(0).setObergrenze(12);
+        gruppen.get(1).setUntergrenze(13);
+        assertFalse(tabelle.passt(Gruppenintervalle.erstellen(gruppen), List.of("Region")));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.*;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppe;
+import de.arbeitsagentur.iab.emu.service.projekt.gruppe.Gruppenintervalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZuteilungslistenrandomisierungTest extends AbstractServiceTest {
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    Randomisierung randomisierung;
+
+    @Autowired
+    ZuteilungslisteRepository zuteilungslisteRepository;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Gruppenintervalle gruppenintervalle;
+
+    private int naechsteKundInnennummer = 100000;
+
+    @BeforeEach
+    void projektAnlegenBeforeEach() throws Exception {
+        gruppenintervalle = projektAnlegen();
+    }
+
+    private Gruppenintervalle projektAnlegen() throws Exception {
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Zuteilungsliste);
+        p = projektService.create(p);
+        randomisierung.projektAngelegt(p);
+        return Gruppenintervalle.erstellen(p.getGruppen());
+    }
+
+    private Gruppe anlegen() throws Exception {
+        KundInnendaten kd = new KundInnendaten();
+        kd.setGeburtsdatum(LocalDate.now());
+        kd.setKundInnenennummer("123A" + naechsteKundInnennummer++);
+        kd.setTeilnahmeAbsagegrund(TeilnahmeAbsagegrund.Teilnahme);
+        kd.setNachname("Nachname");
+        return kundInService.create(kd).getGruppe();
+    }
+
+    @Test
+    void erzeugenIstReproduzierbar() {
+        byte[] kurz = Zuteilungsliste.erzeugen(42, gruppenintervalle, 100);
+        byte[] lang = Zuteilungsliste.erzeugen(42, gruppenintervalle, 200);
+
+        assertArrayEquals(kurz, Arrays.copyOf(lang, 100));
+        for (byte platz : lang) {
+            assertTrue(Byte.toUnsignedInt(platz) < gruppenintervalle.getAnzahl());
+        }
+        assertFalse(Arrays.equals(kurz, Zuteilungsliste.erzeugen(43, gruppenintervalle, 100)));
+    }
+
+    @Test
+    void zuordnungFolgtDerZuteilungsliste() throws Exception {
+        Zuteilungsliste zuteilungsliste = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        assertEquals(Zuteilungsliste.LAENGE, zuteilungsliste.getPlaetze().length);
+        byte[] erwartet = Zuteilungsliste.erzeugen(zuteilungsliste.getAktuellerAbschnitt().startwert(), gruppenintervalle, 20);
+
+        for (int i = 0; i < erwartet.length; i++) {
+            assertEquals(gruppenintervalle.getGruppe(erwartet[i]).getId(), anlegen().getId());
+        }
+        assertEquals(erwartet.length, zuteilungslisteRepository.findNaechsterPlatz().orElseThrow());
+    }
+
+    @Test
+    void zuteilungslisteProTenantId() throws Exception {
+        anlegen();
+        anlegen();
+        String ersteTenantId = tenantResolver.resolveCurrentTenantIdentifier();
+
+        tenantResolver.setCurrentTenant(ersteTenantId + "-2");
+        projektAnlegen();
+        assertEquals(0, zuteilungslisteRepository.findNaechsterPlatz().orElseThrow());
+        anlegen();
+        assertEquals(1, zuteilungslisteRepository.findNaechsterPlatz().orElseThrow());
+
+        tenantResolver.setCurrentTenant(ersteTenantId);
+        assertEquals(2, zuteilungslisteRepository.findNaechsterPlatz().orElseThrow());
+    }
+
+    @Test
+    void zuteilungslisteWirdVerlaengert() throws Exception {
+        Zuteilungsliste zuteilungsliste = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        jdbcTemplate.update("UPDATE zuteilungsliste SET naechster_platz = ? WHERE id = ?",
+                Zuteilungsliste.LAENGE - 1, zuteilungsliste.getId());
+        byte[] erwartet = Zuteilungsliste.erzeugen(zuteilungsliste.getAktuellerAbschnitt().startwert(), gruppenintervalle, Zuteilungsliste.LAENGE + 1);
+
+        assertEquals(gruppenintervalle.getGruppe(erwartet[Zuteilungsliste.LAENGE - 1]).getId(), anlegen().getId());
+        assertEquals(gruppenintervalle.getGruppe(erwartet[Zuteilungsliste.LAENGE]).getId(), anlegen().getId());
+
+        zuteilungsliste = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        assertEquals(2 * Zuteilungsliste.LAENGE, zuteilungsliste.getPlaetze().length);
+        assertEquals(Zuteilungsliste.LAENGE + 1, zuteilungsliste.getNaechsterPlatz());
+    }
+
+    @Test
+    void zuteilungslisteWirdBeiBedarfAngelegt() throws Exception {
+        tenantResolver.setCurrentTenant(tenantResolver.resolveCurrentTenantIdentifier() + "-ohne");
+        Projekt p = ProjektFactory.gueltigesProjektErzeugen();
+        p.setRandomisierungsverfahren(Randomisierungsverfahren.Zuteilungsliste);
+        projektService.create(p);
+        assertTrue(zuteilungslisteRepository.findNaechsterPlatz().isEmpty());
+
+        assertNotNull(anlegen());
+        assertEquals(1, zuteilungslisteRepository.findNaechsterPlatz().orElseThrow());
+    }
+
+    @Test
+    void gruppenaenderungBeginntNeuenAbschnitt() throws Exception {
+        anlegen();
+        anlegen();
+        Zuteilungsliste vorher = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+
+        Projekt p = projektService.getProjekt();
+        Gruppe g3 = new Gruppe();
+        g3.setUntergrenze(21);
+        g3.setObergrenze(30);
+        g3.setBezeichnung("Gruppe 3");
+        p.getGruppen().add(g3);
+        projektService.update(p);
+        anlegen();
+
+        Zuteilungsliste nachher = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        assertEquals(2, nachher.getAbschnitte().size());
+        assertEquals(vorher.getAktuellerAbschnitt(), nachher.getAbschnitte().get(0));
+        assertEquals(2, nachher.getAktuellerAbschnitt().start());
+        assertEquals(3, nachher.getAktuellerAbschnitt().gruppenIds().size());
+        assertArrayEquals(Arrays.copyOf(vorher.getPlaetze(), 2), Arrays.copyOf(nachher.getPlaetze(), 2));
+    }
+
+    @Test
+    void geaenderteAnteileBeginnenNeuenAbschnittUndBleibenBeimVerlaengern() throws Exception {
+        anlegen();
+        anlegen();
+        Zuteilungsliste vorher = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+
+        Projekt p = projektService.getProjekt();
+        p.getGruppen().sort(Gruppe::compareTo);
+        p.getGruppen().get(0).setObergrenze(2);
+        p.getGruppen().get(1).setUntergrenze(3);
+        projektService.update(p);
+        Gruppenintervalle geaendert = Gruppenintervalle.erstellen(projektService.getProjekt().getGruppen());
+        anlegen();
+
+        Zuteilungsliste nachher = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        assertEquals(2, nachher.getAbschnitte().size());
+        Zuteilungsliste.Abschnitt abschnitt = nachher.getAktuellerAbschnitt();
+        assertEquals(2, abschnitt.start());
+        assertEquals(List.of(1, 3), abschnitt.untergrenzen());
+        assertEquals(List.of(2, 20), abschnitt.obergrenzen());
+        assertArrayEquals(Arrays.copyOf(vorher.getPlaetze(), 2), Arrays.copyOf(nachher.getPlaetze(), 2));
+
+        jdbcTemplate.update("UPDATE zuteilungsliste SET naechster_platz = ? WHERE id = ?",
+                Zuteilungsliste.LAENGE - 1, nachher.getId());
+        anlegen();
+        anlegen();
+
+        Zuteilungsliste verlaengert = zuteilungslisteRepository.findZuteilungsliste().orElseThrow();
+        assertEquals(2 * Zuteilungsliste.LAENGE, verlaengert.getPlaetze().length);
+        assertEquals(nachher.getAbschnitte(), verlaengert.getAbschnitte());
+        assertArrayEquals(nachher.getPlaetze(), Arrays.copyOf(verlaengert.getPlaetze(), Zuteilungsliste.LAENGE));
+        byte[] erwartet = Zuteilungsliste.erzeugen(abschnitt.startwert(), geaendert, 2 * Zuteilungsliste.LAENGE - 2);
+        assertArrayEquals(erwartet, Arrays.copyOfRange(verlaengert.getPlaetze(), 2, 2 * Zuteilungsliste.LAENGE));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.AbstractServiceTest;
+import de.arbeitsagentur.iab.emu.service.kundin.KundIn;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInService;
+import de.arbeitsagentur.iab.emu.service.kundin.KundInnendaten;
+import de.arbeitsagentur.iab.emu.service.kundin.TeilnahmeAbsagegrund;
+import de.arbeitsagentur.iab.emu.service.projekt.Projekt;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektFactory;
+import de.arbeitsagentur.iab.emu.service.projekt.ProjektService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "emu.journal.datei=target/zuteilungsjournal-test/zuteilungen.journal")
+class JournalPruefungTest extends AbstractServiceTest {
+
+    @Autowired
+    KundInService kundInService;
+
+    @Autowired
+    ProjektService projektService;
+
+    @Autowired
+    JournalPruefung journalPruefung;
+
+    @Autowired
+    TenantResolver tenantResolver;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Projekt projekt;
+
+    @BeforeEach
+    void projektAnlegenBeforeEach() throws Exception {
+        projekt = projektService.create(ProjektFactory.gueltigesProjektErzeugen());
+    }
+
+    private List<KundIn> anlegen(int anzahl) throws Exception {
+        List<KundIn> kundInnen = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            KundInnendaten kd = new KundInnendaten();
+            kd.setGeburtsdatum(LocalDate.now());
+            kd.setKundInnenennummer("123A" + (100000 + i));
+            kd.setTeilnahmeAbsagegrund(i == 0 ? TeilnahmeAbsagegrund.Absage : TeilnahmeAbsagegrund.Teilnahme);
+            kd.setNachname("Nachname");
+            kundInnen.add(kundInService.create(kd));
+        }
+        return kundInnen;
+    }
+
+    @Test
+    void journalEntsprichtDatenbank() throws Exception {
+        anlegen(10);
+        String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+
+        JournalPruefung.Ergebnis ergebnis = journalPruefung.pruefen(tenant);
+
+        assertEquals(9, ergebnis.eintraege());
+        assertEquals(9, ergebnis.kundInnen());
+        assertTrue(ergebnis.journalVollstaendig());
+        assertEquals(0, ergebnis.anzahlAbweichungen(), ergebnis.abweichungen().toString());
+    }
+
+    @Test
+    void abweichungWirdGemeldet() throws Exception {
+        KundIn kundIn = anlegen(2).get(1);
+        String tenant = tenantResolver.resolveCurrentTenantIdentifier();
+        Integer andereGruppe = projekt.getGruppen().stream()
+                .map(g -> g.getId())
+                .filter(id -> !id.equals(kundIn.getGruppe().getId()))
+                .findFirst().orElseThrow();
+        jdbcTemplate.update("UPDATE kundin SET gruppe_id = ? WHERE id = ?", andereGruppe, kundIn.getId());
+
+        JournalPruefung.Ergebnis ergebnis = journalPruefung.pruefen(tenant);
+
+        assertEquals(1, ergebnis.anzahlAbweichungen());
+        assertTrue(ergebnis.abweichungen().get(0).startsWith("KundIn " + kundIn.getId() + ":"));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Backend "Elektronischer Münzwurf"
+ * Copyright (C) 2025 Institut für Arbeitsmarkt und Berufsforschung <https://www.iab.de>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.arbeitsagentur.iab.emu.service.randomisierung.journal;
+
+import de.arbeitsagentur.iab.emu.config.TenantResolver;
+import de.arbeitsagentur.iab.emu.service.projekt.Randomisierungsverfahren;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZuteilungsjournalTest {
+
+    @TempDir
+    Path verzeichnis;
+
+    private static Journaleintrag eintrag(int i) {
+        return new Journaleintrag(i % 2 == 0 ? "tenant-ä" : "tenant-b", i, 1000L + i, 7, Instant.now().truncatedTo(ChronoUnit.MILLIS),
+                Randomisierungsverfahren.values()[i % Randomisierungsverfahren.values().length]);
+    }
+
+    private Zuteilungsjournal oeffnen(Path datei) throws Exception {
+        Zuteilungsjournal journal = new Zuteilungsjournal(new TenantResolver(), datei.toString());
+        journal.oeffnen();
+        return journal;
+    }
+
+    private static List<Journaleintrag> lesen(Path datei, boolean vollstaendig) throws Exception {
+        List<Journaleintrag> eintraege = new ArrayList<>();
+        JournalLeser.Ergebnis ergebnis = JournalLeser.lesen(datei, eintraege::add);
+        assertEquals(vollstaendig, ergebnis.vollstaendig());
+        assertEquals(eintraege.size(), ergebnis.anzahl());
+        return eintraege;
+    }
+
+    @Test
+    void schreibenUndLesen() throws Exception {
+        Path datei = verzeichnis.resolve("unterverzeichnis/zuteilungen.journal");
+        Zuteilungsjournal journal = oeffnen(datei);
+        List<Journaleintrag> erwartet = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            erwartet.add(eintrag(i));
+            journal.einreihen(erwartet.get(i));
+        }
+        journal.synchronisieren();
+        journal.schliessen();
+
+        assertEquals(erwartet, lesen(datei, true));
+
+        // Weitere Einträge werden angehängt.
+        journal = oeffnen(datei);
+        erwartet.add(eintrag(10_000));
+        journal.einreihen(erwartet.get(10_000));
+        journal.schliessen();
+
+        assertEquals(erwartet, lesen(datei, true));
+    }
+
+    @Test
+    void unvollstaendigerEintragWirdBeimOeffnenAbgeschnitten() throws Exception {
+        Path datei = verzeichnis.resolve("zuteilungen.journal");
+        Zuteilungsjournal journal = oeffnen(datei);
+        journal.einreihen(eintrag(1));
+        journal.einreihen(eintrag(2));
+        journal.schliessen();
+        long groesse = Files.size(datei);
+
+        // Absturz während des Schreibens: nur ein Teil des Eintrags ist in der Datei.
+        Files.write(datei, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        assertEquals(2, lesen(datei, false).size());
+
+        journal = oeffnen(datei);
+        assertEquals(groesse, Files.size(datei));
+        journal.einreihen(eintrag(3));
+        journal.schliessen();
+
+        assertEquals(List.of(1, 2, 3), lesen(datei, true).stream().map(Journaleintrag::kundInId).toList());
+    }
+
+    @Test
+    void beschaedigterEintragWirdErkannt() throws Exception {
+        Path datei = verzeichnis.resolve("zuteilungen.journal");
+        Zuteilungsjournal journal = oeffnen(datei);
+        for (int i = 0; i < 3; i++) {
+            journal.einreihen(eintrag(i));
+        }
+        journal.schliessen();
+
+        // Ein Byte der Gruppen-ID im zweiten Eintrag ändern.
+        long zweiterEintrag = Journalformat.KOPF_LAENGE + Journalformat.groesse(Journalformat.tenantKodieren("tenant-ä"));
+        try (RandomAccessFile zugriff = new RandomAccessFile(datei.toFile(), "rw")) {
+            zugriff.seek(zweiterEintrag + Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES);
+            zugriff.write(99);
+        }
+
+        List<Journaleintrag> eintraege = lesen(datei, false);
+        assertEquals(List.of(eintrag(0).kundInId()), eintraege.stream().map(Journaleintrag::kundInId).toList());
+    }
+
+    @Test
+    void ohneDateiDeaktiviert() throws Exception {
+        Zuteilungsjournal journal = new Zuteilungsjournal(new TenantResolver(), "");
+        journal.oeffnen();
+
+        assertNull(journal.getDatei());
+        journal.synchronisieren();
+        journal.schliessen();
+    }
+
+    @Test
+    void fehlgeschlagenerBlockGiltAlsVerloren() throws Exception {
+        Path datei = verzeichnis.resolve("zuteilungen.journal");
+        Zuteilungsjournal journal = oeffnen(datei);
+        journal.einreihen(eintrag(1));
+        journal.synchronisieren();
+
+        journal.einreihen(new Journaleintrag("x".repeat(100_000), 2, 1002L, 7, Instant.now(), Randomisierungsverfahren.Intervall));
+        journal.synchronisieren();
+        journal.einreihen(eintrag(3));
+        journal.synchronisieren();
+
+        assertEquals(1, journal.getVerloren());
+        journal.schliessen();
+        assertEquals(List.of(1, 3), lesen(datei, true).stream().map(Journaleintrag::kundInId).toList());
+    }
+
+    @Test
+    void ohneSchreibThreadWartetNiemandUnbegrenzt() throws Exception {
+        Path datei = verzeichnis.resolve("zuteilungen.journal");
+        // Andere Testkontexte können eigene Journale mit gleichnamigen Threads haben.
+        Set<Thread> vorher = Thread.getAllStackTraces().keySet();
+        Zuteilungsjournal journal = oeffnen(datei);
+        Thread schreiber = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("zuteilungsjournal") && !vorher.contains(thread))
+                .findFirst().orElseThrow();
+        schreiber.interrupt();
+        schreiber.join();
+
+        journal.einreihen(eintrag(1));
+        journal.synchronisieren();
+
+        assertEquals(1, journal.getVerloren());
+        journal.schliessen();
+    }
+}
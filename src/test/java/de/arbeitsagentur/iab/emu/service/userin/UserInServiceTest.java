@@ -288,4 +288,29 @@ class UserInServiceTest extends AbstractServiceTest {
         assertEquals(u1.getLogin(),userGeladen.get(0).getLogin());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllWirdGecachtUndBeiAenderungInvalidiert() throws LoginMehrfachVergebenException, UngueltigeUserInnendatenException, UserInNichtGefundenException {
+        UserIn u1 = new UserIn();
+        u1.setLogin("test1");
+        u1.setRolle("testrolle");
+        UserIn angelegt = service.create(u1);
+
+        Iterable<UserIn> geladen = service.getAll();
+        assertSame(geladen, service.getAll());
+        assertThrows(UnsupportedOperationException.class, () -> ((List<UserIn>) geladen).clear());
+
+        UserIn u2 = new UserIn();
+        u2.setLogin("test2");
+        u2.setRolle("testrolle");
+        service.create(u2);
+        assertEquals(2, StreamSupport.stream(service.getAll().spliterator(), false).count());
+
+        angelegt.setRolle("andere Rolle");
+        service.update(angelegt);
+        assertTrue(StreamSupport.stream(service.getAll().spliterator(), false).anyMatch(u -> "andere Rolle".equals(u.getRolle())));
+
+        service.delete(angelegt.getId());
+        assertEquals(1, StreamSupport.stream(service.getAll().spliterator(), false).count());
+    }
+}